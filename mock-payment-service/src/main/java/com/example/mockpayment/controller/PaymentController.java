@@ -1,5 +1,7 @@
 package com.example.mockpayment.controller;
 
+import com.example.mockpayment.dto.BatchPaymentRequest;
+import com.example.mockpayment.dto.BatchPaymentResponse;
 import com.example.mockpayment.dto.PaymentRequest;
 import com.example.mockpayment.dto.PaymentResponse;
 import com.example.mockpayment.service.PaymentService;
@@ -32,6 +34,18 @@ public class PaymentController {
         return ResponseEntity.ok(response);
     }
     
+    /**
+     * Create several payments in one call.
+     * POST /payments/create-batch
+     */
+    @PostMapping("/create-batch")
+    public ResponseEntity<BatchPaymentResponse> createPayments(@RequestBody BatchPaymentRequest request) {
+        int size = request.getPayments() == null ? 0 : request.getPayments().size();
+        log.info("POST /payments/create-batch - Payments: {}", size);
+        BatchPaymentResponse response = paymentService.createPayments(request.getPayments());
+        return ResponseEntity.ok(response);
+    }
+    
     /**
      * Get payment status.
      * GET /payments/{paymentId}/status
@@ -16,4 +16,5 @@ public class PaymentRequest {
     private String paymentId;
     private String orderId;
     private Double amount;
+    private String currency;
 }
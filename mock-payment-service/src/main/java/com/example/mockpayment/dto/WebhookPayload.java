@@ -17,4 +17,5 @@ public class WebhookPayload {
     private String orderId;
     private String status;
     private Double amount;
+    private String currency;
 }
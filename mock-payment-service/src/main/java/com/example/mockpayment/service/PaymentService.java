@@ -1,5 +1,6 @@
 package com.example.mockpayment.service;
 
+import com.example.mockpayment.dto.BatchPaymentResponse;
 import com.example.mockpayment.dto.PaymentRequest;
 import com.example.mockpayment.dto.PaymentResponse;
 import com.example.mockpayment.dto.WebhookPayload;
@@ -10,8 +11,12 @@ import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Random;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * Service for simulating payment processing.
@@ -23,6 +28,7 @@ import java.util.concurrent.ConcurrentHashMap;
 public class PaymentService {
     
     private final RestTemplate restTemplate;
+    private final Executor taskExecutor;
     
     @Value("${ecommerce.webhook.url}")
     private String webhookUrl;
@@ -55,6 +61,81 @@ public class PaymentService {
                 .build();
     }
     
+    /**
+     * Create several payments. Unknown payments are accepted and processed together
+     * after one processing delay; payments already known keep their current status.
+     */
+    public BatchPaymentResponse createPayments(List<PaymentRequest> requests) {
+        List<PaymentResponse> results = new ArrayList<>();
+        List<PaymentRequest> accepted = new ArrayList<>();
+        List<Integer> acceptedAt = new ArrayList<>();
+        
+        for (PaymentRequest request : requests == null ? List.<PaymentRequest>of() : requests) {
+            if (request.getPaymentId() == null) {
+                results.add(result(request, "REJECTED", "paymentId is required"));
+                continue;
+            }
+            String existing = paymentStatus.putIfAbsent(request.getPaymentId(), "PENDING");
+            if (existing != null) {
+                results.add(result(request, existing, "Payment already received."));
+                continue;
+            }
+            accepted.add(request);
+            acceptedAt.add(results.size());
+            results.add(result(request, "PENDING", "Payment is being processed. Webhook will be sent upon completion."));
+        }
+        
+        log.info("Received payment batch - {} payments, {} accepted", results.size(), accepted.size());
+        if (!accepted.isEmpty()) {
+            try {
+                taskExecutor.execute(() -> processBatch(accepted));
+            } catch (RejectedExecutionException e) {
+                // Nothing would ever process them: fail them now, webhooks included
+                log.warn("Payment batch of {} rejected by the executor, failing it", accepted.size());
+                for (int i = 0; i < accepted.size(); i++) {
+                    PaymentRequest request = accepted.get(i);
+                    paymentStatus.put(request.getPaymentId(), "FAILED");
+                    results.set(acceptedAt.get(i), result(request, "FAILED", "Payment processor is overloaded."));
+                    sendWebhook(request, "FAILED");
+                }
+            }
+        }
+        
+        return BatchPaymentResponse.builder()
+                .results(results)
+                .build();
+    }
+    
+    /**
+     * Process a batch of payments after a single delay.
+     */
+    private void processBatch(List<PaymentRequest> requests) {
+        try {
+            log.info("Processing {} payments - Waiting {} ms", requests.size(), processingDelay);
+            Thread.sleep(processingDelay);
+            
+            for (PaymentRequest request : requests) {
+                String status = new Random().nextInt(100) < 95 ? "SUCCESS" : "FAILED";
+                paymentStatus.put(request.getPaymentId(), status);
+                log.info("Payment {} processed with status: {}", request.getPaymentId(), status);
+                sendWebhook(request, status);
+            }
+        } catch (InterruptedException e) {
+            log.error("Batch payment processing interrupted: {}", e.getMessage());
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    private PaymentResponse result(PaymentRequest request, String status, String message) {
+        return PaymentResponse.builder()
+                .paymentId(request.getPaymentId())
+                .orderId(request.getOrderId())
+                .amount(request.getAmount())
+                .status(status)
+                .message(message)
+                .build();
+    }
+    
     /**
      * Process payment asynchronously after a delay.
      */
@@ -88,6 +169,7 @@ public class PaymentService {
                 .orderId(request.getOrderId())
                 .status(status)
                 .amount(request.getAmount())
+                .currency(request.getCurrency())
                 .build();
         
         try {
@@ -0,0 +1,132 @@
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Closed-loop HTTP load generator for the benchmark scripts: each of the
+ * concurrency threads sends GETs back to back, cycling through the URLs.
+ * Prints one line: requests/s, latency percentiles (ms), errors and mean body size.
+ *
+ * Usage: java scripts/HttpLoad.java -c 32 -d 20 -w 5 [-H "Name: value"]... url...
+ *   -c  concurrent connections (default 16)
+ *   -d  measured seconds (default 20)
+ *   -w  warm-up seconds, not measured (default 5)
+ *   -H  request header, may be repeated
+ */
+public class HttpLoad {
+    
+    public static void main(String[] args) throws Exception {
+        int concurrency = 16;
+        int seconds = 20;
+        int warmup = 5;
+        List<String[]> headers = new ArrayList<>();
+        List<URI> urls = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "-c" -> concurrency = Integer.parseInt(args[++i]);
+                case "-d" -> seconds = Integer.parseInt(args[++i]);
+                case "-w" -> warmup = Integer.parseInt(args[++i]);
+                case "-H" -> {
+                    String[] header = args[++i].split(":", 2);
+                    headers.add(new String[]{header[0].trim(), header[1].trim()});
+                }
+                default -> urls.add(URI.create(args[i]));
+            }
+        }
+        if (urls.isEmpty()) {
+            System.err.println("usage: java HttpLoad.java [-c n] [-d s] [-w s] [-H header]... url...");
+            System.exit(2);
+        }
+        
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        List<HttpRequest> requests = new ArrayList<>();
+        for (URI url : urls) {
+            HttpRequest.Builder builder = HttpRequest.newBuilder(url).timeout(Duration.ofSeconds(30)).GET();
+            headers.forEach(header -> builder.header(header[0], header[1]));
+            requests.add(builder.build());
+        }
+        
+        long start = System.nanoTime();
+        long measureFrom = start + warmup * 1_000_000_000L;
+        long end = measureFrom + seconds * 1_000_000_000L;
+        AtomicLong errors = new AtomicLong();
+        AtomicLong bytes = new AtomicLong();
+        long[][] latencies = new long[concurrency][];
+        int[] counts = new int[concurrency];
+        CountDownLatch done = new CountDownLatch(concurrency);
+        
+        for (int t = 0; t < concurrency; t++) {
+            int worker = t;
+            Thread thread = new Thread(() -> {
+                long[] samples = new long[1 << 16];
+                int n = 0;
+                int next = worker;
+                try {
+                    while (true) {
+                        long sent = System.nanoTime();
+                        if (sent >= end) {
+                            break;
+                        }
+                        HttpRequest request = requests.get(next++ % requests.size());
+                        boolean ok;
+                        int size = 0;
+                        try {
+                            HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+                            ok = response.statusCode() / 100 == 2 || response.statusCode() == 304;
+                            size = response.body().length;
+                        } catch (Exception e) {
+                            ok = false;
+                        }
+                        if (sent < measureFrom) {
+                            continue;
+                        }
+                        if (!ok) {
+                            errors.incrementAndGet();
+                        }
+                        bytes.addAndGet(size);
+                        if (n == samples.length) {
+                            samples = Arrays.copyOf(samples, n * 2);
+                        }
+                        samples[n++] = System.nanoTime() - sent;
+                    }
+                } finally {
+                    latencies[worker] = samples;
+                    counts[worker] = n;
+                    done.countDown();
+                }
+            }, "load-" + t);
+            thread.setDaemon(true);
+            thread.start();
+        }
+        done.await();
+        
+        int total = Arrays.stream(counts).sum();
+        long[] all = new long[total];
+        int offset = 0;
+        for (int t = 0; t < concurrency; t++) {
+            System.arraycopy(latencies[t], 0, all, offset, counts[t]);
+            offset += counts[t];
+        }
+        Arrays.sort(all);
+        System.out.printf("requests=%d rps=%.0f p50=%.2f p99=%.2f max=%.2f errors=%d bytes/resp=%d%n",
+                total, total / (double) seconds, percentile(all, 0.50), percentile(all, 0.99),
+                total == 0 ? 0 : all[total - 1] / 1e6, errors.get(), total == 0 ? 0 : bytes.get() / total);
+    }
+    
+    private static double percentile(long[] sorted, double p) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        return sorted[Math.min(sorted.length - 1, (int) (sorted.length * p))] / 1e6;
+    }
+}
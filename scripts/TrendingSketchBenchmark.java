@@ -0,0 +1,140 @@
+import com.example.ecommerce.analytics.CountMinSketch;
+import com.example.ecommerce.analytics.SlidingTopK;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Accuracy and memory benchmark for the trending-products sketches.
+ * Feeds a Zipf-distributed stream of sales into a SlidingTopK (as configured for
+ * the 1h window) and into an exact HashMap, then reports top-K recall against the
+ * exact ranking, estimate errors relative to the count-min bound, memory of the
+ * sketch vs the exact counts, and sketch throughput.
+ *
+ * Usage (after mvn compile): java -cp target/classes scripts/TrendingSketchBenchmark.java
+ *   -n  distinct products (default 100000)
+ *   -s  sales in the window (default 2000000)
+ *   -z  Zipf exponent (default 1.1)
+ *   -w  sketch width (default 2048), -d sketch depth (default 4), -k top-K (default 50)
+ */
+public class TrendingSketchBenchmark {
+    
+    public static void main(String[] args) {
+        int products = 100_000;
+        int sales = 2_000_000;
+        double exponent = 1.1;
+        int width = 2048;
+        int depth = 4;
+        int k = 50;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "-n" -> products = Integer.parseInt(args[++i]);
+                case "-s" -> sales = Integer.parseInt(args[++i]);
+                case "-z" -> exponent = Double.parseDouble(args[++i]);
+                case "-w" -> width = Integer.parseInt(args[++i]);
+                case "-d" -> depth = Integer.parseInt(args[++i]);
+                case "-k" -> k = Integer.parseInt(args[++i]);
+                default -> throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+        
+        String[] ids = new String[products];
+        for (int i = 0; i < products; i++) {
+            ids[i] = String.format("%024x", 0x6500000000000000L + i * 7919L);
+        }
+        int[] stream = zipf(products, sales, exponent, new Random(42));
+        
+        // Exact counts, keyed by their own copy of the id as a real counter would hold it
+        long heapBefore = usedHeap();
+        Map<String, Long> exact = new HashMap<>();
+        for (int product : stream) {
+            exact.merge(new String(ids[product].toCharArray()), 1L, Long::sum);
+        }
+        long exactBytes = usedHeap() - heapBefore;
+        
+        // The 1h window: twelve 5-minute slots; all sales land inside it
+        long now = System.currentTimeMillis();
+        SlidingTopK topK = new SlidingTopK(300_000, 12, width, depth, k);
+        CountMinSketch sketch = new CountMinSketch(width, depth);
+        long start = System.nanoTime();
+        for (int product : stream) {
+            topK.add(ids[product], 1, now);
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        for (int product : stream) {
+            sketch.add(ids[product], 1);
+        }
+        
+        List<Map.Entry<String, Long>> exactTop = new ArrayList<>(exact.entrySet());
+        exactTop.sort(Map.Entry.<String, Long>comparingByValue().reversed());
+        exactTop = exactTop.subList(0, Math.min(k, exactTop.size()));
+        List<Map.Entry<String, Long>> sketchTop = topK.top(k, now);
+        
+        Set<String> expected = new HashSet<>();
+        exactTop.forEach(entry -> expected.add(entry.getKey()));
+        long hits = sketchTop.stream().filter(entry -> expected.contains(entry.getKey())).count();
+        
+        double maxTopError = 0;
+        double sumTopError = 0;
+        for (Map.Entry<String, Long> entry : sketchTop) {
+            double error = entry.getValue() - exact.getOrDefault(entry.getKey(), 0L);
+            maxTopError = Math.max(maxTopError, error);
+            sumTopError += error;
+        }
+        
+        double bound = sketch.getRelativeError() * sales;
+        long withinBound = 0;
+        double sumError = 0;
+        for (Map.Entry<String, Long> entry : exact.entrySet()) {
+            long error = sketch.estimate(entry.getKey()) - entry.getValue();
+            sumError += error;
+            if (error <= bound) {
+                withinBound++;
+            }
+        }
+        
+        System.out.printf("products=%d sales=%d zipf=%.2f width=%d depth=%d k=%d%n",
+                products, sales, exponent, width, depth, k);
+        System.out.printf("top-%d recall: %d/%d (%.1f%%)%n", k, hits, exactTop.size(), 100.0 * hits / exactTop.size());
+        System.out.printf("top-%d overcount: mean %.1f, max %.0f sales (%.4f%% of the window)%n",
+                k, sumTopError / Math.max(1, sketchTop.size()), maxTopError, 100 * maxTopError / sales);
+        System.out.printf("all products: mean overcount %.1f; %d of %d over the bound e/width*N = %.0f (%.4f%%, allowed %.2f%%)%n",
+                sumError / exact.size(), exact.size() - withinBound, exact.size(), bound,
+                100.0 * (exact.size() - withinBound) / exact.size(), 100 * sketch.getFailureProbability());
+        System.out.printf("memory: sketch window %d KB (12 slots + sum, any number of products); exact HashMap %d KB for %d products in one slot%n",
+                topK.getMemoryBytes() / 1024, exactBytes / 1024, exact.size());
+        System.out.printf("throughput: %.1f M adds/s into the sliding top-K%n", sales / seconds / 1e6);
+    }
+    
+    /**
+     * Draw product ranks from a Zipf distribution by inverting its CDF.
+     */
+    private static int[] zipf(int n, int count, double exponent, Random random) {
+        double[] cdf = new double[n];
+        double sum = 0;
+        for (int i = 0; i < n; i++) {
+            sum += 1 / Math.pow(i + 1, exponent);
+            cdf[i] = sum;
+        }
+        int[] draws = new int[count];
+        for (int i = 0; i < count; i++) {
+            int index = Arrays.binarySearch(cdf, random.nextDouble() * sum);
+            draws[i] = index >= 0 ? index : Math.min(n - 1, -index - 1);
+        }
+        return draws;
+    }
+    
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,81 @@
+#!/usr/bin/env bash
+# Catalog read benchmark: pre-encoded response cache vs serializing every response.
+# Runs the app with the in-memory repositories (no MongoDB needed) twice, with
+# catalog.response-cache.enabled=true and =false, seeds products and loads
+# GET /api/products?page=N&size=20 and GET /api/products/{id} with scripts/HttpLoad.java.
+# Reports requests/s, latency and heap allocated per request
+# (delta of jvm.gc.memory.allocated over the measured run / requests).
+#
+# Usage: scripts/catalog-cache-benchmark.sh
+#   CONCURRENCY  concurrent connections (default 16)
+#   DURATION     measured seconds per run (default 20)
+#   PRODUCTS     products to seed (default 200)
+#   SKIP_BUILD=1 reuse target/ecommerce-0.0.1-SNAPSHOT.jar
+set -euo pipefail
+
+ROOT="$(cd "$(dirname "$0")/.." && pwd)"
+CONCURRENCY="${CONCURRENCY:-16}"
+DURATION="${DURATION:-20}"
+PRODUCTS="${PRODUCTS:-200}"
+PORT=18090
+BASE="http://localhost:$PORT"
+JAR="$ROOT/target/ecommerce-0.0.1-SNAPSHOT.jar"
+LOG="${TMPDIR:-/tmp}/catalog-cache-benchmark.log"
+
+if [ -z "${SKIP_BUILD:-}" ]; then
+    (cd "$ROOT" && mvn -B -q package -DskipTests)
+fi
+
+allocated() {
+    curl -sf "$BASE/actuator/metrics/jvm.gc.memory.allocated" \
+        | python3 -c 'import sys, json; print(int(json.load(sys.stdin)["measurements"][0]["value"]))'
+}
+
+# Run one load and print its result with the bytes allocated per request.
+load() {
+    local label="$1"; shift
+    java "$ROOT/scripts/HttpLoad.java" -c "$CONCURRENCY" -d 5 -w 0 "$@" > /dev/null
+    local before after result requests
+    before=$(allocated)
+    result=$(java "$ROOT/scripts/HttpLoad.java" -c "$CONCURRENCY" -d "$DURATION" -w 0 "$@")
+    after=$(allocated)
+    requests=$(sed 's/.*requests=\([0-9]*\).*/\1/' <<< "$result")
+    printf "%-34s %s alloc/req=%s KB\n" "$label" "$result" "$(( (after - before) / requests / 1024 ))"
+}
+
+run() {
+    local cache="$1"
+    java -Xms512m -Xmx512m -jar "$JAR" --server.port=$PORT \
+        --spring.profiles.active=memory --management.endpoints.web.exposure.include=health,metrics \
+        --catalog.response-cache.enabled="$cache" --catalog.snapshot.enabled=false \
+        --admission.enabled=false --stats.orders.enabled=false --money.migration.enabled=false \
+        --recommendations.rebuild-on-startup=false --payment.service.url=http://localhost:8081 \
+        > "$LOG" 2>&1 &
+    local pid=$!
+    until curl -sf -o /dev/null "$BASE/api/health"; do
+        kill -0 "$pid" 2>/dev/null || { echo "App exited; see $LOG" >&2; exit 1; }
+        sleep 0.2
+    done
+
+    local ids=()
+    for i in $(seq 1 "$PRODUCTS"); do
+        ids+=("$(curl -sf -H 'Content-Type: application/json' -X POST "$BASE/api/products" \
+            -d "{\"name\":\"Product $i\",\"description\":\"Benchmark product number $i with a description\",\"price\":$i.99,\"stock\":1000}" \
+            | python3 -c 'import sys, json; print(json.load(sys.stdin)["id"])')")
+    done
+    local pages=() products=()
+    for p in $(seq 0 $(( PRODUCTS / 20 - 1 ))); do pages+=("$BASE/api/products?page=$p&size=20"); done
+    for id in "${ids[@]:0:50}"; do products+=("$BASE/api/products/$id"); done
+
+    load "cache=$cache pages" "${pages[@]}"
+    load "cache=$cache products" "${products[@]}"
+    if [ "$cache" = true ]; then
+        load "cache=$cache pages, gzip" -H "Accept-Encoding: gzip" "${pages[@]}"
+    fi
+    kill "$pid"
+    wait "$pid" 2>/dev/null || true
+}
+
+echo "concurrency $CONCURRENCY, $DURATION s per run, $PRODUCTS products"
+run false
+run true
@@ -0,0 +1,88 @@
+#!/usr/bin/env bash
+# Read-path benchmark: blocking MVC (default profile) vs the reactive serving mode.
+# Needs a MongoDB (the reactive repositories have no in-memory variant). For each
+# mode and concurrency level it loads GET /api/products/{id}, /api/cart/{userId}
+# and /api/orders/{orderId} with scripts/HttpLoad.java and reports requests/s,
+# latency, live JVM threads and heap in use per in-flight request
+# ((heap used under load - heap used idle) / concurrency).
+#
+# Usage: scripts/reactive-read-benchmark.sh
+#   MONGODB_URI  database to use (default mongodb://localhost:27017/ecommerce-bench; it is written to)
+#   LEVELS       concurrency levels (default "16 64 256 1024")
+#   DURATION     measured seconds per run (default 20)
+#   SKIP_BUILD=1 reuse target/ecommerce-0.0.1-SNAPSHOT.jar
+set -euo pipefail
+
+ROOT="$(cd "$(dirname "$0")/.." && pwd)"
+MONGODB_URI="${MONGODB_URI:-mongodb://localhost:27017/ecommerce-bench}"
+LEVELS="${LEVELS:-16 64 256 1024}"
+DURATION="${DURATION:-20}"
+PORT=18091
+BASE="http://localhost:$PORT"
+JAR="$ROOT/target/ecommerce-0.0.1-SNAPSHOT.jar"
+LOG="${TMPDIR:-/tmp}/reactive-read-benchmark.log"
+
+if [ -z "${SKIP_BUILD:-}" ]; then
+    (cd "$ROOT" && mvn -B -q package -DskipTests)
+fi
+
+metric() {
+    curl -sf "$BASE/actuator/metrics/$1${2:+?tag=$2}" \
+        | python3 -c 'import sys, json; print(int(json.load(sys.stdin)["measurements"][0]["value"]))'
+}
+
+post() {
+    curl -sf -H 'Content-Type: application/json' -X POST "$BASE$1" -d "$2"
+}
+
+id() {
+    python3 -c 'import sys, json; print(json.load(sys.stdin)["id"])'
+}
+
+# Seed one user with a cart and an order; print the three read URLs.
+seed() {
+    local suffix user product order
+    suffix=$(date +%s%N)
+    user=$(post /api/users "{\"username\":\"bench$suffix\",\"email\":\"bench$suffix@example.com\"}" | id)
+    product=$(post /api/products '{"name":"Bench product","price":9.99,"stock":1000000}' | id)
+    post /api/cart/add "{\"userId\":\"$user\",\"productId\":\"$product\",\"quantity\":1}" > /dev/null
+    order=$(post /api/orders "{\"userId\":\"$user\"}" | id)
+    post /api/cart/add "{\"userId\":\"$user\",\"productId\":\"$product\",\"quantity\":2}" > /dev/null
+    echo "$BASE/api/products/$product $BASE/api/cart/$user $BASE/api/orders/$order"
+}
+
+run() {
+    local profile="$1"
+    java -Xms1g -Xmx1g -jar "$JAR" --server.port=$PORT ${profile:+--spring.profiles.active=$profile} \
+        --spring.data.mongodb.uri="$MONGODB_URI" --management.endpoints.web.exposure.include=health,metrics \
+        --admission.enabled=false --admission.user.enabled=false --catalog.snapshot.enabled=false \
+        --payment.service.url=http://localhost:8081 > "$LOG" 2>&1 &
+    local pid=$!
+    until curl -sf -o /dev/null "$BASE/api/health"; do
+        kill -0 "$pid" 2>/dev/null || { echo "App exited; see $LOG" >&2; exit 1; }
+        sleep 0.2
+    done
+    local urls
+    read -r -a urls <<< "$(seed)"
+    java "$ROOT/scripts/HttpLoad.java" -c 16 -d 10 -w 0 "${urls[@]}" > /dev/null
+
+    local level idle result threads heap
+    for level in $LEVELS; do
+        idle=$(metric jvm.memory.used area:heap)
+        java "$ROOT/scripts/HttpLoad.java" -c "$level" -d "$DURATION" -w 5 "${urls[@]}" > "$LOG.load" &
+        local load=$!
+        sleep $(( 5 + DURATION / 2 ))
+        threads=$(metric jvm.threads.live)
+        heap=$(metric jvm.memory.used area:heap)
+        wait "$load"
+        result=$(cat "$LOG.load")
+        printf "%-9s c=%-5s %s threads=%s heap/in-flight=%s KB\n" "${profile:-mvc}" "$level" "$result" \
+            "$threads" "$(( (heap > idle ? heap - idle : 0) / level / 1024 ))"
+    done
+    kill "$pid"
+    wait "$pid" 2>/dev/null || true
+}
+
+echo "MongoDB $MONGODB_URI, $DURATION s per level"
+run ""
+run reactive
@@ -0,0 +1,88 @@
+#!/usr/bin/env bash
+# Startup benchmark: time to first successful request and resident memory (RSS)
+# for the default fat jar and the startup-optimized build (AOT + CDS archive),
+# for both the ecommerce API and the mock payment service.
+#
+# Usage: scripts/startup-benchmark.sh [runs]
+#   RUNS            runs per artifact (default 5, or the first argument)
+#   SKIP_BUILD=1    reuse artifacts from a previous run in $WORK
+#   WORK            scratch directory (default $TMPDIR/startup-benchmark; not target/, which the builds clean)
+#   ECOMMERCE_ARGS  extra arguments for the ecommerce app
+#                   (default: --payment.service.url=http://localhost:8081)
+#
+# The ecommerce app answers /api/health without MongoDB, so no database is needed;
+# startup work that needs Mongo just logs and carries on.
+set -euo pipefail
+
+ROOT="$(cd "$(dirname "$0")/.." && pwd)"
+RUNS="${1:-${RUNS:-5}}"
+WORK="${WORK:-${TMPDIR:-/tmp}/startup-benchmark}"
+ECOMMERCE_ARGS="${ECOMMERCE_ARGS:---payment.service.url=http://localhost:8081}"
+
+build() {
+    local module_dir="$1" artifact="$2"
+    local out="$WORK/$artifact"
+    rm -rf "$out" && mkdir -p "$out/optimized"
+    (cd "$module_dir" && mvn -B -q clean package -DskipTests)
+    cp "$module_dir/target/$artifact-0.0.1-SNAPSHOT.jar" "$out/default.jar"
+    (cd "$module_dir" && mvn -B -q clean package -DskipTests -Pstartup-optimized)
+    cp -r "$module_dir/target/$artifact-0.0.1-SNAPSHOT.jar" "$module_dir/target/lib" \
+        "$module_dir/target/$artifact.jsa" "$out/optimized/"
+}
+
+# Start a command, poll the URL until it answers, print "<ms> <rss KB>" and stop it.
+measure() {
+    local url="$1"; shift
+    local start end pid rss
+    start=$(date +%s%N)
+    "$@" > "$WORK/last-run.log" 2>&1 &
+    pid=$!
+    until curl -sf -o /dev/null "$url"; do
+        if ! kill -0 "$pid" 2>/dev/null; then
+            echo "Process exited before answering $url; see $WORK/last-run.log" >&2
+            exit 1
+        fi
+        sleep 0.01
+    done
+    end=$(date +%s%N)
+    rss=$(awk '/VmRSS/ {print $2}' "/proc/$pid/status")
+    kill "$pid"
+    wait "$pid" 2>/dev/null || true
+    echo "$(( (end - start) / 1000000 )) $rss"
+}
+
+# Run an artifact RUNS times and print a result row with medians.
+bench() {
+    local label="$1" url="$2"; shift 2
+    local times=() rsses=() result
+    for _ in $(seq 1 "$RUNS"); do
+        result=$(measure "$url" "$@")
+        times+=("${result% *}")
+        rsses+=("${result#* }")
+    done
+    printf "%-42s %10s ms %10s MB\n" "$label" "$(median "${times[@]}")" "$(( $(median "${rsses[@]}") / 1024 ))"
+}
+
+median() {
+    printf "%s\n" "$@" | sort -n | awk '{a[NR]=$1} END {print a[int((NR + 1) / 2)]}'
+}
+
+mkdir -p "$WORK"
+if [ -z "${SKIP_BUILD:-}" ]; then
+    build "$ROOT" ecommerce
+    build "$ROOT/mock-payment-service" mock-payment-service
+fi
+
+E="$WORK/ecommerce"
+M="$WORK/mock-payment-service"
+printf "%-42s %13s %13s\n" "artifact (median of $RUNS)" "first request" "RSS"
+bench "ecommerce default" http://localhost:18080/api/health \
+    java -jar "$E/default.jar" --server.port=18080 $ECOMMERCE_ARGS
+bench "ecommerce AOT + CDS" http://localhost:18080/api/health \
+    java -XX:SharedArchiveFile="$E/optimized/ecommerce.jsa" -Dspring.aot.enabled=true \
+    -jar "$E/optimized/ecommerce-0.0.1-SNAPSHOT.jar" --server.port=18080 $ECOMMERCE_ARGS
+bench "mock-payment-service default" http://localhost:18081/payments/health \
+    java -jar "$M/default.jar" --server.port=18081
+bench "mock-payment-service AOT + CDS" http://localhost:18081/payments/health \
+    java -XX:SharedArchiveFile="$M/optimized/mock-payment-service.jsa" -Dspring.aot.enabled=true \
+    -jar "$M/optimized/mock-payment-service-0.0.1-SNAPSHOT.jar" --server.port=18081
@@ -0,0 +1,139 @@
+package com.example.ecommerce.admission;
+
+import com.example.ecommerce.dto.ApiResponse;
+import com.example.ecommerce.resilience.AdaptiveConcurrencyLimiter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Global admission control in front of all API controllers.
+ * Requests take a slot from an adaptive concurrency limit before any other work;
+ * when there is none they get an immediate 429 instead of queueing in Tomcat.
+ * Browsing may only use part of the limit and cart/user traffic a larger part,
+ * so under saturation they are shed before checkout and payment webhooks.
+ */
+@Slf4j
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+public class AdmissionControlFilter extends OncePerRequestFilter {
+    
+    private final ObjectMapper objectMapper;
+    private final AdaptiveConcurrencyLimiter limiter;
+    
+    @Value("${admission.enabled:true}")
+    private boolean enabled;
+    
+    @Value("${admission.share.normal:0.85}")
+    private double normalShare;
+    
+    @Value("${admission.share.browse:0.6}")
+    private double browseShare;
+    
+    @Value("${admission.retry-after-seconds:1}")
+    private long retryAfterSeconds;
+    
+    public AdmissionControlFilter(ObjectMapper objectMapper,
+                                  @Value("${admission.concurrency.initial-limit:100}") int initialLimit,
+                                  @Value("${admission.concurrency.min-limit:10}") int minLimit,
+                                  @Value("${admission.concurrency.max-limit:1000}") int maxLimit) {
+        this.objectMapper = objectMapper;
+        this.limiter = new AdaptiveConcurrencyLimiter(initialLimit, minLimit, maxLimit);
+    }
+    
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getRequestURI();
+        // Status streams stay open for minutes; they are capped by orders.stream.max-subscribers instead
+        return !enabled || !path.startsWith("/api/") || path.equals("/api/health")
+                || (path.startsWith("/api/orders/") && path.endsWith("/stream"));
+    }
+    
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        RequestPriority priority = RequestPriority.of(request.getMethod(), request.getRequestURI());
+        if (!limiter.tryAcquire(share(priority))) {
+            log.warn("Shedding {} request {} {} (limit {}, in flight {})", priority, request.getMethod(),
+                    request.getRequestURI(), limiter.getLimit(), limiter.getInFlight());
+            reject(response);
+            return;
+        }
+        
+        long start = System.nanoTime();
+        AtomicBoolean released = new AtomicBoolean();
+        Runnable release = () -> {
+            if (released.compareAndSet(false, true)) {
+                limiter.onSuccess(System.nanoTime() - start);
+            }
+        };
+        
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            if (request.isAsyncStarted()) {
+                // Reactive handlers finish on another thread; hold the slot until then
+                request.getAsyncContext().addListener(new ReleasingListener(release));
+            } else {
+                release.run();
+            }
+        }
+    }
+    
+    private double share(RequestPriority priority) {
+        return switch (priority) {
+            case CRITICAL -> 1.0;
+            case NORMAL -> normalShare;
+            case BROWSE -> browseShare;
+        };
+    }
+    
+    private void reject(HttpServletResponse response) throws IOException {
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(),
+                ApiResponse.error("Service is busy. Please retry shortly."));
+    }
+    
+    /**
+     * Releases the admission slot when an async request ends, however it ends.
+     */
+    private record ReleasingListener(Runnable release) implements AsyncListener {
+        
+        @Override
+        public void onComplete(AsyncEvent event) {
+            release.run();
+        }
+        
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            release.run();
+        }
+        
+        @Override
+        public void onError(AsyncEvent event) {
+            release.run();
+        }
+        
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+    }
+}
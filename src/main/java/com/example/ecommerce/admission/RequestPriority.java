@@ -0,0 +1,31 @@
+package com.example.ecommerce.admission;
+
+/**
+ * Admission priority of a request. When the service is saturated, lower
+ * priorities are shed first so checkout and payment webhooks keep flowing.
+ */
+public enum RequestPriority {
+    
+    /** Checkout, payments and payment webhooks. */
+    CRITICAL,
+    
+    /** Cart and user operations. */
+    NORMAL,
+    
+    /** Catalog browsing. */
+    BROWSE;
+    
+    /**
+     * Classify a request by method and path.
+     */
+    public static RequestPriority of(String method, String path) {
+        if (path.startsWith("/api/webhooks") || path.startsWith("/api/payments")
+                || (path.startsWith("/api/orders") && "POST".equals(method))) {
+            return CRITICAL;
+        }
+        if (path.startsWith("/api/products") && "GET".equals(method)) {
+            return BROWSE;
+        }
+        return NORMAL;
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.ecommerce.admission;
+
+import com.example.ecommerce.dto.UserScopedRequest;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.RequestBodyAdviceAdapter;
+
+import java.lang.reflect.Type;
+
+/**
+ * Applies the per-user rate limit to request bodies that carry a userId
+ * (add to cart, create order) as soon as they are read, before the handler runs.
+ */
+@ControllerAdvice
+@RequiredArgsConstructor
+public class UserRateLimitAdvice extends RequestBodyAdviceAdapter {
+    
+    private final UserRateLimiter userRateLimiter;
+    
+    @Override
+    public boolean supports(MethodParameter methodParameter, Type targetType,
+                            Class<? extends HttpMessageConverter<?>> converterType) {
+        return targetType instanceof Class<?> type && UserScopedRequest.class.isAssignableFrom(type);
+    }
+    
+    @Override
+    public Object afterBodyRead(Object body, HttpInputMessage inputMessage, MethodParameter parameter,
+                                Type targetType, Class<? extends HttpMessageConverter<?>> converterType) {
+        userRateLimiter.acquire(((UserScopedRequest) body).getUserId());
+        return body;
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.ecommerce.admission;
+
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.Map;
+
+/**
+ * Applies the per-user rate limit to requests that name the user in the path,
+ * e.g. GET /api/cart/{userId}. Users in request bodies are handled by {@link UserRateLimitAdvice}.
+ */
+@Component
+@RequiredArgsConstructor
+public class UserRateLimitInterceptor implements HandlerInterceptor {
+    
+    private final UserRateLimiter userRateLimiter;
+    
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        // Async (reactive) handlers are dispatched twice; count them once
+        if (request.getDispatcherType() == DispatcherType.ASYNC) {
+            return true;
+        }
+        Map<String, String> variables =
+                (Map<String, String>) request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+        if (variables != null) {
+            userRateLimiter.acquire(variables.get("userId"));
+        }
+        return true;
+    }
+}
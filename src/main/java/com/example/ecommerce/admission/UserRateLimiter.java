@@ -0,0 +1,55 @@
+package com.example.ecommerce.admission;
+
+import com.example.ecommerce.exception.TooManyRequestsException;
+import com.example.ecommerce.resilience.TokenBucket;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-user token buckets for cart and order requests.
+ * Buckets that have refilled completely are forgotten by a periodic sweep.
+ */
+@Slf4j
+@Component
+public class UserRateLimiter {
+    
+    @Value("${admission.user.enabled:true}")
+    private boolean enabled;
+    
+    @Value("${admission.user.requests-per-second:10}")
+    private double requestsPerSecond;
+    
+    @Value("${admission.user.burst:20}")
+    private int burst;
+    
+    private final Map<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+    
+    /**
+     * Take one token for the user, or throw a 429 telling them when to come back.
+     */
+    public void acquire(String userId) {
+        if (!enabled || userId == null || userId.isBlank()) {
+            return;
+        }
+        long waitNanos = buckets.computeIfAbsent(userId, id -> new TokenBucket(burst, requestsPerSecond)).tryAcquire(1);
+        if (waitNanos > 0) {
+            log.debug("User {} is over the rate limit", userId);
+            long retryAfter = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + TimeUnit.SECONDS.toNanos(1) - 1));
+            throw new TooManyRequestsException("Too many requests for user " + userId, retryAfter);
+        }
+    }
+    
+    /**
+     * Forget users whose bucket is full again.
+     */
+    @Scheduled(fixedDelayString = "${admission.user.sweep-interval-ms:60000}")
+    public void evictIdle() {
+        buckets.values().removeIf(TokenBucket::isFull);
+    }
+}
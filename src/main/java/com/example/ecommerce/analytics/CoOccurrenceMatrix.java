@@ -0,0 +1,107 @@
+package com.example.ecommerce.analytics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Sparse symmetric matrix of how often two products were bought in the same order.
+ * Products get dense int ids; each product's row is a primitive int-to-int map of
+ * co-purchased product ids to counts. A row is pruned back to its top N once it
+ * holds 2N entries, so memory per product is bounded; counts of pruned pairs
+ * restart from zero if they come back, which favours consistently strong pairs.
+ * Not thread-safe; callers synchronize.
+ */
+public class CoOccurrenceMatrix {
+    
+    private final int maxNeighbors;
+    private final Map<String, Integer> ids = new HashMap<>();
+    private final List<String> products = new ArrayList<>();
+    private IntIntHashMap[] rows = new IntIntHashMap[1024];
+    
+    public CoOccurrenceMatrix(int maxNeighbors) {
+        this.maxNeighbors = maxNeighbors;
+    }
+    
+    /**
+     * Count every pair of distinct products in one order.
+     */
+    public void addBasket(List<String> productIds) {
+        int[] basket = productIds.stream().distinct().mapToInt(this::idOf).toArray();
+        for (int i = 0; i < basket.length; i++) {
+            for (int j = i + 1; j < basket.length; j++) {
+                increment(basket[i], basket[j]);
+                increment(basket[j], basket[i]);
+            }
+        }
+    }
+    
+    /**
+     * The products most often bought with the given one, highest count first.
+     */
+    public List<Map.Entry<String, Integer>> related(String productId, int limit) {
+        Integer id = ids.get(productId);
+        IntIntHashMap row = id == null ? null : rows[id];
+        if (row == null || row.size() == 0) {
+            return List.of();
+        }
+        int[] neighbors = new int[row.size()];
+        int[] counts = new int[row.size()];
+        row.copyTo(neighbors, counts);
+        
+        // Rows are at most 2N long; sort packed (count, id) pairs instead of boxing
+        long[] packed = new long[neighbors.length];
+        for (int i = 0; i < neighbors.length; i++) {
+            packed[i] = ((long) counts[i] << 32) | neighbors[i];
+        }
+        Arrays.sort(packed);
+        int n = Math.min(limit, packed.length);
+        List<Map.Entry<String, Integer>> related = new ArrayList<>(n);
+        for (int i = packed.length - 1; i >= packed.length - n; i--) {
+            related.add(Map.entry(products.get((int) packed[i]), (int) (packed[i] >>> 32)));
+        }
+        return related;
+    }
+    
+    public int getProductCount() {
+        return products.size();
+    }
+    
+    public long getMemoryBytes() {
+        long bytes = (long) rows.length * Long.BYTES;
+        for (int i = 0; i < products.size(); i++) {
+            if (rows[i] != null) {
+                bytes += rows[i].getMemoryBytes();
+            }
+        }
+        return bytes;
+    }
+    
+    private void increment(int from, int to) {
+        IntIntHashMap row = rows[from];
+        if (row == null) {
+            row = new IntIntHashMap(4);
+            rows[from] = row;
+        }
+        row.addTo(to, 1);
+        if (row.size() >= maxNeighbors * 2) {
+            row.retainTop(maxNeighbors);
+        }
+    }
+    
+    private int idOf(String productId) {
+        Integer id = ids.get(productId);
+        if (id != null) {
+            return id;
+        }
+        int next = products.size();
+        ids.put(productId, next);
+        products.add(productId);
+        if (next == rows.length) {
+            rows = Arrays.copyOf(rows, rows.length * 2);
+        }
+        return next;
+    }
+}
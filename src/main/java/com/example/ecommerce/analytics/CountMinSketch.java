@@ -0,0 +1,135 @@
+package com.example.ecommerce.analytics;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+
+/**
+ * Count-min sketch of event counts per key.
+ * Estimates never undercount; with width w and depth d an estimate exceeds the
+ * true count by more than e/w of the total with probability at most e^-d.
+ * Sketches of the same shape can be added and subtracted cell by cell.
+ */
+public class CountMinSketch {
+    
+    private final int width;
+    private final int depth;
+    private final int[][] table;
+    
+    private long total;
+    
+    public CountMinSketch(int width, int depth) {
+        this.width = width;
+        this.depth = depth;
+        this.table = new int[depth][width];
+    }
+    
+    public void add(String key, int count) {
+        long hash = hash(key);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int row = 0; row < depth; row++) {
+            table[row][index(h1, h2, row)] += count;
+        }
+        total += count;
+    }
+    
+    public long estimate(String key) {
+        long hash = hash(key);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        long min = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            min = Math.min(min, table[row][index(h1, h2, row)]);
+        }
+        return min;
+    }
+    
+    /**
+     * Add (sign 1) or subtract (sign -1) another sketch of the same shape.
+     */
+    public void merge(CountMinSketch other, int sign) {
+        for (int row = 0; row < depth; row++) {
+            int[] mine = table[row];
+            int[] theirs = other.table[row];
+            for (int i = 0; i < width; i++) {
+                mine[i] += sign * theirs[i];
+            }
+        }
+        total += sign * other.total;
+    }
+    
+    public void clear() {
+        for (int[] row : table) {
+            Arrays.fill(row, 0);
+        }
+        total = 0;
+    }
+    
+    public long getTotal() {
+        return total;
+    }
+    
+    /**
+     * Bound on how far an estimate may exceed the true count, as a fraction of the total.
+     */
+    public double getRelativeError() {
+        return Math.E / width;
+    }
+    
+    /**
+     * Probability that an estimate exceeds the error bound.
+     */
+    public double getFailureProbability() {
+        return Math.exp(-depth);
+    }
+    
+    public long getMemoryBytes() {
+        return (long) width * depth * Integer.BYTES;
+    }
+    
+    public byte[] toBytes() {
+        ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES + (int) getMemoryBytes());
+        buffer.putLong(total);
+        IntBuffer ints = buffer.asIntBuffer();
+        for (int[] row : table) {
+            ints.put(row);
+        }
+        return buffer.array();
+    }
+    
+    /**
+     * Restore counts written by {@link #toBytes()}. Returns false if the shape does not match.
+     */
+    public boolean readFrom(byte[] bytes) {
+        if (bytes == null || bytes.length != Long.BYTES + getMemoryBytes()) {
+            return false;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        total = buffer.getLong();
+        IntBuffer ints = buffer.asIntBuffer();
+        for (int[] row : table) {
+            ints.get(row);
+        }
+        return true;
+    }
+    
+    private int index(int h1, int h2, int row) {
+        // Row hashes derived from two base hashes (Kirsch-Mitzenmacher)
+        return Math.floorMod(h1 + row * h2, width);
+    }
+    
+    private static long hash(String key) {
+        long h = 0x9E3779B97F4A7C15L;
+        for (int i = 0; i < key.length(); i++) {
+            h = (h ^ key.charAt(i)) * 0x100000001B3L;
+        }
+        // fmix64 finalizer to spread the bits across both halves
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB93FE1A85EC5L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
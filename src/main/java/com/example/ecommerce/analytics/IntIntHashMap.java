@@ -0,0 +1,138 @@
+package com.example.ecommerce.analytics;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing hash map from non-negative int keys to int values, without boxing.
+ * Linear probing; entries are only added or pruned in bulk, so there are no tombstones.
+ */
+public class IntIntHashMap {
+    
+    private static final int FREE = -1;
+    
+    private int[] keys;
+    private int[] values;
+    private int size;
+    private int mask;
+    
+    public IntIntHashMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, expectedSize * 2 - 1)) << 1;
+        allocate(capacity);
+    }
+    
+    public int get(int key) {
+        int slot = find(key);
+        return keys[slot] == key ? values[slot] : 0;
+    }
+    
+    /**
+     * Add delta to the key's value (starting from 0). Returns the new value.
+     */
+    public int addTo(int key, int delta) {
+        int slot = find(key);
+        if (keys[slot] == key) {
+            return values[slot] += delta;
+        }
+        keys[slot] = key;
+        values[slot] = delta;
+        if (++size * 2 > keys.length) {
+            rehash(keys.length << 1);
+        }
+        return delta;
+    }
+    
+    public int size() {
+        return size;
+    }
+    
+    /**
+     * Keep only the n entries with the highest values; ties at the cut-off are kept in slot order.
+     */
+    public void retainTop(int n) {
+        if (size <= n) {
+            return;
+        }
+        int[] sorted = new int[size];
+        int i = 0;
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (keys[slot] != FREE) {
+                sorted[i++] = values[slot];
+            }
+        }
+        Arrays.sort(sorted);
+        int threshold = sorted[size - n];
+        int tiesToKeep = 0;
+        for (int j = size - n; j < size && sorted[j] == threshold; j++) {
+            tiesToKeep++;
+        }
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(keys.length);
+        for (int slot = 0; slot < oldKeys.length; slot++) {
+            if (oldKeys[slot] == FREE || oldValues[slot] < threshold) {
+                continue;
+            }
+            if (oldValues[slot] == threshold && tiesToKeep-- <= 0) {
+                continue;
+            }
+            insert(oldKeys[slot], oldValues[slot]);
+        }
+    }
+    
+    /**
+     * Copy the entries into the given arrays, which must hold at least size() elements.
+     */
+    public void copyTo(int[] keysOut, int[] valuesOut) {
+        int i = 0;
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (keys[slot] != FREE) {
+                keysOut[i] = keys[slot];
+                valuesOut[i] = values[slot];
+                i++;
+            }
+        }
+    }
+    
+    public long getMemoryBytes() {
+        return (long) keys.length * 2 * Integer.BYTES;
+    }
+    
+    private int find(int key) {
+        int slot = mix(key) & mask;
+        while (keys[slot] != FREE && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+    
+    private void insert(int key, int value) {
+        int slot = find(key);
+        keys[slot] = key;
+        values[slot] = value;
+        size++;
+    }
+    
+    private void rehash(int capacity) {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(capacity);
+        for (int slot = 0; slot < oldKeys.length; slot++) {
+            if (oldKeys[slot] != FREE) {
+                insert(oldKeys[slot], oldValues[slot]);
+            }
+        }
+    }
+    
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new int[capacity];
+        Arrays.fill(keys, FREE);
+        mask = capacity - 1;
+        size = 0;
+    }
+    
+    private static int mix(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
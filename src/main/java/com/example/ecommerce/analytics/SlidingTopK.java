@@ -0,0 +1,172 @@
+package com.example.ecommerce.analytics;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Approximate top-K keys by count over a sliding time window.
+ * The window is a ring of slot sketches plus their running sum; when a slot
+ * falls out of the window it is subtracted from the sum and reused. Candidate
+ * keys for the top-K are tracked with their window estimates, bounded to a
+ * small multiple of K, and re-estimated whenever the window slides.
+ * Not thread-safe; callers synchronize.
+ */
+public class SlidingTopK {
+    
+    private static final int CANDIDATES_PER_K = 4;
+    
+    private final long slotMillis;
+    private final CountMinSketch[] slots;
+    private final CountMinSketch window;
+    private final int maxCandidates;
+    private final Map<String, Long> candidates = new HashMap<>();
+    
+    // Estimate a new key needs to displace a candidate once the candidates are full
+    private long admitThreshold;
+    
+    // Index, since the epoch, of the slot new counts go into
+    private long currentSlot;
+    
+    public SlidingTopK(long slotMillis, int slotCount, int width, int depth, int k) {
+        this.slotMillis = slotMillis;
+        this.slots = new CountMinSketch[slotCount];
+        for (int i = 0; i < slotCount; i++) {
+            slots[i] = new CountMinSketch(width, depth);
+        }
+        this.window = new CountMinSketch(width, depth);
+        this.maxCandidates = k * CANDIDATES_PER_K;
+        this.currentSlot = System.currentTimeMillis() / slotMillis;
+    }
+    
+    public void add(String key, int count, long nowMillis) {
+        advance(nowMillis);
+        slots[(int) (currentSlot % slots.length)].add(key, count);
+        window.add(key, count);
+        long estimate = window.estimate(key);
+        if (candidates.containsKey(key) || candidates.size() < maxCandidates) {
+            candidates.put(key, estimate);
+        } else if (estimate > admitThreshold) {
+            // Displace the weakest candidate; only then is the minimum looked for again
+            candidates.put(key, estimate);
+            candidates.entrySet().stream()
+                    .min(Map.Entry.comparingByValue())
+                    .ifPresent(smallest -> candidates.remove(smallest.getKey()));
+            updateAdmitThreshold();
+        }
+    }
+    
+    private void updateAdmitThreshold() {
+        admitThreshold = candidates.size() < maxCandidates ? 0
+                : candidates.values().stream().mapToLong(Long::longValue).min().orElse(0);
+    }
+    
+    /**
+     * The k keys with the highest estimated counts in the window, highest first.
+     */
+    public List<Map.Entry<String, Long>> top(int k, long nowMillis) {
+        advance(nowMillis);
+        PriorityQueue<Map.Entry<String, Long>> heap = new PriorityQueue<>(Map.Entry.comparingByValue());
+        for (Map.Entry<String, Long> candidate : candidates.entrySet()) {
+            heap.offer(Map.entry(candidate.getKey(), candidate.getValue()));
+            if (heap.size() > k) {
+                heap.poll();
+            }
+        }
+        List<Map.Entry<String, Long>> top = new ArrayList<>(heap);
+        top.sort(Map.Entry.<String, Long>comparingByValue().reversed());
+        return top;
+    }
+    
+    /**
+     * Slide the window forward to the slot containing now, dropping expired slots.
+     */
+    private void advance(long nowMillis) {
+        long slot = nowMillis / slotMillis;
+        if (slot <= currentSlot) {
+            return;
+        }
+        long steps = Math.min(slot - currentSlot, slots.length);
+        for (long i = 1; i <= steps; i++) {
+            CountMinSketch expired = slots[(int) ((currentSlot + i) % slots.length)];
+            window.merge(expired, -1);
+            expired.clear();
+        }
+        currentSlot = slot;
+        candidates.replaceAll((key, count) -> window.estimate(key));
+        candidates.values().removeIf(count -> count <= 0);
+        updateAdmitThreshold();
+    }
+    
+    public long getTotal() {
+        return window.getTotal();
+    }
+    
+    public double getRelativeError() {
+        return window.getRelativeError();
+    }
+    
+    public double getFailureProbability() {
+        return window.getFailureProbability();
+    }
+    
+    public long getMemoryBytes() {
+        return window.getMemoryBytes() * (slots.length + 1);
+    }
+    
+    public long getCurrentSlot() {
+        return currentSlot;
+    }
+    
+    public List<byte[]> slotsToBytes() {
+        List<byte[]> bytes = new ArrayList<>(slots.length);
+        for (CountMinSketch slot : slots) {
+            bytes.add(slot.toBytes());
+        }
+        return bytes;
+    }
+    
+    /**
+     * Restore slots saved with {@link #slotsToBytes()} at the given current slot.
+     * Returns false, leaving the window empty, if the saved shape does not match.
+     */
+    public boolean restore(long savedSlot, List<byte[]> savedSlots, long nowMillis) {
+        if (savedSlots == null || savedSlots.size() != slots.length) {
+            return false;
+        }
+        window.clear();
+        for (int i = 0; i < slots.length; i++) {
+            if (!slots[i].readFrom(savedSlots.get(i))) {
+                for (CountMinSketch slot : slots) {
+                    slot.clear();
+                }
+                window.clear();
+                return false;
+            }
+            window.merge(slots[i], 1);
+        }
+        currentSlot = savedSlot;
+        candidates.clear();
+        advance(nowMillis);
+        return true;
+    }
+    
+    /**
+     * Re-add candidate keys after a restore; their counts come from the restored window.
+     */
+    public void restoreCandidates(Iterable<String> keys) {
+        for (String key : keys) {
+            long estimate = window.estimate(key);
+            if (estimate > 0) {
+                candidates.put(key, estimate);
+            }
+        }
+        updateAdmitThreshold();
+    }
+    
+    public List<String> getCandidates() {
+        return new ArrayList<>(candidates.keySet());
+    }
+}
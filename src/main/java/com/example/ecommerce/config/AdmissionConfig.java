@@ -0,0 +1,23 @@
+package com.example.ecommerce.config;
+
+import com.example.ecommerce.admission.UserRateLimitInterceptor;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Registers the per-user rate limit for cart and order endpoints.
+ */
+@Configuration
+@RequiredArgsConstructor
+public class AdmissionConfig implements WebMvcConfigurer {
+    
+    private final UserRateLimitInterceptor userRateLimitInterceptor;
+    
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(userRateLimitInterceptor)
+                .addPathPatterns("/api/cart/**", "/api/orders/**");
+    }
+}
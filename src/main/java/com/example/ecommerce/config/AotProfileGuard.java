@@ -0,0 +1,41 @@
+package com.example.ecommerce.config;
+
+import org.springframework.aot.AotDetector;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.config.ConfigDataEnvironmentPostProcessor;
+import org.springframework.boot.env.EnvironmentPostProcessor;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.ConfigurableEnvironment;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Refuses to start the AOT-processed build with a profile that swaps beans.
+ * AOT fixes the bean definitions at build time (default profile), so with the memory or
+ * reactive profile it would silently keep the MongoDB repositories and blocking controllers.
+ * Registered in {@code META-INF/spring.factories}; runs once the config files have set the profiles.
+ */
+public class AotProfileGuard implements EnvironmentPostProcessor, Ordered {
+    
+    private static final List<String> BEAN_SWAPPING_PROFILES = List.of("memory", "reactive");
+    
+    @Override
+    public void postProcessEnvironment(ConfigurableEnvironment environment, SpringApplication application) {
+        if (!AotDetector.useGeneratedArtifacts()) {
+            return;
+        }
+        List<String> rejected = Arrays.stream(environment.getActiveProfiles())
+                .filter(BEAN_SWAPPING_PROFILES::contains)
+                .toList();
+        if (!rejected.isEmpty()) {
+            throw new IllegalStateException("Profiles " + rejected + " are not supported by the AOT-processed build,"
+                    + " whose beans were fixed for the default profile; start the regular jar instead");
+        }
+    }
+    
+    @Override
+    public int getOrder() {
+        return ConfigDataEnvironmentPostProcessor.ORDER + 1;
+    }
+}
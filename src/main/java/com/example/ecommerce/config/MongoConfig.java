@@ -0,0 +1,45 @@
+package com.example.ecommerce.config;
+
+import com.example.ecommerce.model.Money;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.data.convert.ReadingConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * MongoDB mapping configuration.
+ * Money fields are stored as { minorUnits, currency }. Documents written before
+ * that hold plain decimal numbers; those are read as {@link Money#DEFAULT_CURRENCY}
+ * until the startup migration has rewritten them.
+ */
+@Configuration
+public class MongoConfig {
+    
+    @Bean
+    public MongoCustomConversions mongoCustomConversions() {
+        return new MongoCustomConversions(List.of(
+                new LegacyDoubleToMoneyConverter(),
+                new LegacyIntegerToMoneyConverter()
+        ));
+    }
+    
+    @ReadingConverter
+    static class LegacyDoubleToMoneyConverter implements Converter<Double, Money> {
+        @Override
+        public Money convert(Double source) {
+            return Money.of(BigDecimal.valueOf(source), Money.DEFAULT_CURRENCY);
+        }
+    }
+    
+    @ReadingConverter
+    static class LegacyIntegerToMoneyConverter implements Converter<Integer, Money> {
+        @Override
+        public Money convert(Integer source) {
+            return Money.of(BigDecimal.valueOf(source), Money.DEFAULT_CURRENCY);
+        }
+    }
+}
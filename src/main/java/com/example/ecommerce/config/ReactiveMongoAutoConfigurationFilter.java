@@ -0,0 +1,44 @@
+package com.example.ecommerce.config;
+
+import org.springframework.boot.autoconfigure.AutoConfigurationImportFilter;
+import org.springframework.boot.autoconfigure.AutoConfigurationMetadata;
+import org.springframework.context.EnvironmentAware;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.Profiles;
+
+import java.util.Set;
+
+/**
+ * Leaves the reactive MongoDB auto-configuration out unless the {@code reactive} profile is active,
+ * so the other profiles run a single (blocking) MongoClient and its monitor threads.
+ * A filter rather than an {@code exclude}: excluded classes cannot be imported back per profile.
+ * Registered in {@code META-INF/spring.factories}.
+ */
+public class ReactiveMongoAutoConfigurationFilter implements AutoConfigurationImportFilter, EnvironmentAware {
+    
+    private static final Set<String> REACTIVE_MONGO = Set.of(
+            "org.springframework.boot.autoconfigure.mongo.MongoReactiveAutoConfiguration",
+            "org.springframework.boot.autoconfigure.data.mongo.MongoReactiveDataAutoConfiguration",
+            "org.springframework.boot.autoconfigure.data.mongo.MongoReactiveRepositoriesAutoConfiguration",
+            "org.springframework.boot.actuate.autoconfigure.data.mongo.MongoReactiveHealthContributorAutoConfiguration"
+    );
+    
+    private Environment environment;
+    
+    @Override
+    public void setEnvironment(Environment environment) {
+        this.environment = environment;
+    }
+    
+    @Override
+    public boolean[] match(String[] autoConfigurationClasses, AutoConfigurationMetadata autoConfigurationMetadata) {
+        boolean reactive = environment.acceptsProfiles(Profiles.of("reactive"));
+        boolean[] matches = new boolean[autoConfigurationClasses.length];
+        for (int i = 0; i < autoConfigurationClasses.length; i++) {
+            // Entries already dropped by an earlier filter are null
+            String candidate = autoConfigurationClasses[i];
+            matches[i] = reactive || candidate == null || !REACTIVE_MONGO.contains(candidate);
+        }
+        return matches;
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.ecommerce.controller;
+
+import com.example.ecommerce.dto.AbandonedCartsResponse;
+import com.example.ecommerce.dto.ApiResponse;
+import com.example.ecommerce.model.AbandonedCart;
+import com.example.ecommerce.service.AbandonedCartService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * REST controller for reading abandoned cart summaries.
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/admin/carts")
+@RequiredArgsConstructor
+public class AdminCartController {
+    
+    private static final int MAX_LIMIT = 1000;
+    
+    private final AbandonedCartService abandonedCartService;
+    
+    /**
+     * Read the abandoned cart stream in order, starting after a previously returned position.
+     * Positions are "{abandonedAt epoch millis}-{id}".
+     * GET /api/admin/carts/abandoned?after={next}&limit=100
+     */
+    @GetMapping("/abandoned")
+    public ResponseEntity<?> getAbandonedCarts(@RequestParam(required = false) String after,
+                                               @RequestParam(defaultValue = "100") int limit) {
+        log.info("GET /api/admin/carts/abandoned - Reading abandoned carts after {}", after);
+        Instant afterAbandonedAt = null;
+        String afterId = null;
+        if (after != null) {
+            int separator = after.indexOf('-');
+            try {
+                afterAbandonedAt = Instant.ofEpochMilli(Long.parseLong(after.substring(0, separator)));
+                afterId = after.substring(separator + 1);
+            } catch (RuntimeException e) {
+                // Rejected below
+            }
+            if (afterId == null || !ObjectId.isValid(afterId)) {
+                return ResponseEntity.badRequest().body(ApiResponse.error("Invalid position: " + after));
+            }
+        }
+        if (limit < 1 || limit > MAX_LIMIT) {
+            return ResponseEntity.badRequest().body(ApiResponse.error("limit must be between 1 and " + MAX_LIMIT));
+        }
+        List<AbandonedCart> carts = abandonedCartService.getAbandonedCarts(afterAbandonedAt, afterId, limit);
+        return ResponseEntity.ok(AbandonedCartsResponse.builder()
+                .carts(carts)
+                .next(carts.isEmpty() ? after : position(carts.get(carts.size() - 1)))
+                .build());
+    }
+    
+    private static String position(AbandonedCart cart) {
+        return cart.getAbandonedAt().toEpochMilli() + "-" + cart.getId();
+    }
+}
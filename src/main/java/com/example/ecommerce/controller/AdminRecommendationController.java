@@ -0,0 +1,32 @@
+package com.example.ecommerce.controller;
+
+import com.example.ecommerce.service.RecommendationService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+/**
+ * REST controller for maintaining the "frequently bought together" recommendations.
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/admin/recommendations")
+@RequiredArgsConstructor
+public class AdminRecommendationController {
+    
+    private final RecommendationService recommendationService;
+    
+    /**
+     * Recompute the co-occurrence matrix from all orders.
+     * POST /api/admin/recommendations/rebuild
+     */
+    @PostMapping("/rebuild")
+    public ResponseEntity<?> rebuild() {
+        log.info("POST /api/admin/recommendations/rebuild - Rebuilding recommendations");
+        int scanned = recommendationService.rebuild();
+        return ResponseEntity.ok(Map.of("message", "Recommendations rebuilt", "ordersScanned", scanned));
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.ecommerce.controller;
+
+import com.example.ecommerce.dto.ApiResponse;
+import com.example.ecommerce.dto.OrderStatsResponse;
+import com.example.ecommerce.model.OrderStats;
+import com.example.ecommerce.service.OrderStatsService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+/**
+ * REST controller for the admin order and revenue dashboard.
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/admin/stats")
+@RequiredArgsConstructor
+public class AdminStatsController {
+    
+    private final OrderStatsService orderStatsService;
+    
+    /**
+     * Get order counts per status and amounts per currency, overall and for the latest time buckets.
+     * GET /api/admin/stats/orders?granularity=HOUR&buckets=24
+     */
+    @GetMapping("/orders")
+    public ResponseEntity<?> getOrderStats(@RequestParam(defaultValue = "HOUR") String granularity,
+                                           @RequestParam(defaultValue = "24") int buckets) {
+        log.info("GET /api/admin/stats/orders - Fetching order stats by {}", granularity);
+        OrderStats.Granularity parsed;
+        try {
+            parsed = OrderStats.Granularity.valueOf(granularity.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error("Unknown granularity: " + granularity));
+        }
+        OrderStatsResponse stats = orderStatsService.getStats(parsed, buckets);
+        return ResponseEntity.ok(stats);
+    }
+    
+    /**
+     * Recompute all order stats from the orders collection.
+     * POST /api/admin/stats/orders/rebuild
+     */
+    @PostMapping("/orders/rebuild")
+    public ResponseEntity<?> rebuildOrderStats() {
+        log.info("POST /api/admin/stats/orders/rebuild - Rebuilding order stats");
+        int scanned = orderStatsService.rebuild();
+        return ResponseEntity.ok(Map.of("message", "Order stats rebuilt", "ordersScanned", scanned));
+    }
+}
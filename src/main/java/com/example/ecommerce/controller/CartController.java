@@ -2,7 +2,6 @@ package com.example.ecommerce.controller;
 
 import com.example.ecommerce.dto.AddToCartRequest;
 import com.example.ecommerce.dto.ApiResponse;
-import com.example.ecommerce.dto.CartItemResponse;
 import com.example.ecommerce.model.CartItem;
 import com.example.ecommerce.service.CartService;
 import jakarta.validation.Valid;
@@ -12,11 +11,11 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
 import java.util.Map;
 
 /**
- * REST controller for cart operations.
+ * REST controller for cart write operations.
+ * Cart reads are served by {@link CartReadController} or {@link ReactiveCartReadController}.
  */
 @Slf4j
 @RestController
@@ -42,17 +41,6 @@ public class CartController {
         }
     }
     
-    /**
-     * Get user's cart.
-     * GET /api/cart/{userId}
-     */
-    @GetMapping("/{userId}")
-    public ResponseEntity<List<CartItemResponse>> getCart(@PathVariable String userId) {
-        log.info("GET /api/cart/{} - Fetching cart", userId);
-        List<CartItemResponse> cart = cartService.getCart(userId);
-        return ResponseEntity.ok(cart);
-    }
-    
     /**
      * Clear user's cart.
      * DELETE /api/cart/{userId}/clear
@@ -0,0 +1,38 @@
+package com.example.ecommerce.controller;
+
+import com.example.ecommerce.dto.CartItemResponse;
+import com.example.ecommerce.service.CartService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * REST controller for cart reads on the blocking (default) serving mode.
+ */
+@Slf4j
+@RestController
+@Profile("!reactive")
+@RequestMapping("/api/cart")
+@RequiredArgsConstructor
+public class CartReadController {
+    
+    private final CartService cartService;
+    
+    /**
+     * Get user's cart.
+     * GET /api/cart/{userId}
+     */
+    @GetMapping("/{userId}")
+    public ResponseEntity<List<CartItemResponse>> getCart(@PathVariable String userId) {
+        log.info("GET /api/cart/{} - Fetching cart", userId);
+        List<CartItemResponse> cart = cartService.getCart(userId);
+        return ResponseEntity.ok(cart);
+    }
+}
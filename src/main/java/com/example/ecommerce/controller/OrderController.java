@@ -1,22 +1,29 @@
 package com.example.ecommerce.controller;
 
 import com.example.ecommerce.dto.ApiResponse;
+import com.example.ecommerce.exception.ServiceUnavailableException;
 import com.example.ecommerce.dto.CreateOrderRequest;
-import com.example.ecommerce.dto.OrderResponse;
 import com.example.ecommerce.model.Order;
+import com.example.ecommerce.service.IdempotencyService;
+import com.example.ecommerce.service.OrderJournalService;
 import com.example.ecommerce.service.OrderService;
+import com.example.ecommerce.service.OrderStatusStreamService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.dao.DataAccessException;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
-import java.util.List;
 import java.util.Map;
 
 /**
- * REST controller for order operations.
+ * REST controller for order write operations.
+ * Order reads are served by {@link OrderReadController} or {@link ReactiveOrderReadController}.
  */
 @Slf4j
 @RestController
@@ -25,59 +32,79 @@ import java.util.Map;
 public class OrderController {
     
     private final OrderService orderService;
+    private final IdempotencyService idempotencyService;
+    private final OrderJournalService orderJournalService;
+    private final OrderStatusStreamService orderStatusStreamService;
     
     /**
-     * Create order from cart.
+     * Create order from cart. Retries with the same Idempotency-Key get the original response.
      * POST /api/orders
      */
     @PostMapping
-    public ResponseEntity<?> createOrder(@Valid @RequestBody CreateOrderRequest request) {
+    public ResponseEntity<?> createOrder(@Valid @RequestBody CreateOrderRequest request,
+                                         @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
         log.info("POST /api/orders - Creating order for user: {}", request.getUserId());
+        return idempotencyService.execute("orders", idempotencyKey, request, () -> {
+            try {
+                Order order = orderService.createOrder(request);
+                return ResponseEntity.status(HttpStatus.CREATED).body(order);
+            } catch (ServiceUnavailableException | DataAccessException e) {
+                // Transient: answered with 503 and not stored, so a retry runs again
+                throw e;
+            } catch (RuntimeException e) {
+                log.error("Error creating order: {}", e.getMessage());
+                return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+            }
+        });
+    }
+    
+    /**
+     * Cancel an order.
+     * POST /api/orders/{orderId}/cancel
+     */
+    @PostMapping("/{orderId}/cancel")
+    public ResponseEntity<?> cancelOrder(@PathVariable String orderId) {
+        log.info("POST /api/orders/{}/cancel - Cancelling order", orderId);
         try {
-            Order order = orderService.createOrder(request);
-            return ResponseEntity.status(HttpStatus.CREATED).body(order);
+            orderService.cancelOrder(orderId);
+            return ResponseEntity.ok(Map.of("message", "Order cancelled successfully"));
         } catch (RuntimeException e) {
-            log.error("Error creating order: {}", e.getMessage());
+            log.error("Error cancelling order: {}", e.getMessage());
             return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
         }
     }
     
     /**
-     * Get order by ID.
-     * GET /api/orders/{orderId}
+     * Get an order's lifecycle events, replayed from the order journal.
+     * GET /api/orders/{orderId}/events
      */
-    @GetMapping("/{orderId}")
-    public ResponseEntity<?> getOrder(@PathVariable String orderId) {
-        log.info("GET /api/orders/{} - Fetching order", orderId);
-        return orderService.getOrderResponse(orderId)
+    @GetMapping("/{orderId}/events")
+    public ResponseEntity<?> getOrderEvents(@PathVariable String orderId) {
+        log.info("GET /api/orders/{}/events - Fetching order events", orderId);
+        return orderJournalService.getEvents(orderId)
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
     
     /**
-     * Get orders by user ID.
-     * GET /api/orders/user/{userId}
-     */
-    @GetMapping("/user/{userId}")
-    public ResponseEntity<List<Order>> getOrdersByUser(@PathVariable String userId) {
-        log.info("GET /api/orders/user/{} - Fetching user orders", userId);
-        List<Order> orders = orderService.getOrdersByUserId(userId);
-        return ResponseEntity.ok(orders);
-    }
-    
-    /**
-     * Cancel an order.
-     * POST /api/orders/{orderId}/cancel
+     * Stream an order's status changes as server-sent events, instead of polling the order.
+     * GET /api/orders/{orderId}/stream
      */
-    @PostMapping("/{orderId}/cancel")
-    public ResponseEntity<?> cancelOrder(@PathVariable String orderId) {
-        log.info("POST /api/orders/{}/cancel - Cancelling order", orderId);
+    @GetMapping(value = "/{orderId}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamOrderStatus(@PathVariable String orderId,
+                                                        @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        log.info("GET /api/orders/{}/stream - Opening status stream, last event: {}", orderId, lastEventId);
+        if (orderStatusStreamService.isFull()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "5").build();
+        }
         try {
-            orderService.cancelOrder(orderId);
-            return ResponseEntity.ok(Map.of("message", "Order cancelled successfully"));
+            // 204 once the final status has been seen, so EventSource clients stop reconnecting
+            return orderStatusStreamService.subscribe(orderId, lastEventId)
+                    .map(ResponseEntity::ok)
+                    .orElse(ResponseEntity.noContent().build());
         } catch (RuntimeException e) {
-            log.error("Error cancelling order: {}", e.getMessage());
-            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+            log.error("Error opening order status stream: {}", e.getMessage());
+            return ResponseEntity.notFound().build();
         }
     }
 }
@@ -0,0 +1,50 @@
+package com.example.ecommerce.controller;
+
+import com.example.ecommerce.model.Order;
+import com.example.ecommerce.service.OrderService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * REST controller for order reads on the blocking (default) serving mode.
+ */
+@Slf4j
+@RestController
+@Profile("!reactive")
+@RequestMapping("/api/orders")
+@RequiredArgsConstructor
+public class OrderReadController {
+    
+    private final OrderService orderService;
+    
+    /**
+     * Get order by ID.
+     * GET /api/orders/{orderId}
+     */
+    @GetMapping("/{orderId}")
+    public ResponseEntity<?> getOrder(@PathVariable String orderId) {
+        log.info("GET /api/orders/{} - Fetching order", orderId);
+        return orderService.getOrderResponse(orderId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+    
+    /**
+     * Get orders by user ID.
+     * GET /api/orders/user/{userId}
+     */
+    @GetMapping("/user/{userId}")
+    public ResponseEntity<List<Order>> getOrdersByUser(@PathVariable String userId) {
+        log.info("GET /api/orders/user/{} - Fetching user orders", userId);
+        List<Order> orders = orderService.getOrdersByUserId(userId);
+        return ResponseEntity.ok(orders);
+    }
+}
@@ -1,12 +1,15 @@
 package com.example.ecommerce.controller;
 
 import com.example.ecommerce.dto.ApiResponse;
+import com.example.ecommerce.exception.ServiceUnavailableException;
 import com.example.ecommerce.dto.PaymentRequest;
 import com.example.ecommerce.dto.PaymentResponse;
+import com.example.ecommerce.service.IdempotencyService;
 import com.example.ecommerce.service.PaymentService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -21,21 +24,28 @@ import org.springframework.web.bind.annotation.*;
 public class PaymentController {
     
     private final PaymentService paymentService;
+    private final IdempotencyService idempotencyService;
     
     /**
-     * Create payment for an order.
+     * Create payment for an order. Retries with the same Idempotency-Key get the original response.
      * POST /api/payments/create
      */
     @PostMapping("/create")
-    public ResponseEntity<?> createPayment(@Valid @RequestBody PaymentRequest request) {
+    public ResponseEntity<?> createPayment(@Valid @RequestBody PaymentRequest request,
+                                           @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
         log.info("POST /api/payments/create - Order: {}", request.getOrderId());
-        try {
-            PaymentResponse payment = paymentService.createPayment(request);
-            return ResponseEntity.status(HttpStatus.CREATED).body(payment);
-        } catch (RuntimeException e) {
-            log.error("Error creating payment: {}", e.getMessage());
-            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
-        }
+        return idempotencyService.execute("payments", idempotencyKey, request, () -> {
+            try {
+                PaymentResponse payment = paymentService.createPayment(request);
+                return ResponseEntity.status(HttpStatus.CREATED).body(payment);
+            } catch (ServiceUnavailableException | DataAccessException e) {
+                // Transient: answered with 503 and not stored, so a retry runs again
+                throw e;
+            } catch (RuntimeException e) {
+                log.error("Error creating payment: {}", e.getMessage());
+                return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+            }
+        });
     }
     
     /**
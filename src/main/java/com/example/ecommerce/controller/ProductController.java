@@ -2,19 +2,38 @@ package com.example.ecommerce.controller;
 
 import com.example.ecommerce.dto.ApiResponse;
 import com.example.ecommerce.dto.CreateProductRequest;
+import com.example.ecommerce.dto.RelatedProductsResponse;
+import com.example.ecommerce.dto.StockAvailabilityResponse;
 import com.example.ecommerce.model.Product;
+import com.example.ecommerce.service.CatalogSnapshotService;
+import com.example.ecommerce.service.HotInventoryService;
 import com.example.ecommerce.service.ProductService;
+import com.example.ecommerce.service.RecommendationService;
+import com.example.ecommerce.service.TrendingProductsService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
-import java.util.List;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
 
 /**
  * REST controller for product operations.
+ * Catalog listing and lookup are served by {@link ProductReadController} or, in the
+ * reactive profile, by {@link ReactiveProductReadController}.
  */
 @Slf4j
 @RestController
@@ -22,7 +41,17 @@ import java.util.List;
 @RequiredArgsConstructor
 public class ProductController {
     
+    // Tomcat's sendfile request attributes
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+    
     private final ProductService productService;
+    private final HotInventoryService hotInventoryService;
+    private final TrendingProductsService trendingProductsService;
+    private final RecommendationService recommendationService;
+    private final CatalogSnapshotService catalogSnapshotService;
     
     /**
      * Create a new product.
@@ -36,36 +65,89 @@ public class ProductController {
     }
     
     /**
-     * Get all products.
-     * GET /api/products
+     * Download the binary catalog snapshot for bulk sync. Served with sendfile where
+     * the connector supports it, so the file goes from page cache to socket without
+     * passing through the JVM. Honours If-None-Match.
+     * GET /api/products/snapshot
+     */
+    @GetMapping("/snapshot")
+    public void getSnapshot(WebRequest webRequest, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        log.info("GET /api/products/snapshot - Downloading catalog snapshot");
+        CatalogSnapshotService.SnapshotFile snapshot = catalogSnapshotService.getCurrent();
+        if (snapshot == null || !Files.exists(snapshot.getPath())) {
+            response.sendError(HttpStatus.NOT_FOUND.value(), "No catalog snapshot yet");
+            return;
+        }
+        if (webRequest.checkNotModified(snapshot.getETag())) {
+            return;
+        }
+        response.setContentType(MediaType.APPLICATION_OCTET_STREAM_VALUE);
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + snapshot.getPath().getFileName() + "\"");
+        response.setContentLengthLong(snapshot.getSize());
+        
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute(SENDFILE_FILENAME, snapshot.getPath().toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, 0L);
+            request.setAttribute(SENDFILE_END, snapshot.getSize());
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(snapshot.getPath(), StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = 0;
+            while (position < snapshot.getSize()) {
+                position += channel.transferTo(position, snapshot.getSize() - position, out);
+            }
+        }
+    }
+    
+    /**
+     * Get the best selling products over a sliding window (1h or 24h), from memory.
+     * GET /api/products/trending?window=1h&limit=10
+     */
+    @GetMapping("/trending")
+    public ResponseEntity<?> getTrending(@RequestParam(defaultValue = "1h") String window,
+                                         @RequestParam(defaultValue = "10") int limit) {
+        log.info("GET /api/products/trending - Window: {}, limit: {}", window, limit);
+        try {
+            return ResponseEntity.ok(trendingProductsService.getTrending(window, limit));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+        }
+    }
+    
+    /**
+     * Get products frequently bought together with this one, from memory.
+     * GET /api/products/{id}/related?limit=10
      */
-    @GetMapping
-    public ResponseEntity<List<Product>> getAllProducts() {
-        log.info("GET /api/products - Fetching all products");
-        List<Product> products = productService.getAllProducts();
-        return ResponseEntity.ok(products);
+    @GetMapping("/{id}/related")
+    public ResponseEntity<RelatedProductsResponse> getRelated(@PathVariable String id,
+                                                              @RequestParam(defaultValue = "10") int limit) {
+        log.info("GET /api/products/{}/related - Limit: {}", id, limit);
+        return ResponseEntity.ok(recommendationService.getRelated(id, limit));
     }
     
     /**
-     * Get product by ID.
-     * GET /api/products/{id}
+     * Get stock, reserved, leased and available counts for a product.
+     * GET /api/products/{id}/availability
      */
-    @GetMapping("/{id}")
-    public ResponseEntity<Product> getProductById(@PathVariable String id) {
-        log.info("GET /api/products/{} - Fetching product", id);
-        return productService.getProductById(id)
+    @GetMapping("/{id}/availability")
+    public ResponseEntity<StockAvailabilityResponse> getAvailability(@PathVariable String id) {
+        log.info("GET /api/products/{}/availability - Fetching availability", id);
+        return productService.getAvailability(id)
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
     
     /**
-     * Search products by name.
-     * GET /api/products/search?q=query
+     * Flag or unflag a product for striped hot-SKU inventory (flash sales).
+     * PUT /api/products/{id}/hot?enabled=true
      */
-    @GetMapping("/search")
-    public ResponseEntity<List<Product>> searchProducts(@RequestParam("q") String query) {
-        log.info("GET /api/products/search?q={} - Searching products", query);
-        List<Product> products = productService.searchProducts(query);
-        return ResponseEntity.ok(products);
+    @PutMapping("/{id}/hot")
+    public ResponseEntity<Map<String, Object>> setHot(@PathVariable String id, @RequestParam("enabled") boolean enabled) {
+        log.info("PUT /api/products/{}/hot - Enabled: {}", id, enabled);
+        if (!hotInventoryService.setHot(id, enabled)) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(Map.of("productId", id, "hot", enabled));
     }
 }
@@ -0,0 +1,85 @@
+package com.example.ecommerce.controller;
+
+import com.example.ecommerce.model.Product;
+import com.example.ecommerce.service.CatalogResponseCache;
+import com.example.ecommerce.service.ProductService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * REST controller for catalog reads on the blocking (default) serving mode.
+ */
+@Slf4j
+@RestController
+@Profile("!reactive")
+@RequestMapping("/api/products")
+@RequiredArgsConstructor
+public class ProductReadController {
+    
+    private final ProductService productService;
+    private final CatalogResponseCache responseCache;
+    
+    /**
+     * Get all products, optionally one page at a time.
+     * Answers If-None-Match with 304 without loading the products, and otherwise
+     * writes the pre-encoded (and, if accepted, gzipped) body from the response cache.
+     * GET /api/products?page=0&size=20
+     */
+    @GetMapping
+    public ResponseEntity<byte[]> getAllProducts(
+            @RequestParam(value = "page", required = false) Integer page,
+            @RequestParam(value = "size", required = false) Integer size,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            WebRequest webRequest) {
+        log.info("GET /api/products - Fetching products page: {}, size: {}", page, size);
+        String eTag = productService.getProductsETag(page, size);
+        if (webRequest.checkNotModified(eTag)) {
+            return null;
+        }
+        CatalogResponseCache.CachedResponse response = responseCache.getPage(
+                ProductService.pageKey(page, size), eTag, () -> productService.getProducts(page, size));
+        return response.toResponseEntity(acceptEncoding);
+    }
+    
+    /**
+     * Get product by ID.
+     * Answers If-None-Match with 304 without loading the product.
+     * GET /api/products/{id}
+     */
+    @GetMapping("/{id}")
+    public ResponseEntity<byte[]> getProductById(
+            @PathVariable String id,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            WebRequest webRequest) {
+        log.info("GET /api/products/{} - Fetching product", id);
+        Optional<String> eTag = productService.getProductETag(id);
+        if (eTag.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        if (webRequest.checkNotModified(eTag.get())) {
+            return null;
+        }
+        return responseCache.getProduct(id, eTag.get(), () -> productService.getProductById(id))
+                .map(response -> response.toResponseEntity(acceptEncoding))
+                .orElse(ResponseEntity.notFound().build());
+    }
+    
+    /**
+     * Search products by name.
+     * GET /api/products/search?q=query
+     */
+    @GetMapping("/search")
+    public ResponseEntity<List<Product>> searchProducts(@RequestParam("q") String query) {
+        log.info("GET /api/products/search?q={} - Searching products", query);
+        List<Product> products = productService.searchProducts(query);
+        return ResponseEntity.ok(products);
+    }
+}
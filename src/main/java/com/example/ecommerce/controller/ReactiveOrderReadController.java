@@ -0,0 +1,51 @@
+package com.example.ecommerce.controller;
+
+import com.example.ecommerce.dto.OrderResponse;
+import com.example.ecommerce.model.Order;
+import com.example.ecommerce.service.ReactiveReadService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * REST controller for order reads on the reactive serving mode.
+ * Suited to order status polling, which otherwise parks a request thread per poll.
+ */
+@Slf4j
+@RestController
+@Profile("reactive")
+@RequestMapping("/api/orders")
+@RequiredArgsConstructor
+public class ReactiveOrderReadController {
+    
+    private final ReactiveReadService readService;
+    
+    /**
+     * Get order by ID.
+     * GET /api/orders/{orderId}
+     */
+    @GetMapping("/{orderId}")
+    public Mono<ResponseEntity<OrderResponse>> getOrder(@PathVariable String orderId) {
+        log.info("GET /api/orders/{} - Fetching order", orderId);
+        return readService.getOrderResponse(orderId)
+                .map(ResponseEntity::ok)
+                .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+    
+    /**
+     * Get orders by user ID.
+     * GET /api/orders/user/{userId}
+     */
+    @GetMapping("/user/{userId}")
+    public Flux<Order> getOrdersByUser(@PathVariable String userId) {
+        log.info("GET /api/orders/user/{} - Fetching user orders", userId);
+        return readService.getOrdersByUserId(userId);
+    }
+}
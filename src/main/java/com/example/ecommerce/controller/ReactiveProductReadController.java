@@ -0,0 +1,109 @@
+package com.example.ecommerce.controller;
+
+import com.example.ecommerce.model.Product;
+import com.example.ecommerce.service.CatalogResponseCache;
+import com.example.ecommerce.service.ProductService;
+import com.example.ecommerce.service.ReactiveReadService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * REST controller for catalog reads on the reactive serving mode.
+ * Handlers return immediately and release the request thread while MongoDB is queried.
+ */
+@Slf4j
+@RestController
+@Profile("reactive")
+@RequestMapping("/api/products")
+@RequiredArgsConstructor
+public class ReactiveProductReadController {
+    
+    private final ReactiveReadService readService;
+    private final CatalogResponseCache responseCache;
+    
+    /**
+     * Get all products, optionally one page at a time.
+     * GET /api/products?page=0&size=20
+     */
+    @GetMapping
+    public Mono<ResponseEntity<byte[]>> getAllProducts(
+            @RequestParam(value = "page", required = false) Integer page,
+            @RequestParam(value = "size", required = false) Integer size,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        log.info("GET /api/products - Fetching products page: {}, size: {}", page, size);
+        String pageKey = ProductService.pageKey(page, size);
+        return readService.getProductsETag(page, size).flatMap(eTag -> {
+            if (matches(ifNoneMatch, eTag)) {
+                return Mono.just(notModified(eTag));
+            }
+            return responseCache.findPage(pageKey, eTag)
+                    .map(Mono::just)
+                    .orElseGet(() -> readService.getProducts(page, size)
+                            .map(products -> responseCache.storePage(pageKey, eTag, products)))
+                    .map(response -> response.toResponseEntity(acceptEncoding));
+        });
+    }
+    
+    /**
+     * Get product by ID.
+     * GET /api/products/{id}
+     */
+    @GetMapping("/{id}")
+    public Mono<ResponseEntity<byte[]>> getProductById(
+            @PathVariable String id,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        log.info("GET /api/products/{} - Fetching product", id);
+        return readService.getProductETag(id)
+                .flatMap(eTag -> {
+                    if (matches(ifNoneMatch, eTag)) {
+                        return Mono.just(notModified(eTag));
+                    }
+                    return responseCache.findProduct(id, eTag)
+                            .map(Mono::just)
+                            .orElseGet(() -> readService.getProductById(id)
+                                    .map(product -> responseCache.storeProduct(id, eTag, product)))
+                            .map(response -> response.toResponseEntity(acceptEncoding));
+                })
+                .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+    
+    /**
+     * Search products by name.
+     * GET /api/products/search?q=query
+     */
+    @GetMapping("/search")
+    public Flux<Product> searchProducts(@RequestParam("q") String query) {
+        log.info("GET /api/products/search?q={} - Searching products", query);
+        return readService.searchProducts(query);
+    }
+    
+    private static ResponseEntity<byte[]> notModified(String eTag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+    }
+    
+    /**
+     * Weak comparison of an If-None-Match header against the current ETag.
+     */
+    private static boolean matches(String ifNoneMatch, String eTag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        String current = eTag.startsWith("W/") ? eTag.substring(2) : eTag;
+        for (String candidate : ifNoneMatch.split(",")) {
+            String value = candidate.trim();
+            if (value.equals("*") || (value.startsWith("W/") ? value.substring(2) : value).equals(current)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
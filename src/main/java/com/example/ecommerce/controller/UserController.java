@@ -1,6 +1,8 @@
 package com.example.ecommerce.controller;
 
 import com.example.ecommerce.dto.ApiResponse;
+import com.example.ecommerce.dto.BulkCreateUsersRequest;
+import com.example.ecommerce.dto.BulkCreateUsersResponse;
 import com.example.ecommerce.dto.CreateUserRequest;
 import com.example.ecommerce.model.User;
 import com.example.ecommerce.service.UserService;
@@ -12,6 +14,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  * REST controller for user operations.
@@ -40,6 +43,29 @@ public class UserController {
         }
     }
     
+    /**
+     * Provision many users at once (B2B account imports).
+     * POST /api/users/bulk
+     */
+    @PostMapping("/bulk")
+    public ResponseEntity<BulkCreateUsersResponse> createUsers(@Valid @RequestBody BulkCreateUsersRequest request) {
+        log.info("POST /api/users/bulk - Provisioning {} users", request.getUsers().size());
+        BulkCreateUsersResponse response = userService.createUsers(request.getUsers());
+        return ResponseEntity.ok(response);
+    }
+    
+    /**
+     * Check whether a username and/or email are still available.
+     * GET /api/users/availability?username=name&email=address
+     */
+    @GetMapping("/availability")
+    public ResponseEntity<Map<String, Object>> checkAvailability(
+            @RequestParam(value = "username", required = false) String username,
+            @RequestParam(value = "email", required = false) String email) {
+        log.info("GET /api/users/availability - Username: {}, Email: {}", username, email);
+        return ResponseEntity.ok(Map.of("available", userService.isAvailable(username, email)));
+    }
+    
     /**
      * Get all users.
      * GET /api/users
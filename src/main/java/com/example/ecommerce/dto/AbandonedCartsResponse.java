@@ -0,0 +1,24 @@
+package com.example.ecommerce.dto;
+
+import com.example.ecommerce.model.AbandonedCart;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Response DTO for one page of the abandoned cart stream.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AbandonedCartsResponse {
+    
+    private List<AbandonedCart> carts;
+    
+    // Pass as "after" to read on ("<abandonedAt epoch millis>-<id>"); the same position when nothing new was returned
+    private String next;
+}
@@ -15,7 +15,7 @@ import lombok.NoArgsConstructor;
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
-public class AddToCartRequest {
+public class AddToCartRequest implements UserScopedRequest {
     
     @NotBlank(message = "User ID is required")
     private String userId;
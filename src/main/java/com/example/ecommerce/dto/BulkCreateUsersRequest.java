@@ -0,0 +1,25 @@
+package com.example.ecommerce.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Request DTO for provisioning many users at once (B2B account imports).
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkCreateUsersRequest {
+    
+    @NotEmpty(message = "At least one user is required")
+    @Size(max = 1000, message = "At most 1000 users per request")
+    private List<@Valid CreateUserRequest> users;
+}
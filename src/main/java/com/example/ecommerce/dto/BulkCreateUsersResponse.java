@@ -0,0 +1,38 @@
+package com.example.ecommerce.dto;
+
+import com.example.ecommerce.model.User;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Response DTO for bulk user provisioning.
+ * Failures refer to positions in the request's user list.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkCreateUsersResponse {
+    
+    private int requested;
+    
+    private int created;
+    
+    private List<User> users;
+    
+    private List<Failure> failures;
+    
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Failure {
+        private int index;
+        private String field;
+        private String message;
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.ecommerce.dto;
 
+import com.example.ecommerce.model.Money;
 import com.example.ecommerce.model.Product;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -30,6 +31,6 @@ public class CartItemResponse {
     public static class ProductInfo {
         private String id;
         private String name;
-        private Double price;
+        private Money price;
     }
 }
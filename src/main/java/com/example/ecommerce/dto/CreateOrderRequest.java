@@ -13,7 +13,7 @@ import lombok.NoArgsConstructor;
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
-public class CreateOrderRequest {
+public class CreateOrderRequest implements UserScopedRequest {
     
     @NotBlank(message = "User ID is required")
     private String userId;
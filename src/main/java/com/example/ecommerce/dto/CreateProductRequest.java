@@ -1,5 +1,8 @@
 package com.example.ecommerce.dto;
 
+import com.example.ecommerce.model.Money;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.validation.constraints.AssertTrue;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
@@ -23,10 +26,15 @@ public class CreateProductRequest {
     private String description;
     
     @NotNull(message = "Price is required")
-    @Positive(message = "Price must be positive")
-    private Double price;
+    private Money price;
     
     @NotNull(message = "Stock is required")
     @Positive(message = "Stock must be positive")
     private Integer stock;
+    
+    @JsonIgnore
+    @AssertTrue(message = "Price must be positive")
+    public boolean isPricePositive() {
+        return price == null || price.isPositive();
+    }
 }
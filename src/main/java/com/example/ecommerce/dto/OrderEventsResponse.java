@@ -0,0 +1,26 @@
+package com.example.ecommerce.dto;
+
+import com.example.ecommerce.journal.OrderEvent;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Response DTO for an order's journal: its projected current state and its event history.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderEventsResponse {
+    
+    private String orderId;
+    
+    private OrderEvent current;
+    
+    // Oldest first; history past the retention is compacted down to the latest event
+    private List<OrderEvent> events;
+}
@@ -1,5 +1,6 @@
 package com.example.ecommerce.dto;
 
+import com.example.ecommerce.model.Money;
 import com.example.ecommerce.model.OrderItem;
 import com.example.ecommerce.model.Payment;
 import lombok.AllArgsConstructor;
@@ -23,7 +24,7 @@ public class OrderResponse {
     
     private String userId;
     
-    private Double totalAmount;
+    private Money totalAmount;
     
     private String status;
     
@@ -40,7 +41,7 @@ public class OrderResponse {
     public static class PaymentInfo {
         private String id;
         private String status;
-        private Double amount;
+        private Money amount;
         private String paymentId;
     }
 }
@@ -0,0 +1,43 @@
+package com.example.ecommerce.dto;
+
+import com.example.ecommerce.model.Money;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Response DTO for order counts per status and amounts per currency and status,
+ * overall and per time bucket. Revenue holds one PAID total per currency.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderStatsResponse {
+    
+    private Map<String, Long> counts;
+    
+    private Map<String, Map<String, Money>> amounts;
+    
+    private List<Money> revenue;
+    
+    private String granularity;
+    
+    private List<Bucket> buckets;
+    
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Bucket {
+        private Instant start;
+        private Map<String, Long> counts;
+        private Map<String, Map<String, Money>> amounts;
+        private List<Money> revenue;
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.ecommerce.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Server-sent event DTO for an order's status and its payment's status.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderStatusEvent {
+    
+    private String orderId;
+    
+    private String status;
+    
+    // Null while the order has no payment
+    private String paymentId;
+    
+    private String paymentStatus;
+    
+    private Instant timestamp;
+}
@@ -1,8 +1,10 @@
 package com.example.ecommerce.dto;
 
+import com.example.ecommerce.model.Money;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.validation.constraints.AssertTrue;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
-import jakarta.validation.constraints.Positive;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -21,6 +23,11 @@ public class PaymentRequest {
     private String orderId;
     
     @NotNull(message = "Amount is required")
-    @Positive(message = "Amount must be positive")
-    private Double amount;
+    private Money amount;
+    
+    @JsonIgnore
+    @AssertTrue(message = "Amount must be positive")
+    public boolean isAmountPositive() {
+        return amount == null || amount.isPositive();
+    }
 }
@@ -1,5 +1,6 @@
 package com.example.ecommerce.dto;
 
+import com.example.ecommerce.model.Money;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -18,7 +19,7 @@ public class PaymentResponse {
     
     private String orderId;
     
-    private Double amount;
+    private Money amount;
     
     private String status;
 }
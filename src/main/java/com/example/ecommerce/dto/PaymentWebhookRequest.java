@@ -1,12 +1,20 @@
 package com.example.ecommerce.dto;
 
+import com.example.ecommerce.model.Money;
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.math.BigDecimal;
+
 /**
  * Webhook request DTO for payment callbacks from payment gateway.
+ * The amount is read as { amount, currency } or as a plain number in the
+ * payload's top-level currency; only when neither names one is it taken to be
+ * in the store currency.
  */
 @Data
 @Builder
@@ -20,5 +28,22 @@ public class PaymentWebhookRequest {
     
     private String status;
     
-    private Double amount;
+    private Money amount;
+    
+    @JsonCreator
+    public static PaymentWebhookRequest fromJson(@JsonProperty("orderId") String orderId,
+                                                 @JsonProperty("paymentId") String paymentId,
+                                                 @JsonProperty("status") String status,
+                                                 @JsonProperty("amount") Object amount,
+                                                 @JsonProperty("currency") String currency) {
+        Money money;
+        if (amount == null) {
+            money = null;
+        } else if (currency != null && (amount instanceof Number || amount instanceof String)) {
+            money = Money.of(new BigDecimal(amount.toString()), currency);
+        } else {
+            money = Money.fromJson(amount);
+        }
+        return new PaymentWebhookRequest(orderId, paymentId, status, money);
+    }
 }
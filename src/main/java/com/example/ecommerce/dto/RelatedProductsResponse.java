@@ -0,0 +1,32 @@
+package com.example.ecommerce.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Response DTO for products frequently bought together with a product.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RelatedProductsResponse {
+    
+    private String productId;
+    
+    private List<RelatedProduct> related;
+    
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RelatedProduct {
+        private String productId;
+        // Orders containing both products (pruned pairs restart from zero)
+        private Integer count;
+    }
+}
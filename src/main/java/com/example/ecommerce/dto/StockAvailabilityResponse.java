@@ -0,0 +1,28 @@
+package com.example.ecommerce.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Response DTO for a product's stock, reserved, leased and available counts.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockAvailabilityResponse {
+    
+    private String productId;
+    
+    private Integer stock;
+    
+    private Integer reserved;
+    
+    private Integer available;
+    
+    private Integer leased;
+    
+    private boolean hot;
+}
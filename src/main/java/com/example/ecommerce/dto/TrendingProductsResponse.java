@@ -0,0 +1,44 @@
+package com.example.ecommerce.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Response DTO for trending products: estimated units sold in the window,
+ * with the sketch's error bound and memory footprint.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TrendingProductsResponse {
+    
+    private String window;
+    
+    private List<TrendingProduct> products;
+    
+    // Units sold in the window across all products
+    private Long totalSales;
+    
+    // Estimates exceed true sales by at most this many units...
+    private Long errorBound;
+    
+    // ...with this probability
+    private Double confidence;
+    
+    private Long memoryBytes;
+    
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class TrendingProduct {
+        private String productId;
+        private String name;
+        private Long estimatedSales;
+    }
+}
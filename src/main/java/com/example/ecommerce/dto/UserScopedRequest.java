@@ -0,0 +1,9 @@
+package com.example.ecommerce.dto;
+
+/**
+ * A request body made on behalf of a user, subject to that user's rate limit.
+ */
+public interface UserScopedRequest {
+    
+    String getUserId();
+}
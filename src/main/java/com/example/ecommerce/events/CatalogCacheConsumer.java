@@ -0,0 +1,32 @@
+package com.example.ecommerce.events;
+
+import com.example.ecommerce.service.CatalogResponseCache;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Drops cached catalog responses of products whose stock changed, once per
+ * product per batch. Cached responses are only served while their ETag matches
+ * the product version, so a late eviction frees memory but never serves stale data.
+ */
+@Component
+@RequiredArgsConstructor
+public class CatalogCacheConsumer implements DomainEventConsumer {
+    
+    private final CatalogResponseCache responseCache;
+    
+    @Override
+    public void onEvents(List<DomainEvent> events) {
+        Set<String> productIds = new HashSet<>();
+        for (DomainEvent event : events) {
+            if (event instanceof StockChanged changed) {
+                productIds.addAll(changed.getProductIds());
+            }
+        }
+        productIds.forEach(responseCache::evict);
+    }
+}
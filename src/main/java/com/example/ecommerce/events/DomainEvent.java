@@ -0,0 +1,8 @@
+package com.example.ecommerce.events;
+
+/**
+ * An event published on the {@link DomainEventBus} after a change has been committed.
+ * Events are immutable; consumers get them in publish order.
+ */
+public interface DomainEvent {
+}
@@ -0,0 +1,263 @@
+package com.example.ecommerce.events;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * In-process bus for {@link DomainEvent}s, taking follow-up work off the path of
+ * the request that caused it.
+ * Events go through a ring of preallocated slots: a publisher claims the next
+ * sequence, fills its slot and marks it published, without locks or allocation
+ * by the bus. Each {@link DomainEventConsumer} has its own thread and cursor and
+ * takes every published slot it has not seen yet as one batch, so a busy consumer
+ * gets bigger batches instead of falling behind event by event. A publisher that
+ * would overwrite a slot some consumer has not read yet waits for it. Synchronous
+ * consumers get no thread: they handle each event on the publishing thread.
+ * Before the bus starts and after it stops, events are handed to the consumers
+ * on the publishing thread.
+ */
+@Slf4j
+@Component
+public class DomainEventBus implements SmartLifecycle {
+    
+    private final ObjectProvider<DomainEventConsumer> consumerProvider;
+    private final MeterRegistry meterRegistry;
+    private final int maxBatchSize;
+    
+    private final Slot[] ring;
+    private final int mask;
+    
+    // Next sequence to hand out
+    private final AtomicLong claimed = new AtomicLong();
+    // Publishers between their running check and their slot being published
+    private final AtomicInteger publishing = new AtomicInteger();
+    
+    private final List<Worker> workers = new ArrayList<>();
+    private final List<DomainEventConsumer> synchronousConsumers = new ArrayList<>();
+    private final Counter fullWaits;
+    
+    private volatile boolean running;
+    
+    public DomainEventBus(ObjectProvider<DomainEventConsumer> consumerProvider, MeterRegistry meterRegistry,
+                          @Value("${events.bus.ring-size:8192}") int ringSize,
+                          @Value("${events.bus.max-batch-size:256}") int maxBatchSize) {
+        if (Integer.bitCount(ringSize) != 1) {
+            throw new IllegalArgumentException("events.bus.ring-size must be a power of two: " + ringSize);
+        }
+        this.consumerProvider = consumerProvider;
+        this.meterRegistry = meterRegistry;
+        this.maxBatchSize = maxBatchSize;
+        this.ring = new Slot[ringSize];
+        for (int i = 0; i < ringSize; i++) {
+            ring[i] = new Slot();
+        }
+        this.mask = ringSize - 1;
+        this.fullWaits = Counter.builder("events.bus.full.waits")
+                .description("Publishes that waited for a consumer to free a slot")
+                .register(meterRegistry);
+    }
+    
+    /**
+     * Publish an event to all consumers.
+     */
+    public void publish(DomainEvent event) {
+        boolean queued;
+        publishing.incrementAndGet();
+        try {
+            queued = running;
+            if (queued) {
+                publishToRing(event);
+            }
+        } finally {
+            publishing.decrementAndGet();
+        }
+        // Outside the publishing count, so stop() never waits on a synchronous consumer
+        dispatch(queued ? synchronousConsumers : consumerProvider.orderedStream().toList(), event);
+    }
+    
+    private void publishToRing(DomainEvent event) {
+        long sequence = claimed.getAndIncrement();
+        long wrapPoint = sequence - ring.length;
+        if (wrapPoint >= minCursor()) {
+            fullWaits.increment();
+            while (wrapPoint >= minCursor()) {
+                LockSupport.parkNanos(50_000);
+            }
+        }
+        Slot slot = ring[(int) sequence & mask];
+        slot.event = event;
+        // The volatile write publishes the event to consumers reading the sequence
+        slot.sequence = sequence;
+        for (Worker worker : workers) {
+            if (worker.waiting) {
+                LockSupport.unpark(worker.thread);
+            }
+        }
+    }
+    
+    @Override
+    public synchronized void start() {
+        for (DomainEventConsumer consumer : consumerProvider.orderedStream().toList()) {
+            if (consumer.isSynchronous()) {
+                synchronousConsumers.add(consumer);
+                continue;
+            }
+            String name = consumer.getClass().getSimpleName();
+            Worker worker = new Worker(consumer, name);
+            Gauge.builder("events.bus.lag", worker, w -> claimed.get() - w.cursor.get())
+                    .description("Events published but not yet handled by the consumer")
+                    .tag("consumer", name)
+                    .register(meterRegistry);
+            worker.batchSizes = DistributionSummary.builder("events.bus.batch.size")
+                    .tag("consumer", name)
+                    .register(meterRegistry);
+            worker.failures = meterRegistry.counter("events.bus.failures", "consumer", name);
+            worker.cursor.set(claimed.get());
+            workers.add(worker);
+        }
+        running = true;
+        workers.forEach(worker -> worker.thread.start());
+        log.info("Domain event bus started: {} slots, consumers {}, synchronous {}", ring.length,
+                workers.stream().map(worker -> worker.name).toList(),
+                synchronousConsumers.stream().map(consumer -> consumer.getClass().getSimpleName()).toList());
+    }
+    
+    /**
+     * Stop taking events into the ring and let the consumers finish what is in it.
+     */
+    @Override
+    public synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        while (publishing.get() > 0) {
+            Thread.onSpinWait();
+        }
+        long end = claimed.get();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        for (Worker worker : workers) {
+            worker.stopAt = end;
+            LockSupport.unpark(worker.thread);
+        }
+        for (Worker worker : workers) {
+            try {
+                worker.thread.join(Math.max(1, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime())));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            if (worker.thread.isAlive()) {
+                log.warn("Event consumer {} did not finish within 5s, {} events left", worker.name,
+                        end - worker.cursor.get());
+            }
+        }
+    }
+    
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+    
+    private long minCursor() {
+        long min = Long.MAX_VALUE;
+        for (Worker worker : workers) {
+            min = Math.min(min, worker.cursor.get());
+        }
+        return min;
+    }
+    
+    private void dispatch(List<DomainEventConsumer> consumers, DomainEvent event) {
+        if (consumers.isEmpty()) {
+            return;
+        }
+        List<DomainEvent> events = List.of(event);
+        consumers.forEach(consumer -> {
+            try {
+                consumer.onEvents(events);
+            } catch (RuntimeException e) {
+                log.error("Event consumer {} failed: {}", consumer.getClass().getSimpleName(), e.getMessage());
+            }
+        });
+    }
+    
+    private void run(Worker worker) {
+        List<DomainEvent> batch = new ArrayList<>(maxBatchSize);
+        long next = worker.cursor.get();
+        while (next < worker.stopAt) {
+            while (batch.size() < maxBatchSize) {
+                long sequence = next + batch.size();
+                Slot slot = ring[(int) sequence & mask];
+                if (slot.sequence != sequence) {
+                    break;
+                }
+                batch.add(slot.event);
+            }
+            if (batch.isEmpty()) {
+                // Publishers unpark waiting consumers; the timeout covers a wake-up that was missed
+                worker.waiting = true;
+                if (ring[(int) next & mask].sequence != next && next < worker.stopAt) {
+                    LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(100));
+                }
+                worker.waiting = false;
+                continue;
+            }
+            try {
+                worker.consumer.onEvents(batch);
+            } catch (RuntimeException e) {
+                worker.failures.increment();
+                log.error("Event consumer {} failed on {} events: {}", worker.name, batch.size(), e.getMessage());
+            }
+            worker.batchSizes.record(batch.size());
+            next += batch.size();
+            worker.cursor.set(next);
+            batch.clear();
+        }
+    }
+    
+    /**
+     * A preallocated ring slot; sequence is set last and marks the event as published.
+     */
+    private static final class Slot {
+        
+        private volatile long sequence = -1;
+        private DomainEvent event;
+    }
+    
+    /**
+     * A consumer's thread and the sequence of the next event it will read.
+     */
+    private final class Worker {
+        
+        private final DomainEventConsumer consumer;
+        private final String name;
+        private final Thread thread;
+        private final AtomicLong cursor = new AtomicLong();
+        
+        private volatile boolean waiting;
+        private volatile long stopAt = Long.MAX_VALUE;
+        private DistributionSummary batchSizes;
+        private Counter failures;
+        
+        Worker(DomainEventConsumer consumer, String name) {
+            this.consumer = consumer;
+            this.name = name;
+            this.thread = new Thread(() -> run(this), "events-" + name);
+            this.thread.setDaemon(true);
+        }
+    }
+}
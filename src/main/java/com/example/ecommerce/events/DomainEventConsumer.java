@@ -0,0 +1,23 @@
+package com.example.ecommerce.events;
+
+import java.util.List;
+
+/**
+ * A consumer of the {@link DomainEventBus}. Every consumer bean gets all events, in
+ * publish order, in batches of whatever has been published since its last batch.
+ * While the bus runs, each consumer is called from its own thread only, unless it
+ * is synchronous.
+ */
+public interface DomainEventConsumer {
+    
+    void onEvents(List<DomainEvent> events);
+    
+    /**
+     * A synchronous consumer is called on the publishing thread, one event at a time and
+     * possibly from several threads at once, and publish returns only after it has. Its
+     * events never sit in the ring, so a crash cannot lose them after publish returned.
+     */
+    default boolean isSynchronous() {
+        return false;
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.ecommerce.events;
+
+import com.example.ecommerce.model.Order;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Unpaid orders that were called off: CANCELLED by the user or EXPIRED at their
+ * payment deadline. The orders are as they were before the change; their stock
+ * has already been put back.
+ */
+@Getter
+@RequiredArgsConstructor
+public class OrderCancelled implements DomainEvent {
+    
+    private final List<Order> orders;
+    
+    private final String status;
+}
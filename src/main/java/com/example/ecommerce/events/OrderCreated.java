@@ -0,0 +1,17 @@
+package com.example.ecommerce.events;
+
+import com.example.ecommerce.model.Order;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Orders committed together by one checkout batch.
+ */
+@Getter
+@RequiredArgsConstructor
+public class OrderCreated implements DomainEvent {
+    
+    private final List<Order> orders;
+}
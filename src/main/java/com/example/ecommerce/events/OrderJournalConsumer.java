@@ -0,0 +1,71 @@
+package com.example.ecommerce.events;
+
+import com.example.ecommerce.service.OrderJournalService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Appends order lifecycle events to the order journal. Synchronous: the publishing
+ * thread waits until the journal's writer has committed them, so an order change
+ * that was acknowledged is in the journal even if the process dies right after.
+ * Concurrent publishers share the writer's group commits.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class OrderJournalConsumer implements DomainEventConsumer {
+    
+    private final OrderJournalService orderJournalService;
+    
+    @Value("${orders.journal.append-timeout:PT1S}")
+    private Duration appendTimeout;
+    
+    @Override
+    public boolean isSynchronous() {
+        return true;
+    }
+    
+    @Override
+    public void onEvents(List<DomainEvent> events) {
+        List<CompletableFuture<?>> appended = new ArrayList<>();
+        for (DomainEvent event : events) {
+            if (event instanceof OrderCreated created) {
+                appended.add(orderJournalService.recordCreated(created.getOrders()));
+            } else if (event instanceof OrderCancelled cancelled) {
+                appended.add(orderJournalService.recordTransitions(cancelled.getOrders(), cancelled.getStatus()));
+            } else if (event instanceof PaymentStatusChanged changed) {
+                if ("PENDING".equals(changed.getPayment().getStatus())) {
+                    appended.add(orderJournalService.recordPaymentPending(changed.getPayment()));
+                }
+                if (changed.getPreviousOrder() != null) {
+                    appended.add(orderJournalService.recordTransition(changed.getPreviousOrder(), changed.getOrderStatus()));
+                }
+            }
+        }
+        if (appended.isEmpty()) {
+            return;
+        }
+        
+        // MongoDB already has the change: a slow or failed journal is logged, not thrown at the caller
+        try {
+            CompletableFuture.allOf(appended.toArray(CompletableFuture[]::new))
+                    .get(appendTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            log.warn("Order journal did not commit within {}; the events stay queued", appendTimeout);
+        } catch (ExecutionException e) {
+            log.error("Order journal append failed: {}", e.getCause().getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
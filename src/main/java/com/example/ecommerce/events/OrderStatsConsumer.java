@@ -0,0 +1,41 @@
+package com.example.ecommerce.events;
+
+import com.example.ecommerce.model.Order;
+import com.example.ecommerce.service.OrderStatsService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Folds a batch of order events into the order statistics with one write.
+ */
+@Component
+@RequiredArgsConstructor
+public class OrderStatsConsumer implements DomainEventConsumer {
+    
+    private final OrderStatsService orderStatsService;
+    
+    @Override
+    public void onEvents(List<DomainEvent> events) {
+        List<Order> created = new ArrayList<>();
+        Map<String, List<Order>> transitions = new HashMap<>();
+        for (DomainEvent event : events) {
+            if (event instanceof OrderCreated orderCreated) {
+                created.addAll(orderCreated.getOrders());
+            } else if (event instanceof OrderCancelled cancelled) {
+                transitions.computeIfAbsent(cancelled.getStatus(), status -> new ArrayList<>())
+                        .addAll(cancelled.getOrders());
+            } else if (event instanceof PaymentStatusChanged changed && changed.getPreviousOrder() != null) {
+                transitions.computeIfAbsent(changed.getOrderStatus(), status -> new ArrayList<>())
+                        .add(changed.getPreviousOrder());
+            }
+        }
+        if (!created.isEmpty() || !transitions.isEmpty()) {
+            orderStatsService.record(created, transitions);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.ecommerce.events;
+
+import com.example.ecommerce.dto.OrderStatusEvent;
+import com.example.ecommerce.model.Order;
+import com.example.ecommerce.model.Payment;
+import com.example.ecommerce.service.OrderStatusStreamService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Pushes order and payment status changes to the open order status streams.
+ */
+@Component
+@RequiredArgsConstructor
+public class OrderStatusStreamConsumer implements DomainEventConsumer {
+    
+    private final OrderStatusStreamService orderStatusStreamService;
+    
+    @Override
+    public void onEvents(List<DomainEvent> events) {
+        Instant now = Instant.now();
+        List<OrderStatusEvent> statusEvents = new ArrayList<>();
+        for (DomainEvent event : events) {
+            if (event instanceof OrderCancelled cancelled) {
+                for (Order order : cancelled.getOrders()) {
+                    statusEvents.add(OrderStatusEvent.builder()
+                            .orderId(order.getId())
+                            .status(cancelled.getStatus())
+                            .timestamp(now)
+                            .build());
+                }
+            } else if (event instanceof PaymentStatusChanged changed) {
+                Payment payment = changed.getPayment();
+                // A started payment leaves its order CREATED; a settled one that did not move its order is not news
+                String status = changed.getPreviousOrder() != null ? changed.getOrderStatus()
+                        : "PENDING".equals(payment.getStatus()) ? "CREATED" : null;
+                if (status != null) {
+                    statusEvents.add(OrderStatusEvent.builder()
+                            .orderId(payment.getOrderId())
+                            .status(status)
+                            .paymentId(payment.getPaymentId())
+                            .paymentStatus(payment.getStatus())
+                            .timestamp(now)
+                            .build());
+                }
+            }
+        }
+        if (!statusEvents.isEmpty()) {
+            orderStatusStreamService.publish(statusEvents);
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.ecommerce.events;
+
+import com.example.ecommerce.model.Order;
+import com.example.ecommerce.model.Payment;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * A payment was started (PENDING) or settled. When settling moved its order,
+ * previousOrder is the order as it was before and orderStatus its new status;
+ * both are null otherwise.
+ */
+@Getter
+@RequiredArgsConstructor
+public class PaymentStatusChanged implements DomainEvent {
+    
+    private final Payment payment;
+    
+    private final Order previousOrder;
+    
+    private final String orderStatus;
+}
@@ -0,0 +1,32 @@
+package com.example.ecommerce.events;
+
+import com.example.ecommerce.model.Order;
+import com.example.ecommerce.service.RecommendationService;
+import com.example.ecommerce.service.TrendingProductsService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Feeds new orders to the trending products sketches and the recommendations.
+ */
+@Component
+@RequiredArgsConstructor
+public class ProductAnalyticsConsumer implements DomainEventConsumer {
+    
+    private final TrendingProductsService trendingProductsService;
+    private final RecommendationService recommendationService;
+    
+    @Override
+    public void onEvents(List<DomainEvent> events) {
+        for (DomainEvent event : events) {
+            if (event instanceof OrderCreated created) {
+                for (Order order : created.getOrders()) {
+                    trendingProductsService.record(order);
+                    recommendationService.record(order);
+                }
+            }
+        }
+    }
+}
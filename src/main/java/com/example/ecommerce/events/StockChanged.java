@@ -0,0 +1,16 @@
+package com.example.ecommerce.events;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.Collection;
+
+/**
+ * Stock counters of the given products were changed.
+ */
+@Getter
+@RequiredArgsConstructor
+public class StockChanged implements DomainEvent {
+    
+    private final Collection<String> productIds;
+}
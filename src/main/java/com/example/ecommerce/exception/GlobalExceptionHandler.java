@@ -2,6 +2,8 @@ package com.example.ecommerce.exception;
 
 import com.example.ecommerce.dto.ApiResponse;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
@@ -40,6 +42,29 @@ public class GlobalExceptionHandler {
         return ResponseEntity.badRequest().body(response);
     }
     
+    /**
+     * Handle rate limit rejections.
+     */
+    @ExceptionHandler(TooManyRequestsException.class)
+    public ResponseEntity<ApiResponse<Void>> handleTooManyRequests(TooManyRequestsException ex) {
+        log.warn("Rate limited: {}", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(ApiResponse.error(ex.getMessage()));
+    }
+    
+    /**
+     * Handle transient failures: the client should retry.
+     */
+    @ExceptionHandler({ServiceUnavailableException.class, DataAccessException.class})
+    public ResponseEntity<ApiResponse<Void>> handleServiceUnavailable(RuntimeException ex) {
+        log.error("Service unavailable: {}", ex.getMessage());
+        String message = ex instanceof ServiceUnavailableException ? ex.getMessage() : "Storage is unavailable. Please retry.";
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(ApiResponse.error(message));
+    }
+    
     /**
      * Handle RuntimeException.
      */
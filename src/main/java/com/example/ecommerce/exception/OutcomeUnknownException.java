@@ -0,0 +1,15 @@
+package com.example.ecommerce.exception;
+
+/**
+ * Thrown when the caller stopped waiting but the work may still complete, e.g. a
+ * checkout batch that is slow to commit. An idempotency key used for such a request
+ * stays locked until its lock times out, so a retry cannot run the work twice.
+ */
+public class OutcomeUnknownException extends ServiceUnavailableException {
+    
+    private static final long serialVersionUID = 1L;
+    
+    public OutcomeUnknownException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.ecommerce.exception;
+
+/**
+ * Thrown for transient failures (a failed batch, a storage outage) that are worth
+ * retrying. Mapped to 503 with Retry-After, and never stored as an idempotent response.
+ */
+public class ServiceUnavailableException extends RuntimeException {
+    
+    private static final long serialVersionUID = 1L;
+    
+    public ServiceUnavailableException(String message) {
+        super(message);
+    }
+    
+    public ServiceUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
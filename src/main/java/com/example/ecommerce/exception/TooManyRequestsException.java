@@ -0,0 +1,19 @@
+package com.example.ecommerce.exception;
+
+import lombok.Getter;
+
+/**
+ * Thrown when a caller is over its rate limit. Mapped to 429 with Retry-After.
+ */
+@Getter
+public class TooManyRequestsException extends RuntimeException {
+    
+    private static final long serialVersionUID = 1L;
+    
+    private final long retryAfterSeconds;
+    
+    public TooManyRequestsException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
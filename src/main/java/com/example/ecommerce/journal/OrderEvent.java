@@ -0,0 +1,64 @@
+package com.example.ecommerce.journal;
+
+import com.example.ecommerce.model.Money;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * One order lifecycle event in the order journal.
+ * Events carry the order's full state after the event (status, user, amount,
+ * payment id, creation time), so the latest event of an order is its current
+ * view on its own and older events can be compacted away.
+ */
+@Data
+@Builder(toBuilder = true)
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderEvent {
+    
+    private long sequence;
+    
+    private Type type;
+    
+    private String orderId;
+    
+    private String userId;
+    
+    private String status;
+    
+    private Money amount;
+    
+    private String paymentId;
+    
+    private Instant createdAt;
+    
+    private Instant timestamp;
+    
+    public enum Type {
+        CREATED,
+        PAYMENT_PENDING,
+        PAID,
+        PAYMENT_FAILED,
+        CANCELLED,
+        STATUS_CHANGED,
+        EXPIRED;
+        
+        /**
+         * The event type for an order moving to the given status.
+         */
+        public static Type forStatus(String status) {
+            return switch (status) {
+                case "CREATED" -> CREATED;
+                case "PAID" -> PAID;
+                case "FAILED" -> PAYMENT_FAILED;
+                case "CANCELLED" -> CANCELLED;
+                case "EXPIRED" -> EXPIRED;
+                default -> STATUS_CHANGED;
+            };
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.ecommerce.journal;
+
+import com.example.ecommerce.model.Money;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+
+/**
+ * Binary payload of an order journal record (the sequence is in the record frame).
+ * Fields: type ordinal, orderId, userId, status, amount (minor units, currency),
+ * paymentId, createdAt and timestamp (epoch millis, -1 for missing). Strings are
+ * an int byte length (-1 for null) followed by UTF-8.
+ */
+public final class OrderEventCodec {
+    
+    private OrderEventCodec() {
+    }
+    
+    public static byte[] encode(OrderEvent event) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(event.getType().ordinal());
+            writeString(out, event.getOrderId());
+            writeString(out, event.getUserId());
+            writeString(out, event.getStatus());
+            Money amount = event.getAmount();
+            out.writeLong(amount == null ? 0 : amount.getMinorUnits());
+            writeString(out, amount == null ? null : amount.getCurrency());
+            writeString(out, event.getPaymentId());
+            out.writeLong(event.getCreatedAt() == null ? -1 : event.getCreatedAt().toEpochMilli());
+            out.writeLong(event.getTimestamp() == null ? -1 : event.getTimestamp().toEpochMilli());
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not encode order event", e);
+        }
+        return bytes.toByteArray();
+    }
+    
+    public static OrderEvent decode(long sequence, ByteBuffer payload) {
+        OrderEvent event = new OrderEvent();
+        event.setSequence(sequence);
+        event.setType(OrderEvent.Type.values()[payload.get()]);
+        event.setOrderId(readString(payload));
+        event.setUserId(readString(payload));
+        event.setStatus(readString(payload));
+        long minorUnits = payload.getLong();
+        String currency = readString(payload);
+        event.setAmount(currency == null ? null : Money.ofMinor(minorUnits, currency));
+        event.setPaymentId(readString(payload));
+        event.setCreatedAt(readInstant(payload));
+        event.setTimestamp(readInstant(payload));
+        return event;
+    }
+    
+    /**
+     * Check whether a payload is for the given order (UTF-8 id) without decoding it.
+     */
+    public static boolean isFor(ByteBuffer payload, byte[] orderId) {
+        int position = payload.position();
+        // The orderId follows the type byte
+        if (payload.getInt(position + 1) != orderId.length) {
+            return false;
+        }
+        for (int i = 0; i < orderId.length; i++) {
+            if (payload.get(position + 5 + i) != orderId[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+    
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+    
+    private static Instant readInstant(ByteBuffer buffer) {
+        long millis = buffer.getLong();
+        return millis < 0 ? null : Instant.ofEpochMilli(millis);
+    }
+}
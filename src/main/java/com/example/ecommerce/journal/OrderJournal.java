@@ -0,0 +1,446 @@
+package com.example.ecommerce.journal;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only log of sequenced records in memory-mapped segment files.
+ * Each segment is named after the first sequence it holds and starts with a
+ * magic/version header; records are [length][crc32][sequence][payload], and a
+ * zero length marks the end. Appends go into the mapped active segment and only
+ * become durable at {@link #commit()}, which forces the pages once for everything
+ * appended since the last commit (group commit). A full segment is sealed and a
+ * new one started. Sealed segments can be compacted into one file holding only
+ * the records a filter keeps. Replays can be limited to a range of sequences, reading
+ * only the segments that overlap it. Recovery stops at the first torn or corrupt record.
+ * Appends and commits must come from a single writer thread; reads and compaction
+ * may run on other threads.
+ */
+@Slf4j
+public class OrderJournal implements Closeable {
+    
+    private static final int MAGIC = 0x4f4a524e;
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_SIZE = 8;
+    // length, crc32, sequence
+    private static final int FRAME_OVERHEAD = 16;
+    private static final String SUFFIX = ".log";
+    private static final String COMPACT_SUFFIX = ".compact";
+    
+    private final Path directory;
+    private final int segmentSize;
+    private final ReentrantReadWriteLock segmentsLock = new ReentrantReadWriteLock();
+    private final List<Path> sealed = new ArrayList<>();
+    
+    private Path activePath;
+    private FileChannel activeChannel;
+    private MappedByteBuffer active;
+    private long lastSequence;
+    private volatile int committedPosition;
+    private volatile long committedSequence;
+    
+    private OrderJournal(Path directory, int segmentSize) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+    }
+    
+    /**
+     * Open the journal in the directory, recovering the segments already there.
+     */
+    public static OrderJournal open(Path directory, int segmentSize) throws IOException {
+        OrderJournal journal = new OrderJournal(directory, segmentSize);
+        journal.recover();
+        return journal;
+    }
+    
+    public long getLastSequence() {
+        return lastSequence;
+    }
+    
+    /**
+     * The highest sequence made durable by a commit.
+     */
+    public long getCommittedSequence() {
+        return committedSequence;
+    }
+    
+    public int getSegmentCount() {
+        segmentsLock.readLock().lock();
+        try {
+            return sealed.size() + 1;
+        } finally {
+            segmentsLock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Append a record with the next sequence. It is durable after the next commit.
+     */
+    public void append(long sequence, byte[] payload) throws IOException {
+        if (sequence <= lastSequence) {
+            throw new IllegalArgumentException("Sequence " + sequence + " is not after " + lastSequence);
+        }
+        int frameSize = FRAME_OVERHEAD + payload.length;
+        if (HEADER_SIZE + frameSize > segmentSize) {
+            throw new IllegalArgumentException("Record of " + payload.length + " bytes does not fit in a segment");
+        }
+        if (active.remaining() < frameSize) {
+            roll(sequence);
+        }
+        CRC32 crc = new CRC32();
+        ByteBuffer sequenceBytes = ByteBuffer.allocate(8).putLong(0, sequence);
+        crc.update(sequenceBytes);
+        crc.update(payload);
+        active.putInt(payload.length);
+        active.putInt((int) crc.getValue());
+        active.putLong(sequence);
+        active.put(payload);
+        lastSequence = sequence;
+    }
+    
+    /**
+     * Make everything appended so far durable, with one force of the active segment.
+     */
+    public void commit() {
+        if (committedSequence == lastSequence) {
+            return;
+        }
+        active.force();
+        committedPosition = active.position();
+        committedSequence = lastSequence;
+    }
+    
+    /**
+     * Visit every committed record in sequence order.
+     */
+    public void replay(RecordVisitor visitor) throws IOException {
+        replay(0, Long.MAX_VALUE, visitor);
+    }
+    
+    /**
+     * Visit the committed records with sequences from {@code from} to {@code to}, in order.
+     * Segments wholly outside the range are not read, and records before it are
+     * stepped over by their length without checking their CRC.
+     */
+    public void replay(long from, long to, RecordVisitor visitor) throws IOException {
+        segmentsLock.readLock().lock();
+        try {
+            // A compaction interrupted before it removed its inputs leaves records twice
+            long[] last = {from - 1};
+            for (int i = 0; i < sealed.size(); i++) {
+                Path segment = sealed.get(i);
+                if (firstSequence(segment) > to) {
+                    return;
+                }
+                Path next = i + 1 < sealed.size() ? sealed.get(i + 1) : activePath;
+                if (firstSequence(next) > from) {
+                    readSegment(segment, to, last, visitor);
+                }
+            }
+            if (firstSequence(activePath) > to) {
+                return;
+            }
+            ByteBuffer committed = active.duplicate();
+            committed.position(HEADER_SIZE).limit(committedPosition);
+            readRange(committed, to, last, visitor);
+        } finally {
+            segmentsLock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Rewrite all sealed segments into one file with only the records the filter keeps.
+     * Returns the number of records dropped.
+     */
+    public synchronized int compact(RecordFilter filter) throws IOException {
+        List<Path> inputs;
+        segmentsLock.readLock().lock();
+        try {
+            inputs = List.copyOf(sealed);
+        } finally {
+            segmentsLock.readLock().unlock();
+        }
+        if (inputs.isEmpty()) {
+            return 0;
+        }
+        
+        Path target = inputs.get(0);
+        Path temp = directory.resolve(target.getFileName() + COMPACT_SUFFIX);
+        int dropped = 0;
+        try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            out.write(header());
+            long last = 0;
+            for (Path input : inputs) {
+                try (FileChannel in = FileChannel.open(input, StandardOpenOption.READ)) {
+                    ByteBuffer buffer = in.map(FileChannel.MapMode.READ_ONLY, 0, in.size());
+                    checkHeader(buffer, input);
+                    while (buffer.remaining() >= FRAME_OVERHEAD) {
+                        int start = buffer.position();
+                        RecordFrame frame = readFrame(buffer);
+                        if (frame == null) {
+                            break;
+                        }
+                        if (frame.sequence <= last) {
+                            continue;
+                        }
+                        last = frame.sequence;
+                        if (filter.keep(frame.sequence, frame.payload)) {
+                            ByteBuffer raw = buffer.duplicate();
+                            raw.position(start).limit(buffer.position());
+                            while (raw.hasRemaining()) {
+                                out.write(raw);
+                            }
+                        } else {
+                            dropped++;
+                        }
+                    }
+                }
+            }
+            out.write(ByteBuffer.allocate(4));
+            out.force(true);
+        }
+        
+        segmentsLock.writeLock().lock();
+        try {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            for (Path input : inputs.subList(1, inputs.size())) {
+                Files.deleteIfExists(input);
+            }
+            sealed.removeAll(inputs);
+            sealed.add(0, target);
+        } finally {
+            segmentsLock.writeLock().unlock();
+        }
+        log.info("Compacted {} order journal segments, dropped {} records", inputs.size(), dropped);
+        return dropped;
+    }
+    
+    @Override
+    public void close() throws IOException {
+        commit();
+        activeChannel.close();
+    }
+    
+    private void recover() throws IOException {
+        Files.createDirectories(directory);
+        List<Path> segments;
+        try (Stream<Path> files = Files.list(directory)) {
+            segments = new ArrayList<>(files.filter(path -> path.getFileName().toString().endsWith(SUFFIX))
+                    .sorted()
+                    .toList());
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path leftover : files.filter(path -> path.getFileName().toString().endsWith(COMPACT_SUFFIX)).toList()) {
+                Files.delete(leftover);
+            }
+        }
+        
+        long[] last = {0};
+        for (Path segment : segments) {
+            last[0] = Math.max(last[0], firstSequence(segment) - 1);
+            readSegment(segment, (sequence, payload) -> last[0] = Math.max(last[0], sequence));
+        }
+        lastSequence = last[0];
+        committedSequence = last[0];
+        
+        // Keep appending to the newest segment unless it is a compacted (exact-size) file
+        Path newest = segments.isEmpty() ? null : segments.get(segments.size() - 1);
+        if (newest != null && Files.size(newest) == segmentSize) {
+            segments.remove(segments.size() - 1);
+            sealed.addAll(segments);
+            openActive(newest, false);
+        } else {
+            sealed.addAll(segments);
+            openActive(segmentPath(lastSequence + 1), true);
+        }
+        log.info("Opened order journal in {}: {} segments, last sequence {}", directory, sealed.size() + 1, lastSequence);
+    }
+    
+    private void openActive(Path path, boolean create) throws IOException {
+        activePath = path;
+        activeChannel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        active = activeChannel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        if (create) {
+            active.put(header());
+            active.force();
+        } else {
+            checkHeader(active, path);
+            readRecords(active, (sequence, payload) -> {
+            });
+            clearTail();
+        }
+        committedPosition = active.position();
+    }
+    
+    /**
+     * Zero everything after the last good record, so that stale bytes from an
+     * interrupted run can never be read as records after new appends.
+     */
+    private void clearTail() {
+        int position = active.position();
+        for (int i = position; i < segmentSize; i++) {
+            if (active.get(i) != 0) {
+                for (int j = i; j < segmentSize; j++) {
+                    active.put(j, (byte) 0);
+                }
+                active.force();
+                break;
+            }
+        }
+    }
+    
+    private void roll(long nextSequence) throws IOException {
+        active.force();
+        activeChannel.close();
+        Path previous = activePath;
+        segmentsLock.writeLock().lock();
+        try {
+            sealed.add(previous);
+            openActive(segmentPath(nextSequence), true);
+        } finally {
+            segmentsLock.writeLock().unlock();
+        }
+        committedSequence = lastSequence;
+    }
+    
+    private void readSegment(Path segment, RecordVisitor visitor) throws IOException {
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            checkHeader(buffer, segment);
+            readRecords(buffer, visitor);
+        }
+    }
+    
+    private void readSegment(Path segment, long to, long[] last, RecordVisitor visitor) throws IOException {
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            checkHeader(buffer, segment);
+            readRange(buffer, to, last, visitor);
+        }
+    }
+    
+    /**
+     * Read records from the buffer's position until the end marker or a bad record,
+     * leaving the position just after the last good one.
+     */
+    private static void readRecords(ByteBuffer buffer, RecordVisitor visitor) throws IOException {
+        while (buffer.remaining() >= FRAME_OVERHEAD) {
+            int start = buffer.position();
+            RecordFrame frame = readFrame(buffer);
+            if (frame == null) {
+                buffer.position(start);
+                return;
+            }
+            visitor.visit(frame.sequence, frame.payload);
+        }
+    }
+    
+    /**
+     * Visit the records after {@code last[0]} up to {@code to}, advancing {@code last[0]};
+     * stops at the end marker, a bad record or the first record past the range.
+     */
+    private static void readRange(ByteBuffer buffer, long to, long[] last, RecordVisitor visitor) throws IOException {
+        while (buffer.remaining() >= FRAME_OVERHEAD) {
+            int start = buffer.position();
+            int length = buffer.getInt(start);
+            if (length <= 0 || length > buffer.remaining() - FRAME_OVERHEAD) {
+                return;
+            }
+            long sequence = buffer.getLong(start + 8);
+            if (sequence > to) {
+                return;
+            }
+            if (sequence <= last[0]) {
+                buffer.position(start + FRAME_OVERHEAD + length);
+                continue;
+            }
+            RecordFrame frame = readFrame(buffer);
+            if (frame == null) {
+                return;
+            }
+            last[0] = frame.sequence;
+            visitor.visit(frame.sequence, frame.payload);
+        }
+    }
+    
+    private static RecordFrame readFrame(ByteBuffer buffer) {
+        int start = buffer.position();
+        int length = buffer.getInt();
+        if (length <= 0 || length > buffer.remaining() - 12) {
+            buffer.position(start);
+            return null;
+        }
+        int expectedCrc = buffer.getInt();
+        long sequence = buffer.getLong();
+        ByteBuffer payload = buffer.slice(buffer.position(), length);
+        CRC32 crc = new CRC32();
+        crc.update(buffer.slice(start + 8, 8 + length));
+        if ((int) crc.getValue() != expectedCrc) {
+            buffer.position(start);
+            return null;
+        }
+        buffer.position(buffer.position() + length);
+        return new RecordFrame(sequence, payload);
+    }
+    
+    private static ByteBuffer header() {
+        return ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putInt(FORMAT_VERSION).flip();
+    }
+    
+    private static void checkHeader(ByteBuffer buffer, Path segment) throws IOException {
+        if (buffer.remaining() < HEADER_SIZE || buffer.getInt() != MAGIC || buffer.getInt() != FORMAT_VERSION) {
+            throw new IOException("Not an order journal segment: " + segment);
+        }
+    }
+    
+    private Path segmentPath(long firstSequence) {
+        return directory.resolve(String.format("%020d%s", firstSequence, SUFFIX));
+    }
+    
+    private static long firstSequence(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(0, name.length() - SUFFIX.length()));
+    }
+    
+    /**
+     * Receives records in sequence order. The payload buffer is only valid during the call.
+     */
+    @FunctionalInterface
+    public interface RecordVisitor {
+        void visit(long sequence, ByteBuffer payload) throws IOException;
+    }
+    
+    /**
+     * Decides which records survive a compaction.
+     */
+    @FunctionalInterface
+    public interface RecordFilter {
+        boolean keep(long sequence, ByteBuffer payload) throws IOException;
+    }
+    
+    private static final class RecordFrame {
+        
+        private final long sequence;
+        private final ByteBuffer payload;
+        
+        RecordFrame(long sequence, ByteBuffer payload) {
+            this.sequence = sequence;
+            this.payload = payload;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.ecommerce.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * AbandonedCart entity: summary of an idle cart, written just before its lines are deleted.
+ * Read in (abandonedAt, id) order as a stream; abandonedAt is set when the summary is
+ * written, and readers stay a little behind it. cartKey (user and last touch) is unique,
+ * so a cart swept twice is summarized once; summaries expire after their retention.
+ */
+@Data
+@Builder(toBuilder = true)
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "abandoned_carts")
+@CompoundIndex(name = "abandoned_id", def = "{'abandonedAt': 1, '_id': 1}")
+public class AbandonedCart {
+    
+    @Id
+    private String id;
+    
+    @Indexed(unique = true)
+    private String cartKey;
+    
+    private String userId;
+    
+    private List<Line> items;
+    
+    private Integer units;
+    
+    private Instant lastTouchedAt;
+    
+    private Instant abandonedAt;
+    
+    @Indexed(expireAfterSeconds = 0)
+    private Instant expiresAt;
+    
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Line {
+        private String productId;
+        private Integer quantity;
+        // Current unit price when the cart was swept, if the product still exists
+        private Money price;
+    }
+}
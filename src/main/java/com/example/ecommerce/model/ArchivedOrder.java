@@ -0,0 +1,40 @@
+package com.example.ecommerce.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+/**
+ * ArchivedOrder entity: a finished order moved out of the hot orders collection.
+ * The whole order is kept compressed in data; status, amount and creation time
+ * stay readable for the stats rebuild, and userId is indexed for order history.
+ */
+@Data
+@Builder(toBuilder = true)
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "orders_archive")
+public class ArchivedOrder {
+    
+    @Id
+    private String id;
+    
+    @Indexed
+    private String userId;
+    
+    private String status;
+    
+    private Money totalAmount;
+    
+    private Instant createdAt;
+    
+    private Instant archivedAt;
+    
+    private byte[] data;
+}
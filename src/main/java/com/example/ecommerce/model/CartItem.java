@@ -5,16 +5,23 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
+import java.time.Instant;
+
 /**
  * CartItem entity representing an item in a user's shopping cart.
+ * lastTouchedAt is set on every add; idle carts are summarized and removed by the
+ * abandoned-cart sweeper, or expire through expiresAt when cart expiry uses the TTL index.
  */
 @Data
-@Builder
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
 @Document(collection = "cart_items")
+@CompoundIndex(name = "user_product", def = "{'userId': 1, 'productId': 1}")
 public class CartItem {
     
     @Id
@@ -25,4 +32,10 @@ public class CartItem {
     private String productId;
     
     private Integer quantity;
+    
+    @Indexed
+    private Instant lastTouchedAt;
+    
+    @Indexed(expireAfterSeconds = 0)
+    private Instant expiresAt;
 }
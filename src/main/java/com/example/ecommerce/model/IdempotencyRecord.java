@@ -0,0 +1,43 @@
+package com.example.ecommerce.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+/**
+ * IdempotencyRecord entity storing the outcome of a request sent with an Idempotency-Key.
+ * The id is the endpoint scope plus the key. Status can be: IN_PROGRESS, COMPLETED.
+ * An IN_PROGRESS record is a lock that can be taken over once lockedUntil has passed.
+ * Records are removed by a TTL index on expiresAt.
+ */
+@Data
+@Builder(toBuilder = true)
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "idempotency_keys")
+public class IdempotencyRecord {
+    
+    @Id
+    private String id;
+    
+    private String fingerprint;
+    
+    private String status;
+    
+    private Integer httpStatus;
+    
+    private String body;
+    
+    private Instant lockedUntil;
+    
+    private Instant createdAt;
+    
+    @Indexed(expireAfterSeconds = 0)
+    private Instant expiresAt;
+}
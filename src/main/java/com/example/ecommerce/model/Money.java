@@ -0,0 +1,112 @@
+package com.example.ecommerce.model;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Currency;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * An amount of money as a whole number of minor units (cents) in a currency.
+ * Stored in MongoDB as { minorUnits, currency } and written as JSON
+ * { "amount": 19.99, "currency": "USD" }. A plain JSON number is read as an
+ * amount in {@link #DEFAULT_CURRENCY}, so clients sending decimals keep working.
+ */
+@Getter
+@EqualsAndHashCode
+public final class Money implements Comparable<Money> {
+    
+    public static final String DEFAULT_CURRENCY = "USD";
+    
+    private final long minorUnits;
+    
+    private final String currency;
+    
+    public Money(long minorUnits, String currency) {
+        this.minorUnits = minorUnits;
+        this.currency = currency;
+    }
+    
+    public static Money ofMinor(long minorUnits, String currency) {
+        return new Money(minorUnits, currency);
+    }
+    
+    /**
+     * Convert a decimal amount, rounding half-even to the currency's minor unit.
+     */
+    public static Money of(BigDecimal amount, String currency) {
+        BigDecimal minor = amount.movePointRight(fractionDigits(currency)).setScale(0, RoundingMode.HALF_EVEN);
+        return new Money(minor.longValueExact(), currency);
+    }
+    
+    public static Money zero(String currency) {
+        return new Money(0, currency);
+    }
+    
+    public Money plus(Money other) {
+        requireSameCurrency(other);
+        return new Money(Math.addExact(minorUnits, other.minorUnits), currency);
+    }
+    
+    public Money times(int quantity) {
+        return new Money(Math.multiplyExact(minorUnits, quantity), currency);
+    }
+    
+    public boolean isPositive() {
+        return minorUnits > 0;
+    }
+    
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(minorUnits, fractionDigits(currency));
+    }
+    
+    @Override
+    public int compareTo(Money other) {
+        requireSameCurrency(other);
+        return Long.compare(minorUnits, other.minorUnits);
+    }
+    
+    @Override
+    public String toString() {
+        return toBigDecimal().toPlainString() + " " + currency;
+    }
+    
+    @JsonValue
+    public Map<String, Object> toJson() {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("amount", toBigDecimal());
+        json.put("currency", currency);
+        return json;
+    }
+    
+    @JsonCreator(mode = JsonCreator.Mode.DELEGATING)
+    public static Money fromJson(Object value) {
+        if (value instanceof Number || value instanceof String) {
+            return of(new BigDecimal(value.toString()), DEFAULT_CURRENCY);
+        }
+        if (value instanceof Map<?, ?> json && json.get("amount") != null) {
+            Object currency = json.get("currency");
+            return of(new BigDecimal(json.get("amount").toString()),
+                    currency == null ? DEFAULT_CURRENCY : currency.toString());
+        }
+        throw new IllegalArgumentException("Expected an amount or { amount, currency }, got: " + value);
+    }
+    
+    /**
+     * Number of decimal places of the currency's minor unit (2 for USD, 0 for JPY).
+     */
+    public static int fractionDigits(String currency) {
+        return Math.max(0, Currency.getInstance(currency).getDefaultFractionDigits());
+    }
+    
+    private void requireSameCurrency(Money other) {
+        if (!currency.equals(other.currency)) {
+            throw new IllegalArgumentException("Currency mismatch: " + currency + " and " + other.currency);
+        }
+    }
+}
@@ -5,6 +5,7 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.Instant;
@@ -12,21 +13,29 @@ import java.util.List;
 
 /**
  * Order entity representing a customer's order.
- * Status can be: CREATED, PAID, FAILED, CANCELLED
+ * Status can be: CREATED, PAID, FAILED, CANCELLED, EXPIRED
+ * Unpaid CREATED orders past their payment deadline and old orders in a terminal
+ * status are found by status and creation time, paged in (createdAt, id) order.
  */
 @Data
-@Builder
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
 @Document(collection = "orders")
+@CompoundIndex(name = "status_created_id", def = "{'status': 1, 'createdAt': 1, '_id': 1}")
 public class Order {
     
+    /**
+     * Statuses an order never leaves.
+     */
+    public static final List<String> TERMINAL_STATUSES = List.of("PAID", "FAILED", "CANCELLED", "EXPIRED");
+    
     @Id
     private String id;
     
     private String userId;
     
-    private Double totalAmount;
+    private Money totalAmount;
     
     private String status;
     
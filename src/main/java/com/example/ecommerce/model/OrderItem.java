@@ -10,7 +10,7 @@ import lombok.NoArgsConstructor;
  * Price is captured at order time to handle price changes.
  */
 @Data
-@Builder
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
 public class OrderItem {
@@ -23,5 +23,5 @@ public class OrderItem {
     
     private Integer quantity;
     
-    private Double price;
+    private Money price;
 }
@@ -0,0 +1,75 @@
+package com.example.ecommerce.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+
+/**
+ * OrderStats entity: a small counter document maintained with atomic increments.
+ * The "totals" document holds order counts and amounts per current status; bucket
+ * documents ("HOUR:2026-01-01T10:00:00Z") hold the same for orders created in that
+ * minute, hour or day. Amounts are minor units kept per currency and status;
+ * revenue is the PAID amount in each currency. Minute and hour buckets expire.
+ */
+@Data
+@Builder(toBuilder = true)
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "order_stats")
+public class OrderStats {
+    
+    public static final String TOTALS_ID = "totals";
+    
+    @Id
+    private String id;
+    
+    private Granularity granularity;
+    
+    private Instant bucketStart;
+    
+    private Map<String, Long> counts;
+    
+    // Minor units by currency, then status
+    private Map<String, Map<String, Long>> currencyAmounts;
+    
+    // Minor units by status, written before amounts were kept per currency; read as the store currency
+    private Map<String, Long> amounts;
+    
+    @Indexed(expireAfterSeconds = 0)
+    private Instant expiresAt;
+    
+    /**
+     * Time bucket sizes.
+     */
+    public enum Granularity {
+        MINUTE(ChronoUnit.MINUTES),
+        HOUR(ChronoUnit.HOURS),
+        DAY(ChronoUnit.DAYS);
+        
+        private final ChronoUnit unit;
+        
+        Granularity(ChronoUnit unit) {
+            this.unit = unit;
+        }
+        
+        public ChronoUnit getUnit() {
+            return unit;
+        }
+        
+        public Instant bucketStart(Instant time) {
+            return time.truncatedTo(unit);
+        }
+        
+        public String bucketId(Instant bucketStart) {
+            return name() + ":" + bucketStart;
+        }
+    }
+}
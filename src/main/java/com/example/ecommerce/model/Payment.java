@@ -5,6 +5,8 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.Instant;
@@ -12,23 +14,28 @@ import java.time.Instant;
 /**
  * Payment entity representing payment information for an order.
  * Status can be: PENDING, SUCCESS, FAILED
+ * Stale PENDING payments are found by status and creation time for reconciliation;
+ * webhooks and reconciliation settle payments by their gateway paymentId, which is unique.
  */
 @Data
-@Builder
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
 @Document(collection = "payments")
+@CompoundIndex(name = "status_created_id", def = "{'status': 1, 'createdAt': 1, '_id': 1}")
 public class Payment {
     
     @Id
     private String id;
     
+    @Indexed
     private String orderId;
     
-    private Double amount;
+    private Money amount;
     
     private String status;
     
+    @Indexed(unique = true)
     private String paymentId;
     
     private Instant createdAt;
@@ -7,11 +7,17 @@ import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.mongodb.core.mapping.Document;
 
+import java.time.Instant;
+
 /**
  * Product entity representing items available for purchase.
+ * Stock is the physical count; reserved is held by carts; leased is handed out
+ * to in-memory hot-SKU counters; available is what can still be reserved or
+ * sold (stock minus reserved minus leased).
+ * Version is bumped on every write and backs the catalog ETags.
  */
 @Data
-@Builder
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
 @Document(collection = "products")
@@ -24,7 +30,19 @@ public class Product {
     
     private String description;
     
-    private Double price;
+    private Money price;
     
     private Integer stock;
+    
+    private Integer reserved;
+    
+    private Integer available;
+    
+    private Integer leased;
+    
+    private Boolean hot;
+    
+    private Long version;
+    
+    private Instant lastModified;
 }
@@ -0,0 +1,43 @@
+package com.example.ecommerce.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+/**
+ * StockLease entity: the part of a product's leased counter held by one instance's
+ * hot-SKU stripes. The owner renews expiresAt while it runs; a lease left to expire
+ * (its owner died) is removed by any instance and its units go back to available.
+ */
+@Data
+@Builder(toBuilder = true)
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "stock_leases")
+public class StockLease {
+    
+    @Id
+    private String id;
+    
+    private String productId;
+    
+    private String owner;
+    
+    private Integer quantity;
+    
+    @Indexed
+    private Instant expiresAt;
+    
+    /**
+     * One lease per product and owner.
+     */
+    public static String idOf(String productId, String owner) {
+        return productId + "/" + owner;
+    }
+}
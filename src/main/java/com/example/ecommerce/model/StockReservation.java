@@ -0,0 +1,46 @@
+package com.example.ecommerce.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+/**
+ * StockReservation entity representing a time-limited cart hold on product stock.
+ * Each add-to-cart creates its own hold. Live holds are converted at checkout;
+ * expired ones are claimed by a sweeper (sweptBy, sweptAt) and released. A claim
+ * whose owner died before finishing is taken over once sweptAt is past the lease.
+ */
+@Data
+@Builder(toBuilder = true)
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "stock_reservations")
+@CompoundIndex(name = "user_product", def = "{'userId': 1, 'productId': 1}")
+public class StockReservation {
+    
+    @Id
+    private String id;
+    
+    private String userId;
+    
+    private String productId;
+    
+    private Integer quantity;
+    
+    @Indexed
+    private Instant expiresAt;
+    
+    private Instant createdAt;
+    
+    private String sweptBy;
+    
+    @Indexed(sparse = true)
+    private Instant sweptAt;
+}
@@ -0,0 +1,38 @@
+package com.example.ecommerce.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * TrendingSnapshot entity holding the saved sketches of one trending window of
+ * one instance, so the trending list survives a restart. Id is "window:instanceId".
+ */
+@Data
+@Builder(toBuilder = true)
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "trending_snapshots")
+public class TrendingSnapshot {
+    
+    @Id
+    private String id;
+    
+    private String window;
+    
+    private String instanceId;
+    
+    private long currentSlot;
+    
+    private List<byte[]> slots;
+    
+    private List<String> candidates;
+    
+    private Instant savedAt;
+}
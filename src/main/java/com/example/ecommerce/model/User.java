@@ -5,23 +5,31 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 /**
  * User entity representing a customer in the e-commerce system.
+ * Username and email are guarded by unique indexes, named so that a duplicate-key
+ * error tells which of the two was taken.
  */
 @Data
-@Builder
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
 @Document(collection = "users")
 public class User {
     
+    public static final String USERNAME_INDEX = "username";
+    public static final String EMAIL_INDEX = "email";
+    
     @Id
     private String id;
     
+    @Indexed(unique = true, name = USERNAME_INDEX)
     private String username;
     
+    @Indexed(unique = true, name = EMAIL_INDEX)
     private String email;
     
     private String role;
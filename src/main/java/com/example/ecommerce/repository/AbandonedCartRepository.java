@@ -0,0 +1,12 @@
+package com.example.ecommerce.repository;
+
+import com.example.ecommerce.model.AbandonedCart;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repository for abandoned cart summaries.
+ */
+@Repository
+public interface AbandonedCartRepository extends MongoRepository<AbandonedCart, String>, AbandonedCartRepositoryCustom {
+}
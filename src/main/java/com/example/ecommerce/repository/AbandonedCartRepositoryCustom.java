@@ -0,0 +1,18 @@
+package com.example.ecommerce.repository;
+
+import com.example.ecommerce.model.AbandonedCart;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Keyset reads of the abandoned cart stream.
+ */
+public interface AbandonedCartRepositoryCustom {
+    
+    /**
+     * Up to limit summaries abandoned at or before upTo, in (abandonedAt, id) order,
+     * after the given position (from the oldest when afterAbandonedAt is null).
+     */
+    List<AbandonedCart> findAbandonedAfter(Instant afterAbandonedAt, String afterId, Instant upTo, int limit);
+}
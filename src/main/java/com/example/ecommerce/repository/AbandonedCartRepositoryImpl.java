@@ -0,0 +1,35 @@
+package com.example.ecommerce.repository;
+
+import com.example.ecommerce.model.AbandonedCart;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * MongoDB implementation of the abandoned cart stream reads.
+ */
+@RequiredArgsConstructor
+public class AbandonedCartRepositoryImpl implements AbandonedCartRepositoryCustom {
+    
+    private final MongoTemplate mongoTemplate;
+    
+    @Override
+    public List<AbandonedCart> findAbandonedAfter(Instant afterAbandonedAt, String afterId, Instant upTo, int limit) {
+        Criteria criteria = Criteria.where("abandonedAt").lte(upTo);
+        if (afterAbandonedAt != null) {
+            // Keyset paging: served from the (abandonedAt, _id) index without skipping
+            criteria = criteria.orOperator(
+                    Criteria.where("abandonedAt").gt(afterAbandonedAt),
+                    Criteria.where("abandonedAt").is(afterAbandonedAt).and("id").gt(afterId));
+        }
+        Query query = Query.query(criteria)
+                .with(Sort.by("abandonedAt", "id"))
+                .limit(limit);
+        return mongoTemplate.find(query, AbandonedCart.class);
+    }
+}
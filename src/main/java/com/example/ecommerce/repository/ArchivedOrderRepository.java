@@ -0,0 +1,16 @@
+package com.example.ecommerce.repository;
+
+import com.example.ecommerce.model.ArchivedOrder;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Repository for archived orders.
+ */
+@Repository
+public interface ArchivedOrderRepository extends MongoRepository<ArchivedOrder, String> {
+    
+    List<ArchivedOrder> findByUserId(String userId);
+}
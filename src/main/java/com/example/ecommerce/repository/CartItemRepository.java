@@ -4,6 +4,7 @@ import com.example.ecommerce.model.CartItem;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -11,11 +12,15 @@ import java.util.Optional;
  * Repository for CartItem entity operations.
  */
 @Repository
-public interface CartItemRepository extends MongoRepository<CartItem, String> {
+public interface CartItemRepository extends MongoRepository<CartItem, String>, CartItemRepositoryCustom {
     
     List<CartItem> findByUserId(String userId);
     
     Optional<CartItem> findByUserIdAndProductId(String userId, String productId);
     
     void deleteByUserId(String userId);
+    
+    List<CartItem> findByUserIdIn(Collection<String> userIds);
+    
+    void deleteByUserIdIn(Collection<String> userIds);
 }
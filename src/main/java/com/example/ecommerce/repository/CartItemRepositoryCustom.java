@@ -0,0 +1,36 @@
+package com.example.ecommerce.repository;
+
+import com.example.ecommerce.model.CartItem;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Queries and bulk writes for abandoned cart expiry.
+ */
+public interface CartItemRepositoryCustom {
+    
+    /**
+     * Get the least recently touched cart lines last touched before the cutoff.
+     */
+    List<CartItem> findIdleBefore(Instant cutoff, int limit);
+    
+    /**
+     * Give lines added before touch tracking a last touch (and expiry, when not null).
+     * Returns the number of lines updated.
+     */
+    long touchUntracked(Instant touchedAt, Instant expiresAt);
+    
+    /**
+     * Move each user's older lines up to the given last touch, so lines of an active
+     * cart are not picked up as idle again. One bulk write for all users.
+     */
+    void touchCarts(Map<String, Instant> lastTouchedByUserId);
+    
+    /**
+     * Delete each user's lines not touched after the given time, one bulk write for all.
+     * Lines added or touched since are kept. Returns the number of lines deleted.
+     */
+    long deleteIdleCarts(Map<String, Instant> lastTouchedByUserId);
+}
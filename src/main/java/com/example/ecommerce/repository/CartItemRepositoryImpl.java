@@ -0,0 +1,65 @@
+package com.example.ecommerce.repository;
+
+import com.example.ecommerce.model.CartItem;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * MongoDB implementation of the abandoned cart expiry queries.
+ */
+@RequiredArgsConstructor
+public class CartItemRepositoryImpl implements CartItemRepositoryCustom {
+    
+    private final MongoTemplate mongoTemplate;
+    
+    @Override
+    public List<CartItem> findIdleBefore(Instant cutoff, int limit) {
+        Query query = Query.query(Criteria.where("lastTouchedAt").lt(cutoff))
+                .with(Sort.by("lastTouchedAt"))
+                .limit(limit);
+        return mongoTemplate.find(query, CartItem.class);
+    }
+    
+    @Override
+    public long touchUntracked(Instant touchedAt, Instant expiresAt) {
+        // Matches missing and null values, served from the lastTouchedAt index
+        Update update = new Update().set("lastTouchedAt", touchedAt);
+        if (expiresAt != null) {
+            update.set("expiresAt", expiresAt);
+        }
+        return mongoTemplate.updateMulti(Query.query(Criteria.where("lastTouchedAt").is(null)), update, CartItem.class)
+                .getModifiedCount();
+    }
+    
+    @Override
+    public void touchCarts(Map<String, Instant> lastTouchedByUserId) {
+        if (lastTouchedByUserId.isEmpty()) {
+            return;
+        }
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, CartItem.class);
+        lastTouchedByUserId.forEach((userId, lastTouchedAt) -> bulk.updateMulti(
+                Query.query(Criteria.where("userId").is(userId).and("lastTouchedAt").lt(lastTouchedAt)),
+                new Update().set("lastTouchedAt", lastTouchedAt)));
+        bulk.execute();
+    }
+    
+    @Override
+    public long deleteIdleCarts(Map<String, Instant> lastTouchedByUserId) {
+        if (lastTouchedByUserId.isEmpty()) {
+            return 0;
+        }
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, CartItem.class);
+        lastTouchedByUserId.forEach((userId, lastTouchedAt) -> bulk.remove(
+                Query.query(Criteria.where("userId").is(userId).and("lastTouchedAt").lte(lastTouchedAt))));
+        return bulk.execute().getDeletedCount();
+    }
+}
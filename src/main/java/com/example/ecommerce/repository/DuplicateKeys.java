@@ -0,0 +1,28 @@
+package com.example.ecommerce.repository;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Reads the violated index out of a duplicate-key (E11000) error.
+ * The server reports the index by name ("... index: email dup key: { ... }"), so unique
+ * indexes that callers tell apart are given explicit names.
+ */
+public final class DuplicateKeys {
+    
+    private static final Pattern INDEX_NAME = Pattern.compile("index: (\\S+) dup key");
+    
+    private DuplicateKeys() {
+    }
+    
+    /**
+     * The name of the index a duplicate-key error message reports, or null if it names none.
+     */
+    public static String indexName(String errorMessage) {
+        if (errorMessage == null) {
+            return null;
+        }
+        Matcher matcher = INDEX_NAME.matcher(errorMessage);
+        return matcher.find() ? matcher.group(1) : null;
+    }
+}
@@ -10,7 +10,7 @@ import java.util.List;
  * Repository for Order entity operations.
  */
 @Repository
-public interface OrderRepository extends MongoRepository<Order, String> {
+public interface OrderRepository extends MongoRepository<Order, String>, OrderRepositoryCustom {
     
     List<Order> findByUserId(String userId);
     
@@ -0,0 +1,43 @@
+package com.example.ecommerce.repository;
+
+import com.example.ecommerce.model.Order;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Conditional and bulk order status updates, and the queries behind archival.
+ */
+public interface OrderRepositoryCustom {
+    
+    /**
+     * Set an order's status, only if it currently has the expected status (any when null).
+     * Returns the order as it was before the update, or null if nothing was updated.
+     */
+    Order updateStatus(String orderId, String expectedStatus, String status);
+    
+    /**
+     * Move orders that are still CREATED to the given statuses, each with its own
+     * conditional write. Returns only the orders this call moved, as they were before
+     * the update, so concurrent callers never both act on the same order.
+     */
+    List<Order> updateCreatedOrders(Map<String, String> statusByOrderId);
+    
+    /**
+     * Get the next page of CREATED orders created before the cutoff, ordered by
+     * (createdAt, id) and starting after the given position (null for the first page).
+     */
+    List<Order> findCreatedBefore(Instant cutoff, Order after, int limit);
+    
+    /**
+     * Get the oldest orders in a terminal status created before the cutoff, ordered by createdAt.
+     */
+    List<Order> findTerminalCreatedBefore(Instant cutoff, int limit);
+    
+    /**
+     * Delete orders that still have the status they were read with, one conditional delete each.
+     * Returns the ids of the orders this call deleted.
+     */
+    List<String> deleteArchived(List<Order> orders);
+}
@@ -0,0 +1,89 @@
+package com.example.ecommerce.repository;
+
+import com.example.ecommerce.model.Order;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * MongoDB implementation of conditional and bulk order status updates and archival queries.
+ */
+@RequiredArgsConstructor
+public class OrderRepositoryImpl implements OrderRepositoryCustom {
+    
+    private final MongoTemplate mongoTemplate;
+    
+    @Override
+    public Order updateStatus(String orderId, String expectedStatus, String status) {
+        Criteria criteria = Criteria.where("id").is(orderId);
+        if (expectedStatus != null) {
+            criteria = criteria.and("status").is(expectedStatus);
+        }
+        // Returns the document before the update by default
+        return mongoTemplate.findAndModify(Query.query(criteria), new Update().set("status", status), Order.class);
+    }
+    
+    @Override
+    public List<Order> updateCreatedOrders(Map<String, String> statusByOrderId) {
+        List<Order> moved = new ArrayList<>();
+        statusByOrderId.forEach((orderId, status) -> {
+            // One conditional findAndModify per order: only the caller whose write moved it gets it back
+            Query created = Query.query(Criteria.where("id").is(orderId).and("status").is("CREATED"));
+            created.fields().include("status").include("userId").include("totalAmount").include("createdAt");
+            Order previous = mongoTemplate.findAndModify(created, new Update().set("status", status), Order.class);
+            if (previous != null) {
+                moved.add(previous);
+            }
+        });
+        return moved;
+    }
+    
+    @Override
+    public List<Order> findCreatedBefore(Instant cutoff, Order after, int limit) {
+        Criteria criteria = Criteria.where("status").is("CREATED").and("createdAt").lt(cutoff);
+        if (after != null) {
+            // Keyset paging: served from the (status, createdAt, _id) index without skipping or sorting
+            criteria = criteria.orOperator(
+                    Criteria.where("createdAt").gt(after.getCreatedAt()),
+                    Criteria.where("createdAt").is(after.getCreatedAt()).and("id").gt(after.getId()));
+        }
+        Query query = Query.query(criteria)
+                .with(Sort.by("createdAt", "id"))
+                .limit(limit);
+        return mongoTemplate.find(query, Order.class);
+    }
+    
+    @Override
+    public List<Order> findTerminalCreatedBefore(Instant cutoff, int limit) {
+        // Served from the (status, createdAt, _id) index, merging the ranges of the four statuses
+        Query query = Query.query(Criteria.where("status").in(Order.TERMINAL_STATUSES).and("createdAt").lt(cutoff))
+                .with(Sort.by("createdAt"))
+                .limit(limit);
+        return mongoTemplate.find(query, Order.class);
+    }
+    
+    @Override
+    public List<String> deleteArchived(List<Order> orders) {
+        if (orders.isEmpty()) {
+            return List.of();
+        }
+        // One conditional delete each: an order gone because a concurrent run archived it
+        // is not reported as deleted here
+        List<String> deleted = new ArrayList<>();
+        for (Order order : orders) {
+            Query query = Query.query(Criteria.where("id").is(order.getId()).and("status").is(order.getStatus()));
+            if (mongoTemplate.remove(query, Order.class).getDeletedCount() > 0) {
+                deleted.add(order.getId());
+            }
+        }
+        return deleted;
+    }
+}
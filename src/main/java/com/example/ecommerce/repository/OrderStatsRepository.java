@@ -0,0 +1,12 @@
+package com.example.ecommerce.repository;
+
+import com.example.ecommerce.model.OrderStats;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repository for OrderStats counter documents.
+ */
+@Repository
+public interface OrderStatsRepository extends MongoRepository<OrderStats, String> {
+}
@@ -4,15 +4,19 @@ import com.example.ecommerce.model.Payment;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 /**
  * Repository for Payment entity operations.
  */
 @Repository
-public interface PaymentRepository extends MongoRepository<Payment, String> {
+public interface PaymentRepository extends MongoRepository<Payment, String>, PaymentRepositoryCustom {
     
     Optional<Payment> findByOrderId(String orderId);
     
     Optional<Payment> findByPaymentId(String paymentId);
+    
+    List<Payment> findByOrderIdIn(Collection<String> orderIds);
 }
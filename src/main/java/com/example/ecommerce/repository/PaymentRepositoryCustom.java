@@ -0,0 +1,25 @@
+package com.example.ecommerce.repository;
+
+import com.example.ecommerce.model.Payment;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Paging and bulk status updates for payment reconciliation.
+ */
+public interface PaymentRepositoryCustom {
+    
+    /**
+     * Get the next page of PENDING payments created before the cutoff, ordered by
+     * (createdAt, id) and starting after the given position (null for the first page).
+     */
+    List<Payment> findPendingCreatedBefore(Instant cutoff, Payment after, int limit);
+    
+    /**
+     * Set final statuses on payments that are still PENDING, one conditional write each.
+     * Returns only the payment ids this call moved, never ones settled concurrently elsewhere.
+     */
+    List<String> settlePending(Map<String, String> statusByPaymentId);
+}
@@ -0,0 +1,56 @@
+package com.example.ecommerce.repository;
+
+import com.example.ecommerce.model.Payment;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * MongoDB implementation of payment reconciliation queries.
+ */
+@RequiredArgsConstructor
+public class PaymentRepositoryImpl implements PaymentRepositoryCustom {
+    
+    private final MongoTemplate mongoTemplate;
+    
+    @Override
+    public List<Payment> findPendingCreatedBefore(Instant cutoff, Payment after, int limit) {
+        Criteria criteria = Criteria.where("status").is("PENDING").and("createdAt").lt(cutoff);
+        if (after != null) {
+            // Keyset paging: served from the (status, createdAt, _id) index without skipping or sorting
+            criteria = criteria.orOperator(
+                    Criteria.where("createdAt").gt(after.getCreatedAt()),
+                    Criteria.where("createdAt").is(after.getCreatedAt()).and("id").gt(after.getId()));
+        }
+        Query query = Query.query(criteria)
+                .with(Sort.by("createdAt", "id"))
+                .limit(limit);
+        return mongoTemplate.find(query, Payment.class);
+    }
+    
+    @Override
+    public List<String> settlePending(Map<String, String> statusByPaymentId) {
+        if (statusByPaymentId.isEmpty()) {
+            return List.of();
+        }
+        List<String> changed = new ArrayList<>();
+        statusByPaymentId.forEach((paymentId, status) -> {
+            // One conditional findAndModify per payment: a webhook or another reconciler that
+            // settled it first makes this match nothing, so only our own writes are reported
+            Query pending = Query.query(Criteria.where("paymentId").is(paymentId).and("status").is("PENDING"));
+            pending.fields().include("paymentId");
+            if (mongoTemplate.findAndModify(pending, new Update().set("status", status), Payment.class) != null) {
+                changed.add(paymentId);
+            }
+        });
+        return changed;
+    }
+}
@@ -1,16 +1,43 @@
 package com.example.ecommerce.repository;
 
 import com.example.ecommerce.model.Product;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.Optional;
 
 /**
  * Repository for Product entity operations.
  */
 @Repository
-public interface ProductRepository extends MongoRepository<Product, String> {
+public interface ProductRepository extends MongoRepository<Product, String>, ProductRepositoryCustom {
     
     List<Product> findByNameContainingIgnoreCase(String name);
+    
+    List<Product> findAllBy(Pageable pageable);
+    
+    @Query(value = "{ 'hot': true }", fields = "{ '_id': 1 }")
+    List<Product> findHotProductIds();
+    
+    /**
+     * Load only the version of a product, for ETag checks.
+     */
+    @Query(value = "{ '_id': ?0 }", fields = "{ 'version': 1 }")
+    Optional<Product> findVersionById(String id);
+    
+    /**
+     * Load only the ids and versions of all products, for ETag checks.
+     */
+    @Query(value = "{}", fields = "{ 'version': 1 }")
+    List<Product> findAllVersions(Sort sort);
+    
+    /**
+     * Load only the ids and versions of a page of products, for ETag checks.
+     */
+    @Query(value = "{}", fields = "{ 'version': 1 }")
+    List<Product> findAllVersions(Pageable pageable);
 }
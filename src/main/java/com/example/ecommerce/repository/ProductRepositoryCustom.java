@@ -0,0 +1,67 @@
+package com.example.ecommerce.repository;
+
+import java.util.Map;
+
+/**
+ * Atomic stock counter updates for products.
+ * Every update bumps the product version so catalog ETags change with it.
+ */
+public interface ProductRepositoryCustom {
+    
+    /**
+     * Move quantity from available to reserved, if that much is available.
+     */
+    boolean reserveStock(String productId, int quantity);
+    
+    /**
+     * Return reserved quantities to available, one bulk write for all products.
+     */
+    void releaseReservedStock(Map<String, Integer> quantitiesByProduct);
+    
+    /**
+     * Convert holds into sales, one bulk write for all products: the used part
+     * leaves stock, the rest of what was held goes back to available.
+     */
+    void convertReservedStock(Map<String, Integer> heldByProduct, Map<String, Integer> usedByProduct);
+    
+    /**
+     * Sell quantity straight from available stock, if that much is available.
+     */
+    boolean takeAvailableStock(String productId, int quantity);
+    
+    /**
+     * Add to (or remove from) both stock and available.
+     */
+    void adjustStock(String productId, int quantityChange);
+    
+    /**
+     * Add to (or remove from) both stock and available, one bulk write for all products.
+     */
+    void adjustStock(Map<String, Integer> quantityChangesByProduct);
+    
+    /**
+     * Lease up to maxQuantity of available stock to an in-memory hot-SKU counter.
+     * Returns the quantity actually leased.
+     */
+    int leaseStock(String productId, int maxQuantity);
+    
+    /**
+     * Record units sold from a lease: they leave both leased and stock.
+     */
+    void commitLeasedStock(String productId, int soldQuantity);
+    
+    /**
+     * Return unsold leased units to available.
+     */
+    void returnLeasedStock(String productId, int quantity);
+    
+    /**
+     * Flag or unflag a product for hot-SKU inventory.
+     */
+    boolean setHot(String productId, boolean hot);
+    
+    /**
+     * Initialize the reserved/available counters on products written before they existed.
+     */
+    long initializeStockCounters();
+}
@@ -0,0 +1,140 @@
+package com.example.ecommerce.repository;
+
+import com.example.ecommerce.model.Product;
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * MongoDB implementation of the atomic stock counter updates.
+ */
+@RequiredArgsConstructor
+public class ProductRepositoryImpl implements ProductRepositoryCustom {
+    
+    private final MongoTemplate mongoTemplate;
+    
+    @Override
+    public boolean reserveStock(String productId, int quantity) {
+        Query query = Query.query(Criteria.where("id").is(productId).and("available").gte(quantity));
+        Update update = touch(new Update().inc("available", -quantity).inc("reserved", quantity));
+        return mongoTemplate.updateFirst(query, update, Product.class).getModifiedCount() > 0;
+    }
+    
+    @Override
+    public void releaseReservedStock(Map<String, Integer> quantitiesByProduct) {
+        if (quantitiesByProduct.isEmpty()) {
+            return;
+        }
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Product.class);
+        quantitiesByProduct.forEach((productId, quantity) -> bulk.updateOne(
+                Query.query(Criteria.where("id").is(productId)),
+                touch(new Update().inc("available", quantity).inc("reserved", -quantity))));
+        bulk.execute();
+    }
+    
+    @Override
+    public void convertReservedStock(Map<String, Integer> heldByProduct, Map<String, Integer> usedByProduct) {
+        if (heldByProduct.isEmpty()) {
+            return;
+        }
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Product.class);
+        heldByProduct.forEach((productId, held) -> {
+            int used = usedByProduct.getOrDefault(productId, 0);
+            bulk.updateOne(Query.query(Criteria.where("id").is(productId)), touch(new Update()
+                    .inc("stock", -used)
+                    .inc("reserved", -held)
+                    .inc("available", held - used)));
+        });
+        bulk.execute();
+    }
+    
+    @Override
+    public boolean takeAvailableStock(String productId, int quantity) {
+        Query query = Query.query(Criteria.where("id").is(productId).and("available").gte(quantity));
+        Update update = touch(new Update().inc("stock", -quantity).inc("available", -quantity));
+        return mongoTemplate.updateFirst(query, update, Product.class).getMatchedCount() > 0;
+    }
+    
+    @Override
+    public void adjustStock(String productId, int quantityChange) {
+        Update update = touch(new Update().inc("stock", quantityChange).inc("available", quantityChange));
+        mongoTemplate.updateFirst(Query.query(Criteria.where("id").is(productId)), update, Product.class);
+    }
+    
+    @Override
+    public void adjustStock(Map<String, Integer> quantityChangesByProduct) {
+        if (quantityChangesByProduct.isEmpty()) {
+            return;
+        }
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Product.class);
+        quantityChangesByProduct.forEach((productId, change) -> bulk.updateOne(
+                Query.query(Criteria.where("id").is(productId)),
+                touch(new Update().inc("stock", change).inc("available", change))));
+        bulk.execute();
+    }
+    
+    @Override
+    public int leaseStock(String productId, int maxQuantity) {
+        Query byId = Query.query(Criteria.where("id").is(productId));
+        byId.fields().include("available");
+        for (int attempt = 0; attempt < 3; attempt++) {
+            Product current = mongoTemplate.findOne(byId, Product.class);
+            if (current == null || current.getAvailable() == null) {
+                return 0;
+            }
+            int quantity = Math.min(maxQuantity, current.getAvailable());
+            if (quantity <= 0) {
+                return 0;
+            }
+            Query query = Query.query(Criteria.where("id").is(productId).and("available").gte(quantity));
+            Update update = touch(new Update().inc("available", -quantity).inc("leased", quantity));
+            if (mongoTemplate.updateFirst(query, update, Product.class).getModifiedCount() > 0) {
+                return quantity;
+            }
+        }
+        return 0;
+    }
+    
+    @Override
+    public void commitLeasedStock(String productId, int soldQuantity) {
+        Update update = touch(new Update().inc("stock", -soldQuantity).inc("leased", -soldQuantity));
+        mongoTemplate.updateFirst(Query.query(Criteria.where("id").is(productId)), update, Product.class);
+    }
+    
+    @Override
+    public void returnLeasedStock(String productId, int quantity) {
+        Update update = touch(new Update().inc("available", quantity).inc("leased", -quantity));
+        mongoTemplate.updateFirst(Query.query(Criteria.where("id").is(productId)), update, Product.class);
+    }
+    
+    @Override
+    public boolean setHot(String productId, boolean hot) {
+        Update update = touch(new Update().set("hot", hot));
+        return mongoTemplate.updateFirst(Query.query(Criteria.where("id").is(productId)), update, Product.class)
+                .getMatchedCount() > 0;
+    }
+    
+    @Override
+    public long initializeStockCounters() {
+        AggregationUpdate update = AggregationUpdate.update()
+                .set("reserved").toValue(0)
+                .set("leased").toValue(0)
+                .set("available").toValue(new Document("$ifNull", List.of("$stock", 0)));
+        return mongoTemplate.updateMulti(
+                Query.query(Criteria.where("available").exists(false)), update, Product.class)
+                .getModifiedCount();
+    }
+    
+    private static Update touch(Update update) {
+        return update.inc("version", 1).set("lastModified", Instant.now());
+    }
+}
@@ -0,0 +1,12 @@
+package com.example.ecommerce.repository;
+
+import com.example.ecommerce.model.StockLease;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repository for StockLease entity operations.
+ */
+@Repository
+public interface StockLeaseRepository extends MongoRepository<StockLease, String>, StockLeaseRepositoryCustom {
+}
@@ -0,0 +1,34 @@
+package com.example.ecommerce.repository;
+
+import com.example.ecommerce.model.StockLease;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Atomic operations on hot-SKU stock leases. Only the owner adds to, takes from or
+ * renews its lease; an expired lease is removed by exactly one reclaimer.
+ */
+public interface StockLeaseRepositoryCustom {
+    
+    /**
+     * Add units to the owner's lease of a product, creating it if needed, and extend it.
+     */
+    void addLeased(String productId, String owner, int quantity, Instant expiresAt);
+    
+    /**
+     * Take units off the owner's lease. Returns false if the lease is gone (reclaimed).
+     */
+    boolean removeLeased(String productId, String owner, int quantity);
+    
+    /**
+     * Extend the owner's lease. Returns false if the lease is gone (reclaimed).
+     */
+    boolean renew(String productId, String owner, Instant expiresAt);
+    
+    /**
+     * Delete up to limit leases that expired before now, one at a time, and return the
+     * ones this call deleted.
+     */
+    List<StockLease> removeExpired(Instant now, int limit);
+}
@@ -0,0 +1,65 @@
+package com.example.ecommerce.repository;
+
+import com.example.ecommerce.model.StockLease;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * MongoDB implementation of the atomic lease operations.
+ */
+@RequiredArgsConstructor
+public class StockLeaseRepositoryImpl implements StockLeaseRepositoryCustom {
+    
+    private final MongoTemplate mongoTemplate;
+    
+    @Override
+    public void addLeased(String productId, String owner, int quantity, Instant expiresAt) {
+        mongoTemplate.upsert(byId(productId, owner), new Update()
+                .setOnInsert("productId", productId)
+                .setOnInsert("owner", owner)
+                .inc("quantity", quantity)
+                .set("expiresAt", expiresAt), StockLease.class);
+    }
+    
+    @Override
+    public boolean removeLeased(String productId, String owner, int quantity) {
+        return mongoTemplate.updateFirst(byId(productId, owner), new Update().inc("quantity", -quantity),
+                StockLease.class).getMatchedCount() > 0;
+    }
+    
+    @Override
+    public boolean renew(String productId, String owner, Instant expiresAt) {
+        return mongoTemplate.updateFirst(byId(productId, owner), new Update().set("expiresAt", expiresAt),
+                StockLease.class).getMatchedCount() > 0;
+    }
+    
+    @Override
+    public List<StockLease> removeExpired(Instant now, int limit) {
+        Query candidates = Query.query(Criteria.where("expiresAt").lt(now))
+                .with(Sort.by("expiresAt"))
+                .limit(limit);
+        candidates.fields().include("id");
+        List<StockLease> removed = new ArrayList<>();
+        for (StockLease candidate : mongoTemplate.find(candidates, StockLease.class)) {
+            // Conditional on still being expired, so a lease renewed meanwhile stays with its owner
+            StockLease lease = mongoTemplate.findAndRemove(Query.query(Criteria.where("id").is(candidate.getId())
+                    .and("expiresAt").lt(now)), StockLease.class);
+            if (lease != null) {
+                removed.add(lease);
+            }
+        }
+        return removed;
+    }
+    
+    private static Query byId(String productId, String owner) {
+        return Query.query(Criteria.where("id").is(StockLease.idOf(productId, owner)));
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.ecommerce.repository;
+
+import com.example.ecommerce.model.StockReservation;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Atomic hold operations for stock reservations.
+ * Holds are claimed with a token before release so that concurrent sweepers,
+ * cart clears and checkouts never release the same hold twice.
+ */
+public interface StockReservationRepositoryCustom {
+    
+    /**
+     * Claim all live (unexpired, unclaimed) holds of the given users.
+     */
+    List<StockReservation> claimLive(Collection<String> userIds, Instant now, String token);
+    
+    /**
+     * Claim up to limit holds that expired before the cutoff, or whose claim was
+     * taken before staleBefore and never finished.
+     */
+    List<StockReservation> claimExpired(Instant cutoff, Instant staleBefore, int limit, String token);
+    
+    /**
+     * Claim all unclaimed holds of a user.
+     */
+    List<StockReservation> claimByUser(String userId, String token);
+    
+    /**
+     * Give up a claim: the holds claimed with a token become unclaimed again.
+     */
+    void unclaim(String token);
+    
+    /**
+     * Delete the holds claimed with a token.
+     */
+    void deleteClaimed(String token);
+    
+    /**
+     * Delete the holds still claimed with a token, one at a time, and return the ones
+     * this call deleted. A hold whose claim was taken over is left to its new owner.
+     */
+    List<StockReservation> removeClaimed(String token);
+}
@@ -0,0 +1,89 @@
+package com.example.ecommerce.repository;
+
+import com.example.ecommerce.model.StockReservation;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * MongoDB implementation of the atomic hold operations.
+ */
+@RequiredArgsConstructor
+public class StockReservationRepositoryImpl implements StockReservationRepositoryCustom {
+    
+    private final MongoTemplate mongoTemplate;
+    
+    @Override
+    public List<StockReservation> claimLive(Collection<String> userIds, Instant now, String token) {
+        return claim(Criteria.where("userId").in(userIds).and("expiresAt").gt(now).and("sweptBy").isNull(), token);
+    }
+    
+    @Override
+    public List<StockReservation> claimExpired(Instant cutoff, Instant staleBefore, int limit, String token) {
+        Query candidates = Query.query(claimable(cutoff, staleBefore))
+                .with(Sort.by("expiresAt"))
+                .limit(limit);
+        candidates.fields().include("id");
+        List<String> ids = mongoTemplate.find(candidates, StockReservation.class).stream()
+                .map(StockReservation::getId)
+                .toList();
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        return claim(Criteria.where("id").in(ids).andOperator(claimable(cutoff, staleBefore)), token);
+    }
+    
+    @Override
+    public List<StockReservation> claimByUser(String userId, String token) {
+        return claim(Criteria.where("userId").is(userId).and("sweptBy").isNull(), token);
+    }
+    
+    @Override
+    public void unclaim(String token) {
+        mongoTemplate.updateMulti(Query.query(Criteria.where("sweptBy").is(token)),
+                new Update().unset("sweptBy").unset("sweptAt"), StockReservation.class);
+    }
+    
+    @Override
+    public void deleteClaimed(String token) {
+        mongoTemplate.remove(Query.query(Criteria.where("sweptBy").is(token)), StockReservation.class);
+    }
+    
+    @Override
+    public List<StockReservation> removeClaimed(String token) {
+        Query claimed = Query.query(Criteria.where("sweptBy").is(token));
+        claimed.fields().include("id");
+        List<StockReservation> removed = new ArrayList<>();
+        for (StockReservation reservation : mongoTemplate.find(claimed, StockReservation.class)) {
+            StockReservation hold = mongoTemplate.findAndRemove(Query.query(Criteria.where("id").is(reservation.getId())
+                    .and("sweptBy").is(token)), StockReservation.class);
+            if (hold != null) {
+                removed.add(hold);
+            }
+        }
+        return removed;
+    }
+    
+    /**
+     * Expired unclaimed holds, and claims left unfinished past the lease.
+     */
+    private static Criteria claimable(Instant cutoff, Instant staleBefore) {
+        return new Criteria().orOperator(
+                Criteria.where("expiresAt").lte(cutoff).and("sweptBy").isNull(),
+                Criteria.where("sweptAt").lte(staleBefore));
+    }
+    
+    private List<StockReservation> claim(Criteria criteria, String token) {
+        mongoTemplate.updateMulti(Query.query(criteria),
+                new Update().set("sweptBy", token).set("sweptAt", Instant.now()), StockReservation.class);
+        return mongoTemplate.find(Query.query(Criteria.where("sweptBy").is(token)), StockReservation.class);
+    }
+}
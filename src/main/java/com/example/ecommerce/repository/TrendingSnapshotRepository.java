@@ -0,0 +1,12 @@
+package com.example.ecommerce.repository;
+
+import com.example.ecommerce.model.TrendingSnapshot;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repository for TrendingSnapshot entity operations.
+ */
+@Repository
+public interface TrendingSnapshotRepository extends MongoRepository<TrendingSnapshot, String> {
+}
@@ -2,17 +2,35 @@ package com.example.ecommerce.repository;
 
 import com.example.ecommerce.model.User;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Repository for User entity operations.
  */
 @Repository
-public interface UserRepository extends MongoRepository<User, String> {
+public interface UserRepository extends MongoRepository<User, String>, UserRepositoryCustom {
     
     Optional<User> findByUsername(String username);
     
     Optional<User> findByEmail(String email);
+    
+    boolean existsByUsername(String username);
+    
+    boolean existsByEmail(String email);
+    
+    List<User> findByUsernameIn(Collection<String> usernames);
+    
+    List<User> findByEmailIn(Collection<String> emails);
+    
+    /**
+     * Stream only the unique identity fields of every user.
+     */
+    @Query(value = "{}", fields = "{ 'username': 1, 'email': 1 }")
+    Stream<User> streamAllIdentities();
 }
@@ -0,0 +1,19 @@
+package com.example.ecommerce.repository;
+
+import com.example.ecommerce.model.User;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bulk provisioning of users.
+ */
+public interface UserRepositoryCustom {
+    
+    /**
+     * Insert users in one unordered write: every user is attempted, whatever happens to the others.
+     * Returns the users rejected by a unique index, as position in users to the name of that index.
+     * Any other write error is thrown.
+     */
+    Map<Integer, String> insertUnordered(List<User> users);
+}
@@ -0,0 +1,44 @@
+package com.example.ecommerce.repository;
+
+import com.example.ecommerce.model.User;
+import com.mongodb.bulk.BulkWriteError;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * MongoDB implementation of bulk user provisioning.
+ */
+@RequiredArgsConstructor
+public class UserRepositoryImpl implements UserRepositoryCustom {
+    
+    private static final int DUPLICATE_KEY_CODE = 11000;
+    
+    private final MongoTemplate mongoTemplate;
+    
+    @Override
+    public Map<Integer, String> insertUnordered(List<User> users) {
+        Map<Integer, String> rejected = new HashMap<>();
+        if (users.isEmpty()) {
+            return rejected;
+        }
+        try {
+            mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, User.class)
+                    .insert(users)
+                    .execute();
+        } catch (BulkOperationException e) {
+            for (BulkWriteError error : e.getErrors()) {
+                if (error.getCode() != DUPLICATE_KEY_CODE) {
+                    throw e;
+                }
+                rejected.put(error.getIndex(), DuplicateKeys.indexName(error.getMessage()));
+            }
+        }
+        return rejected;
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.ecommerce.repository.memory;
+
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.BeanWrapper;
+import org.springframework.beans.NullValueInNestedPathException;
+import org.springframework.beans.PropertyAccessorFactory;
+import org.springframework.data.domain.Example;
+import org.springframework.data.domain.ExampleMatcher;
+import org.springframework.data.support.ExampleMatcherAccessor;
+
+import java.beans.PropertyDescriptor;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+/**
+ * Query-by-example filter, matching documents the way MongoDB's QBE does: each
+ * non-null property of the probe (all of them with INCLUDE null handling) is a
+ * criterion, nested objects are matched property by property, collections and
+ * maps as a whole. Ignored paths, value transformers, the string matchers and
+ * ignore-case are honoured; the matcher decides whether all or any must match.
+ */
+final class ExampleFilter<T> implements Predicate<T> {
+    
+    private final ExampleMatcherAccessor accessor;
+    private final boolean matchAll;
+    private final Map<String, Object> criteria = new LinkedHashMap<>();
+    
+    ExampleFilter(Example<?> example) {
+        ExampleMatcher matcher = example.getMatcher();
+        this.accessor = new ExampleMatcherAccessor(matcher);
+        this.matchAll = matcher.isAllMatching();
+        collect(example.getProbe(), "");
+    }
+    
+    @Override
+    public boolean test(T document) {
+        if (criteria.isEmpty()) {
+            return true;
+        }
+        for (Map.Entry<String, Object> criterion : criteria.entrySet()) {
+            boolean matches = matches(criterion.getKey(), criterion.getValue(), valueOf(document, criterion.getKey()));
+            if (matches != matchAll) {
+                return matches;
+            }
+        }
+        return matchAll;
+    }
+    
+    private void collect(Object probe, String prefix) {
+        BeanWrapper wrapper = PropertyAccessorFactory.forBeanPropertyAccess(probe);
+        for (PropertyDescriptor property : wrapper.getPropertyDescriptors()) {
+            String path = prefix + property.getName();
+            if (property.getReadMethod() == null || "class".equals(property.getName()) || accessor.isIgnoredPath(path)) {
+                continue;
+            }
+            Object value = accessor.getValueTransformerForPath(path)
+                    .apply(Optional.ofNullable(wrapper.getPropertyValue(property.getName())))
+                    .orElse(null);
+            if (value == null) {
+                if (accessor.getNullHandler() == ExampleMatcher.NullHandler.INCLUDE) {
+                    criteria.put(path, null);
+                }
+            } else if (isNested(value)) {
+                collect(value, path + ".");
+            } else {
+                criteria.put(path, value);
+            }
+        }
+    }
+    
+    private boolean matches(String path, Object expected, Object actual) {
+        if (expected instanceof String pattern && actual instanceof String value) {
+            boolean ignoreCase = accessor.isIgnoreCaseForPath(path);
+            return switch (accessor.getStringMatcherForPath(path)) {
+                case DEFAULT, EXACT -> ignoreCase ? value.equalsIgnoreCase(pattern) : value.equals(pattern);
+                case STARTING -> value.regionMatches(ignoreCase, 0, pattern, 0, pattern.length());
+                case ENDING -> value.regionMatches(ignoreCase, value.length() - pattern.length(), pattern, 0, pattern.length());
+                case CONTAINING -> ignoreCase
+                        ? value.toLowerCase().contains(pattern.toLowerCase())
+                        : value.contains(pattern);
+                case REGEX -> Pattern.compile(pattern, ignoreCase ? Pattern.CASE_INSENSITIVE : 0).matcher(value).find();
+            };
+        }
+        return Objects.equals(expected, actual);
+    }
+    
+    private static Object valueOf(Object document, String path) {
+        try {
+            return PropertyAccessorFactory.forBeanPropertyAccess(document).getPropertyValue(path);
+        } catch (NullValueInNestedPathException e) {
+            return null;
+        }
+    }
+    
+    private static boolean isNested(Object value) {
+        Class<?> type = value.getClass();
+        return !BeanUtils.isSimpleValueType(type) && !type.isArray()
+                && !(value instanceof Collection<?>) && !(value instanceof Map<?, ?>)
+                && !type.getName().startsWith("java.");
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.ecommerce.repository.memory;
+
+import org.springframework.dao.DuplicateKeyException;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.Function;
+
+/**
+ * Equality index from a key to the ids of the documents that have it, in id order.
+ * Documents whose key is null are not indexed. A unique index rejects a second
+ * document with the same key the way MongoDB does, with a duplicate-key error
+ * naming the index.
+ */
+public final class HashIndex<T> implements SecondaryIndex<T> {
+    
+    private final String collection;
+    private final String name;
+    private final Function<T, ?> key;
+    private final boolean unique;
+    private final ConcurrentHashMap<Object, Set<String>> entries = new ConcurrentHashMap<>();
+    
+    HashIndex(String collection, String name, Function<T, ?> key, boolean unique) {
+        this.collection = collection;
+        this.name = name;
+        this.key = key;
+        this.unique = unique;
+    }
+    
+    /**
+     * Key for a compound index, or null (not indexed) if any part is null.
+     */
+    public static List<Object> compound(Object... parts) {
+        for (Object part : parts) {
+            if (part == null) {
+                return null;
+            }
+        }
+        return Arrays.asList(parts);
+    }
+    
+    public Object keyOf(T document) {
+        return key.apply(document);
+    }
+    
+    /**
+     * Ids listed under the key, in id order. Callers re-check the documents.
+     */
+    public Set<String> get(Object value) {
+        Set<String> ids = value == null ? null : entries.get(value);
+        return ids == null ? Set.of() : ids;
+    }
+    
+    @Override
+    public void update(String id, T previous, T next) {
+        Object oldKey = previous == null ? null : key.apply(previous);
+        Object newKey = next == null ? null : key.apply(next);
+        if (Objects.equals(oldKey, newKey)) {
+            return;
+        }
+        if (newKey != null) {
+            add(newKey, id);
+        }
+        if (oldKey != null) {
+            remove(oldKey, id);
+        }
+    }
+    
+    private void add(Object value, String id) {
+        entries.compute(value, (k, ids) -> {
+            if (ids == null) {
+                ids = new ConcurrentSkipListSet<>();
+            } else if (unique && !ids.isEmpty() && !ids.contains(id)) {
+                throw new DuplicateKeyException("E11000 duplicate key error collection: " + collection
+                        + " index: " + name + " dup key: { " + name + ": \"" + value + "\" }");
+            }
+            ids.add(id);
+            return ids;
+        });
+    }
+    
+    private void remove(Object value, String id) {
+        entries.computeIfPresent(value, (k, ids) -> {
+            ids.remove(id);
+            return ids.isEmpty() ? null : ids;
+        });
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.ecommerce.repository.memory;
+
+import com.example.ecommerce.model.AbandonedCart;
+import com.example.ecommerce.repository.AbandonedCartRepository;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * In-memory AbandonedCartRepository for the "memory" profile.
+ */
+@Primary
+@Repository
+@Profile("memory")
+public class InMemoryAbandonedCartRepository extends InMemoryRepository<AbandonedCart>
+        implements AbandonedCartRepository {
+    
+    private final HashIndex<AbandonedCart> byCartKey = uniqueIndex("cartKey", AbandonedCart::getCartKey);
+    private final OrderedIndex<AbandonedCart, Instant> byAbandonedAt = orderedIndex(AbandonedCart::getAbandonedAt);
+    private final OrderedIndex<AbandonedCart, Instant> byExpiry = orderedIndex(AbandonedCart::getExpiresAt);
+    
+    public InMemoryAbandonedCartRepository() {
+        // Summaries are written once and never changed, so copies can share their lines
+        super("abandoned_carts", AbandonedCart::getId, AbandonedCart::setId, cart -> cart.toBuilder().build());
+    }
+    
+    @Override
+    public List<AbandonedCart> findAbandonedAfter(Instant afterAbandonedAt, String afterId, Instant upTo, int limit) {
+        return find(byAbandonedAt.range(afterAbandonedAt, afterId, upTo, true, limit),
+                cart -> cart.getAbandonedAt() != null && !cart.getAbandonedAt().isAfter(upTo));
+    }
+    
+    @Scheduled(fixedDelay = 60000)
+    public void purgeExpired() {
+        deleteExpired(byExpiry, Instant.now());
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.ecommerce.repository.memory;
+
+import com.example.ecommerce.model.ArchivedOrder;
+import com.example.ecommerce.repository.ArchivedOrderRepository;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * In-memory ArchivedOrderRepository for the "memory" profile.
+ */
+@Primary
+@Repository
+@Profile("memory")
+public class InMemoryArchivedOrderRepository extends InMemoryRepository<ArchivedOrder> implements ArchivedOrderRepository {
+    
+    private final HashIndex<ArchivedOrder> byUser = index("userId", ArchivedOrder::getUserId);
+    
+    public InMemoryArchivedOrderRepository() {
+        // The compressed data is never changed in place, so copies can share it
+        super("orders_archive", ArchivedOrder::getId, ArchivedOrder::setId, order -> order.toBuilder().build());
+    }
+    
+    @Override
+    public List<ArchivedOrder> findByUserId(String userId) {
+        return find(byUser, userId);
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.ecommerce.repository.memory;
+
+import com.example.ecommerce.model.CartItem;
+import com.example.ecommerce.repository.CartItemRepository;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * In-memory CartItemRepository for the "memory" profile.
+ * Lines are kept in a (lastTouchedAt, id) index for the abandoned cart sweeper and an
+ * expiresAt index that is purged like a TTL index.
+ */
+@Primary
+@Repository
+@Profile("memory")
+public class InMemoryCartItemRepository extends InMemoryRepository<CartItem> implements CartItemRepository {
+    
+    private final HashIndex<CartItem> byUser = index("userId", CartItem::getUserId);
+    private final HashIndex<CartItem> byUserAndProduct = index("userId_productId",
+            item -> HashIndex.compound(item.getUserId(), item.getProductId()));
+    private final OrderedIndex<CartItem, Instant> byLastTouched = orderedIndex(CartItem::getLastTouchedAt);
+    private final OrderedIndex<CartItem, Instant> byExpiry = orderedIndex(CartItem::getExpiresAt);
+    
+    public InMemoryCartItemRepository() {
+        super("cart_items", CartItem::getId, CartItem::setId, item -> item.toBuilder().build());
+    }
+    
+    @Override
+    public List<CartItem> findByUserId(String userId) {
+        return find(byUser, userId);
+    }
+    
+    @Override
+    public Optional<CartItem> findByUserIdAndProductId(String userId, String productId) {
+        return single(find(byUserAndProduct, HashIndex.compound(userId, productId)));
+    }
+    
+    @Override
+    public void deleteByUserId(String userId) {
+        for (String id : byUser.get(userId)) {
+            deleteIf(id, item -> userId.equals(item.getUserId()));
+        }
+    }
+    
+    @Override
+    public List<CartItem> findByUserIdIn(Collection<String> userIds) {
+        List<CartItem> items = new ArrayList<>();
+        userIds.forEach(userId -> items.addAll(findByUserId(userId)));
+        return items;
+    }
+    
+    @Override
+    public void deleteByUserIdIn(Collection<String> userIds) {
+        userIds.forEach(this::deleteByUserId);
+    }
+    
+    @Override
+    public List<CartItem> findIdleBefore(Instant cutoff, int limit) {
+        return find(byLastTouched.range(null, null, cutoff, false, limit),
+                item -> item.getLastTouchedAt() != null && item.getLastTouchedAt().isBefore(cutoff));
+    }
+    
+    @Override
+    public long touchUntracked(Instant touchedAt, Instant expiresAt) {
+        long updated = 0;
+        for (CartItem untracked : scan(item -> item.getLastTouchedAt() == null)) {
+            if (update(untracked.getId(), item -> item.getLastTouchedAt() == null, item -> {
+                item.setLastTouchedAt(touchedAt);
+                if (expiresAt != null) {
+                    item.setExpiresAt(expiresAt);
+                }
+            }) != null) {
+                updated++;
+            }
+        }
+        return updated;
+    }
+    
+    @Override
+    public void touchCarts(Map<String, Instant> lastTouchedByUserId) {
+        lastTouchedByUserId.forEach((userId, lastTouchedAt) -> {
+            for (String id : byUser.get(userId)) {
+                update(id, item -> userId.equals(item.getUserId()) && item.getLastTouchedAt() != null
+                                && item.getLastTouchedAt().isBefore(lastTouchedAt),
+                        item -> item.setLastTouchedAt(lastTouchedAt));
+            }
+        });
+    }
+    
+    @Override
+    public long deleteIdleCarts(Map<String, Instant> lastTouchedByUserId) {
+        long deleted = 0;
+        for (Map.Entry<String, Instant> cart : lastTouchedByUserId.entrySet()) {
+            for (String id : byUser.get(cart.getKey())) {
+                if (deleteIf(id, item -> cart.getKey().equals(item.getUserId()) && item.getLastTouchedAt() != null
+                        && !item.getLastTouchedAt().isAfter(cart.getValue()))) {
+                    deleted++;
+                }
+            }
+        }
+        return deleted;
+    }
+    
+    @Scheduled(fixedDelay = 60000)
+    public void purgeExpired() {
+        deleteExpired(byExpiry, Instant.now());
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.ecommerce.repository.memory;
+
+import com.example.ecommerce.model.IdempotencyRecord;
+import com.example.ecommerce.repository.IdempotencyRecordRepository;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+
+/**
+ * In-memory IdempotencyRecordRepository for the "memory" profile.
+ * Expired records are purged once a minute, like MongoDB's TTL monitor.
+ */
+@Primary
+@Repository
+@Profile("memory")
+public class InMemoryIdempotencyRecordRepository extends InMemoryRepository<IdempotencyRecord>
+        implements IdempotencyRecordRepository {
+    
+    private final OrderedIndex<IdempotencyRecord, Instant> byExpiry = orderedIndex(IdempotencyRecord::getExpiresAt);
+    
+    public InMemoryIdempotencyRecordRepository() {
+        super("idempotency_records", IdempotencyRecord::getId, IdempotencyRecord::setId,
+                record -> record.toBuilder().build());
+    }
+    
+    @Scheduled(fixedDelay = 60000)
+    public void purgeExpired() {
+        deleteExpired(byExpiry, Instant.now());
+    }
+}
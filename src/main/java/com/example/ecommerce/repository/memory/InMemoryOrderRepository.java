@@ -0,0 +1,99 @@
+package com.example.ecommerce.repository.memory;
+
+import com.example.ecommerce.model.Order;
+import com.example.ecommerce.model.OrderItem;
+import com.example.ecommerce.repository.OrderRepository;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory OrderRepository for the "memory" profile.
+ * CREATED orders and orders in a terminal status are kept in partial (createdAt, id)
+ * indexes for the payment deadline sweeper and archival.
+ */
+@Primary
+@Repository
+@Profile("memory")
+public class InMemoryOrderRepository extends InMemoryRepository<Order> implements OrderRepository {
+    
+    private final HashIndex<Order> byUser = index("userId", Order::getUserId);
+    private final HashIndex<Order> byStatus = index("status", Order::getStatus);
+    private final OrderedIndex<Order, Instant> createdByCreated = orderedIndex(
+            order -> "CREATED".equals(order.getStatus()) ? order.getCreatedAt() : null);
+    private final OrderedIndex<Order, Instant> terminalByCreated = orderedIndex(
+            order -> Order.TERMINAL_STATUSES.contains(order.getStatus()) ? order.getCreatedAt() : null);
+    
+    public InMemoryOrderRepository() {
+        super("orders", Order::getId, Order::setId, InMemoryOrderRepository::copyOf);
+    }
+    
+    @Override
+    public List<Order> findByUserId(String userId) {
+        return find(byUser, userId);
+    }
+    
+    @Override
+    public List<Order> findByStatus(String status) {
+        return find(byStatus, status);
+    }
+    
+    @Override
+    public Order updateStatus(String orderId, String expectedStatus, String status) {
+        return update(orderId,
+                order -> expectedStatus == null || expectedStatus.equals(order.getStatus()),
+                order -> order.setStatus(status));
+    }
+    
+    @Override
+    public List<Order> updateCreatedOrders(Map<String, String> statusByOrderId) {
+        List<Order> moved = new ArrayList<>();
+        statusByOrderId.forEach((orderId, status) -> {
+            Order previous = updateStatus(orderId, "CREATED", status);
+            if (previous != null) {
+                moved.add(previous);
+            }
+        });
+        return moved;
+    }
+    
+    @Override
+    public List<Order> findCreatedBefore(Instant cutoff, Order after, int limit) {
+        List<String> ids = after == null
+                ? createdByCreated.range(null, null, cutoff, false, limit)
+                : createdByCreated.range(after.getCreatedAt(), after.getId(), cutoff, false, limit);
+        return find(ids, order -> "CREATED".equals(order.getStatus())
+                && order.getCreatedAt() != null && order.getCreatedAt().isBefore(cutoff));
+    }
+    
+    @Override
+    public List<Order> findTerminalCreatedBefore(Instant cutoff, int limit) {
+        return find(terminalByCreated.range(null, null, cutoff, false, limit),
+                order -> Order.TERMINAL_STATUSES.contains(order.getStatus())
+                        && order.getCreatedAt() != null && order.getCreatedAt().isBefore(cutoff));
+    }
+    
+    @Override
+    public List<String> deleteArchived(List<Order> orders) {
+        List<String> deleted = new ArrayList<>();
+        for (Order order : orders) {
+            if (deleteIf(order.getId(), current -> order.getStatus().equals(current.getStatus()))) {
+                deleted.add(order.getId());
+            }
+        }
+        return deleted;
+    }
+    
+    private static Order copyOf(Order order) {
+        List<OrderItem> items = order.getItems() == null ? null : order.getItems().stream()
+                .map(item -> item.toBuilder().build())
+                .collect(Collectors.toCollection(ArrayList::new));
+        return order.toBuilder().items(items).build();
+    }
+}
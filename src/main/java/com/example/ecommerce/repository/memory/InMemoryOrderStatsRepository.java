@@ -0,0 +1,43 @@
+package com.example.ecommerce.repository.memory;
+
+import com.example.ecommerce.model.OrderStats;
+import com.example.ecommerce.repository.OrderStatsRepository;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * In-memory OrderStatsRepository for the "memory" profile.
+ * Expired buckets are purged once a minute, like MongoDB's TTL monitor.
+ */
+@Primary
+@Repository
+@Profile("memory")
+public class InMemoryOrderStatsRepository extends InMemoryRepository<OrderStats> implements OrderStatsRepository {
+    
+    private final OrderedIndex<OrderStats, Instant> byExpiry = orderedIndex(OrderStats::getExpiresAt);
+    
+    public InMemoryOrderStatsRepository() {
+        super("order_stats", OrderStats::getId, OrderStats::setId, stats -> stats.toBuilder()
+                .counts(stats.getCounts() == null ? null : new HashMap<>(stats.getCounts()))
+                .currencyAmounts(stats.getCurrencyAmounts() == null ? null : copyAmounts(stats.getCurrencyAmounts()))
+                .amounts(stats.getAmounts() == null ? null : new HashMap<>(stats.getAmounts()))
+                .build());
+    }
+    
+    @Scheduled(fixedDelay = 60000)
+    public void purgeExpired() {
+        deleteExpired(byExpiry, Instant.now());
+    }
+    
+    private static Map<String, Map<String, Long>> copyAmounts(Map<String, Map<String, Long>> amounts) {
+        Map<String, Map<String, Long>> copy = new HashMap<>();
+        amounts.forEach((currency, byStatus) -> copy.put(currency, new HashMap<>(byStatus)));
+        return copy;
+    }
+}
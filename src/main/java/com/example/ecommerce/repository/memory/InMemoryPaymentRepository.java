@@ -0,0 +1,75 @@
+package com.example.ecommerce.repository.memory;
+
+import com.example.ecommerce.model.Payment;
+import com.example.ecommerce.repository.PaymentRepository;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * In-memory PaymentRepository for the "memory" profile.
+ * PENDING payments are kept in a partial (createdAt, id) index for reconciliation paging.
+ */
+@Primary
+@Repository
+@Profile("memory")
+public class InMemoryPaymentRepository extends InMemoryRepository<Payment> implements PaymentRepository {
+    
+    private final HashIndex<Payment> byOrder = index("orderId", Payment::getOrderId);
+    private final HashIndex<Payment> byPaymentId = uniqueIndex("paymentId", Payment::getPaymentId);
+    private final OrderedIndex<Payment, Instant> pendingByCreated = orderedIndex(
+            payment -> "PENDING".equals(payment.getStatus()) ? payment.getCreatedAt() : null);
+    
+    public InMemoryPaymentRepository() {
+        super("payments", Payment::getId, Payment::setId, payment -> payment.toBuilder().build());
+    }
+    
+    @Override
+    public Optional<Payment> findByOrderId(String orderId) {
+        return single(find(byOrder, orderId));
+    }
+    
+    @Override
+    public Optional<Payment> findByPaymentId(String paymentId) {
+        return single(find(byPaymentId, paymentId));
+    }
+    
+    @Override
+    public List<Payment> findByOrderIdIn(Collection<String> orderIds) {
+        List<Payment> payments = new ArrayList<>();
+        orderIds.forEach(orderId -> payments.addAll(find(byOrder, orderId)));
+        return payments;
+    }
+    
+    @Override
+    public List<Payment> findPendingCreatedBefore(Instant cutoff, Payment after, int limit) {
+        List<String> ids = after == null
+                ? pendingByCreated.range(null, null, cutoff, false, limit)
+                : pendingByCreated.range(after.getCreatedAt(), after.getId(), cutoff, false, limit);
+        return find(ids, payment -> "PENDING".equals(payment.getStatus())
+                && payment.getCreatedAt() != null && payment.getCreatedAt().isBefore(cutoff));
+    }
+    
+    @Override
+    public List<String> settlePending(Map<String, String> statusByPaymentId) {
+        List<String> changed = new ArrayList<>();
+        statusByPaymentId.forEach((paymentId, status) -> {
+            for (String id : byPaymentId.get(paymentId)) {
+                Payment previous = update(id,
+                        payment -> paymentId.equals(payment.getPaymentId()) && "PENDING".equals(payment.getStatus()),
+                        payment -> payment.setStatus(status));
+                if (previous != null) {
+                    changed.add(paymentId);
+                }
+            }
+        });
+        return changed;
+    }
+}
@@ -0,0 +1,179 @@
+package com.example.ecommerce.repository.memory;
+
+import com.example.ecommerce.model.Product;
+import com.example.ecommerce.repository.ProductRepository;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * In-memory ProductRepository for the "memory" profile.
+ * Stock counter updates are conditional per-document writes, like their MongoDB
+ * counterparts; the bulk variants apply product by product.
+ */
+@Primary
+@Repository
+@Profile("memory")
+public class InMemoryProductRepository extends InMemoryRepository<Product> implements ProductRepository {
+    
+    private final HashIndex<Product> hot = index("hot", product -> Boolean.TRUE.equals(product.getHot()) ? true : null);
+    
+    public InMemoryProductRepository() {
+        super("products", Product::getId, Product::setId, product -> product.toBuilder().build());
+    }
+    
+    @Override
+    public List<Product> findByNameContainingIgnoreCase(String name) {
+        String part = name.toLowerCase(Locale.ROOT);
+        return scan(product -> product.getName() != null && product.getName().toLowerCase(Locale.ROOT).contains(part));
+    }
+    
+    @Override
+    public List<Product> findAllBy(Pageable pageable) {
+        return page(product -> true, pageable);
+    }
+    
+    @Override
+    public List<Product> findHotProductIds() {
+        return find(hot, true).stream().map(product -> Product.builder().id(product.getId()).build()).toList();
+    }
+    
+    @Override
+    public Optional<Product> findVersionById(String id) {
+        return findById(id).map(InMemoryProductRepository::versionOnly);
+    }
+    
+    @Override
+    public List<Product> findAllVersions(Sort sort) {
+        return findAll(sort).stream().map(InMemoryProductRepository::versionOnly).toList();
+    }
+    
+    @Override
+    public List<Product> findAllVersions(Pageable pageable) {
+        return page(product -> true, pageable).stream().map(InMemoryProductRepository::versionOnly).toList();
+    }
+    
+    @Override
+    public boolean reserveStock(String productId, int quantity) {
+        return update(productId, product -> value(product.getAvailable()) >= quantity, product -> {
+            product.setAvailable(value(product.getAvailable()) - quantity);
+            product.setReserved(value(product.getReserved()) + quantity);
+            touch(product);
+        }) != null;
+    }
+    
+    @Override
+    public void releaseReservedStock(Map<String, Integer> quantitiesByProduct) {
+        quantitiesByProduct.forEach((productId, quantity) -> update(productId, product -> true, product -> {
+            product.setAvailable(value(product.getAvailable()) + quantity);
+            product.setReserved(value(product.getReserved()) - quantity);
+            touch(product);
+        }));
+    }
+    
+    @Override
+    public void convertReservedStock(Map<String, Integer> heldByProduct, Map<String, Integer> usedByProduct) {
+        heldByProduct.forEach((productId, held) -> {
+            int used = usedByProduct.getOrDefault(productId, 0);
+            update(productId, product -> true, product -> {
+                product.setStock(value(product.getStock()) - used);
+                product.setReserved(value(product.getReserved()) - held);
+                product.setAvailable(value(product.getAvailable()) + held - used);
+                touch(product);
+            });
+        });
+    }
+    
+    @Override
+    public boolean takeAvailableStock(String productId, int quantity) {
+        return update(productId, product -> value(product.getAvailable()) >= quantity, product -> {
+            product.setStock(value(product.getStock()) - quantity);
+            product.setAvailable(value(product.getAvailable()) - quantity);
+            touch(product);
+        }) != null;
+    }
+    
+    @Override
+    public void adjustStock(String productId, int quantityChange) {
+        update(productId, product -> true, product -> {
+            product.setStock(value(product.getStock()) + quantityChange);
+            product.setAvailable(value(product.getAvailable()) + quantityChange);
+            touch(product);
+        });
+    }
+    
+    @Override
+    public void adjustStock(Map<String, Integer> quantityChangesByProduct) {
+        quantityChangesByProduct.forEach(this::adjustStock);
+    }
+    
+    @Override
+    public int leaseStock(String productId, int maxQuantity) {
+        // One atomic step here, where MongoDB needs a read and a conditional write
+        Product before = update(productId, product -> value(product.getAvailable()) > 0 && maxQuantity > 0, product -> {
+            int quantity = Math.min(maxQuantity, value(product.getAvailable()));
+            product.setAvailable(value(product.getAvailable()) - quantity);
+            product.setLeased(value(product.getLeased()) + quantity);
+            touch(product);
+        });
+        return before == null ? 0 : Math.min(maxQuantity, value(before.getAvailable()));
+    }
+    
+    @Override
+    public void commitLeasedStock(String productId, int soldQuantity) {
+        update(productId, product -> true, product -> {
+            product.setStock(value(product.getStock()) - soldQuantity);
+            product.setLeased(value(product.getLeased()) - soldQuantity);
+            touch(product);
+        });
+    }
+    
+    @Override
+    public void returnLeasedStock(String productId, int quantity) {
+        update(productId, product -> true, product -> {
+            product.setAvailable(value(product.getAvailable()) + quantity);
+            product.setLeased(value(product.getLeased()) - quantity);
+            touch(product);
+        });
+    }
+    
+    @Override
+    public boolean setHot(String productId, boolean hot) {
+        return update(productId, product -> true, product -> {
+            product.setHot(hot);
+            touch(product);
+        }) != null;
+    }
+    
+    @Override
+    public long initializeStockCounters() {
+        long updated = 0;
+        for (Product product : scan(product -> product.getAvailable() == null)) {
+            if (update(product.getId(), current -> current.getAvailable() == null, current -> {
+                current.setReserved(0);
+                current.setLeased(0);
+                current.setAvailable(value(current.getStock()));
+            }) != null) {
+                updated++;
+            }
+        }
+        return updated;
+    }
+    
+    private static Product versionOnly(Product product) {
+        return Product.builder().id(product.getId()).version(product.getVersion()).build();
+    }
+    
+    private static void touch(Product product) {
+        product.setVersion(value(product.getVersion()) + 1);
+        product.setLastModified(Instant.now());
+    }
+}
@@ -0,0 +1,530 @@
+package com.example.ecommerce.repository.memory;
+
+import org.bson.types.ObjectId;
+import org.springframework.beans.BeanWrapper;
+import org.springframework.beans.PropertyAccessorFactory;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.IncorrectResultSizeDataAccessException;
+import org.springframework.data.domain.Example;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.repository.query.FluentQuery;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
+
+/**
+ * Base for the repositories of the "memory" profile: a MongoDB collection kept in a
+ * concurrent map by id.
+ * Documents are copied on the way in and out, so callers get detached objects just
+ * as they do from MongoDB. A stored document is never changed in place; every write
+ * swaps in a new copy inside the map's atomic per-key compute, which also updates
+ * the secondary indexes, so each conditional update is atomic for its document.
+ * Scans follow an ordered id index, which keeps results deterministic.
+ */
+public abstract class InMemoryRepository<T> implements MongoRepository<T, String> {
+    
+    private final String collection;
+    private final Function<T, String> idOf;
+    private final BiConsumer<T, String> setId;
+    private final UnaryOperator<T> copier;
+    
+    private final ConcurrentHashMap<String, T> documents = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListSet<String> ids = new ConcurrentSkipListSet<>();
+    private final List<SecondaryIndex<T>> indexes = new ArrayList<>();
+    
+    protected InMemoryRepository(String collection, Function<T, String> idOf, BiConsumer<T, String> setId,
+                                 UnaryOperator<T> copier) {
+        this.collection = collection;
+        this.idOf = idOf;
+        this.setId = setId;
+        this.copier = copier;
+    }
+    
+    protected final HashIndex<T> index(String name, Function<T, ?> key) {
+        return register(new HashIndex<>(collection, name, key, false));
+    }
+    
+    protected final HashIndex<T> uniqueIndex(String name, Function<T, ?> key) {
+        return register(new HashIndex<>(collection, name, key, true));
+    }
+    
+    protected final <K extends Comparable<? super K>> OrderedIndex<T, K> orderedIndex(Function<T, K> key) {
+        return register(new OrderedIndex<>(key));
+    }
+    
+    private <I extends SecondaryIndex<T>> I register(I index) {
+        indexes.add(index);
+        return index;
+    }
+    
+    // ---- Building blocks for the query methods of each repository ----
+    
+    protected final T copy(T document) {
+        return document == null ? null : copier.apply(document);
+    }
+    
+    /**
+     * The stored document, not a copy: only for reading inside this package.
+     */
+    protected final T peek(String id) {
+        return id == null ? null : documents.get(id);
+    }
+    
+    /**
+     * Copies of the documents under the key that still have it.
+     */
+    protected final List<T> find(HashIndex<T> index, Object key) {
+        return find(index.get(key), document -> key.equals(index.keyOf(document)));
+    }
+    
+    protected final List<T> find(Collection<String> candidateIds, Predicate<? super T> filter) {
+        List<T> found = new ArrayList<>();
+        for (String id : candidateIds) {
+            T document = documents.get(id);
+            if (document != null && filter.test(document)) {
+                found.add(copier.apply(document));
+            }
+        }
+        return found;
+    }
+    
+    /**
+     * Copies of all documents that match, in id order.
+     */
+    protected final List<T> scan(Predicate<? super T> filter) {
+        return find(ids, filter);
+    }
+    
+    /**
+     * Like a derived query returning a single result: empty, one, or an error for more.
+     */
+    protected final Optional<T> single(List<T> found) {
+        if (found.size() > 1) {
+            throw new IncorrectResultSizeDataAccessException(1, found.size());
+        }
+        return found.stream().findFirst();
+    }
+    
+    /**
+     * Atomically change a document if it matches the condition.
+     * Returns a copy of the document as it was before the change, or null if it is
+     * missing or did not match.
+     */
+    protected final T update(String id, Predicate<? super T> condition, Consumer<? super T> change) {
+        List<T> previous = new ArrayList<>(1);
+        documents.computeIfPresent(id, (key, current) -> {
+            if (!condition.test(current)) {
+                return current;
+            }
+            T next = copier.apply(current);
+            change.accept(next);
+            reindex(key, current, next);
+            previous.add(current);
+            return next;
+        });
+        return previous.isEmpty() ? null : copier.apply(previous.get(0));
+    }
+    
+    /**
+     * Atomically delete a document if it matches the condition.
+     */
+    protected final boolean deleteIf(String id, Predicate<? super T> condition) {
+        boolean[] deleted = new boolean[1];
+        documents.computeIfPresent(id, (key, current) -> {
+            if (!condition.test(current)) {
+                return current;
+            }
+            reindex(key, current, null);
+            ids.remove(key);
+            deleted[0] = true;
+            return null;
+        });
+        return deleted[0];
+    }
+    
+    /**
+     * Delete the documents whose expiry in the index has passed, like a TTL index.
+     */
+    protected final int deleteExpired(OrderedIndex<T, Instant> expiry, Instant now) {
+        int deleted = 0;
+        for (String id : expiry.range(null, null, now, false, Integer.MAX_VALUE)) {
+            if (deleteIf(id, document -> {
+                Instant expiresAt = expiry.keyOf(document);
+                return expiresAt != null && expiresAt.isBefore(now);
+            })) {
+                deleted++;
+            }
+        }
+        return deleted;
+    }
+    
+    private T write(T entity, boolean insertOnly) {
+        String id = idOf.apply(entity);
+        if (id == null) {
+            id = new ObjectId().toHexString();
+            setId.accept(entity, id);
+        }
+        T stored = copier.apply(entity);
+        documents.compute(id, (key, current) -> {
+            if (current != null && insertOnly) {
+                throw new DuplicateKeyException("E11000 duplicate key error collection: " + collection
+                        + " index: _id_ dup key: { _id: \"" + key + "\" }");
+            }
+            reindex(key, current, stored);
+            ids.add(key);
+            return stored;
+        });
+        return entity;
+    }
+    
+    private void reindex(String id, T previous, T next) {
+        int updated = 0;
+        try {
+            for (SecondaryIndex<T> index : indexes) {
+                index.update(id, previous, next);
+                updated++;
+            }
+        } catch (RuntimeException e) {
+            // A unique index refused the write: put the indexes already moved back
+            for (int i = 0; i < updated; i++) {
+                indexes.get(i).update(id, next, previous);
+            }
+            throw e;
+        }
+    }
+    
+    // ---- CrudRepository / PagingAndSortingRepository ----
+    
+    @Override
+    public <S extends T> S save(S entity) {
+        write(entity, false);
+        return entity;
+    }
+    
+    @Override
+    public <S extends T> List<S> saveAll(Iterable<S> entities) {
+        List<S> saved = new ArrayList<>();
+        entities.forEach(entity -> saved.add(save(entity)));
+        return saved;
+    }
+    
+    @Override
+    public <S extends T> S insert(S entity) {
+        write(entity, true);
+        return entity;
+    }
+    
+    @Override
+    public <S extends T> List<S> insert(Iterable<S> entities) {
+        // Ordered like insertAll: stops at the first duplicate, keeping what went before
+        List<S> inserted = new ArrayList<>();
+        entities.forEach(entity -> inserted.add(insert(entity)));
+        return inserted;
+    }
+    
+    @Override
+    public Optional<T> findById(String id) {
+        return Optional.ofNullable(copy(peek(id)));
+    }
+    
+    @Override
+    public boolean existsById(String id) {
+        return peek(id) != null;
+    }
+    
+    @Override
+    public List<T> findAll() {
+        return scan(document -> true);
+    }
+    
+    @Override
+    public List<T> findAllById(Iterable<String> ids) {
+        List<String> candidates = new ArrayList<>();
+        ids.forEach(candidates::add);
+        return find(candidates, document -> true);
+    }
+    
+    @Override
+    public long count() {
+        return documents.mappingCount();
+    }
+    
+    @Override
+    public void deleteById(String id) {
+        deleteIf(id, document -> true);
+    }
+    
+    @Override
+    public void delete(T entity) {
+        deleteById(idOf.apply(entity));
+    }
+    
+    @Override
+    public void deleteAllById(Iterable<? extends String> ids) {
+        ids.forEach(this::deleteById);
+    }
+    
+    @Override
+    public void deleteAll(Iterable<? extends T> entities) {
+        entities.forEach(this::delete);
+    }
+    
+    @Override
+    public void deleteAll() {
+        ids.forEach(this::deleteById);
+    }
+    
+    @Override
+    public List<T> findAll(Sort sort) {
+        return sorted(scan(document -> true), sort);
+    }
+    
+    @Override
+    public Page<T> findAll(Pageable pageable) {
+        return new PageImpl<>(page(document -> true, pageable), pageable, count());
+    }
+    
+    /**
+     * One page of the matching documents. Pages in id order (or unsorted) walk the
+     * id index and stop at the end of the page; other orders sort all matches.
+     */
+    protected final List<T> page(Predicate<? super T> filter, Pageable pageable) {
+        if (pageable.isUnpaged()) {
+            return sorted(scan(filter), pageable.getSort());
+        }
+        Sort sort = pageable.getSort();
+        if (sort.isSorted() && !sort.equals(Sort.by("id"))) {
+            return sorted(scan(filter), sort).stream()
+                    .skip(pageable.getOffset())
+                    .limit(pageable.getPageSize())
+                    .toList();
+        }
+        List<T> found = new ArrayList<>(pageable.getPageSize());
+        long skip = pageable.getOffset();
+        for (String id : ids) {
+            T document = documents.get(id);
+            if (document == null || !filter.test(document)) {
+                continue;
+            }
+            if (skip > 0) {
+                skip--;
+                continue;
+            }
+            found.add(copier.apply(document));
+            if (found.size() == pageable.getPageSize()) {
+                break;
+            }
+        }
+        return found;
+    }
+    
+    protected final List<T> sorted(List<T> found, Sort sort) {
+        if (sort.isUnsorted() || sort.equals(Sort.by("id"))) {
+            return found;
+        }
+        List<T> sorted = new ArrayList<>(found);
+        sorted.sort(comparator(sort));
+        return sorted;
+    }
+    
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private Comparator<T> comparator(Sort sort) {
+        Comparator<T> comparator = null;
+        for (Sort.Order order : sort) {
+            // MongoDB sorts missing values first
+            Comparator<T> next = Comparator.comparing(
+                    document -> (Comparable) property(document, order.getProperty()),
+                    Comparator.nullsFirst(Comparator.naturalOrder()));
+            if (order.isDescending()) {
+                next = next.reversed();
+            }
+            comparator = comparator == null ? next : comparator.thenComparing(next);
+        }
+        return comparator;
+    }
+    
+    private static Object property(Object document, String path) {
+        BeanWrapper wrapper = PropertyAccessorFactory.forBeanPropertyAccess(document);
+        return wrapper.getPropertyValue(path);
+    }
+    
+    // ---- Query by example ----
+    
+    @Override
+    public <S extends T> Optional<S> findOne(Example<S> example) {
+        return cast(single(scan(new ExampleFilter<>(example))));
+    }
+    
+    @Override
+    public <S extends T> List<S> findAll(Example<S> example) {
+        return cast(scan(new ExampleFilter<>(example)));
+    }
+    
+    @Override
+    public <S extends T> List<S> findAll(Example<S> example, Sort sort) {
+        return cast(sorted(scan(new ExampleFilter<>(example)), sort));
+    }
+    
+    @Override
+    public <S extends T> Page<S> findAll(Example<S> example, Pageable pageable) {
+        ExampleFilter<T> filter = new ExampleFilter<>(example);
+        return new PageImpl<>(cast(page(filter, pageable)), pageable, count(filter, Long.MAX_VALUE));
+    }
+    
+    @Override
+    public <S extends T> long count(Example<S> example) {
+        return count(new ExampleFilter<>(example), Long.MAX_VALUE);
+    }
+    
+    @Override
+    public <S extends T> boolean exists(Example<S> example) {
+        return count(new ExampleFilter<>(example), 1) > 0;
+    }
+    
+    @Override
+    public <S extends T, R> R findBy(Example<S> example, Function<FluentQuery.FetchableFluentQuery<S>, R> queryFunction) {
+        return queryFunction.apply(new ExampleQuery<>(new ExampleFilter<>(example), Sort.unsorted(), 0, null));
+    }
+    
+    private long count(Predicate<? super T> filter, long limit) {
+        long count = 0;
+        for (T document : documents.values()) {
+            if (filter.test(document) && ++count == limit) {
+                break;
+            }
+        }
+        return count;
+    }
+    
+    // The documents are all of the repository's type; probes of a subtype match them as MongoDB does
+    @SuppressWarnings("unchecked")
+    private static <S, D> List<S> cast(List<D> documents) {
+        return (List<S>) documents;
+    }
+    
+    @SuppressWarnings("unchecked")
+    private static <S, D> Optional<S> cast(Optional<D> document) {
+        return (Optional<S>) document;
+    }
+    
+    /**
+     * Fluent query over the matches of an example. Projections return whole documents,
+     * and as() only accepts a type the documents already are.
+     */
+    private final class ExampleQuery<S> implements FluentQuery.FetchableFluentQuery<S> {
+        
+        private final Predicate<? super T> filter;
+        private final Sort sort;
+        private final int limit;
+        private final Class<S> type;
+        
+        ExampleQuery(Predicate<? super T> filter, Sort sort, int limit, Class<S> type) {
+            this.filter = filter;
+            this.sort = sort;
+            this.limit = limit;
+            this.type = type;
+        }
+        
+        @Override
+        public FluentQuery.FetchableFluentQuery<S> sortBy(Sort sort) {
+            return new ExampleQuery<>(filter, this.sort.and(sort), limit, type);
+        }
+        
+        @Override
+        public FluentQuery.FetchableFluentQuery<S> limit(int limit) {
+            return new ExampleQuery<>(filter, sort, limit, type);
+        }
+        
+        @Override
+        public <R> FluentQuery.FetchableFluentQuery<R> as(Class<R> resultType) {
+            return new ExampleQuery<>(filter, sort, limit, resultType);
+        }
+        
+        @Override
+        public FluentQuery.FetchableFluentQuery<S> project(Collection<String> properties) {
+            return this;
+        }
+        
+        @Override
+        public S oneValue() {
+            List<S> found = all();
+            if (found.size() > 1) {
+                throw new IncorrectResultSizeDataAccessException(1, found.size());
+            }
+            return found.isEmpty() ? null : found.get(0);
+        }
+        
+        @Override
+        public S firstValue() {
+            List<S> found = all();
+            return found.isEmpty() ? null : found.get(0);
+        }
+        
+        @Override
+        public List<S> all() {
+            List<T> found = sorted(scan(filter), sort);
+            return convert(limit > 0 && found.size() > limit ? found.subList(0, limit) : found);
+        }
+        
+        @Override
+        public Page<S> page(Pageable pageable) {
+            Pageable ordered = pageable.getSort().isSorted() || pageable.isUnpaged()
+                    ? pageable
+                    : PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), sort);
+            return new PageImpl<>(convert(InMemoryRepository.this.page(filter, ordered)), pageable, count());
+        }
+        
+        @Override
+        public Stream<S> stream() {
+            return all().stream();
+        }
+        
+        @Override
+        public long count() {
+            return InMemoryRepository.this.count(filter, limit > 0 ? limit : Long.MAX_VALUE);
+        }
+        
+        @Override
+        public boolean exists() {
+            return InMemoryRepository.this.count(filter, 1) > 0;
+        }
+        
+        private List<S> convert(List<T> found) {
+            if (type == null) {
+                return cast(found);
+            }
+            for (T document : found) {
+                if (!type.isInstance(document)) {
+                    throw new UnsupportedOperationException("Projections to " + type.getSimpleName()
+                            + " are not supported by the in-memory " + collection);
+                }
+            }
+            return cast(found);
+        }
+    }
+    
+    protected static int value(Integer counter) {
+        return counter == null ? 0 : counter;
+    }
+    
+    protected static long value(Long counter) {
+        return counter == null ? 0 : counter;
+    }
+}
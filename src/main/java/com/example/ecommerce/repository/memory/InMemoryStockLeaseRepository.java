@@ -0,0 +1,73 @@
+package com.example.ecommerce.repository.memory;
+
+import com.example.ecommerce.model.StockLease;
+import com.example.ecommerce.repository.StockLeaseRepository;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * In-memory StockLeaseRepository for the "memory" profile. Leases are kept in an
+ * expiry index for the reclaimer.
+ */
+@Primary
+@Repository
+@Profile("memory")
+public class InMemoryStockLeaseRepository extends InMemoryRepository<StockLease> implements StockLeaseRepository {
+    
+    private final OrderedIndex<StockLease, Instant> byExpiry = orderedIndex(StockLease::getExpiresAt);
+    
+    public InMemoryStockLeaseRepository() {
+        super("stock_leases", StockLease::getId, StockLease::setId, lease -> lease.toBuilder().build());
+    }
+    
+    @Override
+    public void addLeased(String productId, String owner, int quantity, Instant expiresAt) {
+        String id = StockLease.idOf(productId, owner);
+        while (update(id, lease -> true, lease -> {
+            lease.setQuantity(value(lease.getQuantity()) + quantity);
+            lease.setExpiresAt(expiresAt);
+        }) == null) {
+            try {
+                insert(StockLease.builder()
+                        .id(id)
+                        .productId(productId)
+                        .owner(owner)
+                        .quantity(quantity)
+                        .expiresAt(expiresAt)
+                        .build());
+                return;
+            } catch (DuplicateKeyException e) {
+                // Created concurrently: add to that one
+            }
+        }
+    }
+    
+    @Override
+    public boolean removeLeased(String productId, String owner, int quantity) {
+        return update(StockLease.idOf(productId, owner), lease -> true,
+                lease -> lease.setQuantity(value(lease.getQuantity()) - quantity)) != null;
+    }
+    
+    @Override
+    public boolean renew(String productId, String owner, Instant expiresAt) {
+        return update(StockLease.idOf(productId, owner), lease -> true, lease -> lease.setExpiresAt(expiresAt)) != null;
+    }
+    
+    @Override
+    public List<StockLease> removeExpired(Instant now, int limit) {
+        List<StockLease> removed = new ArrayList<>();
+        for (String id : byExpiry.range(null, null, now, false, limit)) {
+            // The document as deleted, so a quantity changed up to that moment is counted
+            List<StockLease> deleted = new ArrayList<>(1);
+            deleteIf(id, current -> current.getExpiresAt().isBefore(now) && deleted.add(copy(current)));
+            removed.addAll(deleted);
+        }
+        return removed;
+    }
+}
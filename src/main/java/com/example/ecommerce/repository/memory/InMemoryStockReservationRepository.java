@@ -0,0 +1,109 @@
+package com.example.ecommerce.repository.memory;
+
+import com.example.ecommerce.model.StockReservation;
+import com.example.ecommerce.repository.StockReservationRepository;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * In-memory StockReservationRepository for the "memory" profile, so that cart holds
+ * stay off MongoDB too. Unclaimed holds are kept in a partial expiry index for the sweeper,
+ * claimed ones in a claim-time index so that abandoned claims can be taken over.
+ */
+@Primary
+@Repository
+@Profile("memory")
+public class InMemoryStockReservationRepository extends InMemoryRepository<StockReservation>
+        implements StockReservationRepository {
+    
+    private final HashIndex<StockReservation> byUser = index("userId", StockReservation::getUserId);
+    private final HashIndex<StockReservation> bySweptBy = index("sweptBy", StockReservation::getSweptBy);
+    private final OrderedIndex<StockReservation, Instant> unclaimedByExpiry = orderedIndex(
+            reservation -> reservation.getSweptBy() == null ? reservation.getExpiresAt() : null);
+    private final OrderedIndex<StockReservation, Instant> claimedAt = orderedIndex(StockReservation::getSweptAt);
+    
+    public InMemoryStockReservationRepository() {
+        super("stock_reservations", StockReservation::getId, StockReservation::setId,
+                reservation -> reservation.toBuilder().build());
+    }
+    
+    @Override
+    public List<StockReservation> claimLive(Collection<String> userIds, Instant now, String token) {
+        List<StockReservation> claimed = new ArrayList<>();
+        for (String userId : userIds) {
+            claimed.addAll(claim(byUser.get(userId), reservation -> reservation.getSweptBy() == null
+                    && userId.equals(reservation.getUserId())
+                    && reservation.getExpiresAt() != null && reservation.getExpiresAt().isAfter(now), token));
+        }
+        return claimed;
+    }
+    
+    @Override
+    public List<StockReservation> claimExpired(Instant cutoff, Instant staleBefore, int limit, String token) {
+        List<StockReservation> claimed = new ArrayList<>(claim(claimedAt.range(null, null, staleBefore, true, limit),
+                reservation -> reservation.getSweptAt() != null && !reservation.getSweptAt().isAfter(staleBefore), token));
+        claimed.addAll(claim(unclaimedByExpiry.range(null, null, cutoff, true, limit - claimed.size()), reservation ->
+                reservation.getSweptBy() == null && reservation.getExpiresAt() != null
+                        && !reservation.getExpiresAt().isAfter(cutoff), token));
+        return claimed;
+    }
+    
+    @Override
+    public List<StockReservation> claimByUser(String userId, String token) {
+        return claim(byUser.get(userId), reservation -> reservation.getSweptBy() == null
+                && userId.equals(reservation.getUserId()), token);
+    }
+    
+    @Override
+    public void unclaim(String token) {
+        for (String id : List.copyOf(bySweptBy.get(token))) {
+            update(id, reservation -> token.equals(reservation.getSweptBy()), reservation -> {
+                reservation.setSweptBy(null);
+                reservation.setSweptAt(null);
+            });
+        }
+    }
+    
+    @Override
+    public void deleteClaimed(String token) {
+        for (String id : bySweptBy.get(token)) {
+            deleteIf(id, reservation -> token.equals(reservation.getSweptBy()));
+        }
+    }
+    
+    @Override
+    public List<StockReservation> removeClaimed(String token) {
+        List<StockReservation> removed = new ArrayList<>();
+        for (String id : List.copyOf(bySweptBy.get(token))) {
+            StockReservation hold = peek(id);
+            if (hold != null && deleteIf(id, reservation -> token.equals(reservation.getSweptBy()))) {
+                removed.add(copy(hold));
+            }
+        }
+        return removed;
+    }
+    
+    private List<StockReservation> claim(Collection<String> ids, Predicate<StockReservation> filter, String token) {
+        List<StockReservation> claimed = new ArrayList<>();
+        Instant now = Instant.now();
+        for (String id : List.copyOf(ids)) {
+            StockReservation previous = update(id, filter, reservation -> {
+                reservation.setSweptBy(token);
+                reservation.setSweptAt(now);
+            });
+            if (previous != null) {
+                previous.setSweptBy(token);
+                previous.setSweptAt(now);
+                claimed.add(previous);
+            }
+        }
+        return claimed;
+    }
+}
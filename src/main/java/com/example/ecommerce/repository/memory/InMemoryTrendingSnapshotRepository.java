@@ -0,0 +1,26 @@
+package com.example.ecommerce.repository.memory;
+
+import com.example.ecommerce.model.TrendingSnapshot;
+import com.example.ecommerce.repository.TrendingSnapshotRepository;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+
+/**
+ * In-memory TrendingSnapshotRepository for the "memory" profile.
+ */
+@Primary
+@Repository
+@Profile("memory")
+public class InMemoryTrendingSnapshotRepository extends InMemoryRepository<TrendingSnapshot>
+        implements TrendingSnapshotRepository {
+    
+    public InMemoryTrendingSnapshotRepository() {
+        super("trending_snapshots", TrendingSnapshot::getId, TrendingSnapshot::setId, snapshot -> snapshot.toBuilder()
+                .slots(snapshot.getSlots() == null ? null : new ArrayList<>(snapshot.getSlots()))
+                .candidates(snapshot.getCandidates() == null ? null : new ArrayList<>(snapshot.getCandidates()))
+                .build());
+    }
+}
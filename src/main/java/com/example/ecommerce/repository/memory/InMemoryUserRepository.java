@@ -0,0 +1,91 @@
+package com.example.ecommerce.repository.memory;
+
+import com.example.ecommerce.model.User;
+import com.example.ecommerce.repository.DuplicateKeys;
+import com.example.ecommerce.repository.UserRepository;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * In-memory UserRepository for the "memory" profile.
+ * Username and email are unique indexes, as in MongoDB, so concurrent signups
+ * with the same name get a DuplicateKeyException naming the index.
+ */
+@Primary
+@Repository
+@Profile("memory")
+public class InMemoryUserRepository extends InMemoryRepository<User> implements UserRepository {
+    
+    private final HashIndex<User> byUsername = uniqueIndex(User.USERNAME_INDEX, User::getUsername);
+    private final HashIndex<User> byEmail = uniqueIndex(User.EMAIL_INDEX, User::getEmail);
+    
+    public InMemoryUserRepository() {
+        super("users", User::getId, User::setId, user -> user.toBuilder().build());
+    }
+    
+    @Override
+    public Optional<User> findByUsername(String username) {
+        return single(find(byUsername, username));
+    }
+    
+    @Override
+    public Optional<User> findByEmail(String email) {
+        return single(find(byEmail, email));
+    }
+    
+    @Override
+    public boolean existsByUsername(String username) {
+        return !find(byUsername, username).isEmpty();
+    }
+    
+    @Override
+    public boolean existsByEmail(String email) {
+        return !find(byEmail, email).isEmpty();
+    }
+    
+    @Override
+    public List<User> findByUsernameIn(Collection<String> usernames) {
+        List<User> users = new ArrayList<>();
+        usernames.forEach(username -> users.addAll(find(byUsername, username)));
+        return users;
+    }
+    
+    @Override
+    public List<User> findByEmailIn(Collection<String> emails) {
+        List<User> users = new ArrayList<>();
+        emails.forEach(email -> users.addAll(find(byEmail, email)));
+        return users;
+    }
+    
+    @Override
+    public Map<Integer, String> insertUnordered(List<User> users) {
+        Map<Integer, String> rejected = new HashMap<>();
+        for (int i = 0; i < users.size(); i++) {
+            try {
+                insert(users.get(i));
+            } catch (DuplicateKeyException e) {
+                rejected.put(i, DuplicateKeys.indexName(e.getMessage()));
+            }
+        }
+        return rejected;
+    }
+    
+    @Override
+    public Stream<User> streamAllIdentities() {
+        return findAll().stream().map(user -> User.builder()
+                .id(user.getId())
+                .username(user.getUsername())
+                .email(user.getEmail())
+                .build());
+    }
+}
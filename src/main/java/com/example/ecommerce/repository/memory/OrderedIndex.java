@@ -0,0 +1,78 @@
+package com.example.ecommerce.repository.memory;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.Function;
+
+/**
+ * Range index over a comparable key, ordered by (key, id) like a MongoDB index
+ * with the id appended. Documents whose key is null are not indexed, so a key
+ * function that returns null for some documents gives a partial index.
+ */
+public final class OrderedIndex<T, K extends Comparable<? super K>> implements SecondaryIndex<T> {
+    
+    private final Function<T, K> key;
+    private final ConcurrentSkipListSet<Entry<K>> entries = new ConcurrentSkipListSet<>(
+            Comparator.<Entry<K>, K>comparing(entry -> entry.key).thenComparing(entry -> entry.id));
+    
+    OrderedIndex(Function<T, K> key) {
+        this.key = key;
+    }
+    
+    public K keyOf(T document) {
+        return key.apply(document);
+    }
+    
+    /**
+     * Ids in (key, id) order, starting after the given position (from the start when
+     * afterKey is null) and stopping before the first key above upTo (or at it, when
+     * upTo is exclusive). At most limit ids. Callers re-check the documents.
+     */
+    public List<String> range(K afterKey, String afterId, K upTo, boolean upToInclusive, int limit) {
+        NavigableSet<Entry<K>> view = afterKey == null ? entries : entries.tailSet(new Entry<>(afterKey, afterId), false);
+        List<String> ids = new ArrayList<>();
+        for (Entry<K> entry : view) {
+            if (ids.size() >= limit) {
+                break;
+            }
+            if (upTo != null) {
+                int cmp = entry.key.compareTo(upTo);
+                if (cmp > 0 || (cmp == 0 && !upToInclusive)) {
+                    break;
+                }
+            }
+            ids.add(entry.id);
+        }
+        return ids;
+    }
+    
+    @Override
+    public void update(String id, T previous, T next) {
+        K oldKey = previous == null ? null : key.apply(previous);
+        K newKey = next == null ? null : key.apply(next);
+        if (Objects.equals(oldKey, newKey)) {
+            return;
+        }
+        if (newKey != null) {
+            entries.add(new Entry<>(newKey, id));
+        }
+        if (oldKey != null) {
+            entries.remove(new Entry<>(oldKey, id));
+        }
+    }
+    
+    private static final class Entry<K> {
+        
+        private final K key;
+        private final String id;
+        
+        Entry(K key, String id) {
+            this.key = key;
+            this.id = id;
+        }
+    }
+}
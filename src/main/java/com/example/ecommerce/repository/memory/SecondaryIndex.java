@@ -0,0 +1,15 @@
+package com.example.ecommerce.repository.memory;
+
+/**
+ * A secondary index maintained by {@link InMemoryRepository} on every write.
+ * Updates run inside the owning document's atomic write; readers must re-check
+ * the documents they find, since an index can briefly list a document under
+ * both its old and its new key.
+ */
+interface SecondaryIndex<T> {
+    
+    /**
+     * Move a document from its previous entry to its next one (null for insert or delete).
+     */
+    void update(String id, T previous, T next);
+}
@@ -0,0 +1,15 @@
+package com.example.ecommerce.repository.reactive;
+
+import com.example.ecommerce.model.ArchivedOrder;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+
+/**
+ * Non-blocking repository for archived order reads in the reactive serving mode.
+ */
+@Repository
+public interface ReactiveArchivedOrderRepository extends ReactiveMongoRepository<ArchivedOrder, String> {
+    
+    Flux<ArchivedOrder> findByUserId(String userId);
+}
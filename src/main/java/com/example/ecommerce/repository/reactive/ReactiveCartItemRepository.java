@@ -0,0 +1,15 @@
+package com.example.ecommerce.repository.reactive;
+
+import com.example.ecommerce.model.CartItem;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+
+/**
+ * Non-blocking repository for CartItem reads in the reactive serving mode.
+ */
+@Repository
+public interface ReactiveCartItemRepository extends ReactiveMongoRepository<CartItem, String> {
+    
+    Flux<CartItem> findByUserId(String userId);
+}
@@ -0,0 +1,15 @@
+package com.example.ecommerce.repository.reactive;
+
+import com.example.ecommerce.model.Order;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+
+/**
+ * Non-blocking repository for Order reads in the reactive serving mode.
+ */
+@Repository
+public interface ReactiveOrderRepository extends ReactiveMongoRepository<Order, String> {
+    
+    Flux<Order> findByUserId(String userId);
+}
@@ -0,0 +1,15 @@
+package com.example.ecommerce.repository.reactive;
+
+import com.example.ecommerce.model.Payment;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+/**
+ * Non-blocking repository for Payment reads in the reactive serving mode.
+ */
+@Repository
+public interface ReactivePaymentRepository extends ReactiveMongoRepository<Payment, String> {
+    
+    Mono<Payment> findByOrderId(String orderId);
+}
@@ -0,0 +1,30 @@
+package com.example.ecommerce.repository.reactive;
+
+import com.example.ecommerce.model.Product;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Non-blocking repository for Product reads in the reactive serving mode.
+ */
+@Repository
+public interface ReactiveProductRepository extends ReactiveMongoRepository<Product, String> {
+    
+    Flux<Product> findByNameContainingIgnoreCase(String name);
+    
+    Flux<Product> findAllBy(Pageable pageable);
+    
+    @Query(value = "{ '_id': ?0 }", fields = "{ 'version': 1 }")
+    Mono<Product> findVersionById(String id);
+    
+    @Query(value = "{}", fields = "{ 'version': 1 }")
+    Flux<Product> findAllVersions(Sort sort);
+    
+    @Query(value = "{}", fields = "{ 'version': 1 }")
+    Flux<Product> findAllVersions(Pageable pageable);
+}
@@ -0,0 +1,135 @@
+package com.example.ecommerce.resilience;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Concurrency limit that adapts to observed latency (gradient algorithm).
+ * While latency stays close to the best recently seen, the limit grows by about
+ * the square root of itself per sample; as requests start queueing and latency
+ * climbs, the gradient (best / current latency) pulls it back down. Drops such
+ * as timeouts cut the limit multiplicatively.
+ * Lock-free: one completing call at a time folds its latency into the estimate, and
+ * a call finishing while another is doing so skips its sample rather than waiting.
+ */
+public class AdaptiveConcurrencyLimiter {
+    
+    // Latency may rise this much over the baseline before the limit shrinks
+    private static final double TOLERANCE = 1.5;
+    private static final double SMOOTHING = 0.2;
+    private static final double BACKOFF_RATIO = 0.9;
+    // Re-learn the baseline now and then so it can follow slow drift
+    private static final int BASELINE_RESET_SAMPLES = 1000;
+    
+    private final int minLimit;
+    private final int maxLimit;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    // The limit as double bits, so drops and samples can both update it with a CAS
+    private final AtomicLong limitBits;
+    private final AtomicBoolean sampling = new AtomicBoolean();
+    
+    // Only touched by the thread holding the sampling flag
+    private double smoothedRttNanos;
+    private double baselineRttNanos = Double.MAX_VALUE;
+    private int samplesSinceReset;
+    
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit) {
+        this.limitBits = new AtomicLong(Double.doubleToLongBits(initialLimit));
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+    }
+    
+    /**
+     * Take a slot if fewer than the whole limit are in flight.
+     */
+    public boolean tryAcquire() {
+        return tryAcquire(1.0);
+    }
+    
+    /**
+     * Take a slot if fewer than the given share of the limit are in flight.
+     * Lower shares are turned away first as the limit fills up.
+     */
+    public boolean tryAcquire(double share) {
+        int allowed = Math.max(1, (int) (limit() * share));
+        while (true) {
+            int current = inFlight.get();
+            if (current >= allowed) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+    
+    /**
+     * Release a slot and learn from how long the call took.
+     */
+    public void onSuccess(long rttNanos) {
+        int current = inFlight.getAndDecrement();
+        if (sampling.compareAndSet(false, true)) {
+            try {
+                update(rttNanos, current);
+            } finally {
+                sampling.set(false);
+            }
+        }
+    }
+    
+    /**
+     * Release a slot for a call that timed out or was rejected downstream.
+     */
+    public void onDropped() {
+        inFlight.decrementAndGet();
+        long current;
+        double backedOff;
+        do {
+            current = limitBits.get();
+            backedOff = Math.max(minLimit, Double.longBitsToDouble(current) * BACKOFF_RATIO);
+        } while (!limitBits.compareAndSet(current, Double.doubleToLongBits(backedOff)));
+    }
+    
+    /**
+     * Release a slot without learning anything from it.
+     */
+    public void onIgnored() {
+        inFlight.decrementAndGet();
+    }
+    
+    public int getLimit() {
+        return (int) limit();
+    }
+    
+    public int getInFlight() {
+        return inFlight.get();
+    }
+    
+    private double limit() {
+        return Double.longBitsToDouble(limitBits.get());
+    }
+    
+    private void update(long rttNanos, int inFlightAtEnd) {
+        smoothedRttNanos = smoothedRttNanos == 0 ? rttNanos : smoothedRttNanos * 0.9 + rttNanos * 0.1;
+        if (++samplesSinceReset >= BASELINE_RESET_SAMPLES) {
+            baselineRttNanos = smoothedRttNanos;
+            samplesSinceReset = 0;
+        }
+        baselineRttNanos = Math.min(baselineRttNanos, rttNanos);
+        
+        double gradient = Math.max(0.5, Math.min(1.0, TOLERANCE * baselineRttNanos / smoothedRttNanos));
+        // A drop landing in between wins; the next sample starts from the backed-off limit
+        long current = limitBits.get();
+        double limit = Double.longBitsToDouble(current);
+        
+        // With most slots idle, latency says nothing about where the limit is
+        if (inFlightAtEnd < limit / 2) {
+            return;
+        }
+        
+        double target = limit * gradient + Math.sqrt(limit);
+        double next = Math.max(minLimit, Math.min(maxLimit, limit * (1 - SMOOTHING) + target * SMOOTHING));
+        limitBits.compareAndSet(current, Double.doubleToLongBits(next));
+    }
+}
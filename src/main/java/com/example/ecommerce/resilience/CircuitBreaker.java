@@ -0,0 +1,141 @@
+package com.example.ecommerce.resilience;
+
+import java.time.Duration;
+import java.util.function.BiConsumer;
+
+/**
+ * Count-based circuit breaker.
+ * CLOSED records the outcome of the last windowSize calls and opens once the
+ * failure rate reaches the threshold. OPEN fails fast until the open period
+ * ends, then HALF_OPEN lets a few probe calls through: all succeed and it
+ * closes, any fails and it opens again. It can also be forced open for a given
+ * time, e.g. when the remote side asks for a pause with Retry-After.
+ */
+public class CircuitBreaker {
+    
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+    
+    private final double failureRateThreshold;
+    private final int minimumCalls;
+    private final Duration openDuration;
+    private final int halfOpenPermits;
+    private final BiConsumer<State, State> onTransition;
+    
+    private final boolean[] outcomes;
+    private int next;
+    private int calls;
+    private int failures;
+    
+    private State state = State.CLOSED;
+    private long openUntilNanos;
+    private int probesLeft;
+    private int probeSuccesses;
+    
+    public CircuitBreaker(double failureRateThreshold, int windowSize, int minimumCalls, Duration openDuration,
+                          int halfOpenPermits, BiConsumer<State, State> onTransition) {
+        this.failureRateThreshold = failureRateThreshold;
+        this.outcomes = new boolean[windowSize];
+        this.minimumCalls = Math.min(minimumCalls, windowSize);
+        this.openDuration = openDuration;
+        this.halfOpenPermits = halfOpenPermits;
+        this.onTransition = onTransition;
+    }
+    
+    /**
+     * Whether a call may go ahead. A granted call must end in onSuccess, onFailure or releasePermission.
+     */
+    public synchronized boolean tryAcquirePermission() {
+        if (state == State.OPEN) {
+            if (System.nanoTime() - openUntilNanos < 0) {
+                return false;
+            }
+            probesLeft = halfOpenPermits;
+            probeSuccesses = 0;
+            transition(State.HALF_OPEN);
+        }
+        if (state == State.HALF_OPEN) {
+            if (probesLeft == 0) {
+                return false;
+            }
+            probesLeft--;
+        }
+        return true;
+    }
+    
+    /**
+     * Give back a permission for a call that never happened.
+     */
+    public synchronized void releasePermission() {
+        if (state == State.HALF_OPEN) {
+            probesLeft++;
+        }
+    }
+    
+    public synchronized void onSuccess() {
+        if (state == State.HALF_OPEN) {
+            if (++probeSuccesses >= halfOpenPermits) {
+                resetWindow();
+                transition(State.CLOSED);
+            }
+        } else if (state == State.CLOSED) {
+            record(false);
+        }
+    }
+    
+    public synchronized void onFailure() {
+        if (state == State.HALF_OPEN) {
+            open(openDuration);
+        } else if (state == State.CLOSED) {
+            record(true);
+            if (calls >= minimumCalls && failures >= failureRateThreshold * calls) {
+                open(openDuration);
+            }
+        }
+    }
+    
+    /**
+     * Open now for the given time, whatever the current state.
+     */
+    public synchronized void openFor(Duration duration) {
+        open(duration);
+    }
+    
+    public synchronized State getState() {
+        return state;
+    }
+    
+    private void open(Duration duration) {
+        openUntilNanos = System.nanoTime() + duration.toNanos();
+        resetWindow();
+        if (state != State.OPEN) {
+            transition(State.OPEN);
+        }
+    }
+    
+    private void record(boolean failure) {
+        if (calls == outcomes.length) {
+            if (outcomes[next]) {
+                failures--;
+            }
+        } else {
+            calls++;
+        }
+        outcomes[next] = failure;
+        if (failure) {
+            failures++;
+        }
+        next = (next + 1) % outcomes.length;
+    }
+    
+    private void resetWindow() {
+        next = 0;
+        calls = 0;
+        failures = 0;
+    }
+    
+    private void transition(State to) {
+        State from = state;
+        state = to;
+        onTransition.accept(from, to);
+    }
+}
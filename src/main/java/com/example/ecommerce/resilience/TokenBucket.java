@@ -0,0 +1,48 @@
+package com.example.ecommerce.resilience;
+
+/**
+ * Token bucket rate limiter.
+ * Holds up to capacity tokens and refills continuously at the given rate.
+ */
+public class TokenBucket {
+    
+    private final double capacity;
+    private final double tokensPerNano;
+    
+    private double tokens;
+    private long lastRefillNanos;
+    
+    public TokenBucket(double capacity, double tokensPerSecond) {
+        this.capacity = capacity;
+        this.tokensPerNano = tokensPerSecond / 1_000_000_000d;
+        this.tokens = capacity;
+        this.lastRefillNanos = System.nanoTime();
+    }
+    
+    /**
+     * Take the given number of tokens if they are there.
+     * Returns 0 on success, otherwise the nanoseconds until enough tokens have refilled.
+     */
+    public synchronized long tryAcquire(int permits) {
+        refill();
+        if (tokens >= permits) {
+            tokens -= permits;
+            return 0;
+        }
+        return (long) Math.ceil((permits - tokens) / tokensPerNano);
+    }
+    
+    /**
+     * Whether the bucket has refilled completely, i.e. it has been idle long enough to forget.
+     */
+    public synchronized boolean isFull() {
+        refill();
+        return tokens >= capacity;
+    }
+    
+    private void refill() {
+        long now = System.nanoTime();
+        tokens = Math.min(capacity, tokens + (now - lastRefillNanos) * tokensPerNano);
+        lastRefillNanos = now;
+    }
+}
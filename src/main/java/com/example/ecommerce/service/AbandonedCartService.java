@@ -0,0 +1,187 @@
+package com.example.ecommerce.service;
+
+import com.example.ecommerce.model.AbandonedCart;
+import com.example.ecommerce.model.CartItem;
+import com.example.ecommerce.model.Product;
+import com.example.ecommerce.repository.AbandonedCartRepository;
+import com.example.ecommerce.repository.CartItemRepository;
+import com.example.ecommerce.repository.ProductRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Service class for abandoned cart expiry.
+ * Every add to the cart sets the line's lastTouchedAt. With cart.expiry.mode
+ * "sweep", a batched sweeper finds lines idle for longer than idle-after, checks
+ * the whole cart of each of their users, writes a compact summary of each cart
+ * that is idle as a whole to abandoned_carts and then deletes its lines; lines of
+ * carts still in use are moved up to the cart's last touch. With "ttl", lines
+ * carry an expiresAt and MongoDB's TTL monitor removes each one on its own,
+ * without summaries. "none" keeps carts forever.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AbandonedCartService {
+    
+    private final CartItemRepository cartItemRepository;
+    private final AbandonedCartRepository abandonedCartRepository;
+    private final ProductRepository productRepository;
+    private final MeterRegistry meterRegistry;
+    
+    @Value("${cart.expiry.mode:sweep}")
+    private String mode;
+    
+    @Value("${cart.expiry.idle-after:P30D}")
+    private Duration idleAfter;
+    
+    @Value("${cart.expiry.sweep-batch-size:500}")
+    private int sweepBatchSize;
+    
+    @Value("${cart.abandoned.retention:P30D}")
+    private Duration summaryRetention;
+    
+    // Readers stay this far behind abandonedAt: covers inserts in flight and clock skew between instances
+    @Value("${cart.abandoned.read-lag:PT10S}")
+    private Duration readLag;
+    
+    /**
+     * The expiresAt to store on a line touched now: only set when expiry uses the TTL index.
+     */
+    public Instant expiresAt(Instant touchedAt) {
+        return "ttl".equals(mode) ? touchedAt.plus(idleAfter) : null;
+    }
+    
+    /**
+     * Get the next summaries in stream (abandonedAt, id) order, after the given position
+     * or from the oldest kept. Summaries younger than the read lag are left for later reads.
+     */
+    public List<AbandonedCart> getAbandonedCarts(Instant afterAbandonedAt, String afterId, int limit) {
+        return abandonedCartRepository.findAbandonedAfter(afterAbandonedAt, afterId,
+                Instant.now().minus(readLag), limit);
+    }
+    
+    @Scheduled(fixedDelayString = "${cart.expiry.sweep-interval-ms:300000}",
+            initialDelayString = "${cart.expiry.sweep-interval-ms:300000}")
+    public void sweepIdleCarts() {
+        if ("none".equals(mode)) {
+            return;
+        }
+        Instant now = Instant.now();
+        int abandoned = 0;
+        long deleted = 0;
+        try {
+            // Lines from before touch tracking start their idle time now
+            long untracked = cartItemRepository.touchUntracked(now, expiresAt(now));
+            if (untracked > 0) {
+                log.info("Started tracking {} cart lines added before touch tracking", untracked);
+            }
+            if (!"sweep".equals(mode)) {
+                return;
+            }
+            Instant cutoff = now.minus(idleAfter);
+            List<CartItem> batch;
+            do {
+                batch = cartItemRepository.findIdleBefore(cutoff, sweepBatchSize);
+                SweepResult result = sweep(batch, cutoff);
+                abandoned += result.abandoned;
+                deleted += result.deleted;
+            } while (batch.size() == sweepBatchSize);
+        } catch (RuntimeException e) {
+            log.error("Error sweeping idle carts: {}", e.getMessage());
+        }
+        if (abandoned > 0) {
+            log.info("Expired {} abandoned carts ({} lines)", abandoned, deleted);
+        }
+    }
+    
+    /**
+     * Summarize and delete the carts of the batch's users that are idle as a whole.
+     */
+    private SweepResult sweep(List<CartItem> batch, Instant cutoff) {
+        SweepResult result = new SweepResult();
+        if (batch.isEmpty()) {
+            return result;
+        }
+        Map<String, List<CartItem>> carts = cartItemRepository
+                .findByUserIdIn(batch.stream().map(CartItem::getUserId).distinct().toList())
+                .stream()
+                .collect(Collectors.groupingBy(CartItem::getUserId));
+        
+        Map<String, Instant> active = new HashMap<>();
+        Map<String, Instant> idle = new HashMap<>();
+        carts.forEach((userId, lines) -> lines.stream()
+                .map(CartItem::getLastTouchedAt)
+                .filter(touchedAt -> touchedAt != null)
+                .max(Instant::compareTo)
+                .ifPresent(lastTouchedAt -> (lastTouchedAt.isBefore(cutoff) ? idle : active).put(userId, lastTouchedAt)));
+        cartItemRepository.touchCarts(active);
+        if (idle.isEmpty()) {
+            return result;
+        }
+        
+        Map<String, Product> products = productRepository.findAllById(idle.keySet().stream()
+                        .flatMap(userId -> carts.get(userId).stream())
+                        .map(CartItem::getProductId)
+                        .distinct()
+                        .toList())
+                .stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+        // Summaries first: a sweep that stops before the delete leaves the cart to be summarized again
+        idle.forEach((userId, lastTouchedAt) -> {
+            try {
+                // Stamped at the write, in stored precision, so the stream position follows insert order
+                Instant abandonedAt = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+                abandonedCartRepository.insert(toSummary(userId, carts.get(userId), lastTouchedAt, products, abandonedAt));
+                result.abandoned++;
+            } catch (DuplicateKeyException e) {
+                // Already summarized by an earlier or a concurrent sweep
+            }
+        });
+        result.deleted = cartItemRepository.deleteIdleCarts(idle);
+        meterRegistry.counter("cart.abandoned").increment(result.abandoned);
+        meterRegistry.counter("cart.expired.lines").increment(result.deleted);
+        return result;
+    }
+    
+    private AbandonedCart toSummary(String userId, List<CartItem> lines, Instant lastTouchedAt,
+                                   Map<String, Product> products, Instant abandonedAt) {
+        List<AbandonedCart.Line> items = lines.stream()
+                .map(line -> AbandonedCart.Line.builder()
+                        .productId(line.getProductId())
+                        .quantity(line.getQuantity())
+                        .price(products.containsKey(line.getProductId())
+                                ? products.get(line.getProductId()).getPrice()
+                                : null)
+                        .build())
+                .toList();
+        return AbandonedCart.builder()
+                .cartKey(userId + ":" + lastTouchedAt.toEpochMilli())
+                .userId(userId)
+                .items(items)
+                .units(lines.stream().mapToInt(line -> line.getQuantity() == null ? 0 : line.getQuantity()).sum())
+                .lastTouchedAt(lastTouchedAt)
+                .abandonedAt(abandonedAt)
+                .expiresAt(abandonedAt.plus(summaryRetention))
+                .build();
+    }
+    
+    private static final class SweepResult {
+        private int abandoned;
+        private long deleted;
+    }
+}
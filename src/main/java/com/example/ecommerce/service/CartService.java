@@ -11,6 +11,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
@@ -25,37 +26,42 @@ public class CartService {
     
     private final CartItemRepository cartItemRepository;
     private final ProductRepository productRepository;
+    private final StockReservationService reservationService;
+    private final AbandonedCartService abandonedCartService;
     
     /**
      * Add item to cart. If item exists, update quantity.
+     * The added quantity is held against available stock until checkout or expiry.
+     * Touches the line, which restarts the cart's idle time.
      */
     public CartItem addToCart(AddToCartRequest request) {
         log.info("Adding to cart - User: {}, Product: {}, Qty: {}", 
                 request.getUserId(), request.getProductId(), request.getQuantity());
         
         // Check if product exists
-        Product product = productRepository.findById(request.getProductId())
-                .orElseThrow(() -> new RuntimeException("Product not found: " + request.getProductId()));
+        if (!productRepository.existsById(request.getProductId())) {
+            throw new RuntimeException("Product not found: " + request.getProductId());
+        }
         
-        // Check stock availability
-        if (product.getStock() < request.getQuantity()) {
-            throw new RuntimeException("Insufficient stock. Available: " + product.getStock());
+        // Hold the added quantity against available stock
+        if (!reservationService.reserve(request.getUserId(), request.getProductId(), request.getQuantity())) {
+            int available = productRepository.findById(request.getProductId())
+                    .map(Product::getAvailable)
+                    .orElse(0);
+            throw new RuntimeException("Insufficient stock. Available: " + available);
         }
         
         // Check if item already in cart
         Optional<CartItem> existingItem = cartItemRepository
                 .findByUserIdAndProductId(request.getUserId(), request.getProductId());
         
+        Instant now = Instant.now();
         if (existingItem.isPresent()) {
             // Update quantity
             CartItem cartItem = existingItem.get();
-            int newQuantity = cartItem.getQuantity() + request.getQuantity();
-            
-            if (product.getStock() < newQuantity) {
-                throw new RuntimeException("Insufficient stock. Available: " + product.getStock());
-            }
-            
-            cartItem.setQuantity(newQuantity);
+            cartItem.setQuantity(cartItem.getQuantity() + request.getQuantity());
+            cartItem.setLastTouchedAt(now);
+            cartItem.setExpiresAt(abandonedCartService.expiresAt(now));
             return cartItemRepository.save(cartItem);
         }
         
@@ -64,6 +70,8 @@ public class CartService {
                 .userId(request.getUserId())
                 .productId(request.getProductId())
                 .quantity(request.getQuantity())
+                .lastTouchedAt(now)
+                .expiresAt(abandonedCartService.expiresAt(now))
                 .build();
         
         return cartItemRepository.save(cartItem);
@@ -90,25 +98,31 @@ public class CartService {
     }
     
     /**
-     * Clear all cart items for a user.
+     * Clear all cart items for a user and release any holds still on them.
      */
     @Transactional
     public void clearCart(String userId) {
         log.info("Clearing cart for user: {}", userId);
         cartItemRepository.deleteByUserId(userId);
+        reservationService.releaseAll(userId);
     }
     
     /**
      * Convert CartItem to CartItemResponse with product details.
      */
     private CartItemResponse toCartItemResponse(CartItem cartItem) {
-        CartItemResponse.ProductInfo productInfo = productRepository.findById(cartItem.getProductId())
-                .map(product -> CartItemResponse.ProductInfo.builder()
-                        .id(product.getId())
-                        .name(product.getName())
-                        .price(product.getPrice())
-                        .build())
-                .orElse(null);
+        return toCartItemResponse(cartItem, productRepository.findById(cartItem.getProductId()).orElse(null));
+    }
+    
+    /**
+     * Convert CartItem to CartItemResponse with already loaded product details.
+     */
+    static CartItemResponse toCartItemResponse(CartItem cartItem, Product product) {
+        CartItemResponse.ProductInfo productInfo = product == null ? null : CartItemResponse.ProductInfo.builder()
+                .id(product.getId())
+                .name(product.getName())
+                .price(product.getPrice())
+                .build();
         
         return CartItemResponse.builder()
                 .id(cartItem.getId())
@@ -0,0 +1,224 @@
+package com.example.ecommerce.service;
+
+import com.example.ecommerce.model.Product;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Cache of already-encoded catalog responses.
+ * Entries hold the JSON bytes and their gzip encoding and are only served
+ * while their ETag still matches the current product versions. Products and
+ * pages are each bounded to max-entries, evicting the least recently used.
+ * A product write evicts the product and only the pages that were stored with it.
+ * With catalog.response-cache.enabled=false every request is serialized again
+ * (plain JSON only), which is the baseline the catalog benchmark compares with.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CatalogResponseCache {
+    
+    private final ObjectMapper objectMapper;
+    
+    @Value("${catalog.response-cache.enabled:true}")
+    private boolean enabled;
+    
+    @Value("${catalog.response-cache.max-entries:10000}")
+    private int maxEntries;
+    
+    private final Map<String, CachedResponse> products = lruMap();
+    private final Map<String, CachedResponse> pages = lruMap();
+    // Page keys each product was stored in. Links are dropped on eviction only, so a stale
+    // link at worst evicts a page that no longer holds the product; the ETag check still
+    // keeps a page that missed its eviction from being served.
+    private final Map<String, Set<String>> pagesByProduct = new ConcurrentHashMap<>();
+    
+    /**
+     * Get the encoded response for a product page, loading and encoding it on a miss.
+     */
+    public CachedResponse getPage(String pageKey, String eTag, Supplier<List<Product>> loader) {
+        return findPage(pageKey, eTag).orElseGet(() -> storePage(pageKey, eTag, loader.get()));
+    }
+    
+    /**
+     * Get the encoded response for a single product, loading and encoding it on a miss.
+     */
+    public Optional<CachedResponse> getProduct(String productId, String eTag, Supplier<Optional<Product>> loader) {
+        Optional<CachedResponse> cached = findProduct(productId, eTag);
+        if (cached.isPresent()) {
+            return cached;
+        }
+        return loader.get().map(product -> storeProduct(productId, eTag, product));
+    }
+    
+    /**
+     * Look up a product page that is still current for the given ETag.
+     */
+    public Optional<CachedResponse> findPage(String pageKey, String eTag) {
+        return enabled ? current(pages.get(pageKey), eTag) : Optional.empty();
+    }
+    
+    /**
+     * Look up a product that is still current for the given ETag.
+     */
+    public Optional<CachedResponse> findProduct(String productId, String eTag) {
+        return enabled ? current(products.get(productId), eTag) : Optional.empty();
+    }
+    
+    /**
+     * Encode and cache a product page.
+     */
+    public CachedResponse storePage(String pageKey, String eTag, List<Product> page) {
+        CachedResponse response = encode(eTag, page);
+        if (enabled) {
+            for (Product product : page) {
+                pagesByProduct.computeIfAbsent(product.getId(), id -> ConcurrentHashMap.newKeySet()).add(pageKey);
+            }
+        }
+        store(pages, pageKey, response);
+        return response;
+    }
+    
+    /**
+     * Encode and cache a single product.
+     */
+    public CachedResponse storeProduct(String productId, String eTag, Product product) {
+        CachedResponse response = encode(eTag, product);
+        store(products, productId, response);
+        return response;
+    }
+    
+    /**
+     * Drop everything a write to the given product may have made stale.
+     */
+    public void evict(String productId) {
+        products.remove(productId);
+        Set<String> pageKeys = pagesByProduct.remove(productId);
+        if (pageKeys != null) {
+            pageKeys.forEach(pages::remove);
+        }
+    }
+    
+    private static Optional<CachedResponse> current(CachedResponse cached, String eTag) {
+        return cached != null && cached.getETag().equals(eTag) ? Optional.of(cached) : Optional.empty();
+    }
+    
+    private void store(Map<String, CachedResponse> target, String key, CachedResponse response) {
+        if (enabled) {
+            target.put(key, response);
+        }
+    }
+    
+    /**
+     * Access-ordered map that drops its least recently used entry past max-entries.
+     */
+    private Map<String, CachedResponse> lruMap() {
+        return Collections.synchronizedMap(new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedResponse> eldest) {
+                return size() > maxEntries;
+            }
+        });
+    }
+    
+    private CachedResponse encode(String eTag, Object body) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(body);
+            return new CachedResponse(eTag, json, enabled ? gzip(json) : null);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize catalog response", e);
+        }
+    }
+    
+    private static byte[] gzip(byte[] json) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(json.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(buffer)) {
+            gzip.write(json);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return buffer.toByteArray();
+    }
+    
+    /**
+     * An encoded response body in plain and gzip form.
+     */
+    @Getter
+    @RequiredArgsConstructor
+    public static class CachedResponse {
+        private final String eTag;
+        private final byte[] json;
+        private final byte[] gzip;
+        
+        /**
+         * Build a response from the cached body, picking the gzip encoding when the client accepts it.
+         */
+        public ResponseEntity<byte[]> toResponseEntity(String acceptEncoding) {
+            ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+                    .eTag(eTag)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .varyBy(HttpHeaders.ACCEPT_ENCODING);
+            if (gzip != null && acceptsGzip(acceptEncoding)) {
+                return builder.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(gzip);
+            }
+            return builder.body(json);
+        }
+    }
+    
+    /**
+     * Whether an Accept-Encoding header allows gzip: listed (or covered by "*") with a q-value above 0.
+     */
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        Double gzipQ = null;
+        Double anyQ = null;
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.split(";");
+            String name = parts[0].trim().toLowerCase(Locale.ROOT);
+            double q = 1.0;
+            for (int i = 1; i < parts.length; i++) {
+                String param = parts[i].trim();
+                if (param.startsWith("q=") || param.startsWith("Q=")) {
+                    try {
+                        q = Double.parseDouble(param.substring(2).trim());
+                    } catch (NumberFormatException e) {
+                        q = 0;
+                    }
+                }
+            }
+            if (name.equals("gzip") || name.equals("x-gzip")) {
+                gzipQ = q;
+            } else if (name.equals("*")) {
+                anyQ = q;
+            }
+        }
+        if (gzipQ != null) {
+            return gzipQ > 0;
+        }
+        return anyQ != null && anyQ > 0;
+    }
+}
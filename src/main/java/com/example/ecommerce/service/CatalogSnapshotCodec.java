@@ -0,0 +1,116 @@
+package com.example.ecommerce.service;
+
+import com.example.ecommerce.model.Money;
+import com.example.ecommerce.model.Product;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Binary format of the catalog snapshot file.
+ * Header: magic "CATS", format version, creation time (epoch millis), product count.
+ * Then per product, in catalog order: id, name, description, price (minor units,
+ * currency), stock, reserved, available, leased, hot, version, lastModified.
+ * Strings are an int byte length (-1 for null) followed by UTF-8; numbers are
+ * big-endian, with -1 standing in for a missing count or timestamp.
+ */
+final class CatalogSnapshotCodec {
+    
+    private static final int MAGIC = 0x43415453;
+    private static final int FORMAT_VERSION = 1;
+    
+    private CatalogSnapshotCodec() {
+    }
+    
+    static void writeHeader(DataOutputStream out, Instant createdAt, int count) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(FORMAT_VERSION);
+        out.writeLong(createdAt.toEpochMilli());
+        out.writeInt(count);
+    }
+    
+    static void write(DataOutputStream out, Product product) throws IOException {
+        writeString(out, product.getId());
+        writeString(out, product.getName());
+        writeString(out, product.getDescription());
+        Money price = product.getPrice();
+        out.writeLong(price == null ? 0 : price.getMinorUnits());
+        writeString(out, price == null ? null : price.getCurrency());
+        out.writeInt(orMissing(product.getStock()));
+        out.writeInt(orMissing(product.getReserved()));
+        out.writeInt(orMissing(product.getAvailable()));
+        out.writeInt(orMissing(product.getLeased()));
+        out.writeByte(Boolean.TRUE.equals(product.getHot()) ? 1 : 0);
+        out.writeLong(product.getVersion() == null ? -1 : product.getVersion());
+        out.writeLong(product.getLastModified() == null ? -1 : product.getLastModified().toEpochMilli());
+    }
+    
+    /**
+     * Read all products from a snapshot. Throws IllegalArgumentException if it is not one.
+     */
+    static List<Product> read(ByteBuffer buffer) {
+        if (buffer.remaining() < 20 || buffer.getInt() != MAGIC) {
+            throw new IllegalArgumentException("Not a catalog snapshot");
+        }
+        int formatVersion = buffer.getInt();
+        if (formatVersion != FORMAT_VERSION) {
+            throw new IllegalArgumentException("Unsupported catalog snapshot version " + formatVersion);
+        }
+        buffer.getLong();
+        int count = buffer.getInt();
+        List<Product> products = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Product product = new Product();
+            product.setId(readString(buffer));
+            product.setName(readString(buffer));
+            product.setDescription(readString(buffer));
+            long minorUnits = buffer.getLong();
+            String currency = readString(buffer);
+            product.setPrice(currency == null ? null : Money.ofMinor(minorUnits, currency));
+            product.setStock(orNull(buffer.getInt()));
+            product.setReserved(orNull(buffer.getInt()));
+            product.setAvailable(orNull(buffer.getInt()));
+            product.setLeased(orNull(buffer.getInt()));
+            product.setHot(buffer.get() == 1);
+            long version = buffer.getLong();
+            product.setVersion(version < 0 ? null : version);
+            long lastModified = buffer.getLong();
+            product.setLastModified(lastModified < 0 ? null : Instant.ofEpochMilli(lastModified));
+            products.add(product);
+        }
+        return products;
+    }
+    
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+    
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+    
+    private static int orMissing(Integer value) {
+        return value == null ? -1 : value;
+    }
+    
+    private static Integer orNull(int value) {
+        return value < 0 ? null : value;
+    }
+}
@@ -0,0 +1,214 @@
+package com.example.ecommerce.service;
+
+import com.example.ecommerce.model.Product;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Service class for the on-disk catalog snapshot.
+ * The whole catalog is written periodically to a compact binary file (see
+ * {@link CatalogSnapshotCodec}); at startup the newest file is memory-mapped and
+ * decoded to warm the catalog response cache, so a fresh instance does not start
+ * by loading the catalog from MongoDB. Each snapshot gets its own file name and
+ * the previous one is kept, so a download in progress is never cut short.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CatalogSnapshotService {
+    
+    private static final String PREFIX = "catalog-";
+    private static final String SUFFIX = ".snap";
+    
+    // Position of the product count in the header
+    private static final int COUNT_OFFSET = 16;
+    
+    private final MongoTemplate mongoTemplate;
+    private final CatalogResponseCache responseCache;
+    
+    @Value("${catalog.snapshot.enabled:true}")
+    private boolean enabled;
+    
+    @Value("${catalog.snapshot.directory:data/catalog}")
+    private String directory;
+    
+    private volatile SnapshotFile current;
+    
+    /**
+     * The newest snapshot file, or null if none has been written or found yet.
+     */
+    public SnapshotFile getCurrent() {
+        return current;
+    }
+    
+    /**
+     * Warm the catalog caches from the newest snapshot. Runs before the instance reports ready.
+     */
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        if (!enabled) {
+            return;
+        }
+        SnapshotFile newest = findNewest();
+        if (newest == null) {
+            log.info("No catalog snapshot in {}, starting with a cold catalog", directory);
+            return;
+        }
+        long start = System.nanoTime();
+        try (FileChannel channel = FileChannel.open(newest.getPath(), StandardOpenOption.READ)) {
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            List<Product> products = CatalogSnapshotCodec.read(mapped);
+            warm(products);
+            current = newest;
+            log.info("Warmed catalog from snapshot {} ({} products, {} bytes) in {} ms", newest.getPath().getFileName(),
+                    products.size(), newest.getSize(), (System.nanoTime() - start) / 1_000_000);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not load catalog snapshot {}: {}", newest.getPath(), e.getMessage());
+        }
+    }
+    
+    /**
+     * Write a new snapshot of the whole catalog and make it current.
+     */
+    @Scheduled(fixedDelayString = "${catalog.snapshot.interval-ms:300000}",
+            initialDelayString = "${catalog.snapshot.initial-delay-ms:30000}")
+    public void writeSnapshot() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            Path dir = Paths.get(directory);
+            Files.createDirectories(dir);
+            Instant createdAt = Instant.now();
+            Path target = dir.resolve(PREFIX + createdAt.toEpochMilli() + SUFFIX);
+            Path temp = dir.resolve(target.getFileName() + ".tmp");
+            
+            int count = 0;
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), 64 * 1024));
+                CatalogSnapshotCodec.writeHeader(out, createdAt, 0);
+                Query query = new Query().with(ProductService.CATALOG_ORDER);
+                try (Stream<Product> products = mongoTemplate.stream(query, Product.class)) {
+                    for (Iterator<Product> it = products.iterator(); it.hasNext(); ) {
+                        CatalogSnapshotCodec.write(out, it.next());
+                        count++;
+                    }
+                }
+                out.flush();
+                // The count is only known at the end; patch it into the header
+                channel.write(ByteBuffer.allocate(Integer.BYTES).putInt(0, count), COUNT_OFFSET);
+                channel.force(false);
+            }
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+            
+            SnapshotFile written = new SnapshotFile(target, Files.size(target), createdAt.toEpochMilli());
+            SnapshotFile previous = current;
+            current = written;
+            deleteOlderThan(previous == null ? written : previous);
+            log.info("Wrote catalog snapshot {} ({} products, {} bytes)", target.getFileName(), count, written.getSize());
+        } catch (IOException | RuntimeException e) {
+            log.error("Could not write catalog snapshot: {}", e.getMessage());
+        }
+    }
+    
+    private void warm(List<Product> products) {
+        for (Product product : products) {
+            responseCache.storeProduct(product.getId(), ProductService.productETag(product), product);
+        }
+        // The unpaged listing
+        responseCache.storePage(ProductService.pageKey(null, null), ProductService.pageETag(null, null, products), products);
+    }
+    
+    private SnapshotFile findNewest() {
+        Path dir = Paths.get(directory);
+        if (!Files.isDirectory(dir)) {
+            return null;
+        }
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.map(CatalogSnapshotService::toSnapshotFile)
+                    .filter(file -> file != null)
+                    .max(Comparator.comparingLong(SnapshotFile::getGeneration))
+                    .orElse(null);
+        } catch (IOException e) {
+            log.warn("Could not list catalog snapshots in {}: {}", directory, e.getMessage());
+            return null;
+        }
+    }
+    
+    /**
+     * Delete snapshots older than the given one, keeping it and anything newer.
+     */
+    private void deleteOlderThan(SnapshotFile keep) {
+        try (Stream<Path> files = Files.list(keep.getPath().getParent())) {
+            files.map(CatalogSnapshotService::toSnapshotFile)
+                    .filter(file -> file != null && file.getGeneration() < keep.getGeneration())
+                    .forEach(file -> {
+                        try {
+                            Files.deleteIfExists(file.getPath());
+                        } catch (IOException e) {
+                            log.warn("Could not delete old catalog snapshot {}: {}", file.getPath(), e.getMessage());
+                        }
+                    });
+        } catch (IOException e) {
+            log.warn("Could not clean up catalog snapshots: {}", e.getMessage());
+        }
+    }
+    
+    private static SnapshotFile toSnapshotFile(Path path) {
+        String name = path.getFileName().toString();
+        if (!name.startsWith(PREFIX) || !name.endsWith(SUFFIX)) {
+            return null;
+        }
+        try {
+            long generation = Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+            return new SnapshotFile(path, Files.size(path), generation);
+        } catch (NumberFormatException | IOException e) {
+            return null;
+        }
+    }
+    
+    /**
+     * A snapshot file on disk. The generation is its creation time in epoch millis.
+     */
+    @Getter
+    @RequiredArgsConstructor
+    public static class SnapshotFile {
+        private final Path path;
+        private final long size;
+        private final long generation;
+        
+        public String getETag() {
+            return "\"catalog-" + generation + "\"";
+        }
+    }
+}
@@ -0,0 +1,479 @@
+package com.example.ecommerce.service;
+
+import com.example.ecommerce.dto.CreateOrderRequest;
+import com.example.ecommerce.events.DomainEventBus;
+import com.example.ecommerce.events.OrderCreated;
+import com.example.ecommerce.events.StockChanged;
+import com.example.ecommerce.exception.ServiceUnavailableException;
+import com.example.ecommerce.model.CartItem;
+import com.example.ecommerce.model.Money;
+import com.example.ecommerce.model.Order;
+import com.example.ecommerce.model.OrderItem;
+import com.example.ecommerce.model.Product;
+import com.example.ecommerce.model.StockReservation;
+import com.example.ecommerce.repository.CartItemRepository;
+import com.example.ecommerce.repository.OrderRepository;
+import com.example.ecommerce.repository.ProductRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Combines concurrent checkouts into micro-batches.
+ * Requests wait up to the linger time for company, then the whole batch is
+ * validated against one product read and committed with one bulk write per
+ * step (hold settlement, stock take, order insert, cart clear). Each caller's
+ * future completes with its own order or failure. A product that turns out short is
+ * retried one checkout at a time. Every take is noted, so whatever step fails, claimed
+ * holds go back to their users and stock not in an inserted order is returned;
+ * checkouts whose orders were already inserted still succeed.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CheckoutCombiner {
+    
+    private final CartItemRepository cartItemRepository;
+    private final ProductRepository productRepository;
+    private final OrderRepository orderRepository;
+    private final DomainEventBus eventBus;
+    private final StockReservationService reservationService;
+    private final HotInventoryService hotInventory;
+    
+    @Value("${orders.checkout.linger-ms:2}")
+    private long lingerMs;
+    
+    @Value("${orders.checkout.max-batch-size:64}")
+    private int maxBatchSize;
+    
+    private final BlockingQueue<PendingCheckout> queue = new LinkedBlockingQueue<>();
+    
+    private volatile boolean running = true;
+    
+    private Thread worker;
+    
+    @PostConstruct
+    public void start() {
+        worker = new Thread(this::run, "checkout-combiner");
+        worker.setDaemon(true);
+        worker.start();
+    }
+    
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        worker.interrupt();
+        worker.join(TimeUnit.SECONDS.toMillis(5));
+        PendingCheckout pending;
+        while ((pending = queue.poll()) != null) {
+            pending.failTransient("Checkout is shutting down. Please retry.");
+        }
+    }
+    
+    /**
+     * Queue a checkout for the next batch.
+     */
+    public CompletableFuture<Order> submit(CreateOrderRequest request) {
+        PendingCheckout pending = new PendingCheckout(request.getUserId());
+        if (!running) {
+            pending.failTransient("Checkout is shutting down. Please retry.");
+        } else {
+            queue.add(pending);
+        }
+        return pending.future;
+    }
+    
+    private void run() {
+        List<PendingCheckout> carryOver = new ArrayList<>();
+        while (running) {
+            try {
+                List<PendingCheckout> batch = collect(carryOver);
+                if (batch.isEmpty()) {
+                    continue;
+                }
+                
+                // A user checking out twice at once is handled in order, one per batch
+                carryOver = new ArrayList<>();
+                Set<String> userIds = new HashSet<>();
+                List<PendingCheckout> distinct = new ArrayList<>();
+                for (PendingCheckout pending : batch) {
+                    (userIds.add(pending.userId) ? distinct : carryOver).add(pending);
+                }
+                
+                try {
+                    process(distinct);
+                } catch (RuntimeException e) {
+                    log.error("Error processing checkout batch of {}: {}", distinct.size(), e.getMessage());
+                    distinct.forEach(pending -> pending.failTransient("Checkout failed. Please retry."));
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                carryOver.forEach(queue::add);
+                return;
+            }
+        }
+    }
+    
+    /**
+     * Wait for a first checkout, then linger for more until the batch is full.
+     */
+    private List<PendingCheckout> collect(List<PendingCheckout> carryOver) throws InterruptedException {
+        List<PendingCheckout> batch = new ArrayList<>(carryOver);
+        if (batch.isEmpty()) {
+            PendingCheckout first = queue.poll(100, TimeUnit.MILLISECONDS);
+            if (first == null) {
+                return batch;
+            }
+            batch.add(first);
+        }
+        
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(lingerMs);
+        while (batch.size() < maxBatchSize) {
+            long wait = deadline - System.nanoTime();
+            PendingCheckout next = wait > 0 ? queue.poll(wait, TimeUnit.NANOSECONDS) : queue.poll();
+            if (next == null) {
+                break;
+            }
+            batch.add(next);
+        }
+        return batch;
+    }
+    
+    /**
+     * Check out a batch of distinct users.
+     */
+    private void process(List<PendingCheckout> batch) {
+        Set<String> userIds = batch.stream().map(pending -> pending.userId).collect(Collectors.toSet());
+        
+        // One read for all carts and one for all products in them
+        Map<String, List<CartItem>> carts = cartItemRepository.findByUserIdIn(userIds).stream()
+                .collect(Collectors.groupingBy(CartItem::getUserId));
+        Set<String> productIds = carts.values().stream()
+                .flatMap(List::stream)
+                .map(CartItem::getProductId)
+                .collect(Collectors.toSet());
+        Map<String, Product> products = productRepository.findAllById(productIds).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+        
+        String token = UUID.randomUUID().toString();
+        Map<String, Integer> heldByProduct = new HashMap<>();
+        Map<String, Map<String, Integer>> holds = new HashMap<>();
+        for (StockReservation hold : reservationService.claimLiveHolds(userIds, token)) {
+            heldByProduct.merge(hold.getProductId(), hold.getQuantity(), Integer::sum);
+            holds.computeIfAbsent(hold.getUserId(), id -> new HashMap<>())
+                    .merge(hold.getProductId(), hold.getQuantity(), Integer::sum);
+        }
+        
+        // Everything this batch takes from stock is noted here; at the end, whatever is not
+        // in an order that exists (or may exist) goes back in one bulk write
+        Map<String, Integer> taken = new HashMap<>();
+        List<PendingCheckout> accepted = new ArrayList<>();
+        boolean holdsSettled = false;
+        boolean insertAttempted = false;
+        Set<String> insertedIds = null;
+        try {
+            // Plan each checkout against the product snapshot, in arrival order
+            Map<String, Integer> availableLeft = new HashMap<>();
+            products.values().forEach(product -> availableLeft.put(product.getId(), product.getAvailable()));
+            List<PendingCheckout> planned = new ArrayList<>();
+            for (PendingCheckout pending : batch) {
+                if (plan(pending, carts.get(pending.userId), products, holds, availableLeft)
+                        && takeHot(pending, products, taken)) {
+                    pending.fromAvailable.forEach((productId, quantity) -> availableLeft.merge(productId, -quantity, Integer::sum));
+                    planned.add(pending);
+                }
+            }
+            
+            // One conditional update per product for everything sold from available stock
+            Map<String, Integer> takes = new HashMap<>();
+            planned.forEach(pending -> pending.fromAvailable.forEach((productId, quantity) ->
+                    takes.merge(productId, quantity, Integer::sum)));
+            Set<String> shortProducts = new HashSet<>();
+            takes.forEach((productId, quantity) -> {
+                if (productRepository.takeAvailableStock(productId, quantity)) {
+                    taken.merge(productId, quantity, Integer::sum);
+                } else {
+                    shortProducts.add(productId);
+                }
+            });
+            
+            // Someone else sold from a product since the snapshot: take it one checkout at a
+            // time, in arrival order, so only the checkouts that no longer fit fail
+            for (PendingCheckout pending : planned) {
+                if (takeShort(pending, shortProducts, products, taken)) {
+                    accepted.add(pending);
+                }
+            }
+            
+            // Holds are settled before the orders exist: if the insert then fails, what the
+            // holds covered is returned like any other taken stock, never released twice
+            Map<String, Integer> usedFromHolds = new HashMap<>();
+            accepted.forEach(pending -> pending.fromHolds.forEach((productId, quantity) ->
+                    usedFromHolds.merge(productId, quantity, Integer::sum)));
+            reservationService.settleClaimedHolds(token, heldByProduct, usedFromHolds);
+            usedFromHolds.forEach((productId, quantity) -> taken.merge(productId, quantity, Integer::sum));
+            holdsSettled = true;
+            
+            // One insert for all orders, with ids assigned up front so items carry them
+            Instant now = Instant.now();
+            List<Order> orders = new ArrayList<>();
+            for (PendingCheckout pending : accepted) {
+                pending.order = toOrder(pending, now);
+                orders.add(pending.order);
+            }
+            insertAttempted = true;
+            Set<String> inserted = insertOrders(orders);
+            insertedIds = inserted;
+            List<PendingCheckout> created = accepted.stream()
+                    .filter(pending -> inserted.contains(pending.order.getId()))
+                    .toList();
+            accepted.stream()
+                    .filter(pending -> !inserted.contains(pending.order.getId()))
+                    .forEach(pending -> pending.failTransient("Checkout failed. Please retry."));
+            
+            // Carts go before the callers hear back, so a checkout right after sees them empty
+            if (!created.isEmpty()) {
+                try {
+                    cartItemRepository.deleteByUserIdIn(created.stream().map(pending -> pending.userId).toList());
+                } catch (RuntimeException e) {
+                    log.error("Could not clear {} carts after checkout: {}", created.size(), e.getMessage());
+                }
+            }
+            
+            // Published before the callers hear back: the journal commits the new orders on this thread
+            if (!created.isEmpty()) {
+                List<Order> createdOrders = created.stream().map(pending -> pending.order).toList();
+                eventBus.publish(new OrderCreated(createdOrders));
+                eventBus.publish(new StockChanged(createdOrders.stream()
+                        .flatMap(order -> order.getItems().stream())
+                        .map(OrderItem::getProductId)
+                        .collect(Collectors.toSet())));
+            }
+            
+            // The orders exist from here on, so their callers succeed whatever happens next
+            for (PendingCheckout pending : created) {
+                log.info("Order created: {} with total: {}", pending.order.getId(), pending.order.getTotalAmount());
+                pending.future.complete(pending.order);
+            }
+            if (batch.size() > 1) {
+                log.info("Checkout batch of {}: {} orders created", batch.size(), created.size());
+            }
+        } finally {
+            if (!holdsSettled) {
+                returnHolds(token);
+            }
+            // Stock of orders that exist stays sold; if the insert's outcome is unknown, so does theirs
+            if (insertAttempted) {
+                for (PendingCheckout pending : accepted) {
+                    if (insertedIds == null || insertedIds.contains(pending.order.getId())) {
+                        pending.fromAvailable.forEach((productId, quantity) -> taken.merge(productId, -quantity, Integer::sum));
+                        pending.fromHot.forEach((productId, quantity) -> taken.merge(productId, -quantity, Integer::sum));
+                        pending.fromHolds.forEach((productId, quantity) -> taken.merge(productId, -quantity, Integer::sum));
+                    }
+                }
+            }
+            taken.values().removeIf(quantity -> quantity == 0);
+            returnStock(taken);
+        }
+    }
+    
+    /**
+     * Split each cart line into what live holds cover and what must be sold from
+     * available (or hot) stock. Fails the checkout if the snapshot cannot cover it.
+     */
+    private boolean plan(PendingCheckout pending, List<CartItem> cartItems, Map<String, Product> products,
+                         Map<String, Map<String, Integer>> holds, Map<String, Integer> availableLeft) {
+        if (cartItems == null || cartItems.isEmpty()) {
+            pending.fail("Cart is empty. Cannot create order.");
+            return false;
+        }
+        
+        Map<String, Integer> held = new HashMap<>(holds.getOrDefault(pending.userId, Map.of()));
+        for (CartItem cartItem : cartItems) {
+            Product product = products.get(cartItem.getProductId());
+            if (product == null) {
+                pending.fail("Product not found: " + cartItem.getProductId());
+                return false;
+            }
+            
+            int fromHolds = Math.min(held.getOrDefault(product.getId(), 0), cartItem.getQuantity());
+            held.merge(product.getId(), -fromHolds, Integer::sum);
+            int remaining = cartItem.getQuantity() - fromHolds;
+            if (fromHolds > 0) {
+                pending.fromHolds.merge(product.getId(), fromHolds, Integer::sum);
+            }
+            if (remaining > 0) {
+                (hotInventory.isHot(product.getId()) ? pending.fromHot : pending.fromAvailable)
+                        .merge(product.getId(), remaining, Integer::sum);
+            }
+            
+            pending.items.add(OrderItem.builder()
+                    .id(UUID.randomUUID().toString())
+                    .productId(product.getId())
+                    .quantity(cartItem.getQuantity())
+                    .price(product.getPrice())
+                    .build());
+        }
+        
+        // An order total has one currency
+        String currency = pending.items.get(0).getPrice().getCurrency();
+        if (pending.items.stream().anyMatch(item -> !currency.equals(item.getPrice().getCurrency()))) {
+            pending.fail("Cart contains products priced in different currencies");
+            return false;
+        }
+        
+        for (Map.Entry<String, Integer> entry : pending.fromAvailable.entrySet()) {
+            if (availableLeft.getOrDefault(entry.getKey(), 0) < entry.getValue()) {
+                pending.fail("Insufficient stock for product: " + products.get(entry.getKey()).getName());
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Take hot-SKU lines from the striped counters, noting each take in the batch's ledger.
+     */
+    private boolean takeHot(PendingCheckout pending, Map<String, Product> products, Map<String, Integer> taken) {
+        for (Map.Entry<String, Integer> entry : pending.fromHot.entrySet()) {
+            if (!hotInventory.tryTake(entry.getKey(), entry.getValue())) {
+                pending.fail("Insufficient stock for product: " + products.get(entry.getKey()).getName());
+                return false;
+            }
+            taken.merge(entry.getKey(), entry.getValue(), Integer::sum);
+        }
+        return true;
+    }
+    
+    /**
+     * Take a checkout's lines on products the combined take came up short on, one
+     * conditional update each. Fails the checkout at the first line that no longer fits.
+     */
+    private boolean takeShort(PendingCheckout pending, Set<String> shortProducts, Map<String, Product> products,
+                              Map<String, Integer> taken) {
+        for (Map.Entry<String, Integer> entry : pending.fromAvailable.entrySet()) {
+            if (!shortProducts.contains(entry.getKey())) {
+                continue;
+            }
+            if (!productRepository.takeAvailableStock(entry.getKey(), entry.getValue())) {
+                pending.fail("Insufficient stock for product: " + products.get(entry.getKey()).getName());
+                return false;
+            }
+            taken.merge(entry.getKey(), entry.getValue(), Integer::sum);
+        }
+        return true;
+    }
+    
+    /**
+     * Insert all orders in one write and return the ids that exist afterwards. A failed
+     * insert may still have written some (a partial insert, or a timeout after the write),
+     * so those are looked up; if even that fails, the insert's exception is rethrown.
+     */
+    private Set<String> insertOrders(List<Order> orders) {
+        if (orders.isEmpty()) {
+            return Set.of();
+        }
+        List<String> ids = orders.stream().map(Order::getId).toList();
+        try {
+            orderRepository.insert(orders);
+            return new HashSet<>(ids);
+        } catch (RuntimeException e) {
+            try {
+                Set<String> existing = orderRepository.findAllById(ids).stream()
+                        .map(Order::getId)
+                        .collect(Collectors.toSet());
+                log.error("Order insert failed after writing {} of {} orders: {}", existing.size(), ids.size(), e.getMessage());
+                return existing;
+            } catch (RuntimeException lookup) {
+                log.error("Could not tell which of orders {} were inserted, their stock stays taken: {}", ids, lookup.getMessage());
+                throw e;
+            }
+        }
+    }
+    
+    /**
+     * Give claimed holds back to their users, ready for a retry. If that fails too,
+     * the sweeper takes the claim over once its lease runs out.
+     */
+    private void returnHolds(String token) {
+        try {
+            reservationService.returnClaimedHolds(token);
+        } catch (RuntimeException e) {
+            log.error("Could not return claimed holds {}: {}", token, e.getMessage());
+        }
+    }
+    
+    private void returnStock(Map<String, Integer> quantities) {
+        try {
+            productRepository.adjustStock(quantities);
+        } catch (RuntimeException e) {
+            log.error("Could not return stock of failed checkouts {}: {}", quantities, e.getMessage());
+        }
+    }
+    
+    private Order toOrder(PendingCheckout pending, Instant createdAt) {
+        String orderId = new ObjectId().toHexString();
+        pending.items.forEach(item -> item.setOrderId(orderId));
+        // Sum in minor units on a primitive; one Money for the total
+        String currency = pending.items.isEmpty() ? Money.DEFAULT_CURRENCY : pending.items.get(0).getPrice().getCurrency();
+        long totalMinor = 0;
+        for (int i = 0; i < pending.items.size(); i++) {
+            OrderItem item = pending.items.get(i);
+            totalMinor = Math.addExact(totalMinor, Math.multiplyExact(item.getPrice().getMinorUnits(), item.getQuantity()));
+        }
+        return Order.builder()
+                .id(orderId)
+                .userId(pending.userId)
+                .totalAmount(Money.ofMinor(totalMinor, currency))
+                .status("CREATED")
+                .createdAt(createdAt)
+                .items(pending.items)
+                .build();
+    }
+    
+    /**
+     * A queued checkout and the stock plan worked out for it.
+     */
+    private static final class PendingCheckout {
+        
+        private final String userId;
+        private final CompletableFuture<Order> future = new CompletableFuture<>();
+        private final List<OrderItem> items = new ArrayList<>();
+        private final Map<String, Integer> fromHolds = new LinkedHashMap<>();
+        private final Map<String, Integer> fromAvailable = new LinkedHashMap<>();
+        private final Map<String, Integer> fromHot = new LinkedHashMap<>();
+        private Order order;
+        
+        PendingCheckout(String userId) {
+            this.userId = userId;
+        }
+        
+        void fail(String message) {
+            future.completeExceptionally(new RuntimeException(message));
+        }
+        
+        void failTransient(String message) {
+            future.completeExceptionally(new ServiceUnavailableException(message));
+        }
+    }
+}
@@ -0,0 +1,400 @@
+package com.example.ecommerce.service;
+
+import com.example.ecommerce.model.Product;
+import com.example.ecommerce.model.StockLease;
+import com.example.ecommerce.repository.ProductRepository;
+import com.example.ecommerce.repository.StockLeaseRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Service class for hot-SKU inventory.
+ * Products flagged hot sell from striped in-memory counters instead of a
+ * read-modify-write on their document. Units enter the stripes only by being
+ * leased out of the product's available counter, so stripes can never hand out
+ * more than Mongo had. A reconciler flushes sold units back, tops up and
+ * rebalances the stripes, and returns leases of products that are no longer hot.
+ * Each instance's share of a product's leased counter is a {@link StockLease} with
+ * an owner and an expiry, renewed by the reconciler. The instance stops selling from
+ * a lease it has not renewed for half its TTL; once a lease is past its TTL (the
+ * owner died), any instance removes it and returns its units to available.
+ * Checkouts currently take from the single checkout-combiner thread, so the stripes
+ * see one taker at a time; they only pay off if takes are spread over threads again.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class HotInventoryService {
+    
+    private final ProductRepository productRepository;
+    private final StockLeaseRepository leaseRepository;
+    
+    @Value("${inventory.hot.stripes:0}")
+    private int configuredStripes;
+    
+    @Value("${inventory.hot.lease-size:1000}")
+    private int leaseSize;
+    
+    @Value("${inventory.hot.lease-ttl:PT2M}")
+    private Duration leaseTtl;
+    
+    @Value("${inventory.hot.reclaim-batch-size:100}")
+    private int reclaimBatchSize;
+    
+    // Owner of this instance's leases; after a restart the old ones are left to expire
+    private final String owner = UUID.randomUUID().toString();
+    
+    private final Map<String, HotStock> hotStocks = new ConcurrentHashMap<>();
+    
+    /**
+     * Whether a product currently sells from striped counters on this instance.
+     */
+    public boolean isHot(String productId) {
+        return hotStocks.containsKey(productId);
+    }
+    
+    /**
+     * Whether at least quantity units could be sold right now (stripes plus a fresh lease).
+     */
+    public boolean hasAvailable(String productId, int quantity) {
+        HotStock stock = hotStocks.get(productId);
+        return stock != null && (stock.total() >= quantity || refill(productId, stock, quantity));
+    }
+    
+    /**
+     * Take units from the stripes without contention, leasing more when they run dry.
+     * Returns false, with nothing taken, if the product is sold out.
+     */
+    public boolean tryTake(String productId, int quantity) {
+        HotStock stock = hotStocks.get(productId);
+        if (stock == null) {
+            return false;
+        }
+        if (stock.isValid() && stock.take(quantity)) {
+            if (stock.closed) {
+                // Retired while taking: the retiring flush may have run before this sale
+                synchronized (stock) {
+                    flush(productId, stock);
+                }
+            }
+            return true;
+        }
+        // Slow path: serialize with the reconciler, then lease more if needed
+        synchronized (stock) {
+            if (stock.closed) {
+                // A failed take may have put units back after the retiring drain
+                returnUnsold(productId, stock);
+                return false;
+            }
+            if (!stock.isValid()) {
+                renew(productId, stock);
+            }
+            return (stock.isValid() && stock.take(quantity))
+                    || (refill(productId, stock, quantity) && stock.take(quantity));
+        }
+    }
+    
+    /**
+     * Flag or unflag a product as hot. Stripes are set up or drained by the next reconcile.
+     */
+    public boolean setHot(String productId, boolean hot) {
+        log.info("Setting hot inventory for product {}: {}", productId, hot);
+        boolean found = productRepository.setHot(productId, hot);
+        if (found) {
+            reconcile();
+        }
+        return found;
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        reconcile();
+    }
+    
+    /**
+     * Flush sold units to Mongo, pick up newly flagged products, retire unflagged ones,
+     * and top up and rebalance the stripes.
+     */
+    @Scheduled(fixedDelayString = "${inventory.hot.reconcile-interval-ms:1000}")
+    public synchronized void reconcile() {
+        Set<String> flagged;
+        try {
+            flagged = productRepository.findHotProductIds().stream()
+                    .map(Product::getId)
+                    .collect(Collectors.toSet());
+        } catch (RuntimeException e) {
+            log.error("Could not load hot products: {}", e.getMessage());
+            return;
+        }
+        
+        for (String productId : flagged) {
+            hotStocks.computeIfAbsent(productId, id -> {
+                log.info("Product {} is now served from hot inventory", id);
+                return new HotStock(stripeCount());
+            });
+        }
+        
+        for (Map.Entry<String, HotStock> entry : hotStocks.entrySet()) {
+            String productId = entry.getKey();
+            HotStock stock = entry.getValue();
+            try {
+                synchronized (stock) {
+                    flush(productId, stock);
+                    if (!flagged.contains(productId)) {
+                        retire(productId, stock);
+                        continue;
+                    }
+                    renew(productId, stock);
+                    if (stock.total() < leaseSize / 4) {
+                        refill(productId, stock, 0);
+                    }
+                    stock.rebalance();
+                }
+            } catch (RuntimeException e) {
+                log.error("Error reconciling hot inventory for product {}: {}", productId, e.getMessage());
+            }
+        }
+    }
+    
+    /**
+     * Remove leases whose owner stopped renewing them and return their units to
+     * available, so a crashed instance does not strand them.
+     */
+    @Scheduled(fixedDelayString = "${inventory.hot.reclaim-interval-ms:60000}")
+    public void reclaimExpiredLeases() {
+        int reclaimed = 0;
+        try {
+            List<StockLease> batch;
+            do {
+                batch = leaseRepository.removeExpired(Instant.now(), reclaimBatchSize);
+                for (StockLease lease : batch) {
+                    if (lease.getQuantity() != null && lease.getQuantity() > 0) {
+                        productRepository.returnLeasedStock(lease.getProductId(), lease.getQuantity());
+                        reclaimed += lease.getQuantity();
+                    }
+                }
+            } while (batch.size() == reclaimBatchSize);
+        } catch (RuntimeException e) {
+            log.error("Error reclaiming expired hot inventory leases: {}", e.getMessage());
+        }
+        if (reclaimed > 0) {
+            log.info("Reclaimed {} units from expired hot inventory leases", reclaimed);
+        }
+    }
+    
+    /**
+     * Flush and return every lease on shutdown.
+     */
+    @PreDestroy
+    public synchronized void shutdown() {
+        hotStocks.forEach((productId, stock) -> {
+            try {
+                synchronized (stock) {
+                    flush(productId, stock);
+                    retire(productId, stock);
+                }
+            } catch (RuntimeException e) {
+                log.error("Could not return hot inventory lease for product {}: {}", productId, e.getMessage());
+            }
+        });
+    }
+    
+    /**
+     * Commit sold units: off this instance's lease first, then out of leased and stock.
+     */
+    private void flush(String productId, HotStock stock) {
+        int sold = (int) stock.sold.sumThenReset();
+        if (sold == 0) {
+            return;
+        }
+        try {
+            if (leaseRepository.removeLeased(productId, owner, sold)) {
+                productRepository.commitLeasedStock(productId, sold);
+            } else {
+                // The lease was reclaimed and its units, these included, returned to available
+                productRepository.adjustStock(productId, -sold);
+            }
+        } catch (RuntimeException e) {
+            stock.sold.add(sold);
+            throw e;
+        }
+    }
+    
+    /**
+     * Extend this instance's lease. If it was reclaimed meanwhile, its units are back in
+     * available already: what was sold is taken from there and the stripes start over.
+     * Called with the stock's lock held.
+     */
+    private void renew(String productId, HotStock stock) {
+        long renewedAt = System.nanoTime();
+        if (leaseRepository.renew(productId, owner, Instant.now().plus(leaseTtl))) {
+            stock.validUntil = renewedAt + leaseTtl.toNanos() / 2;
+            return;
+        }
+        stock.validUntil = renewedAt;
+        flush(productId, stock);
+        int dropped = stock.drain();
+        if (dropped > 0) {
+            log.warn("Hot inventory lease for product {} was reclaimed, dropped {} units", productId, dropped);
+        }
+    }
+    
+    /**
+     * Close the stock, so takers holding a reference stop leasing into it, then
+     * return its lease. Called with the stock's lock held.
+     */
+    private void retire(String productId, HotStock stock) {
+        stock.closed = true;
+        hotStocks.remove(productId, stock);
+        int unsold = returnUnsold(productId, stock);
+        log.info("Product {} left hot inventory, returned {} units", productId, unsold);
+    }
+    
+    private int returnUnsold(String productId, HotStock stock) {
+        int unsold = stock.drain();
+        // Sales that slipped in after an earlier flush still need to be committed
+        flush(productId, stock);
+        if (unsold > 0 && leaseRepository.removeLeased(productId, owner, unsold)) {
+            productRepository.returnLeasedStock(productId, unsold);
+        }
+        return unsold;
+    }
+    
+    /**
+     * Lease at least the missing quantity (and normally a full lease) into the stripes.
+     */
+    private boolean refill(String productId, HotStock stock, int needed) {
+        synchronized (stock) {
+            if (stock.closed) {
+                return false;
+            }
+            if (!stock.isValid()) {
+                renew(productId, stock);
+            }
+            int missing = needed - stock.total();
+            if (needed > 0 && missing <= 0) {
+                return true;
+            }
+            int leased = productRepository.leaseStock(productId, Math.max(leaseSize, missing));
+            if (leased > 0) {
+                // Counted as leased first: a crash before the lease records it strands units, never oversells
+                try {
+                    leaseRepository.addLeased(productId, owner, leased, Instant.now().plus(leaseTtl));
+                } catch (RuntimeException e) {
+                    productRepository.returnLeasedStock(productId, leased);
+                    throw e;
+                }
+                stock.validUntil = System.nanoTime() + leaseTtl.toNanos() / 2;
+                stock.spread(leased);
+            }
+            return needed <= 0 || stock.total() >= needed;
+        }
+    }
+    
+    private int stripeCount() {
+        return configuredStripes > 0 ? configuredStripes : Runtime.getRuntime().availableProcessors();
+    }
+    
+    /**
+     * Leased units of one product, split over independently updated stripes.
+     */
+    private static final class HotStock {
+        
+        private final AtomicInteger[] stripes;
+        private final LongAdder sold = new LongAdder();
+        
+        // Set under the stock's lock when it is retired; no more units are leased into it
+        private volatile boolean closed;
+        
+        // System.nanoTime() until which the lease is safe to sell from without renewing it
+        private volatile long validUntil = System.nanoTime();
+        
+        HotStock(int stripeCount) {
+            stripes = new AtomicInteger[stripeCount];
+            for (int i = 0; i < stripeCount; i++) {
+                stripes[i] = new AtomicInteger();
+            }
+        }
+        
+        boolean isValid() {
+            return System.nanoTime() - validUntil < 0;
+        }
+        
+        /**
+         * Take quantity from the caller's home stripe, spilling into the others if needed.
+         */
+        boolean take(int quantity) {
+            int start = ThreadLocalRandom.current().nextInt(stripes.length);
+            int taken = 0;
+            for (int i = 0; i < stripes.length && taken < quantity; i++) {
+                taken += takeUpTo(stripes[(start + i) % stripes.length], quantity - taken);
+            }
+            if (taken < quantity) {
+                // Not enough across all stripes: put back what was taken
+                stripes[start].addAndGet(taken);
+                return false;
+            }
+            sold.add(quantity);
+            return true;
+        }
+        
+        private static int takeUpTo(AtomicInteger stripe, int wanted) {
+            while (true) {
+                int current = stripe.get();
+                if (current <= 0) {
+                    return 0;
+                }
+                int taken = Math.min(current, wanted);
+                if (stripe.compareAndSet(current, current - taken)) {
+                    return taken;
+                }
+            }
+        }
+        
+        int total() {
+            int total = 0;
+            for (AtomicInteger stripe : stripes) {
+                total += stripe.get();
+            }
+            return total;
+        }
+        
+        void spread(int quantity) {
+            int share = quantity / stripes.length;
+            int extra = quantity % stripes.length;
+            for (int i = 0; i < stripes.length; i++) {
+                stripes[i].addAndGet(share + (i < extra ? 1 : 0));
+            }
+        }
+        
+        void rebalance() {
+            spread(drain());
+        }
+        
+        int drain() {
+            int total = 0;
+            for (AtomicInteger stripe : stripes) {
+                total += stripe.getAndSet(0);
+            }
+            return total;
+        }
+    }
+}
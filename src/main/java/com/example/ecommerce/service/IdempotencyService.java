@@ -0,0 +1,290 @@
+package com.example.ecommerce.service;
+
+import com.example.ecommerce.dto.ApiResponse;
+import com.example.ecommerce.exception.OutcomeUnknownException;
+import com.example.ecommerce.model.IdempotencyRecord;
+import com.example.ecommerce.repository.IdempotencyRecordRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.util.DigestUtils;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Service class for Idempotency-Key handling on non-idempotent POST endpoints.
+ * The first request with a key runs and its response is stored with a fingerprint
+ * of the request body; replays get the stored response without running again.
+ * Concurrent duplicates wait for the running request, on this instance through
+ * an in-flight future and across instances through the IN_PROGRESS record.
+ * Only responses below 500 are stored: transient failures, which the actions
+ * throw as exceptions, release the key so that a retry runs again.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class IdempotencyService {
+    
+    public static final String HEADER = "Idempotency-Key";
+    
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+    
+    private static final int MAX_KEY_LENGTH = 255;
+    
+    private static final long POLL_INTERVAL_MS = 50;
+    
+    private final IdempotencyRecordRepository recordRepository;
+    private final MongoTemplate mongoTemplate;
+    private final ObjectMapper objectMapper;
+    
+    @Value("${idempotency.ttl:PT24H}")
+    private Duration ttl;
+    
+    // How long an IN_PROGRESS record blocks others before it is treated as abandoned
+    @Value("${idempotency.lock-timeout:PT30S}")
+    private Duration lockTimeout;
+    
+    @Value("${idempotency.wait-timeout:PT10S}")
+    private Duration waitTimeout;
+    
+    @Value("${idempotency.near-cache.max-entries:10000}")
+    private int nearCacheMaxEntries;
+    
+    private final Map<String, IdempotencyRecord> nearCache = new ConcurrentHashMap<>();
+    private final Map<String, CompletableFuture<IdempotencyRecord>> inFlight = new ConcurrentHashMap<>();
+    
+    /**
+     * Run the action at most once per scope and key. Without a key the action just runs.
+     */
+    public ResponseEntity<?> execute(String scope, String key, Object request, Supplier<ResponseEntity<?>> action) {
+        if (key == null || key.isBlank()) {
+            return action.get();
+        }
+        if (key.length() > MAX_KEY_LENGTH) {
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.error(HEADER + " must be at most " + MAX_KEY_LENGTH + " characters"));
+        }
+        
+        String id = scope + ":" + key;
+        String fingerprint = fingerprint(request);
+        
+        IdempotencyRecord cached = nearCache.get(id);
+        if (cached != null && cached.getExpiresAt().isAfter(Instant.now())) {
+            return replay(cached, fingerprint);
+        }
+        
+        CompletableFuture<IdempotencyRecord> mine = new CompletableFuture<>();
+        CompletableFuture<IdempotencyRecord> running = inFlight.putIfAbsent(id, mine);
+        if (running != null) {
+            log.info("Waiting for in-flight request with {} {}", HEADER, id);
+            return replay(await(running), fingerprint);
+        }
+        
+        try {
+            return runOnce(id, fingerprint, action, mine);
+        } finally {
+            mine.complete(null);
+            inFlight.remove(id, mine);
+        }
+    }
+    
+    /**
+     * Claim the key, run the action and store its response. If another instance
+     * holds the key, wait for its response instead.
+     */
+    private ResponseEntity<?> runOnce(String id, String fingerprint, Supplier<ResponseEntity<?>> action,
+                                      CompletableFuture<IdempotencyRecord> mine) {
+        IdempotencyRecord existing = claim(id, fingerprint);
+        if (existing != null) {
+            if (!"COMPLETED".equals(existing.getStatus()) && fingerprint.equals(existing.getFingerprint())) {
+                log.info("Waiting for request with {} {} on another instance", HEADER, id);
+                existing = waitForCompletion(id);
+            }
+            if (existing != null && "COMPLETED".equals(existing.getStatus())) {
+                remember(existing);
+            }
+            return replay(existing, fingerprint);
+        }
+        
+        ResponseEntity<?> response;
+        try {
+            response = action.get();
+        } catch (OutcomeUnknownException e) {
+            // The work may still finish: keep the key locked until the lock runs out
+            throw e;
+        } catch (RuntimeException e) {
+            recordRepository.deleteById(id);
+            throw e;
+        }
+        
+        // Server errors are not final; let the client retry them for real
+        if (response.getStatusCode().is5xxServerError()) {
+            recordRepository.deleteById(id);
+            return response;
+        }
+        
+        mine.complete(complete(id, fingerprint, response));
+        return response;
+    }
+    
+    /**
+     * Insert the IN_PROGRESS record, or take over one whose lock has run out.
+     * Returns null when claimed, otherwise the record that holds the key.
+     */
+    private IdempotencyRecord claim(String id, String fingerprint) {
+        for (int attempt = 0; attempt < 2; attempt++) {
+            Instant now = Instant.now();
+            try {
+                recordRepository.insert(IdempotencyRecord.builder()
+                        .id(id)
+                        .fingerprint(fingerprint)
+                        .status("IN_PROGRESS")
+                        .lockedUntil(now.plus(lockTimeout))
+                        .createdAt(now)
+                        .expiresAt(now.plus(ttl))
+                        .build());
+                return null;
+            } catch (DuplicateKeyException e) {
+                Query abandoned = Query.query(Criteria.where("id").is(id)
+                        .and("status").is("IN_PROGRESS")
+                        .and("lockedUntil").lt(now));
+                Update update = new Update()
+                        .set("fingerprint", fingerprint)
+                        .set("lockedUntil", now.plus(lockTimeout));
+                if (mongoTemplate.findAndModify(abandoned, update, IdempotencyRecord.class) != null) {
+                    log.warn("Took over abandoned request with {} {}", HEADER, id);
+                    return null;
+                }
+                Optional<IdempotencyRecord> existing = recordRepository.findById(id);
+                if (existing.isPresent()) {
+                    return existing.get();
+                }
+                // Released between our insert and read: try again
+            }
+        }
+        // Still contended: report it as in progress
+        return IdempotencyRecord.builder().id(id).fingerprint(fingerprint).status("IN_PROGRESS").build();
+    }
+    
+    /**
+     * Poll for another instance's request to finish. Returns null if it gave up or is still running.
+     */
+    private IdempotencyRecord waitForCompletion(String id) {
+        long deadline = System.nanoTime() + waitTimeout.toNanos();
+        while (System.nanoTime() < deadline) {
+            try {
+                Thread.sleep(POLL_INTERVAL_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+            Optional<IdempotencyRecord> record = recordRepository.findById(id);
+            if (record.isEmpty()) {
+                return null;
+            }
+            if ("COMPLETED".equals(record.get().getStatus())) {
+                return record.get();
+            }
+        }
+        return null;
+    }
+    
+    private IdempotencyRecord complete(String id, String fingerprint, ResponseEntity<?> response) {
+        Instant now = Instant.now();
+        IdempotencyRecord record = IdempotencyRecord.builder()
+                .id(id)
+                .fingerprint(fingerprint)
+                .status("COMPLETED")
+                .httpStatus(response.getStatusCode().value())
+                .body(serialize(response.getBody()))
+                .createdAt(now)
+                .expiresAt(now.plus(ttl))
+                .build();
+        try {
+            recordRepository.save(record);
+        } catch (RuntimeException e) {
+            // The work is done; the lock times out and only this instance can replay it
+            log.error("Could not store response for {} {}: {}", HEADER, id, e.getMessage());
+        }
+        remember(record);
+        return record;
+    }
+    
+    private IdempotencyRecord await(CompletableFuture<IdempotencyRecord> running) {
+        try {
+            return running.get(waitTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException | TimeoutException e) {
+            return null;
+        }
+    }
+    
+    /**
+     * Build the response for a duplicate request from the stored record.
+     */
+    private ResponseEntity<?> replay(IdempotencyRecord record, String fingerprint) {
+        if (record != null && !fingerprint.equals(record.getFingerprint())) {
+            return ResponseEntity.unprocessableEntity()
+                    .body(ApiResponse.error(HEADER + " was already used for a different request"));
+        }
+        if (record == null || !"COMPLETED".equals(record.getStatus())) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .body(ApiResponse.error("A request with this " + HEADER + " is still being processed"));
+        }
+        return ResponseEntity.status(record.getHttpStatus())
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(REPLAYED_HEADER, "true")
+                .body(record.getBody());
+    }
+    
+    private void remember(IdempotencyRecord record) {
+        if (nearCache.size() >= nearCacheMaxEntries) {
+            Instant now = Instant.now();
+            nearCache.values().removeIf(cached -> cached.getExpiresAt().isBefore(now));
+            if (nearCache.size() >= nearCacheMaxEntries) {
+                return;
+            }
+        }
+        nearCache.put(record.getId(), record);
+    }
+    
+    private String serialize(Object body) {
+        try {
+            return body == null ? null : objectMapper.writeValueAsString(body);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize response", e);
+        }
+    }
+    
+    private String fingerprint(Object request) {
+        try {
+            return DigestUtils.md5DigestAsHex(objectMapper.writeValueAsBytes(request));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not fingerprint request", e);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.ecommerce.service;
+
+import com.example.ecommerce.model.Money;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Rewrites money fields stored as plain decimals (price, totalAmount, item price,
+ * payment amount) into { minorUnits, currency } documents. Runs at startup with
+ * one server-side pipeline update per field, and only touches documents that
+ * still have a number there, so it is cheap to leave enabled.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class MoneyMigration {
+    
+    private static final List<String> NUMBER_TYPES = List.of("double", "int", "long", "decimal");
+    
+    private final MongoTemplate mongoTemplate;
+    private final OrderStatsService orderStatsService;
+    
+    @Value("${money.migration.enabled:true}")
+    private boolean enabled;
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrate() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            long products = migrateField("products", "price");
+            long orders = migrateField("orders", "totalAmount");
+            long items = migrateItemPrices();
+            long payments = migrateField("payments", "amount");
+            if (products + orders + items + payments > 0) {
+                log.info("Migrated money fields to minor units: {} products, {} orders, {} order item lists, {} payments",
+                        products, orders, items, payments);
+            }
+            if (orders > 0) {
+                // Stats amounts were summed as decimals; recount them in minor units
+                orderStatsService.rebuild();
+            }
+        } catch (RuntimeException e) {
+            log.error("Money migration failed: {}", e.getMessage());
+        }
+    }
+    
+    private long migrateField(String collection, String field) {
+        Document filter = new Document(field, new Document("$type", "number"));
+        List<Document> pipeline = List.of(new Document("$set", new Document(field, toMoney("$" + field))));
+        return mongoTemplate.getCollection(collection).updateMany(filter, pipeline).getModifiedCount();
+    }
+    
+    private long migrateItemPrices() {
+        Document filter = new Document("items.price", new Document("$type", "number"));
+        Document isNumber = new Document("$in", List.of(new Document("$type", "$$item.price"), NUMBER_TYPES));
+        Document item = new Document("$mergeObjects", List.of("$$item", new Document("price",
+                new Document("$cond", List.of(isNumber, toMoney("$$item.price"), "$$item.price")))));
+        Document map = new Document("$map", new Document("input", "$items").append("as", "item").append("in", item));
+        List<Document> pipeline = List.of(new Document("$set", new Document("items", map)));
+        return mongoTemplate.getCollection("orders").updateMany(filter, pipeline).getModifiedCount();
+    }
+    
+    /**
+     * Pipeline expression turning a decimal amount into { minorUnits, currency }.
+     */
+    private static Document toMoney(String amount) {
+        long scale = (long) Math.pow(10, Money.fractionDigits(Money.DEFAULT_CURRENCY));
+        Document minorUnits = new Document("$toLong", new Document("$round", List.of(
+                new Document("$multiply", List.of(new Document("$toDecimal", amount), scale)), 0)));
+        return new Document("minorUnits", minorUnits).append("currency", Money.DEFAULT_CURRENCY);
+    }
+}
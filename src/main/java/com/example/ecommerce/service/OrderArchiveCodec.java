@@ -0,0 +1,123 @@
+package com.example.ecommerce.service;
+
+import com.example.ecommerce.model.Money;
+import com.example.ecommerce.model.Order;
+import com.example.ecommerce.model.OrderItem;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Compressed binary form of an archived order, deflated as a whole.
+ * Format version, then id, userId, status, total (minor units, currency),
+ * createdAt, item count and per item: id, orderId, productId, quantity, price.
+ * Strings are an int byte length (-1 for null) followed by UTF-8; numbers are
+ * big-endian, with -1 standing in for a missing quantity or timestamp.
+ */
+final class OrderArchiveCodec {
+    
+    private static final int FORMAT_VERSION = 1;
+    
+    private OrderArchiveCodec() {
+    }
+    
+    static byte[] encode(Order order) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(256);
+        try (DataOutputStream out = new DataOutputStream(new DeflaterOutputStream(buffer))) {
+            out.writeByte(FORMAT_VERSION);
+            writeString(out, order.getId());
+            writeString(out, order.getUserId());
+            writeString(out, order.getStatus());
+            writeMoney(out, order.getTotalAmount());
+            out.writeLong(order.getCreatedAt() == null ? -1 : order.getCreatedAt().toEpochMilli());
+            List<OrderItem> items = order.getItems() == null ? List.of() : order.getItems();
+            out.writeInt(items.size());
+            for (OrderItem item : items) {
+                writeString(out, item.getId());
+                writeString(out, item.getOrderId());
+                writeString(out, item.getProductId());
+                out.writeInt(item.getQuantity() == null ? -1 : item.getQuantity());
+                writeMoney(out, item.getPrice());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not encode order " + order.getId(), e);
+        }
+        return buffer.toByteArray();
+    }
+    
+    /**
+     * Read an archived order back. Throws IllegalArgumentException if the data is not one.
+     */
+    static Order decode(byte[] data) {
+        try (DataInputStream in = new DataInputStream(new InflaterInputStream(new ByteArrayInputStream(data)))) {
+            int formatVersion = in.readUnsignedByte();
+            if (formatVersion != FORMAT_VERSION) {
+                throw new IllegalArgumentException("Unsupported archived order version " + formatVersion);
+            }
+            Order order = new Order();
+            order.setId(readString(in));
+            order.setUserId(readString(in));
+            order.setStatus(readString(in));
+            order.setTotalAmount(readMoney(in));
+            long createdAt = in.readLong();
+            order.setCreatedAt(createdAt < 0 ? null : Instant.ofEpochMilli(createdAt));
+            int count = in.readInt();
+            List<OrderItem> items = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                OrderItem item = new OrderItem();
+                item.setId(readString(in));
+                item.setOrderId(readString(in));
+                item.setProductId(readString(in));
+                int quantity = in.readInt();
+                item.setQuantity(quantity < 0 ? null : quantity);
+                item.setPrice(readMoney(in));
+                items.add(item);
+            }
+            order.setItems(items);
+            return order;
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Not an archived order", e);
+        }
+    }
+    
+    private static void writeMoney(DataOutputStream out, Money money) throws IOException {
+        out.writeLong(money == null ? 0 : money.getMinorUnits());
+        writeString(out, money == null ? null : money.getCurrency());
+    }
+    
+    private static Money readMoney(DataInputStream in) throws IOException {
+        long minorUnits = in.readLong();
+        String currency = readString(in);
+        return currency == null ? null : Money.ofMinor(minorUnits, currency);
+    }
+    
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+    
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,181 @@
+package com.example.ecommerce.service;
+
+import com.example.ecommerce.model.ArchivedOrder;
+import com.example.ecommerce.model.Order;
+import com.example.ecommerce.repository.ArchivedOrderRepository;
+import com.example.ecommerce.repository.OrderRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Service class for hot/cold order tiering.
+ * A scheduled job moves orders in a terminal status (PAID, FAILED, CANCELLED)
+ * that are older than the configured age from the orders collection into the
+ * compressed orders_archive collection, a batch at a time: the batch is written
+ * to the archive first and then deleted from the hot collection, only where the
+ * order still has the status it was read with. Readers look in the hot
+ * collection first and fall back to the archive, so an order being moved is
+ * always found in one of the two.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class OrderArchiveService {
+    
+    private final OrderRepository orderRepository;
+    private final ArchivedOrderRepository archivedOrderRepository;
+    private final MeterRegistry meterRegistry;
+    
+    @Value("${orders.archive.enabled:true}")
+    private boolean enabled;
+    
+    @Value("${orders.archive.age:P90D}")
+    private Duration age;
+    
+    @Value("${orders.archive.batch-size:500}")
+    private int batchSize;
+    
+    @Value("${orders.archive.max-batches-per-run:20}")
+    private int maxBatchesPerRun;
+    
+    private final AtomicLong hotOrders = new AtomicLong();
+    private final AtomicLong archivedOrders = new AtomicLong();
+    
+    private Counter archivedCount;
+    private Counter archiveReads;
+    
+    @PostConstruct
+    public void registerMetrics() {
+        // Sizes are refreshed by each archival run, not on every scrape
+        Gauge.builder("orders.hot.size", hotOrders, AtomicLong::get)
+                .description("Orders in the hot orders collection, as of the last archival run")
+                .register(meterRegistry);
+        Gauge.builder("orders.archive.size", archivedOrders, AtomicLong::get)
+                .description("Orders in the archive, as of the last archival run")
+                .register(meterRegistry);
+        archivedCount = Counter.builder("orders.archive.moved")
+                .description("Orders moved from the hot collection to the archive")
+                .register(meterRegistry);
+        archiveReads = Counter.builder("orders.archive.reads")
+                .description("Order lookups answered from the archive")
+                .register(meterRegistry);
+    }
+    
+    /**
+     * Get an archived order by ID.
+     */
+    public Optional<Order> findById(String orderId) {
+        Optional<Order> order = archivedOrderRepository.findById(orderId).map(OrderArchiveService::toOrder);
+        order.ifPresent(found -> archiveReads.increment());
+        return order;
+    }
+    
+    /**
+     * Add a user's archived orders to their hot ones. Hot copies win, since an
+     * order is written to the archive before it leaves the hot collection.
+     */
+    public List<Order> withArchived(String userId, List<Order> hot) {
+        List<ArchivedOrder> archived = archivedOrderRepository.findByUserId(userId);
+        if (archived.isEmpty()) {
+            return hot;
+        }
+        archiveReads.increment();
+        Set<String> hotIds = new HashSet<>();
+        hot.forEach(order -> hotIds.add(order.getId()));
+        List<Order> orders = new ArrayList<>(hot);
+        archived.stream()
+                .filter(order -> !hotIds.contains(order.getId()))
+                .map(OrderArchiveService::toOrder)
+                .forEach(orders::add);
+        return orders;
+    }
+    
+    /**
+     * Move old finished orders to the archive.
+     */
+    @Scheduled(fixedDelayString = "${orders.archive.interval-ms:600000}",
+            initialDelayString = "${orders.archive.initial-delay-ms:60000}")
+    public void archive() {
+        if (!enabled) {
+            return;
+        }
+        Instant now = Instant.now();
+        Instant cutoff = now.minus(age);
+        int moved = 0;
+        try {
+            for (int batches = 0; batches < maxBatchesPerRun; batches++) {
+                List<Order> batch = orderRepository.findTerminalCreatedBefore(cutoff, batchSize);
+                if (batch.isEmpty()) {
+                    break;
+                }
+                moved += archive(batch, now);
+                if (batch.size() < batchSize) {
+                    break;
+                }
+            }
+            hotOrders.set(orderRepository.count());
+            archivedOrders.set(archivedOrderRepository.count());
+        } catch (RuntimeException e) {
+            log.error("Order archival failed: {}", e.getMessage());
+        }
+        if (moved > 0) {
+            log.info("Archived {} orders created before {}; {} orders remain hot", moved, cutoff, hotOrders.get());
+        }
+    }
+    
+    private int archive(List<Order> batch, Instant now) {
+        List<ArchivedOrder> archived = batch.stream().map(order -> toArchived(order, now)).toList();
+        try {
+            archivedOrderRepository.insert(archived);
+        } catch (DuplicateKeyException e) {
+            // Left over from a run that stopped between the two writes; overwrite them
+            archivedOrderRepository.saveAll(archived);
+        }
+        
+        List<String> deleted = orderRepository.deleteArchived(batch);
+        if (deleted.size() < batch.size()) {
+            // Not deleted here: either it changed status and stays hot, so its archive copy goes,
+            // or a concurrent run moved it, and the archive copy is the only one left
+            Set<String> notDeleted = new HashSet<>();
+            batch.forEach(order -> notDeleted.add(order.getId()));
+            deleted.forEach(notDeleted::remove);
+            List<String> stillHot = orderRepository.findAllById(notDeleted).stream().map(Order::getId).toList();
+            archivedOrderRepository.deleteAllById(stillHot);
+        }
+        archivedCount.increment(deleted.size());
+        return deleted.size();
+    }
+    
+    private static ArchivedOrder toArchived(Order order, Instant now) {
+        return ArchivedOrder.builder()
+                .id(order.getId())
+                .userId(order.getUserId())
+                .status(order.getStatus())
+                .totalAmount(order.getTotalAmount())
+                .createdAt(order.getCreatedAt())
+                .archivedAt(now)
+                .data(OrderArchiveCodec.encode(order))
+                .build();
+    }
+    
+    static Order toOrder(ArchivedOrder archived) {
+        return OrderArchiveCodec.decode(archived.getData());
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.ecommerce.service;
+
+import com.example.ecommerce.events.DomainEventBus;
+import com.example.ecommerce.events.OrderCancelled;
+import com.example.ecommerce.model.Order;
+import com.example.ecommerce.model.OrderItem;
+import com.example.ecommerce.model.Payment;
+import com.example.ecommerce.repository.OrderRepository;
+import com.example.ecommerce.repository.PaymentRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Service class for the payment deadline of CREATED orders.
+ * Checkout takes stock right away, so an order that is never paid would hold it
+ * forever. Payments can only be started within the deadline; a sweeper pages
+ * through CREATED orders past it (plus a grace period, so a payment started just
+ * before the deadline is seen), moves those without a payment to EXPIRED with a
+ * conditional write each and puts back the stock of the orders this instance moved,
+ * with one bulk increment per batch. Orders with a payment are left to its webhook or the payment reconciler.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class OrderExpiryService {
+    
+    private final OrderRepository orderRepository;
+    private final PaymentRepository paymentRepository;
+    private final ProductService productService;
+    private final DomainEventBus eventBus;
+    private final MeterRegistry meterRegistry;
+    
+    @Value("${orders.payment-deadline.enabled:true}")
+    private boolean enabled;
+    
+    @Value("${orders.payment-deadline.deadline:PT30M}")
+    private Duration deadline;
+    
+    @Value("${orders.payment-deadline.grace:PT30S}")
+    private Duration grace;
+    
+    @Value("${orders.payment-deadline.batch-size:500}")
+    private int batchSize;
+    
+    /**
+     * Whether a CREATED order can no longer be paid.
+     */
+    public boolean isPastDeadline(Order order) {
+        return enabled && order.getCreatedAt() != null
+                && order.getCreatedAt().plus(deadline).isBefore(Instant.now());
+    }
+    
+    @Scheduled(fixedDelayString = "${orders.payment-deadline.sweep-interval-ms:60000}",
+            initialDelayString = "${orders.payment-deadline.sweep-interval-ms:60000}")
+    public void expireUnpaidOrders() {
+        if (!enabled) {
+            return;
+        }
+        Instant cutoff = Instant.now().minus(deadline).minus(grace);
+        Order after = null;
+        int expired = 0;
+        try {
+            while (true) {
+                List<Order> page = orderRepository.findCreatedBefore(cutoff, after, batchSize);
+                if (page.isEmpty()) {
+                    break;
+                }
+                expired += expire(page);
+                if (page.size() < batchSize) {
+                    break;
+                }
+                after = page.get(page.size() - 1);
+            }
+        } catch (RuntimeException e) {
+            log.error("Error expiring unpaid orders: {}", e.getMessage());
+        }
+        if (expired > 0) {
+            log.info("Expired {} unpaid orders and released their stock", expired);
+        }
+    }
+    
+    /**
+     * Expire the orders of a page that have no payment and return their stock.
+     */
+    private int expire(List<Order> page) {
+        Set<String> withPayment = paymentRepository.findByOrderIdIn(page.stream().map(Order::getId).toList()).stream()
+                .map(Payment::getOrderId)
+                .collect(Collectors.toSet());
+        Map<String, String> statuses = new HashMap<>();
+        page.stream()
+                .filter(order -> !withPayment.contains(order.getId()))
+                .forEach(order -> statuses.put(order.getId(), "EXPIRED"));
+        
+        // Only orders still CREATED move; a concurrent cancel or payment keeps its own outcome
+        Set<String> moved = orderRepository.updateCreatedOrders(statuses).stream()
+                .map(Order::getId)
+                .collect(Collectors.toSet());
+        if (moved.isEmpty()) {
+            return 0;
+        }
+        List<Order> expired = page.stream().filter(order -> moved.contains(order.getId())).toList();
+        
+        Map<String, Integer> restock = new HashMap<>();
+        for (Order order : expired) {
+            for (OrderItem item : order.getItems()) {
+                restock.merge(item.getProductId(), item.getQuantity(), Integer::sum);
+            }
+        }
+        productService.updateStock(restock);
+        
+        eventBus.publish(new OrderCancelled(expired, "EXPIRED"));
+        meterRegistry.counter("orders.expired").increment(expired.size());
+        return expired.size();
+    }
+}
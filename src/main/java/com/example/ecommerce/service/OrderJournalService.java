@@ -0,0 +1,371 @@
+package com.example.ecommerce.service;
+
+import com.example.ecommerce.dto.OrderEventsResponse;
+import com.example.ecommerce.journal.OrderEvent;
+import com.example.ecommerce.journal.OrderEventCodec;
+import com.example.ecommerce.journal.OrderJournal;
+import com.example.ecommerce.model.Order;
+import com.example.ecommerce.model.Payment;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Service class for the event-sourced order journal.
+ * Order lifecycle events are appended to an {@link OrderJournal} by a single
+ * writer thread that takes whatever is queued, appends it and commits it with
+ * one force (group commit). The latest event of each order is kept in memory as
+ * the order's view, with the sequence of its first event so that its history is
+ * read from that range of the journal only; the views are rebuilt by replaying
+ * the journal at startup. Sealed segments are compacted periodically: events
+ * older than the history retention are dropped unless they are still the latest
+ * of an open order. Orders that finished before the retention are forgotten, view
+ * and events alike. MongoDB stays
+ * the system of record for orders; the journal adds their history without
+ * reading or writing MongoDB.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class OrderJournalService {
+    
+    private final MeterRegistry meterRegistry;
+    
+    @Value("${orders.journal.enabled:true}")
+    private boolean enabled;
+    
+    @Value("${orders.journal.directory:data/journal}")
+    private String directory;
+    
+    @Value("${orders.journal.segment-size:64MB}")
+    private DataSize segmentSize;
+    
+    @Value("${orders.journal.max-batch-size:256}")
+    private int maxBatchSize;
+    
+    @Value("${orders.journal.linger-ms:1}")
+    private long lingerMs;
+    
+    @Value("${orders.journal.compaction.retain-history:P30D}")
+    private Duration retainHistory;
+    
+    private final BlockingQueue<PendingEvent> queue = new LinkedBlockingQueue<>();
+    private final Map<String, OrderView> views = new ConcurrentHashMap<>();
+    
+    private volatile boolean running = true;
+    
+    private OrderJournal journal;
+    private Thread writer;
+    private DistributionSummary commitSizes;
+    
+    /**
+     * Open the journal and rebuild the order views from it before serving requests.
+     */
+    @PostConstruct
+    public void start() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        long start = System.nanoTime();
+        journal = OrderJournal.open(Paths.get(directory), (int) segmentSize.toBytes());
+        journal.replay((sequence, payload) -> apply(OrderEventCodec.decode(sequence, payload)));
+        log.info("Rebuilt {} order views from the journal in {} ms", views.size(), (System.nanoTime() - start) / 1_000_000);
+        
+        commitSizes = DistributionSummary.builder("orders.journal.commit.events")
+                .description("Events made durable per group commit")
+                .register(meterRegistry);
+        Gauge.builder("orders.journal.segments", journal, OrderJournal::getSegmentCount).register(meterRegistry);
+        Gauge.builder("orders.journal.views", views, Map::size).register(meterRegistry);
+        
+        writer = new Thread(this::run, "order-journal");
+        writer.setDaemon(true);
+        writer.start();
+    }
+    
+    @PreDestroy
+    public void shutdown() throws InterruptedException, IOException {
+        if (writer == null) {
+            return;
+        }
+        running = false;
+        writer.interrupt();
+        writer.join(TimeUnit.SECONDS.toMillis(5));
+        List<PendingEvent> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        if (!remaining.isEmpty()) {
+            write(remaining);
+        }
+        journal.close();
+    }
+    
+    /**
+     * Record newly created orders. The future completes once all of them are durable.
+     */
+    public CompletableFuture<Void> recordCreated(List<Order> orders) {
+        List<CompletableFuture<Long>> appended = new ArrayList<>(orders.size());
+        for (Order order : orders) {
+            appended.add(append(OrderEvent.builder()
+                    .type(OrderEvent.Type.CREATED)
+                    .orderId(order.getId())
+                    .userId(order.getUserId())
+                    .status(order.getStatus())
+                    .amount(order.getTotalAmount())
+                    .createdAt(order.getCreatedAt())
+                    .build()));
+        }
+        return CompletableFuture.allOf(appended.toArray(CompletableFuture[]::new));
+    }
+    
+    /**
+     * Record that a payment was started for an order.
+     */
+    public CompletableFuture<Void> recordPaymentPending(Payment payment) {
+        return append(OrderEvent.builder()
+                .type(OrderEvent.Type.PAYMENT_PENDING)
+                .orderId(payment.getOrderId())
+                .amount(payment.getAmount())
+                .paymentId(payment.getPaymentId())
+                .build()).thenApply(sequence -> null);
+    }
+    
+    /**
+     * Record an order moving from its previous state to a new status.
+     */
+    public CompletableFuture<Void> recordTransition(Order previous, String status) {
+        return recordTransitions(List.of(previous), status);
+    }
+    
+    /**
+     * Record several orders moving to the same status.
+     */
+    public CompletableFuture<Void> recordTransitions(List<Order> previous, String status) {
+        List<CompletableFuture<Long>> appended = new ArrayList<>(previous.size());
+        for (Order order : previous) {
+            appended.add(append(OrderEvent.builder()
+                    .type(OrderEvent.Type.forStatus(status))
+                    .orderId(order.getId())
+                    .userId(order.getUserId())
+                    .status(status)
+                    .amount(order.getTotalAmount())
+                    .createdAt(order.getCreatedAt())
+                    .build()));
+        }
+        return CompletableFuture.allOf(appended.toArray(CompletableFuture[]::new));
+    }
+    
+    /**
+     * Queue an event. The future completes with its sequence once it is durable.
+     */
+    public CompletableFuture<Long> append(OrderEvent event) {
+        if (!enabled) {
+            return CompletableFuture.completedFuture(null);
+        }
+        // Millisecond precision, as stored, so live views match replayed ones
+        PendingEvent pending = new PendingEvent(event.toBuilder()
+                .createdAt(event.getCreatedAt() == null ? null : event.getCreatedAt().truncatedTo(ChronoUnit.MILLIS))
+                .timestamp(Instant.now().truncatedTo(ChronoUnit.MILLIS))
+                .build());
+        if (!running) {
+            write(List.of(pending));
+        } else {
+            queue.add(pending);
+        }
+        return pending.future;
+    }
+    
+    /**
+     * The order's current view and its history as replayed from the journal, from its
+     * first event to its latest.
+     */
+    public Optional<OrderEventsResponse> getEvents(String orderId) {
+        OrderView view = views.get(orderId);
+        if (view == null) {
+            return Optional.empty();
+        }
+        byte[] key = orderId.getBytes(StandardCharsets.UTF_8);
+        List<OrderEvent> events = new ArrayList<>();
+        try {
+            journal.replay(view.firstSequence(), view.latest().getSequence(), (sequence, payload) -> {
+                if (OrderEventCodec.isFor(payload, key)) {
+                    events.add(OrderEventCodec.decode(sequence, payload));
+                }
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read the order journal", e);
+        }
+        return Optional.of(OrderEventsResponse.builder()
+                .orderId(orderId)
+                .current(view.latest())
+                .events(events)
+                .build());
+    }
+    
+    /**
+     * Compact the sealed segments: keep recent history and the latest event of every
+     * open order, and forget orders that finished before the retention.
+     */
+    @Scheduled(fixedDelayString = "${orders.journal.compaction.interval-ms:3600000}",
+            initialDelayString = "${orders.journal.compaction.interval-ms:3600000}")
+    public void compact() {
+        if (!enabled) {
+            return;
+        }
+        Instant cutoff = Instant.now().minus(retainHistory);
+        int evicted = evictFinished(cutoff);
+        if (evicted > 0) {
+            log.info("Evicted {} finished orders from the journal views", evicted);
+        }
+        try {
+            journal.compact((sequence, payload) -> {
+                OrderEvent event = OrderEventCodec.decode(sequence, payload);
+                if (!event.getTimestamp().isBefore(cutoff)) {
+                    return true;
+                }
+                OrderView view = views.get(event.getOrderId());
+                if (view == null) {
+                    return false;
+                }
+                // Superseded only once the newer event is durable
+                long latest = view.latest().getSequence();
+                return latest == sequence || latest > journal.getCommittedSequence();
+            });
+        } catch (IOException | RuntimeException e) {
+            log.error("Could not compact the order journal: {}", e.getMessage());
+        }
+    }
+    
+    /**
+     * Drop the views of orders whose durable latest event is terminal and older than
+     * the cutoff. An order that changes again afterwards starts a new view.
+     */
+    private int evictFinished(Instant cutoff) {
+        long committed = journal.getCommittedSequence();
+        int evicted = 0;
+        for (Map.Entry<String, OrderView> entry : views.entrySet()) {
+            OrderEvent latest = entry.getValue().latest();
+            if (latest.getSequence() <= committed && Order.TERMINAL_STATUSES.contains(latest.getStatus())
+                    && latest.getTimestamp().isBefore(cutoff)
+                    && views.remove(entry.getKey(), entry.getValue())) {
+                evicted++;
+            }
+        }
+        return evicted;
+    }
+    
+    private void run() {
+        while (running) {
+            try {
+                PendingEvent first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                List<PendingEvent> batch = new ArrayList<>();
+                batch.add(first);
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(lingerMs);
+                while (batch.size() < maxBatchSize) {
+                    long wait = deadline - System.nanoTime();
+                    PendingEvent next = wait > 0 ? queue.poll(wait, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                write(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+    
+    /**
+     * Append a batch, carrying each order's state forward into its event, and commit it once.
+     */
+    private synchronized void write(List<PendingEvent> batch) {
+        List<Long> sequences = new ArrayList<>(batch.size());
+        try {
+            for (PendingEvent pending : batch) {
+                OrderEvent event = withState(pending.event);
+                event.setSequence(journal.getLastSequence() + 1);
+                journal.append(event.getSequence(), OrderEventCodec.encode(event));
+                apply(event);
+                sequences.add(event.getSequence());
+            }
+            journal.commit();
+        } catch (IOException | RuntimeException e) {
+            log.error("Could not write {} order events to the journal: {}", batch.size(), e.getMessage());
+            batch.forEach(pending -> pending.future.completeExceptionally(e));
+            return;
+        }
+        commitSizes.record(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            batch.get(i).future.complete(sequences.get(i));
+        }
+    }
+    
+    private OrderEvent withState(OrderEvent event) {
+        OrderView view = views.get(event.getOrderId());
+        if (view == null) {
+            return event;
+        }
+        OrderEvent previous = view.latest();
+        return event.toBuilder()
+                .userId(event.getUserId() != null ? event.getUserId() : previous.getUserId())
+                .status(event.getStatus() != null ? event.getStatus() : previous.getStatus())
+                .amount(event.getAmount() != null ? event.getAmount() : previous.getAmount())
+                .paymentId(event.getPaymentId() != null ? event.getPaymentId() : previous.getPaymentId())
+                .createdAt(event.getCreatedAt() != null ? event.getCreatedAt() : previous.getCreatedAt())
+                .build();
+    }
+    
+    private void apply(OrderEvent event) {
+        views.merge(event.getOrderId(), new OrderView(event, event.getSequence()),
+                (current, next) -> next.latest().getSequence() > current.latest().getSequence()
+                        ? new OrderView(next.latest(), current.firstSequence())
+                        : current);
+    }
+    
+    /**
+     * An order's latest event and the sequence of its first; its history lies between the two.
+     */
+    private record OrderView(OrderEvent latest, long firstSequence) {
+    }
+    
+    /**
+     * An event waiting to be written, and the future its producer holds.
+     */
+    private static final class PendingEvent {
+        
+        private final OrderEvent event;
+        private final CompletableFuture<Long> future = new CompletableFuture<>();
+        
+        PendingEvent(OrderEvent event) {
+            this.event = event;
+        }
+    }
+}
@@ -2,24 +2,29 @@ package com.example.ecommerce.service;
 
 import com.example.ecommerce.dto.CreateOrderRequest;
 import com.example.ecommerce.dto.OrderResponse;
-import com.example.ecommerce.model.CartItem;
+import com.example.ecommerce.events.DomainEventBus;
+import com.example.ecommerce.events.OrderCancelled;
+import com.example.ecommerce.exception.OutcomeUnknownException;
+import com.example.ecommerce.exception.ServiceUnavailableException;
 import com.example.ecommerce.model.Order;
 import com.example.ecommerce.model.OrderItem;
 import com.example.ecommerce.model.Payment;
-import com.example.ecommerce.model.Product;
 import com.example.ecommerce.repository.OrderRepository;
 import com.example.ecommerce.repository.PaymentRepository;
-import com.example.ecommerce.repository.ProductRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.time.Instant;
-import java.util.ArrayList;
+import java.time.Duration;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 /**
  * Service class for order operations.
@@ -30,80 +35,44 @@ import java.util.UUID;
 public class OrderService {
     
     private final OrderRepository orderRepository;
-    private final ProductRepository productRepository;
     private final PaymentRepository paymentRepository;
-    private final CartService cartService;
     private final ProductService productService;
+    private final CheckoutCombiner checkoutCombiner;
+    private final OrderArchiveService orderArchiveService;
+    private final DomainEventBus eventBus;
+    
+    @Value("${orders.checkout.timeout:PT10S}")
+    private Duration checkoutTimeout;
     
     /**
      * Create order from user's cart.
+     * Concurrent checkouts are committed together by the {@link CheckoutCombiner}.
      */
-    @Transactional
     public Order createOrder(CreateOrderRequest request) {
         log.info("Creating order for user: {}", request.getUserId());
-        
-        // Get cart items
-        List<CartItem> cartItems = cartService.getCartItems(request.getUserId());
-        
-        if (cartItems.isEmpty()) {
-            throw new RuntimeException("Cart is empty. Cannot create order.");
-        }
-        
-        // Validate stock and calculate total
-        double totalAmount = 0.0;
-        List<OrderItem> orderItems = new ArrayList<>();
-        
-        for (CartItem cartItem : cartItems) {
-            Product product = productRepository.findById(cartItem.getProductId())
-                    .orElseThrow(() -> new RuntimeException("Product not found: " + cartItem.getProductId()));
-            
-            if (product.getStock() < cartItem.getQuantity()) {
-                throw new RuntimeException("Insufficient stock for product: " + product.getName());
+        try {
+            return checkoutCombiner.submit(request).get(checkoutTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
             }
-            
-            // Create order item
-            OrderItem orderItem = OrderItem.builder()
-                    .id(UUID.randomUUID().toString())
-                    .productId(cartItem.getProductId())
-                    .quantity(cartItem.getQuantity())
-                    .price(product.getPrice())
-                    .build();
-            
-            orderItems.add(orderItem);
-            totalAmount += product.getPrice() * cartItem.getQuantity();
-            
-            // Update stock
-            productService.updateStock(product.getId(), -cartItem.getQuantity());
+            throw new ServiceUnavailableException("Checkout failed. Please retry.", e.getCause());
+        } catch (TimeoutException e) {
+            // The batch may still commit: the client should look before retrying
+            throw new OutcomeUnknownException("Checkout is taking too long. Check your orders before retrying.");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new OutcomeUnknownException("Checkout interrupted. Check your orders before retrying.");
         }
-        
-        // Create order
-        Order order = Order.builder()
-                .userId(request.getUserId())
-                .totalAmount(totalAmount)
-                .status("CREATED")
-                .createdAt(Instant.now())
-                .items(orderItems)
-                .build();
-        
-        Order savedOrder = orderRepository.save(order);
-        
-        // Update order items with order ID
-        savedOrder.getItems().forEach(item -> item.setOrderId(savedOrder.getId()));
-        orderRepository.save(savedOrder);
-        
-        // Clear cart
-        cartService.clearCart(request.getUserId());
-        
-        log.info("Order created: {} with total: {}", savedOrder.getId(), totalAmount);
-        return savedOrder;
     }
     
     /**
-     * Get order by ID.
+     * Get order by ID, from the archive if it is no longer hot.
      */
     public Optional<Order> getOrderById(String orderId) {
         log.info("Fetching order: {}", orderId);
-        return orderRepository.findById(orderId);
+        return orderRepository.findById(orderId)
+                .or(() -> orderArchiveService.findById(orderId));
     }
     
     /**
@@ -111,40 +80,43 @@ public class OrderService {
      */
     public Optional<OrderResponse> getOrderResponse(String orderId) {
         return orderRepository.findById(orderId)
+                .or(() -> orderArchiveService.findById(orderId))
                 .map(this::toOrderResponse);
     }
     
     /**
-     * Update order status.
+     * Update order status. Returns the order as it was before, or null if it was not found.
      */
-    public void updateOrderStatus(String orderId, String status) {
+    public Order updateOrderStatus(String orderId, String status) {
         log.info("Updating order {} status to: {}", orderId, status);
-        orderRepository.findById(orderId).ifPresent(order -> {
-            order.setStatus(status);
-            orderRepository.save(order);
-        });
+        return orderRepository.updateStatus(orderId, null, status);
     }
     
     /**
-     * Get orders by user ID.
+     * Get orders by user ID, archived ones included.
      */
     public List<Order> getOrdersByUserId(String userId) {
         log.info("Fetching orders for user: {}", userId);
-        return orderRepository.findByUserId(userId);
+        return orderArchiveService.withArchived(userId, orderRepository.findByUserId(userId));
     }
     
     /**
      * Convert Order to OrderResponse with payment details.
      */
     private OrderResponse toOrderResponse(Order order) {
-        OrderResponse.PaymentInfo paymentInfo = paymentRepository.findByOrderId(order.getId())
-                .map(payment -> OrderResponse.PaymentInfo.builder()
-                        .id(payment.getId())
-                        .status(payment.getStatus())
-                        .amount(payment.getAmount())
-                        .paymentId(payment.getPaymentId())
-                        .build())
-                .orElse(null);
+        return toOrderResponse(order, paymentRepository.findByOrderId(order.getId()).orElse(null));
+    }
+    
+    /**
+     * Convert Order to OrderResponse with an already loaded payment.
+     */
+    static OrderResponse toOrderResponse(Order order, Payment payment) {
+        OrderResponse.PaymentInfo paymentInfo = payment == null ? null : OrderResponse.PaymentInfo.builder()
+                .id(payment.getId())
+                .status(payment.getStatus())
+                .amount(payment.getAmount())
+                .paymentId(payment.getPaymentId())
+                .build();
         
         return OrderResponse.builder()
                 .id(order.getId())
@@ -164,20 +136,22 @@ public class OrderService {
     public void cancelOrder(String orderId) {
         log.info("Cancelling order: {}", orderId);
         
-        Order order = orderRepository.findById(orderId)
-                .orElseThrow(() -> new RuntimeException("Order not found: " + orderId));
-        
-        if (!"CREATED".equals(order.getStatus())) {
-            throw new RuntimeException("Cannot cancel order. Current status: " + order.getStatus());
+        // Conditional update, so a payment arriving concurrently cannot be overwritten
+        Order order = orderRepository.updateStatus(orderId, "CREATED", "CANCELLED");
+        if (order == null) {
+            Order current = getOrderById(orderId)
+                    .orElseThrow(() -> new RuntimeException("Order not found: " + orderId));
+            throw new RuntimeException("Cannot cancel order. Current status: " + current.getStatus());
         }
         
         // Restore stock for all items
+        Map<String, Integer> restock = new HashMap<>();
         for (OrderItem item : order.getItems()) {
-            productService.updateStock(item.getProductId(), item.getQuantity());
+            restock.merge(item.getProductId(), item.getQuantity(), Integer::sum);
         }
+        productService.updateStock(restock);
         
-        order.setStatus("CANCELLED");
-        orderRepository.save(order);
+        eventBus.publish(new OrderCancelled(List.of(order), "CANCELLED"));
         log.info("Order {} cancelled successfully", orderId);
     }
 }
@@ -0,0 +1,315 @@
+package com.example.ecommerce.service;
+
+import com.example.ecommerce.dto.OrderStatsResponse;
+import com.example.ecommerce.model.ArchivedOrder;
+import com.example.ecommerce.model.Money;
+import com.example.ecommerce.model.Order;
+import com.example.ecommerce.model.OrderStats;
+import com.example.ecommerce.model.OrderStats.Granularity;
+import com.example.ecommerce.repository.OrderStatsRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Service class for materialized order statistics.
+ * Order creation and status transitions are folded into increments on the totals
+ * document and the creation-time minute/hour/day buckets, one bulk upsert per call,
+ * so the admin endpoint reads a handful of small documents instead of scanning orders.
+ * Amounts are summed per currency, never across currencies. Updates are best effort;
+ * {@link #rebuild()} recomputes everything from the orders.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class OrderStatsService {
+    
+    private static final String REVENUE_STATUS = "PAID";
+    
+    private static final int MAX_BUCKETS = 1440;
+    
+    private final OrderStatsRepository statsRepository;
+    private final MongoTemplate mongoTemplate;
+    
+    // Off where MongoDB is not used, e.g. with the in-memory repositories
+    @Value("${stats.orders.enabled:true}")
+    private boolean enabled;
+    
+    @Value("${stats.orders.retention.minute:PT48H}")
+    private Duration minuteRetention;
+    
+    @Value("${stats.orders.retention.hour:P90D}")
+    private Duration hourRetention;
+    
+    @Value("${stats.orders.rebuild-on-startup:false}")
+    private boolean rebuildOnStartup;
+    
+    /**
+     * Rebuild once at startup when asked to, e.g. with --stats.orders.rebuild-on-startup=true.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildIfRequested() {
+        if (enabled && rebuildOnStartup) {
+            rebuild();
+        }
+    }
+    
+    /**
+     * Count newly created orders under their status.
+     */
+    public void recordCreated(List<Order> orders) {
+        record(orders, Map.of());
+    }
+    
+    /**
+     * Move an order's count and amount from its previous status to the new one.
+     */
+    public void recordTransition(Order previous, String status) {
+        recordTransitions(List.of(previous), status);
+    }
+    
+    /**
+     * Move several orders from their previous statuses to the new one.
+     */
+    public void recordTransitions(List<Order> previous, String status) {
+        record(List.of(), Map.of(status, previous));
+    }
+    
+    /**
+     * Count created orders and move orders (by their new status) in one write.
+     */
+    public void record(List<Order> created, Map<String, List<Order>> transitions) {
+        Map<String, OrderStats> deltas = new HashMap<>();
+        for (Order order : created) {
+            add(deltas, order, order.getStatus(), 1);
+        }
+        transitions.forEach((status, previous) -> {
+            for (Order order : previous) {
+                if (!status.equals(order.getStatus())) {
+                    add(deltas, order, order.getStatus(), -1);
+                    add(deltas, order, status, 1);
+                }
+            }
+        });
+        write(deltas);
+    }
+    
+    /**
+     * Get the totals and the latest buckets of the given granularity.
+     */
+    public OrderStatsResponse getStats(Granularity granularity, int bucketCount) {
+        int count = Math.max(1, Math.min(bucketCount, MAX_BUCKETS));
+        Instant current = granularity.bucketStart(Instant.now());
+        List<Instant> starts = new ArrayList<>(count);
+        for (int i = count - 1; i >= 0; i--) {
+            starts.add(current.minus(i, granularity.getUnit()));
+        }
+        
+        Map<String, OrderStats> found = statsRepository.findAllById(
+                        starts.stream().map(granularity::bucketId).toList()).stream()
+                .collect(Collectors.toMap(OrderStats::getId, Function.identity()));
+        List<OrderStatsResponse.Bucket> buckets = starts.stream().map(start -> {
+            OrderStats stats = found.get(granularity.bucketId(start));
+            Map<String, Map<String, Long>> amounts = amountsOf(stats);
+            return OrderStatsResponse.Bucket.builder()
+                    .start(start)
+                    .counts(stats == null || stats.getCounts() == null ? Map.of() : stats.getCounts())
+                    .amounts(toMoney(amounts))
+                    .revenue(revenue(amounts))
+                    .build();
+        }).toList();
+        
+        OrderStats totals = statsRepository.findById(OrderStats.TOTALS_ID).orElse(null);
+        Map<String, Map<String, Long>> amounts = amountsOf(totals);
+        return OrderStatsResponse.builder()
+                .counts(totals == null || totals.getCounts() == null ? Map.of() : totals.getCounts())
+                .amounts(toMoney(amounts))
+                .revenue(revenue(amounts))
+                .granularity(granularity.name())
+                .buckets(buckets)
+                .build();
+    }
+    
+    /**
+     * Recompute all counters from the orders and the order archive, replacing what is stored.
+     * Each counter document is replaced in place and stale ones are removed afterwards, so
+     * readers never see empty stats. Increments made while the scan runs may be lost;
+     * rebuild at a quiet time.
+     */
+    public synchronized int rebuild() {
+        log.info("Rebuilding order stats from orders");
+        Map<String, OrderStats> rebuilt = new LinkedHashMap<>();
+        int scanned = 0;
+        
+        Query query = new Query();
+        query.fields().include("status").include("totalAmount").include("createdAt");
+        try (Stream<Order> orders = mongoTemplate.stream(query, Order.class)) {
+            for (Iterator<Order> it = orders.iterator(); it.hasNext(); ) {
+                Order order = it.next();
+                add(rebuilt, order, order.getStatus(), 1);
+                scanned++;
+            }
+        }
+        // Archived orders keep their status, amount and creation time outside the compressed data
+        try (Stream<ArchivedOrder> orders = mongoTemplate.stream(query, ArchivedOrder.class)) {
+            for (Iterator<ArchivedOrder> it = orders.iterator(); it.hasNext(); ) {
+                ArchivedOrder archived = it.next();
+                Order order = Order.builder()
+                        .totalAmount(archived.getTotalAmount())
+                        .createdAt(archived.getCreatedAt())
+                        .build();
+                add(rebuilt, order, archived.getStatus(), 1);
+                scanned++;
+            }
+        }
+        
+        // Buckets past their retention would only be removed again by the TTL monitor
+        Instant now = Instant.now();
+        rebuilt.values().removeIf(stats -> stats.getExpiresAt() != null && stats.getExpiresAt().isBefore(now));
+        
+        if (!rebuilt.isEmpty()) {
+            BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, OrderStats.class);
+            rebuilt.values().forEach(stats -> bulk.replaceOne(Query.query(Criteria.where("id").is(stats.getId())),
+                    stats, FindAndReplaceOptions.options().upsert()));
+            bulk.execute();
+        }
+        mongoTemplate.remove(Query.query(Criteria.where("id").nin(rebuilt.keySet())), OrderStats.class);
+        log.info("Rebuilt order stats from {} orders into {} counter documents", scanned, rebuilt.size());
+        return scanned;
+    }
+    
+    /**
+     * Add a +1/-1 change for the order under the given status to the totals and its buckets.
+     */
+    private void add(Map<String, OrderStats> deltas, Order order, String status, int sign) {
+        if (status == null) {
+            return;
+        }
+        Money total = order.getTotalAmount();
+        String currency = total == null || total.getCurrency() == null ? Money.DEFAULT_CURRENCY : total.getCurrency();
+        long amount = total == null ? 0 : total.getMinorUnits();
+        add(deltas.computeIfAbsent(OrderStats.TOTALS_ID, id -> newStats(id, null, null)), status, sign, currency, amount);
+        if (order.getCreatedAt() == null) {
+            return;
+        }
+        for (Granularity granularity : Granularity.values()) {
+            Instant start = granularity.bucketStart(order.getCreatedAt());
+            add(deltas.computeIfAbsent(granularity.bucketId(start), id -> newStats(id, granularity, start)),
+                    status, sign, currency, amount);
+        }
+    }
+    
+    private static void add(OrderStats stats, String status, int sign, String currency, long amount) {
+        stats.getCounts().merge(status, (long) sign, Long::sum);
+        stats.getCurrencyAmounts().computeIfAbsent(currency, c -> new HashMap<>()).merge(status, sign * amount, Long::sum);
+    }
+    
+    /**
+     * Apply the deltas as one $inc upsert per counter document, all in one bulk write.
+     */
+    private void write(Map<String, OrderStats> deltas) {
+        if (!enabled || deltas.isEmpty()) {
+            return;
+        }
+        try {
+            BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, OrderStats.class);
+            for (OrderStats delta : deltas.values()) {
+                Update update = new Update();
+                delta.getCounts().forEach((status, count) -> update.inc("counts." + status, count));
+                delta.getCurrencyAmounts().forEach((currency, amounts) -> amounts.forEach((status, amount) ->
+                        update.inc("currencyAmounts." + currency + "." + status, amount)));
+                if (delta.getGranularity() != null) {
+                    update.setOnInsert("granularity", delta.getGranularity())
+                            .setOnInsert("bucketStart", delta.getBucketStart())
+                            .setOnInsert("expiresAt", delta.getExpiresAt());
+                }
+                bulk.upsert(Query.query(Criteria.where("id").is(delta.getId())), update);
+            }
+            bulk.execute();
+        } catch (RuntimeException e) {
+            // Counters drift until the next rebuild; never fail the order operation for them
+            log.error("Could not update order stats: {}", e.getMessage());
+        }
+    }
+    
+    /**
+     * Minor units by currency and status, with amounts from before the per-currency
+     * counters read as the store currency.
+     */
+    private static Map<String, Map<String, Long>> amountsOf(OrderStats stats) {
+        if (stats == null) {
+            return Map.of();
+        }
+        Map<String, Map<String, Long>> amounts = new TreeMap<>();
+        if (stats.getCurrencyAmounts() != null) {
+            stats.getCurrencyAmounts().forEach((currency, byStatus) -> amounts.put(currency, new HashMap<>(byStatus)));
+        }
+        if (stats.getAmounts() != null) {
+            Map<String, Long> legacy = amounts.computeIfAbsent(Money.DEFAULT_CURRENCY, c -> new HashMap<>());
+            stats.getAmounts().forEach((status, amount) -> legacy.merge(status, amount, Long::sum));
+        }
+        return amounts;
+    }
+    
+    private static Map<String, Map<String, Money>> toMoney(Map<String, Map<String, Long>> amounts) {
+        Map<String, Map<String, Money>> money = new LinkedHashMap<>();
+        amounts.forEach((currency, byStatus) -> {
+            Map<String, Money> converted = new LinkedHashMap<>();
+            byStatus.forEach((status, minorUnits) -> converted.put(status, Money.ofMinor(minorUnits, currency)));
+            money.put(currency, converted);
+        });
+        return money;
+    }
+    
+    private static List<Money> revenue(Map<String, Map<String, Long>> amounts) {
+        List<Money> revenue = new ArrayList<>();
+        amounts.forEach((currency, byStatus) -> {
+            Long paid = byStatus.get(REVENUE_STATUS);
+            if (paid != null && paid != 0) {
+                revenue.add(Money.ofMinor(paid, currency));
+            }
+        });
+        return revenue;
+    }
+    
+    private OrderStats newStats(String id, Granularity granularity, Instant start) {
+        return OrderStats.builder()
+                .id(id)
+                .granularity(granularity)
+                .bucketStart(start)
+                .counts(new HashMap<>())
+                .currencyAmounts(new HashMap<>())
+                .expiresAt(granularity == null ? null : expiresAt(granularity, start))
+                .build();
+    }
+    
+    private Instant expiresAt(Granularity granularity, Instant start) {
+        return switch (granularity) {
+            case MINUTE -> start.plus(minuteRetention);
+            case HOUR -> start.plus(hourRetention);
+            case DAY -> null;
+        };
+    }
+}
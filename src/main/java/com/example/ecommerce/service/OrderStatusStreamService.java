@@ -0,0 +1,425 @@
+package com.example.ecommerce.service;
+
+import com.example.ecommerce.dto.OrderResponse;
+import com.example.ecommerce.dto.OrderStatusEvent;
+import com.example.ecommerce.model.Order;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Service class for server-sent order status streams.
+ * Open streams are kept per order in one shared registry; each holds only its
+ * emitter and the id of the last event it was sent, and no thread while idle.
+ * Status changes arrive from the event bus, get an increasing id and are kept
+ * in a bounded replay buffer, so a client reconnecting with Last-Event-ID gets
+ * what it missed without reading MongoDB. A new stream, or one resuming from
+ * further back than the buffer, starts from the order's current status instead.
+ * A stream is closed after a final status; reconnecting once that was seen gets
+ * 204 No Content, which tells EventSource clients to stop.
+ * Sends never run on the caller's thread: live events and heartbeats are queued
+ * per stream and written by a small bounded pool, so a slow client cannot hold
+ * up the event bus or the scheduler. A stream whose queue fills up, or that
+ * cannot get a sender, is completed; the client reconnects with Last-Event-ID.
+ * The registry is per instance and only sees status changes published on this
+ * instance, so a stream without events for refresh-after re-reads its order
+ * and sends the status if it changed elsewhere.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class OrderStatusStreamService {
+    
+    // Queued in place of an event: a comment line, or a re-read of the order
+    private static final Entry HEARTBEAT = new Entry(0, null);
+    private static final Entry REFRESH = new Entry(0, null);
+    
+    private final OrderService orderService;
+    private final MeterRegistry meterRegistry;
+    
+    @Value("${orders.stream.timeout:PT30M}")
+    private Duration timeout;
+    
+    @Value("${orders.stream.max-subscribers:20000}")
+    private int maxSubscribers;
+    
+    @Value("${orders.stream.replay-size:10000}")
+    private int replaySize;
+    
+    @Value("${orders.stream.retry-ms:3000}")
+    private long retryMs;
+    
+    @Value("${orders.stream.send-threads:8}")
+    private int sendThreads;
+    
+    // Events and heartbeats waiting per stream before it counts as too slow and is closed
+    @Value("${orders.stream.max-pending:32}")
+    private int maxPending;
+    
+    @Value("${orders.stream.refresh-after:PT1M}")
+    private Duration refreshAfter;
+    
+    private final Map<String, List<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    
+    // Recent events, oldest first; guarded by itself along with lastId
+    private final ArrayDeque<Entry> recent = new ArrayDeque<>();
+    // Ids continue from the startup time, so ids from before a restart read as too old to resume from
+    private long lastId = System.currentTimeMillis() * 1000;
+    
+    private ThreadPoolExecutor sender;
+    
+    @PostConstruct
+    public void start() {
+        AtomicInteger threadCount = new AtomicInteger();
+        // At most one queued drain per stream, so the queue never needs more room than there are streams
+        sender = new ThreadPoolExecutor(sendThreads, sendThreads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(maxSubscribers), runnable -> {
+                    Thread thread = new Thread(runnable, "order-stream-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        sender.allowCoreThreadTimeOut(true);
+        Gauge.builder("orders.stream.subscribers", subscriberCount, AtomicInteger::get)
+                .description("Open order status streams")
+                .register(meterRegistry);
+        Gauge.builder("orders.stream.send.queued", sender, executor -> executor.getQueue().size())
+                .register(meterRegistry);
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        sender.shutdownNow();
+    }
+    
+    /**
+     * Whether no more streams can be opened right now.
+     */
+    public boolean isFull() {
+        return subscriberCount.get() >= maxSubscribers;
+    }
+    
+    /**
+     * Open a status stream for an order, resuming after lastEventId when it is given.
+     * Empty when the client has already been sent the order's final status.
+     */
+    public Optional<SseEmitter> subscribe(String orderId, String lastEventId) {
+        SseEmitter emitter = new SseEmitter(timeout.toMillis());
+        Subscriber subscriber = new Subscriber(orderId, emitter);
+        emitter.onCompletion(() -> remove(subscriber));
+        emitter.onTimeout(emitter::complete);
+        emitter.onError(e -> remove(subscriber));
+        
+        // Held until the stream is primed, so live events wait behind the replay or snapshot
+        synchronized (subscriber) {
+            add(subscriber);
+            try {
+                Long resumeFrom = parseId(lastEventId);
+                long mark;
+                List<Entry> history = new ArrayList<>();
+                boolean resumable;
+                synchronized (recent) {
+                    mark = lastId;
+                    resumable = resumeFrom != null && resumeFrom <= mark
+                            && (recent.isEmpty() ? resumeFrom == mark : resumeFrom >= recent.peekFirst().id - 1);
+                    if (resumable) {
+                        recent.stream().filter(entry -> entry.event.getOrderId().equals(orderId)).forEach(history::add);
+                    }
+                }
+                subscriber.lastSentId = mark;
+                
+                if (resumable && !history.isEmpty()) {
+                    List<Entry> missed = history.stream().filter(entry -> entry.id > resumeFrom).toList();
+                    if (missed.isEmpty() && isFinal(history.get(history.size() - 1).event)) {
+                        remove(subscriber);
+                        return Optional.empty();
+                    }
+                    for (Entry entry : missed) {
+                        send(subscriber, entry.id, entry.event);
+                    }
+                    return Optional.of(emitter);
+                }
+                
+                // Nothing buffered for this order: start from its current status
+                OrderResponse order = orderService.getOrderResponse(orderId)
+                        .orElseThrow(() -> new RuntimeException("Order not found: " + orderId));
+                OrderStatusEvent current = toEvent(order);
+                if (resumeFrom != null && isFinal(current)) {
+                    remove(subscriber);
+                    return Optional.empty();
+                }
+                send(subscriber, mark, current);
+                return Optional.of(emitter);
+            } catch (IOException e) {
+                remove(subscriber);
+                emitter.completeWithError(e);
+                return Optional.of(emitter);
+            } catch (RuntimeException e) {
+                remove(subscriber);
+                throw e;
+            }
+        }
+    }
+    
+    /**
+     * Number new status events and queue each for the streams open for its order.
+     */
+    public void publish(List<OrderStatusEvent> events) {
+        List<Entry> entries = new ArrayList<>(events.size());
+        synchronized (recent) {
+            for (OrderStatusEvent event : events) {
+                Entry entry = new Entry(++lastId, event);
+                recent.addLast(entry);
+                entries.add(entry);
+            }
+            while (recent.size() > replaySize) {
+                recent.removeFirst();
+            }
+        }
+        for (Entry entry : entries) {
+            for (Subscriber subscriber : subscribers.getOrDefault(entry.event.getOrderId(), List.of())) {
+                enqueue(subscriber, entry);
+            }
+        }
+    }
+    
+    /**
+     * Queue a heartbeat on every open stream, so idle connections are not cut by
+     * proxies and dead ones are noticed. Streams idle for longer than refresh-after
+     * re-read their order instead.
+     */
+    @Scheduled(fixedDelayString = "${orders.stream.heartbeat-interval-ms:15000}",
+            initialDelayString = "${orders.stream.heartbeat-interval-ms:15000}")
+    public void sendHeartbeats() {
+        long refreshBefore = System.nanoTime() - refreshAfter.toNanos();
+        for (List<Subscriber> streams : subscribers.values()) {
+            for (Subscriber subscriber : streams) {
+                enqueue(subscriber, subscriber.lastActivity - refreshBefore < 0 ? REFRESH : HEARTBEAT);
+            }
+        }
+    }
+    
+    /**
+     * Queue an entry for a stream and make sure a sender drains it. A stream that
+     * already has max-pending entries waiting is too slow and gets closed.
+     */
+    private void enqueue(Subscriber subscriber, Entry entry) {
+        boolean schedule;
+        synchronized (subscriber.outbox) {
+            if (subscriber.closing) {
+                return;
+            }
+            if (subscriber.outbox.size() >= maxPending) {
+                // The drain running or queued for it completes the stream
+                subscriber.closing = true;
+                remove(subscriber);
+                meterRegistry.counter("orders.stream.dropped", "reason", "slow").increment();
+                return;
+            }
+            if ((entry == HEARTBEAT || entry == REFRESH) && !subscriber.outbox.isEmpty()) {
+                // Something is already on its way
+                return;
+            }
+            subscriber.outbox.addLast(entry);
+            schedule = !subscriber.scheduled;
+            subscriber.scheduled = true;
+        }
+        if (schedule) {
+            try {
+                sender.execute(() -> drain(subscriber));
+            } catch (RejectedExecutionException e) {
+                synchronized (subscriber.outbox) {
+                    subscriber.closing = true;
+                }
+                remove(subscriber);
+                meterRegistry.counter("orders.stream.dropped", "reason", "rejected").increment();
+                subscriber.emitter.complete();
+            }
+        }
+    }
+    
+    /**
+     * Write a stream's queued entries in order, on a sender thread. Waits for the
+     * stream to be primed, and skips events its replay or snapshot already covered.
+     */
+    private void drain(Subscriber subscriber) {
+        synchronized (subscriber) {
+            while (true) {
+                Entry entry;
+                synchronized (subscriber.outbox) {
+                    entry = subscriber.closing ? null : subscriber.outbox.pollFirst();
+                    if (entry == null && !subscriber.closing) {
+                        subscriber.scheduled = false;
+                        return;
+                    }
+                }
+                if (entry == null) {
+                    subscriber.emitter.complete();
+                    return;
+                }
+                try {
+                    if (entry == HEARTBEAT) {
+                        subscriber.emitter.send(SseEmitter.event().comment("heartbeat"));
+                    } else if (entry == REFRESH) {
+                        refresh(subscriber);
+                    } else if (entry.id > subscriber.lastSentId) {
+                        send(subscriber, entry.id, entry.event);
+                    }
+                } catch (IOException | RuntimeException e) {
+                    synchronized (subscriber.outbox) {
+                        subscriber.closing = true;
+                        subscriber.outbox.clear();
+                    }
+                    remove(subscriber);
+                    return;
+                }
+            }
+        }
+    }
+    
+    /**
+     * Re-read an idle stream's order and send its status if it changed without an
+     * event reaching this instance; a heartbeat otherwise.
+     */
+    private void refresh(Subscriber subscriber) throws IOException {
+        long mark;
+        synchronized (recent) {
+            mark = lastId;
+        }
+        Optional<OrderStatusEvent> current;
+        try {
+            current = orderService.getOrderResponse(subscriber.orderId).map(OrderStatusStreamService::toEvent);
+        } catch (RuntimeException e) {
+            log.warn("Could not re-read order {} for its status stream: {}", subscriber.orderId, e.getMessage());
+            current = Optional.empty();
+        }
+        OrderStatusEvent last = subscriber.lastEvent;
+        if (current.isPresent() && (last == null || !Objects.equals(current.get().getStatus(), last.getStatus())
+                || !Objects.equals(current.get().getPaymentStatus(), last.getPaymentStatus()))) {
+            send(subscriber, mark, current.get());
+        } else {
+            subscriber.emitter.send(SseEmitter.event().comment("heartbeat"));
+            subscriber.lastActivity = System.nanoTime();
+        }
+    }
+    
+    /**
+     * Send an event and close the stream after a final status.
+     */
+    private void send(Subscriber subscriber, long id, OrderStatusEvent event) throws IOException {
+        subscriber.emitter.send(SseEmitter.event()
+                .id(String.valueOf(id))
+                .name("status")
+                .reconnectTime(retryMs)
+                .data(event, MediaType.APPLICATION_JSON));
+        subscriber.lastSentId = Math.max(subscriber.lastSentId, id);
+        subscriber.lastEvent = event;
+        subscriber.lastActivity = System.nanoTime();
+        if (isFinal(event)) {
+            subscriber.emitter.complete();
+        }
+    }
+    
+    private void add(Subscriber subscriber) {
+        subscriberCount.incrementAndGet();
+        subscribers.compute(subscriber.orderId, (id, streams) -> {
+            List<Subscriber> updated = new ArrayList<>(streams == null ? 1 : streams.size() + 1);
+            if (streams != null) {
+                updated.addAll(streams);
+            }
+            updated.add(subscriber);
+            return updated;
+        });
+    }
+    
+    private void remove(Subscriber subscriber) {
+        subscribers.computeIfPresent(subscriber.orderId, (id, streams) -> {
+            if (!streams.contains(subscriber)) {
+                return streams;
+            }
+            subscriberCount.decrementAndGet();
+            List<Subscriber> updated = new ArrayList<>(streams);
+            updated.remove(subscriber);
+            return updated.isEmpty() ? null : updated;
+        });
+    }
+    
+    private static boolean isFinal(OrderStatusEvent event) {
+        return Order.TERMINAL_STATUSES.contains(event.getStatus());
+    }
+    
+    private static Long parseId(String lastEventId) {
+        if (lastEventId == null || lastEventId.isBlank()) {
+            return null;
+        }
+        try {
+            return Long.parseLong(lastEventId.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+    
+    private static OrderStatusEvent toEvent(OrderResponse order) {
+        OrderResponse.PaymentInfo payment = order.getPayment();
+        return OrderStatusEvent.builder()
+                .orderId(order.getId())
+                .status(order.getStatus())
+                .paymentId(payment == null ? null : payment.getPaymentId())
+                .paymentStatus(payment == null ? null : payment.getStatus())
+                .timestamp(Instant.now())
+                .build();
+    }
+    
+    /**
+     * A status event and the id it was sent with.
+     */
+    private record Entry(long id, OrderStatusEvent event) {
+    }
+    
+    /**
+     * An open stream: the order it follows, its emitter, the last event it was sent
+     * and the entries waiting to be sent. The send state is guarded by the subscriber,
+     * the queue and its flags by the queue.
+     */
+    private static final class Subscriber {
+        
+        private final String orderId;
+        private final SseEmitter emitter;
+        private final ArrayDeque<Entry> outbox = new ArrayDeque<>();
+        
+        private long lastSentId;
+        private OrderStatusEvent lastEvent;
+        private volatile long lastActivity = System.nanoTime();
+        private boolean scheduled;
+        private boolean closing;
+        
+        Subscriber(String orderId, SseEmitter emitter) {
+            this.orderId = orderId;
+            this.emitter = emitter;
+        }
+    }
+}
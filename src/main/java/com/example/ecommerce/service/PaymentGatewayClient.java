@@ -0,0 +1,265 @@
+package com.example.ecommerce.service;
+
+import com.example.ecommerce.dto.GatewayBatchResponse;
+import com.example.ecommerce.dto.GatewayPaymentResponse;
+import com.example.ecommerce.model.Payment;
+import com.example.ecommerce.resilience.AdaptiveConcurrencyLimiter;
+import com.example.ecommerce.resilience.CircuitBreaker;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClientResponseException;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Protected client for the payment gateway.
+ * Calls run on a dedicated bulkhead executor, so a slow gateway can only tie up
+ * its own threads, never request threads. Each call needs a circuit breaker
+ * permission and a slot from an adaptive concurrency limit; without either it
+ * fails fast. Every non-2xx response or exception counts against the breaker;
+ * timeouts and 5xx also shrink the limit, and a 429 opens the breaker for the
+ * gateway's Retry-After.
+ */
+@Slf4j
+@Component
+public class PaymentGatewayClient {
+    
+    private final RestTemplate restTemplate;
+    private final MeterRegistry meterRegistry;
+    private final AdaptiveConcurrencyLimiter limiter;
+    private final CircuitBreaker circuitBreaker;
+    private final ThreadPoolExecutor bulkhead;
+    
+    @Value("${payment.service.url}")
+    private String paymentServiceUrl;
+    
+    @Value("${payment.gateway.default-retry-after:PT5S}")
+    private Duration defaultRetryAfter;
+    
+    public PaymentGatewayClient(RestTemplate restTemplate, MeterRegistry meterRegistry,
+                                @Value("${payment.gateway.concurrency.initial-limit:20}") int initialLimit,
+                                @Value("${payment.gateway.concurrency.min-limit:2}") int minLimit,
+                                @Value("${payment.gateway.concurrency.max-limit:200}") int maxLimit,
+                                @Value("${payment.gateway.circuit.failure-rate-threshold:0.5}") double failureRateThreshold,
+                                @Value("${payment.gateway.circuit.window-size:20}") int windowSize,
+                                @Value("${payment.gateway.circuit.minimum-calls:10}") int minimumCalls,
+                                @Value("${payment.gateway.circuit.open-duration:PT10S}") Duration openDuration,
+                                @Value("${payment.gateway.circuit.half-open-permits:3}") int halfOpenPermits,
+                                @Value("${payment.gateway.bulkhead.threads:16}") int threads,
+                                @Value("${payment.gateway.bulkhead.queue-capacity:100}") int queueCapacity) {
+        this.restTemplate = restTemplate;
+        this.meterRegistry = meterRegistry;
+        this.limiter = new AdaptiveConcurrencyLimiter(initialLimit, minLimit, maxLimit);
+        this.circuitBreaker = new CircuitBreaker(failureRateThreshold, windowSize, minimumCalls, openDuration,
+                halfOpenPermits, this::onTransition);
+        
+        AtomicInteger threadCount = new AtomicInteger();
+        this.bulkhead = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "payment-gateway-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.bulkhead.allowCoreThreadTimeOut(true);
+        
+        Gauge.builder("payment.gateway.concurrency.limit", limiter, AdaptiveConcurrencyLimiter::getLimit)
+                .description("Current adaptive concurrency limit for gateway calls")
+                .register(meterRegistry);
+        Gauge.builder("payment.gateway.concurrency.in-flight", limiter, AdaptiveConcurrencyLimiter::getInFlight)
+                .register(meterRegistry);
+        Gauge.builder("payment.gateway.circuit.state", circuitBreaker, breaker -> breaker.getState().ordinal())
+                .description("Circuit breaker state: 0 closed, 1 open, 2 half-open")
+                .register(meterRegistry);
+        Gauge.builder("payment.gateway.bulkhead.queued", bulkhead, executor -> executor.getQueue().size())
+                .register(meterRegistry);
+    }
+    
+    /**
+     * Ask the gateway to process a payment. Completes exceptionally if the gateway
+     * is shielded (circuit open, limit reached, bulkhead full) or the call fails.
+     */
+    public CompletableFuture<Void> createPayment(Payment payment) {
+        Map<String, Object> requestBody = toRequestBody(payment);
+        return submit(() -> {
+            ResponseEntity<GatewayPaymentResponse> response = ok(restTemplate.postForEntity(
+                    paymentServiceUrl + "/payments/create",
+                    requestBody,
+                    GatewayPaymentResponse.class
+            ));
+            log.info("Mock payment service response for {}: {}", payment.getPaymentId(), response.getStatusCode());
+            return null;
+        });
+    }
+    
+    /**
+     * Ask the gateway to process several payments in one call.
+     * Completes with the gateway's status per payment id (PENDING when accepted).
+     */
+    public CompletableFuture<Map<String, String>> createPayments(List<Payment> payments) {
+        List<Map<String, Object>> requests = payments.stream().map(PaymentGatewayClient::toRequestBody).toList();
+        return submit(() -> {
+            ResponseEntity<GatewayBatchResponse> response = ok(restTemplate.postForEntity(
+                    paymentServiceUrl + "/payments/create-batch",
+                    Map.of("payments", requests),
+                    GatewayBatchResponse.class
+            ));
+            log.info("Mock payment service batch response for {} payments: {}", payments.size(), response.getStatusCode());
+            Map<String, String> statuses = new HashMap<>();
+            List<GatewayPaymentResponse> results = response.getBody() == null ? null : response.getBody().getResults();
+            if (results != null) {
+                results.forEach(result -> statuses.put(result.getPaymentId(), result.getStatus()));
+            }
+            return statuses;
+        });
+    }
+    
+    /**
+     * Ask the gateway for a payment's current status (NOT_FOUND if it never received it).
+     * Background callers pass a share below 1 so they only use part of the concurrency limit.
+     */
+    public CompletableFuture<String> getPaymentStatus(String paymentId, double share) {
+        return submit(() -> {
+            ResponseEntity<GatewayPaymentResponse> response = ok(restTemplate.getForEntity(
+                    paymentServiceUrl + "/payments/{paymentId}/status",
+                    GatewayPaymentResponse.class,
+                    paymentId
+            ));
+            return response.getBody() == null ? null : response.getBody().getStatus();
+        }, share);
+    }
+    
+    /**
+     * Run a gateway call on the bulkhead behind the breaker and the limiter.
+     */
+    <T> CompletableFuture<T> submit(GatewayCall<T> call) {
+        return submit(call, 1.0);
+    }
+    
+    /**
+     * Run a gateway call that may only use the given share of the concurrency limit.
+     */
+    <T> CompletableFuture<T> submit(GatewayCall<T> call, double share) {
+        if (!circuitBreaker.tryAcquirePermission()) {
+            return rejected("short_circuited", "Payment gateway circuit is open");
+        }
+        if (!limiter.tryAcquire(share)) {
+            circuitBreaker.releasePermission();
+            return rejected("limited", "Payment gateway concurrency limit reached");
+        }
+        try {
+            return CompletableFuture.supplyAsync(() -> execute(call), bulkhead);
+        } catch (RejectedExecutionException e) {
+            limiter.onIgnored();
+            circuitBreaker.releasePermission();
+            return rejected("bulkhead_full", "Payment gateway bulkhead is full");
+        }
+    }
+    
+    private <T> T execute(GatewayCall<T> call) {
+        long start = System.nanoTime();
+        try {
+            T result = call.call();
+            limiter.onSuccess(System.nanoTime() - start);
+            circuitBreaker.onSuccess();
+            count("success");
+            return result;
+        } catch (HttpClientErrorException.TooManyRequests e) {
+            Duration retryAfter = retryAfter(e.getResponseHeaders());
+            log.warn("Payment gateway is throttling us, pausing calls for {}", retryAfter);
+            limiter.onDropped();
+            circuitBreaker.openFor(retryAfter);
+            count("throttled");
+            throw e;
+        } catch (ResourceAccessException | HttpServerErrorException e) {
+            // Timeouts, connection errors and 5xx: the gateway is struggling
+            limiter.onDropped();
+            circuitBreaker.onFailure();
+            count("failure");
+            throw e;
+        } catch (RuntimeException e) {
+            // Anything else (other non-2xx, an unreadable body) is still a failed call
+            limiter.onIgnored();
+            circuitBreaker.onFailure();
+            count("failure");
+            throw e;
+        }
+    }
+    
+    /**
+     * Only a 2xx counts as a successful call; RestTemplate lets 1xx and 3xx through.
+     */
+    private static <T> ResponseEntity<T> ok(ResponseEntity<T> response) {
+        if (!response.getStatusCode().is2xxSuccessful()) {
+            throw new RestClientResponseException("Unexpected gateway response " + response.getStatusCode(),
+                    response.getStatusCode(), "", response.getHeaders(), null, null);
+        }
+        return response;
+    }
+    
+    private static Map<String, Object> toRequestBody(Payment payment) {
+        Map<String, Object> requestBody = new HashMap<>();
+        requestBody.put("paymentId", payment.getPaymentId());
+        requestBody.put("orderId", payment.getOrderId());
+        requestBody.put("amount", payment.getAmount().toBigDecimal());
+        requestBody.put("currency", payment.getAmount().getCurrency());
+        return requestBody;
+    }
+    
+    private Duration retryAfter(HttpHeaders headers) {
+        String value = headers == null ? null : headers.getFirst(HttpHeaders.RETRY_AFTER);
+        if (value != null) {
+            try {
+                return Duration.ofSeconds(Long.parseLong(value.trim()));
+            } catch (NumberFormatException e) {
+                // An HTTP date; fall back to the default pause
+            }
+        }
+        return defaultRetryAfter;
+    }
+    
+    private <T> CompletableFuture<T> rejected(String outcome, String message) {
+        count(outcome);
+        return CompletableFuture.failedFuture(new RuntimeException(message));
+    }
+    
+    private void count(String outcome) {
+        meterRegistry.counter("payment.gateway.calls", "outcome", outcome).increment();
+    }
+    
+    private void onTransition(CircuitBreaker.State from, CircuitBreaker.State to) {
+        log.warn("Payment gateway circuit {} -> {}", from, to);
+        meterRegistry.counter("payment.gateway.circuit.transitions", "from", from.name(), "to", to.name()).increment();
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        bulkhead.shutdown();
+    }
+    
+    /**
+     * A blocking call to the gateway.
+     */
+    @FunctionalInterface
+    interface GatewayCall<T> {
+        T call();
+    }
+}
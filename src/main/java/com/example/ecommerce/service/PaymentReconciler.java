@@ -0,0 +1,187 @@
+package com.example.ecommerce.service;
+
+import com.example.ecommerce.events.DomainEventBus;
+import com.example.ecommerce.events.PaymentStatusChanged;
+import com.example.ecommerce.model.Order;
+import com.example.ecommerce.model.Payment;
+import com.example.ecommerce.repository.OrderRepository;
+import com.example.ecommerce.repository.PaymentRepository;
+import com.example.ecommerce.resilience.TokenBucket;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reconciles payments left PENDING because their webhook never arrived.
+ * Pages through stale PENDING payments by (status, createdAt), asks the gateway
+ * for each one's status and writes the outcomes back in bulk. Status queries are
+ * paced by a token bucket and may only use part of the gateway concurrency limit,
+ * so reconciliation backs off before live payment traffic does.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PaymentReconciler {
+    
+    private final PaymentRepository paymentRepository;
+    private final OrderRepository orderRepository;
+    private final PaymentGatewayClient gatewayClient;
+    private final PaymentSubmissionAggregator submissionAggregator;
+    private final DomainEventBus eventBus;
+    private final MeterRegistry meterRegistry;
+    
+    @Value("${payment.reconciler.enabled:true}")
+    private boolean enabled;
+    
+    @Value("${payment.reconciler.stale-after:PT5M}")
+    private Duration staleAfter;
+    
+    @Value("${payment.reconciler.page-size:100}")
+    private int pageSize;
+    
+    @Value("${payment.reconciler.queries-per-second:20}")
+    private double queriesPerSecond;
+    
+    // Share of the gateway concurrency limit reconciliation may use
+    @Value("${payment.reconciler.gateway-share:0.25}")
+    private double gatewayShare;
+    
+    private TokenBucket rateLimiter;
+    
+    @PostConstruct
+    public void init() {
+        rateLimiter = new TokenBucket(Math.max(1, queriesPerSecond), queriesPerSecond);
+    }
+    
+    @Scheduled(fixedDelayString = "${payment.reconciler.interval-ms:60000}",
+            initialDelayString = "${payment.reconciler.interval-ms:60000}")
+    public void reconcile() {
+        if (!enabled) {
+            return;
+        }
+        Instant cutoff = Instant.now().minus(staleAfter);
+        Payment after = null;
+        int checked = 0;
+        int corrected = 0;
+        try {
+            while (true) {
+                List<Payment> page = paymentRepository.findPendingCreatedBefore(cutoff, after, pageSize);
+                if (page.isEmpty()) {
+                    break;
+                }
+                PageResult result = reconcilePage(page);
+                checked += page.size();
+                corrected += result.corrected;
+                if (result.unanswered == page.size()) {
+                    // The gateway is shielding itself; leave the rest for the next run
+                    log.warn("Payment gateway unavailable, stopping reconciliation after {} payments", checked);
+                    break;
+                }
+                if (page.size() < pageSize) {
+                    break;
+                }
+                after = page.get(page.size() - 1);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            log.error("Payment reconciliation failed: {}", e.getMessage());
+        }
+        if (checked > 0) {
+            log.info("Reconciled stale payments: checked {}, corrected {}", checked, corrected);
+        }
+    }
+    
+    /**
+     * Query the gateway for one page of payments and apply what it reports.
+     */
+    private PageResult reconcilePage(List<Payment> page) throws InterruptedException {
+        List<CompletableFuture<String>> queries = new ArrayList<>(page.size());
+        for (Payment payment : page) {
+            awaitToken();
+            queries.add(gatewayClient.getPaymentStatus(payment.getPaymentId(), gatewayShare)
+                    .exceptionally(e -> null));
+        }
+        CompletableFuture.allOf(queries.toArray(CompletableFuture[]::new)).join();
+        
+        Map<String, String> finalStatuses = new HashMap<>();
+        Map<String, Payment> byPaymentId = new HashMap<>();
+        int unanswered = 0;
+        for (int i = 0; i < page.size(); i++) {
+            Payment payment = page.get(i);
+            String status = queries.get(i).join();
+            if (status == null) {
+                unanswered++;
+            } else if ("SUCCESS".equals(status) || "FAILED".equals(status)) {
+                finalStatuses.put(payment.getPaymentId(), status);
+                byPaymentId.put(payment.getPaymentId(), payment);
+            } else if ("NOT_FOUND".equals(status)) {
+                // The submission never reached the gateway (or it lost it): send it again
+                submissionAggregator.submit(payment).whenComplete((ignored, e) -> {
+                    if (e != null) {
+                        log.warn("Could not resubmit payment {}: {}", payment.getPaymentId(), e.getMessage());
+                    }
+                });
+                count("resubmitted", 1);
+            }
+            // Still PENDING at the gateway: check again next run
+        }
+        
+        List<String> settled = paymentRepository.settlePending(finalStatuses);
+        Map<String, String> orderStatuses = new HashMap<>();
+        Map<String, Payment> byOrderId = new HashMap<>();
+        for (String paymentId : settled) {
+            String status = finalStatuses.get(paymentId);
+            Payment payment = byPaymentId.get(paymentId).toBuilder().status(status).build();
+            orderStatuses.put(payment.getOrderId(), "SUCCESS".equals(status) ? "PAID" : "FAILED");
+            byOrderId.put(payment.getOrderId(), payment);
+            count(status.toLowerCase(), 1);
+        }
+        for (Order previous : orderRepository.updateCreatedOrders(orderStatuses)) {
+            eventBus.publish(new PaymentStatusChanged(byOrderId.get(previous.getId()), previous,
+                    orderStatuses.get(previous.getId())));
+        }
+        count("unanswered", unanswered);
+        return new PageResult(settled.size(), unanswered);
+    }
+    
+    private void awaitToken() throws InterruptedException {
+        long waitNanos;
+        while ((waitNanos = rateLimiter.tryAcquire(1)) > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+    
+    private void count(String outcome, int amount) {
+        if (amount > 0) {
+            meterRegistry.counter("payment.reconciler.payments", "outcome", outcome).increment(amount);
+        }
+    }
+    
+    /**
+     * How many payments in a page were corrected and how many the gateway did not answer for.
+     */
+    private static final class PageResult {
+        
+        private final int corrected;
+        private final int unanswered;
+        
+        PageResult(int corrected, int unanswered) {
+            this.corrected = corrected;
+            this.unanswered = unanswered;
+        }
+    }
+}
@@ -2,21 +2,19 @@ package com.example.ecommerce.service;
 
 import com.example.ecommerce.dto.PaymentRequest;
 import com.example.ecommerce.dto.PaymentResponse;
+import com.example.ecommerce.events.DomainEventBus;
+import com.example.ecommerce.events.PaymentStatusChanged;
 import com.example.ecommerce.model.Order;
 import com.example.ecommerce.model.Payment;
 import com.example.ecommerce.repository.PaymentRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
 
 import java.time.Instant;
-import java.util.HashMap;
-import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletionException;
 
 /**
  * Service class for payment operations.
@@ -28,10 +26,9 @@ public class PaymentService {
     
     private final PaymentRepository paymentRepository;
     private final OrderService orderService;
-    private final RestTemplate restTemplate;
-    
-    @Value("${payment.service.url}")
-    private String paymentServiceUrl;
+    private final PaymentSubmissionAggregator submissionAggregator;
+    private final OrderExpiryService orderExpiryService;
+    private final DomainEventBus eventBus;
     
     /**
      * Create payment for an order.
@@ -46,6 +43,9 @@ public class PaymentService {
         if (!"CREATED".equals(order.getStatus())) {
             throw new RuntimeException("Order is not in CREATED status. Current status: " + order.getStatus());
         }
+        if (orderExpiryService.isPastDeadline(order)) {
+            throw new RuntimeException("Payment deadline has passed for order: " + request.getOrderId());
+        }
         
         // Check if payment already exists
         Optional<Payment> existingPayment = paymentRepository.findByOrderId(request.getOrderId());
@@ -54,7 +54,7 @@ public class PaymentService {
         }
         
         // Create payment record
-        String paymentId = "pay_" + UUID.randomUUID().toString().substring(0, 8);
+        String paymentId = "pay_" + UUID.randomUUID().toString().replace("-", "");
         
         Payment payment = Payment.builder()
                 .orderId(request.getOrderId())
@@ -65,13 +65,10 @@ public class PaymentService {
                 .build();
         
         Payment savedPayment = paymentRepository.save(payment);
+        eventBus.publish(new PaymentStatusChanged(savedPayment, null, null));
         
-        // Call mock payment service
-        try {
-            callMockPaymentService(savedPayment);
-        } catch (Exception e) {
-            log.warn("Could not reach payment service: {}. Payment will be processed manually.", e.getMessage());
-        }
+        // Call mock payment service; the payment stays PENDING until its webhook arrives
+        callMockPaymentService(savedPayment);
         
         return PaymentResponse.builder()
                 .paymentId(savedPayment.getPaymentId())
@@ -82,27 +79,17 @@ public class PaymentService {
     }
     
     /**
-     * Call mock payment service.
+     * Call mock payment service through the protected gateway client, off the request thread,
+     * batched with other payments submitted around the same time.
      */
     private void callMockPaymentService(Payment payment) {
         log.info("Calling mock payment service for payment: {}", payment.getPaymentId());
-        
-        Map<String, Object> requestBody = new HashMap<>();
-        requestBody.put("paymentId", payment.getPaymentId());
-        requestBody.put("orderId", payment.getOrderId());
-        requestBody.put("amount", payment.getAmount());
-        
-        try {
-            ResponseEntity<Map> response = restTemplate.postForEntity(
-                    paymentServiceUrl + "/payments/create",
-                    requestBody,
-                    Map.class
-            );
-            log.info("Mock payment service response: {}", response.getStatusCode());
-        } catch (Exception e) {
-            log.error("Error calling mock payment service: {}", e.getMessage());
-            throw e;
-        }
+        submissionAggregator.submit(payment).whenComplete((result, e) -> {
+            if (e != null) {
+                Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                log.warn("Could not reach payment service: {}. Payment will be processed manually.", cause.getMessage());
+            }
+        });
     }
     
     /**
@@ -119,7 +106,8 @@ public class PaymentService {
         
         // Update order status based on payment status
         String orderStatus = "SUCCESS".equals(status) ? "PAID" : "FAILED";
-        orderService.updateOrderStatus(payment.getOrderId(), orderStatus);
+        Order previous = orderService.updateOrderStatus(payment.getOrderId(), orderStatus);
+        eventBus.publish(new PaymentStatusChanged(payment, previous, previous == null ? null : orderStatus));
     }
     
     /**
@@ -0,0 +1,149 @@
+package com.example.ecommerce.service;
+
+import com.example.ecommerce.model.Payment;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coalesces payment submissions into batch calls to the gateway.
+ * Submissions are collected until the batch is full or the linger time has
+ * passed, sent with one POST /payments/create-batch, and each submission's
+ * future completes with its own result from the batch response.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PaymentSubmissionAggregator {
+    
+    private final PaymentGatewayClient gatewayClient;
+    
+    @Value("${payment.gateway.batch.enabled:true}")
+    private boolean enabled;
+    
+    @Value("${payment.gateway.batch.max-size:100}")
+    private int maxBatchSize;
+    
+    @Value("${payment.gateway.batch.linger-ms:5}")
+    private long lingerMs;
+    
+    private final BlockingQueue<PendingSubmission> queue = new LinkedBlockingQueue<>();
+    
+    private volatile boolean running = true;
+    
+    private Thread worker;
+    
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        worker = new Thread(this::run, "payment-batcher");
+        worker.setDaemon(true);
+        worker.start();
+    }
+    
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        if (worker != null) {
+            worker.interrupt();
+            worker.join(TimeUnit.SECONDS.toMillis(5));
+        }
+        // Send whatever is left rather than dropping it
+        List<PendingSubmission> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        if (!remaining.isEmpty()) {
+            send(remaining);
+        }
+    }
+    
+    /**
+     * Submit a payment to the gateway, batched with other submissions when enabled.
+     */
+    public CompletableFuture<Void> submit(Payment payment) {
+        if (!enabled || !running) {
+            return gatewayClient.createPayment(payment);
+        }
+        PendingSubmission pending = new PendingSubmission(payment);
+        queue.add(pending);
+        return pending.future;
+    }
+    
+    private void run() {
+        while (running) {
+            try {
+                PendingSubmission first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                List<PendingSubmission> batch = new ArrayList<>();
+                batch.add(first);
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(lingerMs);
+                while (batch.size() < maxBatchSize) {
+                    long wait = deadline - System.nanoTime();
+                    PendingSubmission next = wait > 0 ? queue.poll(wait, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                send(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+    
+    /**
+     * Send one batch and fan the results back out. The call itself runs on the gateway bulkhead.
+     */
+    private void send(List<PendingSubmission> batch) {
+        List<Payment> payments = batch.stream().map(pending -> pending.payment).toList();
+        gatewayClient.createPayments(payments).whenComplete((statuses, e) -> {
+            for (PendingSubmission pending : batch) {
+                if (e != null) {
+                    pending.future.completeExceptionally(e);
+                } else {
+                    complete(pending, statuses);
+                }
+            }
+        });
+        log.debug("Sent batch of {} payments to the gateway", batch.size());
+    }
+    
+    private void complete(PendingSubmission pending, Map<String, String> statuses) {
+        String status = statuses.get(pending.payment.getPaymentId());
+        if (status == null || "REJECTED".equals(status)) {
+            pending.future.completeExceptionally(new RuntimeException(
+                    "Payment gateway did not accept payment " + pending.payment.getPaymentId()));
+        } else {
+            pending.future.complete(null);
+        }
+    }
+    
+    /**
+     * A payment waiting to be sent, and the future its submitter holds.
+     */
+    private static final class PendingSubmission {
+        
+        private final Payment payment;
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+        
+        PendingSubmission(Payment payment) {
+            this.payment = payment;
+        }
+    }
+}
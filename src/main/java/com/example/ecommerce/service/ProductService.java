@@ -1,13 +1,22 @@
 package com.example.ecommerce.service;
 
 import com.example.ecommerce.dto.CreateProductRequest;
+import com.example.ecommerce.dto.StockAvailabilityResponse;
+import com.example.ecommerce.events.DomainEventBus;
+import com.example.ecommerce.events.StockChanged;
 import com.example.ecommerce.model.Product;
 import com.example.ecommerce.repository.ProductRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.util.DigestUtils;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -18,7 +27,13 @@ import java.util.Optional;
 @RequiredArgsConstructor
 public class ProductService {
     
+    public static final Sort CATALOG_ORDER = Sort.by("id");
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    private static final int MAX_PAGE_SIZE = 100;
+    
     private final ProductRepository productRepository;
+    private final CatalogResponseCache responseCache;
+    private final DomainEventBus eventBus;
     
     /**
      * Create a new product.
@@ -31,9 +46,17 @@ public class ProductService {
                 .description(request.getDescription())
                 .price(request.getPrice())
                 .stock(request.getStock())
+                .reserved(0)
+                .available(request.getStock())
+                .leased(0)
+                .hot(false)
+                .version(1L)
+                .lastModified(Instant.now())
                 .build();
         
-        return productRepository.save(product);
+        Product savedProduct = productRepository.save(product);
+        responseCache.evict(savedProduct.getId());
+        return savedProduct;
     }
     
     /**
@@ -44,6 +67,35 @@ public class ProductService {
         return productRepository.findAll();
     }
     
+    /**
+     * Get one page of products, or all products when no page is given.
+     */
+    public List<Product> getProducts(Integer page, Integer size) {
+        log.info("Fetching products page: {}, size: {}", page, size);
+        if (page == null) {
+            return productRepository.findAll(CATALOG_ORDER);
+        }
+        return productRepository.findAllBy(pageRequest(page, size));
+    }
+    
+    /**
+     * Compute the ETag of a product page from the product versions only.
+     */
+    public String getProductsETag(Integer page, Integer size) {
+        List<Product> versions = page == null
+                ? productRepository.findAllVersions(CATALOG_ORDER)
+                : productRepository.findAllVersions(pageRequest(page, size));
+        return pageETag(page, size, versions);
+    }
+    
+    /**
+     * Compute the ETag of a single product from its version only.
+     */
+    public Optional<String> getProductETag(String id) {
+        return productRepository.findVersionById(id)
+                .map(ProductService::productETag);
+    }
+    
     /**
      * Get product by ID.
      */
@@ -53,26 +105,50 @@ public class ProductService {
     }
     
     /**
-     * Update product stock.
+     * Update product stock. Applied as an atomic increment of stock and available.
      */
     public void updateStock(String productId, int quantityChange) {
         log.info("Updating stock for product {}: {}", productId, quantityChange);
-        
-        productRepository.findById(productId).ifPresent(product -> {
-            product.setStock(product.getStock() + quantityChange);
-            productRepository.save(product);
-        });
+        productRepository.adjustStock(productId, quantityChange);
+        eventBus.publish(new StockChanged(List.of(productId)));
+    }
+    
+    /**
+     * Update the stock of several products with one bulk increment of stock and available.
+     */
+    public void updateStock(Map<String, Integer> quantityChanges) {
+        if (quantityChanges.isEmpty()) {
+            return;
+        }
+        log.info("Updating stock for {} products", quantityChanges.size());
+        productRepository.adjustStock(quantityChanges);
+        eventBus.publish(new StockChanged(quantityChanges.keySet()));
     }
     
     /**
-     * Check if product has sufficient stock.
+     * Check if product has sufficient unreserved stock.
      */
     public boolean hasStock(String productId, int requiredQuantity) {
         return productRepository.findById(productId)
-                .map(product -> product.getStock() >= requiredQuantity)
+                .map(product -> product.getAvailable() != null && product.getAvailable() >= requiredQuantity)
                 .orElse(false);
     }
     
+    /**
+     * Get stock, reserved, leased and available counts for a product.
+     */
+    public Optional<StockAvailabilityResponse> getAvailability(String productId) {
+        return productRepository.findById(productId)
+                .map(product -> StockAvailabilityResponse.builder()
+                        .productId(product.getId())
+                        .stock(product.getStock())
+                        .reserved(product.getReserved())
+                        .available(product.getAvailable())
+                        .leased(product.getLeased())
+                        .hot(Boolean.TRUE.equals(product.getHot()))
+                        .build());
+    }
+    
     /**
      * Search products by name.
      */
@@ -80,4 +156,47 @@ public class ProductService {
         log.info("Searching products with query: {}", query);
         return productRepository.findByNameContainingIgnoreCase(query);
     }
+    
+    /**
+     * ETag of a product page, from the ids and versions of its products in catalog order.
+     */
+    public static String pageETag(Integer page, Integer size, List<Product> versions) {
+        StringBuilder fingerprint = new StringBuilder(versions.size() * 32);
+        fingerprint.append(pageKey(page, size));
+        for (Product product : versions) {
+            fingerprint.append(';').append(product.getId()).append(':').append(versionOf(product));
+        }
+        return "W/\"" + DigestUtils.md5DigestAsHex(fingerprint.toString().getBytes(StandardCharsets.UTF_8)) + "\"";
+    }
+    
+    /**
+     * ETag of a single product, from its id and version.
+     */
+    public static String productETag(Product product) {
+        return "W/\"" + product.getId() + "-" + versionOf(product) + "\"";
+    }
+    
+    /**
+     * Cache key of a product page, from the clamped page and size, so requests for the same page share it.
+     */
+    public static String pageKey(Integer page, Integer size) {
+        if (page == null) {
+            return "all";
+        }
+        PageRequest request = pageRequest(page, size);
+        return request.getPageNumber() + ":" + request.getPageSize();
+    }
+    
+    /**
+     * Page request in catalog order, with the page size clamped to the allowed range.
+     */
+    public static PageRequest pageRequest(int page, Integer size) {
+        int pageSize = size == null ? DEFAULT_PAGE_SIZE : Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+        return PageRequest.of(Math.max(page, 0), pageSize, CATALOG_ORDER);
+    }
+    
+    private static long versionOf(Product product) {
+        // Documents written before versioning count as version 0
+        return product.getVersion() == null ? 0L : product.getVersion();
+    }
 }
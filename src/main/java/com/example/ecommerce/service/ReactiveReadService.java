@@ -0,0 +1,119 @@
+package com.example.ecommerce.service;
+
+import com.example.ecommerce.dto.CartItemResponse;
+import com.example.ecommerce.dto.OrderResponse;
+import com.example.ecommerce.model.CartItem;
+import com.example.ecommerce.model.Order;
+import com.example.ecommerce.model.Product;
+import com.example.ecommerce.repository.reactive.ReactiveArchivedOrderRepository;
+import com.example.ecommerce.repository.reactive.ReactiveCartItemRepository;
+import com.example.ecommerce.repository.reactive.ReactiveOrderRepository;
+import com.example.ecommerce.repository.reactive.ReactivePaymentRepository;
+import com.example.ecommerce.repository.reactive.ReactiveProductRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Non-blocking read paths for the reactive serving mode.
+ * Mirrors the read methods of the product, cart and order services on top of
+ * the reactive repositories, so no request thread waits on MongoDB.
+ */
+@Service
+@Profile("reactive")
+@RequiredArgsConstructor
+public class ReactiveReadService {
+    
+    private final ReactiveProductRepository productRepository;
+    private final ReactiveCartItemRepository cartItemRepository;
+    private final ReactiveOrderRepository orderRepository;
+    private final ReactiveArchivedOrderRepository archivedOrderRepository;
+    private final ReactivePaymentRepository paymentRepository;
+    
+    /**
+     * Get one page of products, or all products when no page is given.
+     */
+    public Mono<List<Product>> getProducts(Integer page, Integer size) {
+        Flux<Product> products = page == null
+                ? productRepository.findAll(ProductService.CATALOG_ORDER)
+                : productRepository.findAllBy(ProductService.pageRequest(page, size));
+        return products.collectList();
+    }
+    
+    /**
+     * Compute the ETag of a product page from the product versions only.
+     */
+    public Mono<String> getProductsETag(Integer page, Integer size) {
+        Flux<Product> versions = page == null
+                ? productRepository.findAllVersions(ProductService.CATALOG_ORDER)
+                : productRepository.findAllVersions(ProductService.pageRequest(page, size));
+        return versions.collectList().map(list -> ProductService.pageETag(page, size, list));
+    }
+    
+    /**
+     * Compute the ETag of a single product from its version only.
+     */
+    public Mono<String> getProductETag(String id) {
+        return productRepository.findVersionById(id).map(ProductService::productETag);
+    }
+    
+    public Mono<Product> getProductById(String id) {
+        return productRepository.findById(id);
+    }
+    
+    public Flux<Product> searchProducts(String query) {
+        return productRepository.findByNameContainingIgnoreCase(query);
+    }
+    
+    /**
+     * Get a user's cart with product details, loading all products in one query.
+     */
+    public Mono<List<CartItemResponse>> getCart(String userId) {
+        return cartItemRepository.findByUserId(userId)
+                .collectList()
+                .flatMap(cartItems -> productRepository
+                        .findAllById(cartItems.stream().map(CartItem::getProductId).distinct().toList())
+                        .collectMap(Product::getId, Function.identity())
+                        .map(products -> toCartItemResponses(cartItems, products)));
+    }
+    
+    /**
+     * Get order response with payment details, loading both concurrently.
+     */
+    public Mono<OrderResponse> getOrderResponse(String orderId) {
+        return Mono.zip(
+                        orderRepository.findById(orderId)
+                                .switchIfEmpty(archivedOrderRepository.findById(orderId).map(OrderArchiveService::toOrder)),
+                        paymentRepository.findByOrderId(orderId).map(Optional::of).defaultIfEmpty(Optional.empty()))
+                .map(tuple -> OrderService.toOrderResponse(tuple.getT1(), tuple.getT2().orElse(null)));
+    }
+    
+    /**
+     * Get a user's orders, archived ones included; hot copies win.
+     */
+    public Flux<Order> getOrdersByUserId(String userId) {
+        return orderRepository.findByUserId(userId)
+                .collectList()
+                .flatMapMany(hot -> {
+                    Set<String> hotIds = hot.stream().map(Order::getId).collect(Collectors.toSet());
+                    return Flux.fromIterable(hot).concatWith(archivedOrderRepository.findByUserId(userId)
+                            .filter(archived -> !hotIds.contains(archived.getId()))
+                            .map(OrderArchiveService::toOrder));
+                });
+    }
+    
+    private List<CartItemResponse> toCartItemResponses(List<CartItem> cartItems, Map<String, Product> products) {
+        return cartItems.stream()
+                .map(cartItem -> CartService.toCartItemResponse(cartItem, products.get(cartItem.getProductId())))
+                .collect(Collectors.toList());
+    }
+}
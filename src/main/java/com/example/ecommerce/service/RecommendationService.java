@@ -0,0 +1,196 @@
+package com.example.ecommerce.service;
+
+import com.example.ecommerce.analytics.CoOccurrenceMatrix;
+import com.example.ecommerce.dto.RelatedProductsResponse;
+import com.example.ecommerce.model.Order;
+import com.example.ecommerce.model.OrderItem;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * Service class for "frequently bought together" recommendations.
+ * Each new order's items update an in-memory co-occurrence matrix; related
+ * products are read from it without touching the database. The matrix is
+ * rebuilt from the orders collection at startup and on demand; orders recorded
+ * while the rebuild scans are buffered and added to the new matrix unless the
+ * scan already counted them.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class RecommendationService {
+    
+    // Orders created this close to the rebuild start may be seen by the scan and recorded too
+    private static final Duration RECENT_MARGIN = Duration.ofMinutes(1);
+    
+    private final MongoTemplate mongoTemplate;
+    
+    @Value("${recommendations.max-neighbors:20}")
+    private int maxNeighbors;
+    
+    // Larger baskets only count their first items; pairs grow quadratically
+    @Value("${recommendations.max-items-per-order:50}")
+    private int maxItemsPerOrder;
+    
+    @Value("${recommendations.rebuild-on-startup:true}")
+    private boolean rebuildOnStartup;
+    
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    
+    private CoOccurrenceMatrix matrix;
+    
+    // Baskets recorded during a rebuild, by order id; null when no rebuild runs. Guarded by lock
+    private Map<String, List<String>> recordedDuringRebuild;
+    
+    /**
+     * Count the pairs of products in a new order.
+     */
+    public void record(Order order) {
+        List<String> basket = basketOf(order);
+        if (basket.size() < 2) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            matrix().addBasket(basket);
+            if (recordedDuringRebuild != null) {
+                recordedDuringRebuild.put(order.getId(), basket);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * Get the products most often bought together with the given one.
+     */
+    public RelatedProductsResponse getRelated(String productId, int limit) {
+        List<Map.Entry<String, Integer>> related;
+        lock.readLock().lock();
+        try {
+            related = matrix == null ? List.of() : matrix.related(productId, Math.max(1, Math.min(limit, maxNeighbors)));
+        } finally {
+            lock.readLock().unlock();
+        }
+        return RelatedProductsResponse.builder()
+                .productId(productId)
+                .related(related.stream()
+                        .map(entry -> RelatedProductsResponse.RelatedProduct.builder()
+                                .productId(entry.getKey())
+                                .count(entry.getValue())
+                                .build())
+                        .toList())
+                .build();
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOnStartup() {
+        if (!rebuildOnStartup) {
+            return;
+        }
+        // Off the startup thread; related lists fill in as the scan completes
+        Thread thread = new Thread(() -> {
+            try {
+                rebuild();
+            } catch (RuntimeException e) {
+                log.error("Could not rebuild recommendations: {}", e.getMessage());
+            }
+        }, "recommendations-rebuild");
+        thread.setDaemon(true);
+        thread.start();
+    }
+    
+    /**
+     * Recompute the matrix from all orders and swap it in. Returns the number of orders scanned.
+     */
+    public synchronized int rebuild() {
+        log.info("Rebuilding recommendations from orders");
+        Instant recentFrom = Instant.now().minus(RECENT_MARGIN);
+        lock.writeLock().lock();
+        try {
+            recordedDuringRebuild = new HashMap<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        
+        CoOccurrenceMatrix rebuilt = new CoOccurrenceMatrix(maxNeighbors);
+        Set<String> scannedRecent = new HashSet<>();
+        int scanned = 0;
+        Query query = new Query();
+        query.fields().include("items.productId").include("createdAt");
+        try (Stream<Order> orders = mongoTemplate.stream(query, Order.class)) {
+            for (Iterator<Order> it = orders.iterator(); it.hasNext(); ) {
+                Order order = it.next();
+                if (order.getCreatedAt() != null && !order.getCreatedAt().isBefore(recentFrom)) {
+                    scannedRecent.add(order.getId());
+                }
+                List<String> basket = basketOf(order);
+                if (basket.size() > 1) {
+                    rebuilt.addBasket(basket);
+                }
+                scanned++;
+            }
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                recordedDuringRebuild = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        }
+        
+        int caughtUp = 0;
+        lock.writeLock().lock();
+        try {
+            for (Map.Entry<String, List<String>> recorded : recordedDuringRebuild.entrySet()) {
+                if (!scannedRecent.contains(recorded.getKey())) {
+                    rebuilt.addBasket(recorded.getValue());
+                    caughtUp++;
+                }
+            }
+            recordedDuringRebuild = null;
+            matrix = rebuilt;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Rebuilt recommendations from {} orders (+{} recorded during the scan): {} products, ~{} KB",
+                scanned, caughtUp, rebuilt.getProductCount(), rebuilt.getMemoryBytes() / 1024);
+        return scanned;
+    }
+    
+    private CoOccurrenceMatrix matrix() {
+        if (matrix == null) {
+            matrix = new CoOccurrenceMatrix(maxNeighbors);
+        }
+        return matrix;
+    }
+    
+    private List<String> basketOf(Order order) {
+        if (order.getItems() == null) {
+            return List.of();
+        }
+        return order.getItems().stream()
+                .map(OrderItem::getProductId)
+                .limit(maxItemsPerOrder)
+                .toList();
+    }
+}
@@ -0,0 +1,174 @@
+package com.example.ecommerce.service;
+
+import com.example.ecommerce.model.StockReservation;
+import com.example.ecommerce.repository.ProductRepository;
+import com.example.ecommerce.repository.StockReservationRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Service class for cart-time stock reservations.
+ * Adding to the cart places a time-limited hold against the available counter,
+ * checkout converts live holds into a stock decrement, and a sweeper releases
+ * expired holds in batches.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class StockReservationService {
+    
+    private final StockReservationRepository reservationRepository;
+    private final ProductRepository productRepository;
+    private final HotInventoryService hotInventory;
+    
+    @Value("${inventory.reservation.ttl:PT15M}")
+    private Duration holdTtl;
+    
+    @Value("${inventory.reservation.sweep-batch-size:500}")
+    private int sweepBatchSize;
+    
+    // Expired holds are left alone this long so checkout and sweeper never race on clock skew
+    @Value("${inventory.reservation.sweep-grace:PT5S}")
+    private Duration sweepGrace;
+    
+    // A claim not settled or released within this long is taken over by the sweeper
+    @Value("${inventory.reservation.claim-lease:PT5M}")
+    private Duration claimLease;
+    
+    /**
+     * Initialize stock counters on products created before reservations existed.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void initializeStockCounters() {
+        try {
+            long updated = productRepository.initializeStockCounters();
+            if (updated > 0) {
+                log.info("Initialized reservation counters on {} products", updated);
+            }
+        } catch (RuntimeException e) {
+            log.error("Could not initialize reservation counters: {}", e.getMessage());
+        }
+    }
+    
+    /**
+     * Place a hold for a user's cart. Returns false if not enough stock is available.
+     * Hot SKUs are not held: during a flash sale they sell first come, first served at checkout.
+     */
+    public boolean reserve(String userId, String productId, int quantity) {
+        log.info("Reserving {} of product {} for user {}", quantity, productId, userId);
+        
+        if (hotInventory.isHot(productId)) {
+            return hotInventory.hasAvailable(productId, quantity);
+        }
+        
+        if (!productRepository.reserveStock(productId, quantity)) {
+            return false;
+        }
+        
+        Instant now = Instant.now();
+        StockReservation reservation = StockReservation.builder()
+                .userId(userId)
+                .productId(productId)
+                .quantity(quantity)
+                .createdAt(now)
+                .expiresAt(now.plus(holdTtl))
+                .build();
+        
+        try {
+            reservationRepository.insert(reservation);
+        } catch (RuntimeException e) {
+            productRepository.releaseReservedStock(Map.of(productId, quantity));
+            throw e;
+        }
+        return true;
+    }
+    
+    /**
+     * Claim the live holds of a batch of checking-out users.
+     */
+    public List<StockReservation> claimLiveHolds(Collection<String> userIds, String token) {
+        return reservationRepository.claimLive(userIds, Instant.now(), token);
+    }
+    
+    /**
+     * Settle holds claimed for checkout: the used part leaves stock, the rest returns
+     * as available stock. The holds go first, so a crash in between cannot get them
+     * swept and counted back a second time.
+     */
+    public void settleClaimedHolds(String token, Map<String, Integer> heldByProduct, Map<String, Integer> usedByProduct) {
+        reservationRepository.deleteClaimed(token);
+        productRepository.convertReservedStock(heldByProduct, usedByProduct);
+    }
+    
+    /**
+     * Unclaim holds claimed for a checkout that did not go through, so they stay in
+     * their users' carts.
+     */
+    public void returnClaimedHolds(String token) {
+        reservationRepository.unclaim(token);
+    }
+    
+    /**
+     * Release every hold of a user, e.g. when the cart is cleared.
+     */
+    public void releaseAll(String userId) {
+        String token = UUID.randomUUID().toString();
+        release(reservationRepository.claimByUser(userId, token), token);
+    }
+    
+    /**
+     * Release expired holds in batches, along with holds whose claim was abandoned
+     * (its owner failed or died before settling or releasing them).
+     */
+    @Scheduled(fixedDelayString = "${inventory.reservation.sweep-interval-ms:30000}")
+    public void sweepExpiredHolds() {
+        Instant now = Instant.now();
+        Instant cutoff = now.minus(sweepGrace);
+        Instant staleBefore = now.minus(claimLease);
+        int released = 0;
+        try {
+            List<StockReservation> batch;
+            do {
+                String token = UUID.randomUUID().toString();
+                batch = reservationRepository.claimExpired(cutoff, staleBefore, sweepBatchSize, token);
+                release(batch, token);
+                released += batch.size();
+            } while (batch.size() == sweepBatchSize);
+        } catch (RuntimeException e) {
+            log.error("Error sweeping expired stock holds: {}", e.getMessage());
+        }
+        if (released > 0) {
+            log.info("Released {} expired stock holds", released);
+        }
+    }
+    
+    /**
+     * Drop claimed holds, then return what was actually dropped to the available
+     * counters with one bulk write. A hold whose claim was taken over is not counted.
+     */
+    private void release(List<StockReservation> claimed, String token) {
+        if (claimed.isEmpty()) {
+            return;
+        }
+        Map<String, Integer> quantities = new HashMap<>();
+        for (StockReservation reservation : reservationRepository.removeClaimed(token)) {
+            quantities.merge(reservation.getProductId(), reservation.getQuantity(), Integer::sum);
+        }
+        if (!quantities.isEmpty()) {
+            productRepository.releaseReservedStock(quantities);
+        }
+    }
+}
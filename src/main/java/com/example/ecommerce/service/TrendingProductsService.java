@@ -0,0 +1,189 @@
+package com.example.ecommerce.service;
+
+import com.example.ecommerce.analytics.SlidingTopK;
+import com.example.ecommerce.dto.TrendingProductsResponse;
+import com.example.ecommerce.model.Order;
+import com.example.ecommerce.model.OrderItem;
+import com.example.ecommerce.model.Product;
+import com.example.ecommerce.model.TrendingSnapshot;
+import com.example.ecommerce.repository.ProductRepository;
+import com.example.ecommerce.repository.TrendingSnapshotRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Service class for the "trending now" product lists.
+ * Units sold per product are counted as orders are created into count-min
+ * sketches over sliding windows (last hour, last day), each tracking its top-K
+ * candidates, so the lists are served from memory in a few kilobytes per slot.
+ * The sketches are saved periodically and restored at startup, under a key that
+ * includes the instance id: each instance counts only its own orders, so instances
+ * sharing a database must not overwrite each other's snapshots.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TrendingProductsService {
+    
+    private final TrendingSnapshotRepository snapshotRepository;
+    private final ProductRepository productRepository;
+    
+    @Value("${analytics.trending.width:2048}")
+    private int width;
+    
+    @Value("${analytics.trending.depth:4}")
+    private int depth;
+    
+    @Value("${analytics.trending.top-k:50}")
+    private int topK;
+    
+    // Must stay the same across restarts of an instance to find its snapshots again
+    @Value("${analytics.trending.instance-id:${HOSTNAME:local}}")
+    private String instanceId;
+    
+    private final Map<String, SlidingTopK> windows = new LinkedHashMap<>();
+    
+    // Whether sales were recorded since the last save; expiry alone is redone on restore.
+    // A context that never served traffic (such as a training run) so never saves.
+    private final AtomicBoolean changed = new AtomicBoolean();
+    
+    @PostConstruct
+    public void init() {
+        // Window name -> slot length and count
+        windows.put("1h", new SlidingTopK(Duration.ofMinutes(5).toMillis(), 12, width, depth, topK));
+        windows.put("24h", new SlidingTopK(Duration.ofHours(1).toMillis(), 24, width, depth, topK));
+    }
+    
+    /**
+     * Count the units sold in a new order.
+     */
+    public void record(Order order) {
+        if (order.getItems() == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        changed.set(true);
+        for (SlidingTopK window : windows.values()) {
+            synchronized (window) {
+                for (OrderItem item : order.getItems()) {
+                    window.add(item.getProductId(), item.getQuantity(), now);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Get the best selling products in the window, highest first.
+     */
+    public TrendingProductsResponse getTrending(String windowName, int limit) {
+        SlidingTopK window = windows.get(windowName);
+        if (window == null) {
+            throw new RuntimeException("Unknown trending window: " + windowName + ". Use one of " + windows.keySet());
+        }
+        List<Map.Entry<String, Long>> top;
+        long total;
+        synchronized (window) {
+            top = window.top(Math.max(1, Math.min(limit, topK)), System.currentTimeMillis());
+            total = window.getTotal();
+        }
+        
+        Map<String, Product> products = productRepository.findAllById(top.stream().map(Map.Entry::getKey).toList())
+                .stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+        List<TrendingProductsResponse.TrendingProduct> trending = top.stream()
+                .map(entry -> TrendingProductsResponse.TrendingProduct.builder()
+                        .productId(entry.getKey())
+                        .name(products.containsKey(entry.getKey()) ? products.get(entry.getKey()).getName() : null)
+                        .estimatedSales(entry.getValue())
+                        .build())
+                .toList();
+        
+        return TrendingProductsResponse.builder()
+                .window(windowName)
+                .products(trending)
+                .totalSales(total)
+                .errorBound((long) Math.ceil(window.getRelativeError() * total))
+                .confidence(1 - window.getFailureProbability())
+                .memoryBytes(window.getMemoryBytes())
+                .build();
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void restore() {
+        try {
+            long now = System.currentTimeMillis();
+            List<String> ids = windows.keySet().stream().map(this::snapshotId).toList();
+            for (TrendingSnapshot snapshot : snapshotRepository.findAllById(ids)) {
+                SlidingTopK window = windows.get(snapshot.getWindow());
+                if (window == null) {
+                    continue;
+                }
+                synchronized (window) {
+                    if (window.restore(snapshot.getCurrentSlot(), snapshot.getSlots(), now)) {
+                        window.restoreCandidates(snapshot.getCandidates());
+                        log.info("Restored trending window {} saved at {}", snapshot.getId(), snapshot.getSavedAt());
+                    } else {
+                        log.warn("Ignoring trending snapshot {} with a different sketch shape", snapshot.getId());
+                    }
+                }
+            }
+        } catch (RuntimeException e) {
+            log.error("Could not restore trending products: {}", e.getMessage());
+        }
+    }
+    
+    @Scheduled(fixedDelayString = "${analytics.trending.snapshot-interval-ms:60000}",
+            initialDelayString = "${analytics.trending.snapshot-interval-ms:60000}")
+    public void snapshot() {
+        // Claimed, so the scheduled save and the one at shutdown do not both write
+        if (!changed.getAndSet(false)) {
+            return;
+        }
+        try {
+            for (Map.Entry<String, SlidingTopK> entry : windows.entrySet()) {
+                SlidingTopK window = entry.getValue();
+                TrendingSnapshot snapshot;
+                synchronized (window) {
+                    snapshot = TrendingSnapshot.builder()
+                            .id(snapshotId(entry.getKey()))
+                            .window(entry.getKey())
+                            .instanceId(instanceId)
+                            .currentSlot(window.getCurrentSlot())
+                            .slots(window.slotsToBytes())
+                            .candidates(window.getCandidates())
+                            .savedAt(Instant.now())
+                            .build();
+                }
+                snapshotRepository.save(snapshot);
+            }
+        } catch (RuntimeException e) {
+            changed.set(true);
+            log.error("Could not save trending products: {}", e.getMessage());
+        }
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        snapshot();
+    }
+    
+    private String snapshotId(String windowName) {
+        return windowName + ":" + instanceId;
+    }
+}
@@ -0,0 +1,158 @@
+package com.example.ecommerce.service;
+
+import com.example.ecommerce.model.User;
+import com.example.ecommerce.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.Stream;
+
+/**
+ * In-memory Bloom filter over taken usernames and emails.
+ * The filter is per instance: it is built from the users collection at startup and
+ * then only sees inserts made by this instance, so a negative answer is only a hint.
+ * It is used to skip the pre-insert existence query on signup, where the unique
+ * indexes still reject a name taken elsewhere; a positive answer must be confirmed
+ * against the database.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class UserAvailabilityFilter {
+    
+    private static final int NUM_HASHES = 5;
+    
+    private final UserRepository userRepository;
+    
+    @Value("${users.availability-filter.bits:8388608}")
+    private int numBits;
+    
+    private volatile AtomicLongArray bits;
+    
+    // Target of a rebuild in progress, so concurrent inserts land in both arrays
+    private volatile AtomicLongArray rebuilding;
+    
+    /**
+     * Rebuild the filter from the users collection.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        log.info("Rebuilding user availability filter ({} bits)", numBits);
+        AtomicLongArray fresh = new AtomicLongArray((numBits + 63) / 64);
+        rebuilding = fresh;
+        long count = 0;
+        try (Stream<User> users = userRepository.streamAllIdentities()) {
+            for (User user : (Iterable<User>) users::iterator) {
+                put(fresh, usernameKey(user.getUsername()));
+                put(fresh, emailKey(user.getEmail()));
+                count++;
+            }
+            bits = fresh;
+            log.info("User availability filter rebuilt with {} users", count);
+        } catch (RuntimeException e) {
+            log.error("Could not rebuild user availability filter: {}", e.getMessage());
+        } finally {
+            rebuilding = null;
+        }
+    }
+    
+    /**
+     * Record a newly inserted user.
+     */
+    public void add(User user) {
+        add(usernameKey(user.getUsername()));
+        add(emailKey(user.getEmail()));
+    }
+    
+    public boolean mightContainUsername(String username) {
+        return mightContain(usernameKey(username));
+    }
+    
+    public boolean mightContainEmail(String email) {
+        return mightContain(emailKey(email));
+    }
+    
+    private void add(String key) {
+        AtomicLongArray current = bits;
+        if (current != null) {
+            put(current, key);
+        }
+        AtomicLongArray pending = rebuilding;
+        if (pending != null) {
+            put(pending, key);
+        }
+    }
+    
+    private boolean mightContain(String key) {
+        if (key == null) {
+            return false;
+        }
+        AtomicLongArray current = bits;
+        if (current == null) {
+            // Not built yet, so nothing can be ruled out
+            return true;
+        }
+        long h1 = hash(key);
+        long h2 = mix(h1);
+        int size = current.length() * 64;
+        for (int i = 0; i < NUM_HASHES; i++) {
+            int bit = (int) Math.floorMod(h1 + i * h2, (long) size);
+            if ((current.get(bit >>> 6) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    private static void put(AtomicLongArray target, String key) {
+        if (key == null) {
+            return;
+        }
+        long h1 = hash(key);
+        long h2 = mix(h1);
+        int size = target.length() * 64;
+        for (int i = 0; i < NUM_HASHES; i++) {
+            int bit = (int) Math.floorMod(h1 + i * h2, (long) size);
+            long mask = 1L << bit;
+            int word = bit >>> 6;
+            long prev;
+            do {
+                prev = target.get(word);
+            } while ((prev & mask) == 0 && !target.compareAndSet(word, prev, prev | mask));
+        }
+    }
+    
+    private static String usernameKey(String username) {
+        return username == null ? null : "u:" + username;
+    }
+    
+    private static String emailKey(String email) {
+        return email == null ? null : "e:" + email;
+    }
+    
+    /**
+     * 64-bit FNV-1a over the UTF-16 code units of the key.
+     */
+    private static long hash(String key) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            h ^= key.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        return h;
+    }
+    
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h | 1;
+    }
+}
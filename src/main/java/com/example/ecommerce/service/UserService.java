@@ -1,17 +1,29 @@
 package com.example.ecommerce.service;
 
+import com.example.ecommerce.dto.BulkCreateUsersResponse;
 import com.example.ecommerce.dto.CreateUserRequest;
 import com.example.ecommerce.model.User;
+import com.example.ecommerce.repository.DuplicateKeys;
 import com.example.ecommerce.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 /**
  * Service class for user operations.
+ * Uniqueness is enforced by the unique indexes on username and email; the
+ * availability filter only saves a round trip when a name is obviously free.
  */
 @Slf4j
 @Service
@@ -19,6 +31,7 @@ import java.util.Optional;
 public class UserService {
     
     private final UserRepository userRepository;
+    private final UserAvailabilityFilter availabilityFilter;
     
     /**
      * Create a new user.
@@ -26,23 +39,118 @@ public class UserService {
     public User createUser(CreateUserRequest request) {
         log.info("Creating user: {}", request.getUsername());
         
-        // Check if username already exists
-        if (userRepository.findByUsername(request.getUsername()).isPresent()) {
+        // Names the filter has never seen go straight to the insert
+        if (availabilityFilter.mightContainUsername(request.getUsername())
+                && userRepository.existsByUsername(request.getUsername())) {
             throw new RuntimeException("Username already exists: " + request.getUsername());
         }
         
-        // Check if email already exists
-        if (userRepository.findByEmail(request.getEmail()).isPresent()) {
+        if (availabilityFilter.mightContainEmail(request.getEmail())
+                && userRepository.existsByEmail(request.getEmail())) {
             throw new RuntimeException("Email already exists: " + request.getEmail());
         }
         
-        User user = User.builder()
-                .username(request.getUsername())
-                .email(request.getEmail())
-                .role(request.getRole() != null ? request.getRole() : "USER")
-                .build();
+        User user = toUser(request);
+        
+        try {
+            User savedUser = userRepository.insert(user);
+            availabilityFilter.add(savedUser);
+            return savedUser;
+        } catch (DuplicateKeyException e) {
+            // Lost a race with a concurrent signup
+            String field = duplicateField(DuplicateKeys.indexName(e.getMessage()));
+            throw new RuntimeException(duplicateMessage(field, user));
+        }
+    }
+    
+    /**
+     * Provision many users at once. Valid users are inserted with a single
+     * unordered bulk write; the rest are reported per request index.
+     */
+    public BulkCreateUsersResponse createUsers(List<CreateUserRequest> requests) {
+        log.info("Provisioning {} users", requests.size());
+        
+        List<BulkCreateUsersResponse.Failure> failures = new ArrayList<>();
+        Set<String> usernames = new HashSet<>();
+        Set<String> emails = new HashSet<>();
+        Map<Integer, User> candidates = new HashMap<>();
         
-        return userRepository.save(user);
+        // Reject duplicates inside the batch itself
+        for (int i = 0; i < requests.size(); i++) {
+            CreateUserRequest request = requests.get(i);
+            if (!usernames.add(request.getUsername())) {
+                failures.add(failure(i, "username", "Duplicate username in request: " + request.getUsername()));
+            } else if (!emails.add(request.getEmail())) {
+                failures.add(failure(i, "email", "Duplicate email in request: " + request.getEmail()));
+            } else {
+                candidates.put(i, toUser(request));
+            }
+        }
+        
+        // Confirm only the names the filter cannot rule out, in one query per field
+        Set<String> takenUsernames = userRepository.findByUsernameIn(candidates.values().stream()
+                        .map(User::getUsername)
+                        .filter(availabilityFilter::mightContainUsername)
+                        .collect(Collectors.toSet()))
+                .stream().map(User::getUsername).collect(Collectors.toSet());
+        Set<String> takenEmails = userRepository.findByEmailIn(candidates.values().stream()
+                        .map(User::getEmail)
+                        .filter(availabilityFilter::mightContainEmail)
+                        .collect(Collectors.toSet()))
+                .stream().map(User::getEmail).collect(Collectors.toSet());
+        
+        List<Integer> indexes = new ArrayList<>();
+        List<User> toInsert = new ArrayList<>();
+        candidates.keySet().stream().sorted().forEach(i -> {
+            User user = candidates.get(i);
+            if (takenUsernames.contains(user.getUsername())) {
+                failures.add(failure(i, "username", duplicateMessage("username", user)));
+            } else if (takenEmails.contains(user.getEmail())) {
+                failures.add(failure(i, "email", duplicateMessage("email", user)));
+            } else {
+                // Assign ids up front so inserted documents can be returned as-is
+                user.setId(new ObjectId().toHexString());
+                indexes.add(i);
+                toInsert.add(user);
+            }
+        });
+        
+        Map<Integer, String> rejected = userRepository.insertUnordered(toInsert);
+        rejected.forEach((position, indexName) -> {
+            String field = duplicateField(indexName);
+            failures.add(failure(indexes.get(position), field, duplicateMessage(field, toInsert.get(position))));
+        });
+        
+        List<User> created = new ArrayList<>();
+        for (int i = 0; i < toInsert.size(); i++) {
+            if (!rejected.containsKey(i)) {
+                User user = toInsert.get(i);
+                availabilityFilter.add(user);
+                created.add(user);
+            }
+        }
+        
+        failures.sort((a, b) -> Integer.compare(a.getIndex(), b.getIndex()));
+        log.info("Provisioned {} of {} users", created.size(), requests.size());
+        
+        return BulkCreateUsersResponse.builder()
+                .requested(requests.size())
+                .created(created.size())
+                .users(created)
+                .failures(failures)
+                .build();
+    }
+    
+    /**
+     * Check whether a username and/or email are still free.
+     * Always asks the (unique-indexed) users collection: the availability filter only
+     * sees inserts made by this instance, so its "not taken" is not an answer here.
+     */
+    public boolean isAvailable(String username, String email) {
+        if (username != null && userRepository.existsByUsername(username)) {
+            return false;
+        }
+        return email == null || !userRepository.existsByEmail(email);
     }
     
     /**
@@ -67,4 +175,41 @@ public class UserService {
     public Optional<User> getUserByUsername(String username) {
         return userRepository.findByUsername(username);
     }
+    
+    private User toUser(CreateUserRequest request) {
+        return User.builder()
+                .username(request.getUsername())
+                .email(request.getEmail())
+                .role(request.getRole() != null ? request.getRole() : "USER")
+                .build();
+    }
+    
+    /**
+     * The field behind a violated unique index; "user" for any other index, such as _id.
+     */
+    private String duplicateField(String indexName) {
+        if (User.EMAIL_INDEX.equals(indexName)) {
+            return "email";
+        }
+        if (User.USERNAME_INDEX.equals(indexName)) {
+            return "username";
+        }
+        return "user";
+    }
+    
+    private String duplicateMessage(String field, User user) {
+        return switch (field) {
+            case "username" -> "Username already exists: " + user.getUsername();
+            case "email" -> "Email already exists: " + user.getEmail();
+            default -> "User already exists: " + user.getUsername();
+        };
+    }
+    
+    private BulkCreateUsersResponse.Failure failure(int index, String field, String message) {
+        return BulkCreateUsersResponse.Failure.builder()
+                .index(index)
+                .field(field)
+                .message(message)
+                .build();
+    }
 }
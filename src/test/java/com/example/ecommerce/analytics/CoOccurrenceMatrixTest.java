@@ -0,0 +1,54 @@
+package com.example.ecommerce.analytics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CoOccurrenceMatrixTest {
+    
+    @Test
+    void pairsAreCountedBothWaysOncePerBasket() {
+        CoOccurrenceMatrix matrix = new CoOccurrenceMatrix(10);
+        matrix.addBasket(List.of("a", "b", "b", "c"));
+        matrix.addBasket(List.of("a", "b"));
+        
+        assertThat(matrix.related("a", 5)).containsExactly(Map.entry("b", 2), Map.entry("c", 1));
+        assertThat(matrix.related("c", 5)).containsExactlyInAnyOrder(Map.entry("a", 1), Map.entry("b", 1));
+        assertThat(matrix.related("unknown", 5)).isEmpty();
+    }
+    
+    @Test
+    void fullRowIsPrunedToItsStrongestPairs() {
+        CoOccurrenceMatrix matrix = new CoOccurrenceMatrix(2);
+        for (int i = 0; i < 3; i++) {
+            matrix.addBasket(List.of("x", "strong"));
+        }
+        matrix.addBasket(List.of("x", "second"));
+        matrix.addBasket(List.of("x", "second"));
+        matrix.addBasket(List.of("x", "weak"));
+        // The fourth neighbour fills the row to 2N and prunes it back to the top two
+        matrix.addBasket(List.of("x", "weaker"));
+        
+        assertThat(matrix.related("x", 10)).containsExactly(Map.entry("strong", 3), Map.entry("second", 2));
+        
+        // A pruned pair starts counting again from zero
+        matrix.addBasket(List.of("x", "weak"));
+        assertThat(matrix.related("x", 10)).containsExactly(
+                Map.entry("strong", 3), Map.entry("second", 2), Map.entry("weak", 1));
+    }
+    
+    @Test
+    void rowsGrowPastTheInitialCapacity() {
+        CoOccurrenceMatrix matrix = new CoOccurrenceMatrix(4);
+        for (int i = 0; i < 3000; i++) {
+            matrix.addBasket(List.of("p" + i, "hub"));
+        }
+        
+        assertThat(matrix.getProductCount()).isEqualTo(3001);
+        assertThat(matrix.related("p2999", 5)).containsExactly(Map.entry("hub", 1));
+        assertThat(matrix.related("hub", 100)).hasSizeLessThan(8);
+    }
+}
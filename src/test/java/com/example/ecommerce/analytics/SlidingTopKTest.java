@@ -0,0 +1,66 @@
+package com.example.ecommerce.analytics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SlidingTopKTest {
+    
+    private static final long SLOT = 1000;
+    
+    @Test
+    void countsLeaveTheWindowAsItsSlotsExpire() {
+        SlidingTopK topK = new SlidingTopK(SLOT, 3, 256, 4, 5);
+        long start = nextSlot();
+        topK.add("a", 5, start);
+        topK.add("b", 3, start + SLOT);
+        topK.add("c", 1, start + 2 * SLOT);
+        
+        assertThat(topK.top(3, start + 2 * SLOT))
+                .containsExactly(Map.entry("a", 5L), Map.entry("b", 3L), Map.entry("c", 1L));
+        
+        // One slot on, "a" has fallen out of the three-slot window
+        assertThat(topK.top(3, start + 3 * SLOT)).containsExactly(Map.entry("b", 3L), Map.entry("c", 1L));
+        assertThat(topK.getTotal()).isEqualTo(4);
+        
+        // A gap longer than the window empties it
+        assertThat(topK.top(3, start + 10 * SLOT)).isEmpty();
+        assertThat(topK.getTotal()).isZero();
+    }
+    
+    @Test
+    void restoredWindowDropsWhatExpiredWhileItWasSaved() {
+        SlidingTopK saved = new SlidingTopK(SLOT, 3, 256, 4, 5);
+        long start = nextSlot();
+        saved.add("a", 5, start);
+        saved.add("b", 3, start + 2 * SLOT);
+        
+        SlidingTopK restored = new SlidingTopK(SLOT, 3, 256, 4, 5);
+        assertThat(restored.restore(saved.getCurrentSlot(), saved.slotsToBytes(), start + 3 * SLOT)).isTrue();
+        restored.restoreCandidates(saved.getCandidates());
+        
+        assertThat(restored.top(5, start + 3 * SLOT)).containsExactly(Map.entry("b", 3L));
+        assertThat(restored.restore(0, saved.slotsToBytes().subList(0, 2), start)).isFalse();
+    }
+    
+    @Test
+    void heavyKeyDisplacesTheWeakestCandidate() {
+        // k = 1 keeps at most four candidates
+        SlidingTopK topK = new SlidingTopK(SLOT, 3, 1024, 4, 1);
+        long now = nextSlot();
+        for (String key : new String[]{"a", "b", "c", "d"}) {
+            topK.add(key, 2, now);
+        }
+        topK.add("heavy", 10, now);
+        
+        assertThat(topK.getCandidates()).hasSize(4).contains("heavy");
+        assertThat(topK.top(1, now)).containsExactly(Map.entry("heavy", 10L));
+    }
+    
+    // The window starts at the current time, so the tests run from the next slot on
+    private static long nextSlot() {
+        return (System.currentTimeMillis() / SLOT + 1) * SLOT;
+    }
+}
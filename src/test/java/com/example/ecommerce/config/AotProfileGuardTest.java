@@ -0,0 +1,44 @@
+package com.example.ecommerce.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.SpringApplication;
+import org.springframework.core.env.StandardEnvironment;
+
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AotProfileGuardTest {
+    
+    private final AotProfileGuard guard = new AotProfileGuard();
+    
+    @AfterEach
+    void clearAot() {
+        System.clearProperty("spring.aot.enabled");
+    }
+    
+    @Test
+    void aotBuildRefusesProfilesThatSwapBeans() {
+        System.setProperty("spring.aot.enabled", "true");
+        
+        assertThatThrownBy(() -> guard.postProcessEnvironment(environment("memory"), new SpringApplication()))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("[memory]");
+        assertThatThrownBy(() -> guard.postProcessEnvironment(environment("reactive"), new SpringApplication()))
+                .hasMessageContaining("[reactive]");
+        assertThatCode(() -> guard.postProcessEnvironment(environment(), new SpringApplication()))
+                .doesNotThrowAnyException();
+    }
+    
+    @Test
+    void regularBuildStartsWithAnyProfile() {
+        assertThatCode(() -> guard.postProcessEnvironment(environment("memory"), new SpringApplication()))
+                .doesNotThrowAnyException();
+    }
+    
+    private static StandardEnvironment environment(String... profiles) {
+        StandardEnvironment environment = new StandardEnvironment();
+        environment.setActiveProfiles(profiles);
+        return environment;
+    }
+}
@@ -0,0 +1,143 @@
+package com.example.ecommerce.events;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class DomainEventBusTest {
+    
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    
+    private DomainEventBus bus;
+    
+    @AfterEach
+    void stop() {
+        if (bus != null) {
+            bus.stop();
+        }
+    }
+    
+    @Test
+    void publishersWaitForASlowConsumerWhenTheRingWraps() {
+        Recorder slow = new Recorder(false, 1);
+        Recorder fast = new Recorder(false, 0);
+        bus = bus(4, 2, slow, fast);
+        bus.start();
+        
+        IntStream.range(0, 200).forEach(i -> bus.publish(event(i)));
+        bus.stop();
+        
+        List<String> expected = IntStream.range(0, 200).mapToObj(i -> "p" + i).toList();
+        assertThat(slow.productIds).containsExactlyElementsOf(expected);
+        assertThat(fast.productIds).containsExactlyElementsOf(expected);
+        assertThat(slow.maxBatch).isLessThanOrEqualTo(2);
+        assertThat(meterRegistry.counter("events.bus.full.waits").count()).isPositive();
+    }
+    
+    @Test
+    void stopDrainsTheRingThenDispatchesOnThePublishingThread() {
+        Recorder recorder = new Recorder(false, 0);
+        bus = bus(64, 16, recorder);
+        bus.start();
+        
+        IntStream.range(0, 50).forEach(i -> bus.publish(event(i)));
+        bus.stop();
+        assertThat(recorder.productIds).hasSize(50);
+        
+        bus.publish(event(50));
+        assertThat(recorder.productIds).hasSize(51).endsWith("p50");
+        assertThat(recorder.threads.get(50)).isEqualTo(Thread.currentThread().getName());
+    }
+    
+    @Test
+    void synchronousConsumersHandleEventsBeforePublishReturns() throws Exception {
+        Recorder synchronous = new Recorder(true, 0);
+        CountDownLatch release = new CountDownLatch(1);
+        Recorder blocked = new Recorder(false, 0) {
+            @Override
+            public void onEvents(List<DomainEvent> events) {
+                await(release);
+                super.onEvents(events);
+            }
+        };
+        bus = bus(64, 16, synchronous, blocked);
+        bus.start();
+        
+        bus.publish(event(0));
+        
+        // The synchronous consumer has it on this thread, the other has not even started
+        assertThat(synchronous.productIds).containsExactly("p0");
+        assertThat(synchronous.threads).containsExactly(Thread.currentThread().getName());
+        assertThat(blocked.productIds).isEmpty();
+        release.countDown();
+        bus.stop();
+        assertThat(blocked.productIds).containsExactly("p0");
+        assertThat(meterRegistry.find("events.bus.lag").tag("consumer", "Recorder").gauge()).isNull();
+    }
+    
+    private DomainEventBus bus(int ringSize, int maxBatchSize, DomainEventConsumer... consumers) {
+        @SuppressWarnings("unchecked")
+        ObjectProvider<DomainEventConsumer> provider = mock(ObjectProvider.class);
+        when(provider.orderedStream()).thenAnswer(invocation -> Stream.of(consumers));
+        return new DomainEventBus(provider, meterRegistry, ringSize, maxBatchSize);
+    }
+    
+    private static StockChanged event(int i) {
+        return new StockChanged(List.of("p" + i));
+    }
+    
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    private static class Recorder implements DomainEventConsumer {
+        
+        private final boolean synchronous;
+        private final long sleepMillis;
+        private final List<String> productIds = new CopyOnWriteArrayList<>();
+        private final List<String> threads = new CopyOnWriteArrayList<>();
+        private volatile int maxBatch;
+        
+        Recorder(boolean synchronous, long sleepMillis) {
+            this.synchronous = synchronous;
+            this.sleepMillis = sleepMillis;
+        }
+        
+        @Override
+        public boolean isSynchronous() {
+            return synchronous;
+        }
+        
+        @Override
+        public void onEvents(List<DomainEvent> events) {
+            maxBatch = Math.max(maxBatch, events.size());
+            for (DomainEvent event : events) {
+                productIds.addAll(((StockChanged) event).getProductIds());
+                threads.add(Thread.currentThread().getName());
+            }
+            if (sleepMillis > 0) {
+                try {
+                    Thread.sleep(sleepMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+}
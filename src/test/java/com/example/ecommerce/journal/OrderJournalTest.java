@@ -0,0 +1,184 @@
+package com.example.ecommerce.journal;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OrderJournalTest {
+    
+    private static final int SEGMENT_SIZE = 4096;
+    
+    @TempDir
+    Path directory;
+    
+    @Test
+    void reopenRecoversCommittedRecords() throws IOException {
+        try (OrderJournal journal = OrderJournal.open(directory, SEGMENT_SIZE)) {
+            appendAll(journal, 1, 10);
+            journal.commit();
+        }
+        
+        try (OrderJournal journal = OrderJournal.open(directory, SEGMENT_SIZE)) {
+            assertThat(journal.getLastSequence()).isEqualTo(10);
+            assertThat(journal.getCommittedSequence()).isEqualTo(10);
+            assertThat(replay(journal)).containsExactlyElementsOf(payloads(1, 10));
+            
+            journal.append(11, payload(11));
+            journal.commit();
+            assertThat(replay(journal)).containsExactlyElementsOf(payloads(1, 11));
+        }
+    }
+    
+    @Test
+    void replayOnlySeesCommittedRecords() throws IOException {
+        try (OrderJournal journal = OrderJournal.open(directory, SEGMENT_SIZE)) {
+            appendAll(journal, 1, 3);
+            journal.commit();
+            appendAll(journal, 4, 5);
+            
+            assertThat(journal.getCommittedSequence()).isEqualTo(3);
+            assertThat(replay(journal)).containsExactlyElementsOf(payloads(1, 3));
+            
+            journal.commit();
+            assertThat(replay(journal)).containsExactlyElementsOf(payloads(1, 5));
+        }
+    }
+    
+    @Test
+    void recoveryStopsAtACorruptRecordAndAppendsOverIt() throws IOException {
+        try (OrderJournal journal = OrderJournal.open(directory, SEGMENT_SIZE)) {
+            appendAll(journal, 1, 5);
+            journal.commit();
+        }
+        // Records are [length][crc32][sequence][payload] after an 8-byte header; break the 5th payload
+        int frame = 16 + payload(1).length;
+        flipByte(onlySegment(), 8 + 4 * frame + 16);
+        
+        try (OrderJournal journal = OrderJournal.open(directory, SEGMENT_SIZE)) {
+            assertThat(journal.getLastSequence()).isEqualTo(4);
+            assertThat(replay(journal)).containsExactlyElementsOf(payloads(1, 4));
+            journal.append(5, payload(50));
+            journal.commit();
+        }
+        
+        try (OrderJournal journal = OrderJournal.open(directory, SEGMENT_SIZE)) {
+            List<String> expected = new ArrayList<>(payloads(1, 4));
+            expected.add(new String(payload(50), StandardCharsets.UTF_8));
+            assertThat(replay(journal)).containsExactlyElementsOf(expected);
+        }
+    }
+    
+    @Test
+    void compactionKeepsFilteredRecordsAcrossReopen() throws IOException {
+        int sealedRecords;
+        try (OrderJournal journal = OrderJournal.open(directory, 256)) {
+            appendAll(journal, 1, 60);
+            journal.commit();
+            assertThat(journal.getSegmentCount()).isGreaterThan(3);
+            
+            List<Long> sealed = new ArrayList<>();
+            int dropped = journal.compact((sequence, payload) -> {
+                sealed.add(sequence);
+                return sequence % 2 == 0;
+            });
+            sealedRecords = sealed.size();
+            assertThat(dropped).isEqualTo((int) sealed.stream().filter(sequence -> sequence % 2 == 1).count());
+            assertThat(journal.getSegmentCount()).isEqualTo(2);
+            assertThat(replay(journal)).containsExactlyElementsOf(expectedAfterCompaction(sealedRecords, 60));
+            
+            journal.append(61, payload(61));
+            journal.commit();
+        }
+        
+        try (OrderJournal journal = OrderJournal.open(directory, 256)) {
+            List<String> expected = new ArrayList<>(expectedAfterCompaction(sealedRecords, 60));
+            expected.add(new String(payload(61), StandardCharsets.UTF_8));
+            assertThat(journal.getLastSequence()).isEqualTo(61);
+            assertThat(replay(journal)).containsExactlyElementsOf(expected);
+        }
+    }
+    
+    @Test
+    void replayOfARangeVisitsOnlyThoseRecords() throws IOException {
+        try (OrderJournal journal = OrderJournal.open(directory, 256)) {
+            appendAll(journal, 1, 60);
+            journal.commit();
+            assertThat(journal.getSegmentCount()).isGreaterThan(3);
+            
+            assertThat(replay(journal, 20, 35)).containsExactlyElementsOf(payloads(20, 35));
+            assertThat(replay(journal, 58, 100)).containsExactlyElementsOf(payloads(58, 60));
+            assertThat(replay(journal, 61, 100)).isEmpty();
+        }
+    }
+    
+    /**
+     * Even sequences from the compacted segments, then everything in the active one.
+     */
+    private static List<String> expectedAfterCompaction(int sealedRecords, int last) {
+        List<String> expected = new ArrayList<>();
+        LongStream.rangeClosed(1, last)
+                .filter(sequence -> sequence > sealedRecords || sequence % 2 == 0)
+                .forEach(sequence -> expected.add(new String(payload(sequence), StandardCharsets.UTF_8)));
+        return expected;
+    }
+    
+    private static void appendAll(OrderJournal journal, long from, long to) throws IOException {
+        for (long sequence = from; sequence <= to; sequence++) {
+            journal.append(sequence, payload(sequence));
+        }
+    }
+    
+    private static List<String> replay(OrderJournal journal) throws IOException {
+        return replay(journal, 0, Long.MAX_VALUE);
+    }
+    
+    private static List<String> replay(OrderJournal journal, long from, long to) throws IOException {
+        List<String> payloads = new ArrayList<>();
+        journal.replay(from, to, (sequence, payload) -> {
+            byte[] bytes = new byte[payload.remaining()];
+            payload.duplicate().get(bytes);
+            payloads.add(new String(bytes, StandardCharsets.UTF_8));
+        });
+        return payloads;
+    }
+    
+    private static List<String> payloads(long from, long to) {
+        return LongStream.rangeClosed(from, to)
+                .mapToObj(sequence -> new String(payload(sequence), StandardCharsets.UTF_8))
+                .toList();
+    }
+    
+    private static byte[] payload(long sequence) {
+        return String.format("event-%03d", sequence).getBytes(StandardCharsets.UTF_8);
+    }
+    
+    private Path onlySegment() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            List<Path> segments = files.filter(path -> path.toString().endsWith(".log")).toList();
+            assertThat(segments).hasSize(1);
+            return segments.get(0);
+        }
+    }
+    
+    private static void flipByte(Path file, int position) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocate(1);
+            channel.read(buffer, position);
+            buffer.put(0, (byte) (buffer.get(0) ^ 0xff)).rewind();
+            channel.write(buffer, position);
+        }
+    }
+}
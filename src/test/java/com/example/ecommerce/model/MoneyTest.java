@@ -0,0 +1,45 @@
+package com.example.ecommerce.model;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MoneyTest {
+    
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    
+    @Test
+    void decimalsRoundHalfEvenToTheMinorUnit() {
+        assertThat(Money.of(new BigDecimal("19.99"), "USD").getMinorUnits()).isEqualTo(1999);
+        assertThat(Money.of(new BigDecimal("0.125"), "USD").getMinorUnits()).isEqualTo(12);
+        assertThat(Money.of(new BigDecimal("0.135"), "USD").getMinorUnits()).isEqualTo(14);
+        assertThat(Money.of(new BigDecimal("1500"), "JPY").getMinorUnits()).isEqualTo(1500);
+        assertThat(Money.ofMinor(1999, "USD").toBigDecimal()).isEqualByComparingTo("19.99");
+    }
+    
+    @Test
+    void arithmeticIsExactAndKeepsCurrenciesApart() {
+        // 0.1 + 0.2 as doubles is not 0.3; in minor units it is
+        Money sum = Money.of(new BigDecimal("0.1"), "USD").plus(Money.of(new BigDecimal("0.2"), "USD"));
+        assertThat(sum).isEqualTo(Money.ofMinor(30, "USD"));
+        assertThat(Money.ofMinor(333, "USD").times(3)).isEqualTo(Money.ofMinor(999, "USD"));
+        
+        assertThatThrownBy(() -> Money.ofMinor(1, "USD").plus(Money.ofMinor(1, "EUR")))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> Money.ofMinor(Long.MAX_VALUE, "USD").times(2))
+                .isInstanceOf(ArithmeticException.class);
+    }
+    
+    @Test
+    void jsonAcceptsPlainNumbersAsTheDefaultCurrency() throws Exception {
+        assertThat(objectMapper.readValue("19.99", Money.class)).isEqualTo(Money.ofMinor(1999, "USD"));
+        assertThat(objectMapper.readValue("{\"amount\": 1500, \"currency\": \"JPY\"}", Money.class))
+                .isEqualTo(Money.ofMinor(1500, "JPY"));
+        assertThat(objectMapper.writeValueAsString(Money.ofMinor(1999, "USD")))
+                .isEqualTo("{\"amount\":19.99,\"currency\":\"USD\"}");
+    }
+}
@@ -0,0 +1,245 @@
+package com.example.ecommerce.repository.memory;
+
+import com.example.ecommerce.model.AbandonedCart;
+import com.example.ecommerce.model.Money;
+import com.example.ecommerce.model.Payment;
+import com.example.ecommerce.model.Product;
+import com.example.ecommerce.model.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.IncorrectResultSizeDataAccessException;
+import org.springframework.data.domain.Example;
+import org.springframework.data.domain.ExampleMatcher;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class InMemoryRepositoryTest {
+    
+    @Test
+    void uniqueIndexRejectsDuplicateAndRollsBackOtherIndexes() {
+        InMemoryUserRepository users = new InMemoryUserRepository();
+        users.insert(user("alice", "alice@example.com"));
+        
+        assertThatThrownBy(() -> users.insert(user("bob", "alice@example.com")))
+                .isInstanceOf(DuplicateKeyException.class)
+                .hasMessageContaining("index: email");
+        
+        // The username index took "bob" before the email index refused; it must be undone
+        assertThat(users.findByUsername("bob")).isEmpty();
+        users.insert(user("bob", "bob@example.com"));
+        assertThat(users.findByUsername("bob")).isPresent();
+        assertThat(users.count()).isEqualTo(2);
+    }
+    
+    @Test
+    void concurrentSignupsWithTheSameUsernameInsertOnce() throws Exception {
+        InMemoryUserRepository users = new InMemoryUserRepository();
+        
+        List<Boolean> results = concurrently(32, i -> () -> {
+            try {
+                users.insert(user("same", "user" + i + "@example.com"));
+                return true;
+            } catch (DuplicateKeyException e) {
+                return false;
+            }
+        });
+        
+        assertThat(results).containsOnlyOnce(true);
+        assertThat(users.count()).isEqualTo(1);
+        assertThat(users.findByUsername("same")).isPresent();
+    }
+    
+    @Test
+    void concurrentConditionalUpdatesNeverOversell() throws Exception {
+        InMemoryProductRepository products = new InMemoryProductRepository();
+        String id = products.insert(product(50)).getId();
+        
+        List<Boolean> results = concurrently(200, i -> () -> products.reserveStock(id, 1));
+        
+        assertThat(results.stream().filter(Boolean::booleanValue).count()).isEqualTo(50);
+        Product product = products.findById(id).orElseThrow();
+        assertThat(product.getAvailable()).isZero();
+        assertThat(product.getReserved()).isEqualTo(50);
+        assertThat(product.getStock()).isEqualTo(50);
+    }
+    
+    @Test
+    void concurrentSettlesReportEachPaymentOnce() throws Exception {
+        InMemoryPaymentRepository payments = new InMemoryPaymentRepository();
+        Map<String, String> statuses = new HashMap<>();
+        for (int i = 0; i < 20; i++) {
+            payments.insert(payment("pay_" + i));
+            statuses.put("pay_" + i, "SUCCESS");
+        }
+        
+        List<List<String>> results = concurrently(8, i -> () -> payments.settlePending(statuses));
+        
+        assertThat(results.stream().flatMap(List::stream).toList())
+                .containsExactlyInAnyOrderElementsOf(statuses.keySet());
+        assertThatThrownBy(() -> payments.insert(payment("pay_0"))).isInstanceOf(DuplicateKeyException.class);
+    }
+    
+    @Test
+    void takeAvailableStockLeavesShortProductsUnchanged() {
+        InMemoryProductRepository products = new InMemoryProductRepository();
+        String plenty = products.insert(product(10)).getId();
+        String scarce = products.insert(product(1)).getId();
+        
+        assertThat(products.takeAvailableStock(plenty, 4)).isTrue();
+        assertThat(products.takeAvailableStock(scarce, 2)).isFalse();
+        
+        assertThat(products.findById(plenty).orElseThrow().getAvailable()).isEqualTo(6);
+        assertThat(products.findById(scarce).orElseThrow().getAvailable()).isEqualTo(1);
+        assertThat(products.findById(scarce).orElseThrow().getStock()).isEqualTo(1);
+    }
+    
+    @Test
+    void documentsAreDetachedCopies() {
+        InMemoryUserRepository users = new InMemoryUserRepository();
+        User saved = users.insert(user("carol", "carol@example.com"));
+        
+        saved.setRole("ADMIN");
+        User read = users.findById(saved.getId()).orElseThrow();
+        read.setEmail("changed@example.com");
+        
+        User stored = users.findById(saved.getId()).orElseThrow();
+        assertThat(stored.getRole()).isNull();
+        assertThat(stored.getEmail()).isEqualTo("carol@example.com");
+    }
+    
+    @Test
+    void queryByExampleMatchesNonNullProbeProperties() {
+        InMemoryUserRepository users = new InMemoryUserRepository();
+        users.insert(user("alice", "alice@example.com"));
+        users.insert(user("alfred", "alfred@example.org"));
+        users.insert(user("bob", "bob@example.com"));
+        
+        assertThat(users.findOne(Example.of(User.builder().username("bob").build())))
+                .map(User::getEmail)
+                .contains("bob@example.com");
+        assertThat(users.exists(Example.of(User.builder().username("carol").build()))).isFalse();
+        
+        ExampleMatcher startsWith = ExampleMatcher.matching()
+                .withMatcher("username", matcher -> matcher.startsWith().ignoreCase());
+        Example<User> al = Example.of(User.builder().username("AL").build(), startsWith);
+        assertThat(users.count(al)).isEqualTo(2);
+        assertThat(users.findAll(al, Sort.by("username"))).extracting(User::getUsername)
+                .containsExactly("alfred", "alice");
+        assertThatThrownBy(() -> users.findOne(al)).isInstanceOf(IncorrectResultSizeDataAccessException.class);
+        
+        Example<User> dotCom = Example.of(User.builder().email(".com").build(),
+                ExampleMatcher.matching().withStringMatcher(ExampleMatcher.StringMatcher.ENDING));
+        Page<User> page = users.findAll(dotCom, PageRequest.of(0, 1, Sort.by("username")));
+        assertThat(page.getTotalElements()).isEqualTo(2);
+        assertThat(page.getContent()).extracting(User::getUsername).containsExactly("alice");
+        
+        Example<User> any = Example.of(User.builder().username("bob").email("alfred@example.org").build(),
+                ExampleMatcher.matchingAny());
+        List<User> matchingAny = users.findBy(any, query -> query.sortBy(Sort.by(Sort.Direction.DESC, "username")).all());
+        assertThat(matchingAny).extracting(User::getUsername).containsExactly("bob", "alfred");
+        User first = users.findBy(al, query -> query.sortBy(Sort.by("username")).firstValue());
+        assertThat(first.getUsername()).isEqualTo("alfred");
+    }
+    
+    @Test
+    void abandonedCartsArePagedByAbandonedAtThenId() {
+        InMemoryAbandonedCartRepository carts = new InMemoryAbandonedCartRepository();
+        Instant start = Instant.parse("2024-01-01T00:00:00Z");
+        // Ids are not in abandonedAt order, and two share an abandonedAt
+        List<String> expected = new ArrayList<>();
+        for (int i : new int[]{3, 1, 2, 2, 0}) {
+            expected.add(carts.insert(abandoned(start.plusSeconds(i))).getId());
+        }
+        carts.insert(abandoned(start.plusSeconds(60)));
+        
+        List<String> read = new ArrayList<>();
+        AbandonedCart last = null;
+        List<AbandonedCart> page;
+        do {
+            page = last == null
+                    ? carts.findAbandonedAfter(null, null, start.plusSeconds(30), 2)
+                    : carts.findAbandonedAfter(last.getAbandonedAt(), last.getId(), start.plusSeconds(30), 2);
+            page.forEach(cart -> read.add(cart.getId()));
+            last = page.isEmpty() ? last : page.get(page.size() - 1);
+        } while (!page.isEmpty());
+        
+        assertThat(read).containsExactlyInAnyOrderElementsOf(expected);
+        assertThat(read.get(0)).isEqualTo(expected.get(4));
+        assertThat(read.get(4)).isEqualTo(expected.get(0));
+    }
+    
+    private static <R> List<R> concurrently(int tasks, IntFunction<Callable<R>> task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<R>> futures = IntStream.range(0, tasks)
+                    .mapToObj(i -> {
+                        Callable<R> work = task.apply(i);
+                        return executor.submit(() -> {
+                            start.await();
+                            return work.call();
+                        });
+                    })
+                    .toList();
+            start.countDown();
+            List<R> results = new ArrayList<>();
+            for (Future<R> future : futures) {
+                results.add(future.get(10, TimeUnit.SECONDS));
+            }
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+    
+    private static AbandonedCart abandoned(Instant abandonedAt) {
+        return AbandonedCart.builder()
+                .cartKey("cart-" + UUID.randomUUID())
+                .abandonedAt(abandonedAt)
+                .expiresAt(abandonedAt.plus(Duration.ofDays(365 * 100)))
+                .build();
+    }
+    
+    private static Payment payment(String paymentId) {
+        return Payment.builder()
+                .orderId("order-" + paymentId)
+                .paymentId(paymentId)
+                .status("PENDING")
+                .createdAt(Instant.now())
+                .build();
+    }
+    
+    private static User user(String username, String email) {
+        return User.builder().username(username).email(email).build();
+    }
+    
+    private static Product product(int stock) {
+        return Product.builder()
+                .name("Widget")
+                .price(Money.ofMinor(999, Money.DEFAULT_CURRENCY))
+                .stock(stock)
+                .reserved(0)
+                .available(stock)
+                .build();
+    }
+}
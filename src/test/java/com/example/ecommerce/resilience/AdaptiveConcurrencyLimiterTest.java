@@ -0,0 +1,85 @@
+package com.example.ecommerce.resilience;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AdaptiveConcurrencyLimiterTest {
+    
+    @Test
+    void limitGrowsWhileLatencyHoldsAndShrinksAsItClimbs() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 2, 100);
+        for (int i = 0; i < 50; i++) {
+            fill(limiter);
+            limiter.onSuccess(1_000_000);
+            drain(limiter);
+        }
+        int grown = limiter.getLimit();
+        assertThat(grown).isGreaterThan(10);
+        
+        for (int i = 0; i < 50; i++) {
+            fill(limiter);
+            limiter.onSuccess(20_000_000);
+            drain(limiter);
+        }
+        assertThat(limiter.getLimit()).isLessThan(grown);
+    }
+    
+    @Test
+    void dropsCutTheLimitDownToTheMinimum() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 2, 100);
+        for (int i = 0; i < 50; i++) {
+            assertThat(limiter.tryAcquire()).isTrue();
+            limiter.onDropped();
+        }
+        assertThat(limiter.getLimit()).isEqualTo(2);
+        assertThat(limiter.getInFlight()).isZero();
+    }
+    
+    @Test
+    void concurrentCallersKeepSlotsAndLimitConsistent() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(20, 4, 64);
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        for (int t = 0; t < 16; t++) {
+            executor.execute(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < 20_000; i++) {
+                    if (!limiter.tryAcquire(random.nextBoolean() ? 1.0 : 0.5)) {
+                        continue;
+                    }
+                    assertThat(limiter.getInFlight()).isLessThanOrEqualTo(64);
+                    int outcome = random.nextInt(20);
+                    if (outcome == 0) {
+                        limiter.onDropped();
+                    } else if (outcome == 1) {
+                        limiter.onIgnored();
+                    } else {
+                        limiter.onSuccess(random.nextLong(500_000, 2_000_000));
+                    }
+                }
+            });
+        }
+        executor.shutdown();
+        assertThat(executor.awaitTermination(30, TimeUnit.SECONDS)).isTrue();
+        
+        assertThat(limiter.getInFlight()).isZero();
+        assertThat(limiter.getLimit()).isBetween(4, 64);
+    }
+    
+    private static void fill(AdaptiveConcurrencyLimiter limiter) {
+        while (limiter.tryAcquire()) {
+            // take every slot, so the sample counts
+        }
+    }
+    
+    private static void drain(AdaptiveConcurrencyLimiter limiter) {
+        while (limiter.getInFlight() > 0) {
+            limiter.onIgnored();
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.ecommerce.resilience;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CircuitBreakerTest {
+    
+    private final List<String> transitions = new ArrayList<>();
+    
+    @Test
+    void opensOnceTheFailureRateIsReachedOverTheMinimumCalls() {
+        CircuitBreaker breaker = breaker(Duration.ofMinutes(1));
+        breaker.onFailure();
+        breaker.onFailure();
+        // Two failures are below the minimum of four calls
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+        
+        breaker.onSuccess();
+        breaker.onFailure();
+        
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThat(breaker.tryAcquirePermission()).isFalse();
+        assertThat(transitions).containsExactly("CLOSED->OPEN");
+    }
+    
+    @Test
+    void oldOutcomesLeaveTheWindow() {
+        CircuitBreaker breaker = breaker(Duration.ofMinutes(1));
+        for (int i = 0; i < 3; i++) {
+            breaker.onFailure();
+        }
+        for (int i = 0; i < 4; i++) {
+            breaker.onSuccess();
+        }
+        // 4 of 8 calls failed, but the first three have slid out of the four-call window
+        breaker.onFailure();
+        
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+    
+    @Test
+    void halfOpenProbesCloseOrReopen() throws InterruptedException {
+        CircuitBreaker breaker = breaker(Duration.ofMillis(20));
+        breaker.openFor(Duration.ofMillis(20));
+        Thread.sleep(30);
+        
+        assertThat(breaker.tryAcquirePermission()).isTrue();
+        assertThat(breaker.tryAcquirePermission()).isTrue();
+        assertThat(breaker.tryAcquirePermission()).isFalse();
+        breaker.releasePermission();
+        assertThat(breaker.tryAcquirePermission()).isTrue();
+        breaker.onSuccess();
+        breaker.onFailure();
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+        
+        Thread.sleep(30);
+        assertThat(breaker.tryAcquirePermission()).isTrue();
+        assertThat(breaker.tryAcquirePermission()).isTrue();
+        breaker.onSuccess();
+        breaker.onSuccess();
+        
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+        assertThat(transitions).containsExactly(
+                "CLOSED->OPEN", "OPEN->HALF_OPEN", "HALF_OPEN->OPEN", "OPEN->HALF_OPEN", "HALF_OPEN->CLOSED");
+    }
+    
+    private CircuitBreaker breaker(Duration openDuration) {
+        // 50% of the last 4 calls, at least 4 of them; 2 probes
+        return new CircuitBreaker(0.5, 4, 4, openDuration, 2, (from, to) -> transitions.add(from + "->" + to));
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.ecommerce.service;
+
+import com.example.ecommerce.model.Money;
+import com.example.ecommerce.model.Product;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CatalogResponseCacheTest {
+    
+    private final CatalogResponseCache cache = new CatalogResponseCache(new ObjectMapper().findAndRegisterModules());
+    
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(cache, "enabled", true);
+        ReflectionTestUtils.setField(cache, "maxEntries", 100);
+    }
+    
+    @Test
+    void productWriteEvictsOnlyThePagesHoldingIt() {
+        cache.storePage("0:2", "p0", List.of(product("a"), product("b")));
+        cache.storePage("1:2", "p1", List.of(product("c"), product("d")));
+        cache.storePage("all", "pall", List.of(product("a"), product("b"), product("c"), product("d")));
+        cache.storeProduct("a", "va", product("a"));
+        cache.storeProduct("c", "vc", product("c"));
+        
+        cache.evict("a");
+        
+        assertThat(cache.findPage("0:2", "p0")).isEmpty();
+        assertThat(cache.findPage("all", "pall")).isEmpty();
+        assertThat(cache.findProduct("a", "va")).isEmpty();
+        assertThat(cache.findPage("1:2", "p1")).isPresent();
+        assertThat(cache.findProduct("c", "vc")).isPresent();
+    }
+    
+    private static Product product(String id) {
+        return Product.builder()
+                .id(id)
+                .name("Product " + id)
+                .price(Money.ofMinor(100, Money.DEFAULT_CURRENCY))
+                .stock(1)
+                .available(1)
+                .version(1L)
+                .build();
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.ecommerce.service;
+
+import com.example.ecommerce.model.Money;
+import com.example.ecommerce.model.Product;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CatalogSnapshotCodecTest {
+    
+    @Test
+    void productsReadBackAsWritten() throws IOException {
+        Product full = Product.builder()
+                .id("p1")
+                .name("Kaffeemühle")
+                .description("Grinds beans — finely")
+                .price(Money.ofMinor(4999, "EUR"))
+                .stock(10)
+                .reserved(2)
+                .available(8)
+                .leased(0)
+                .hot(true)
+                .version(7L)
+                .lastModified(Instant.ofEpochMilli(1_700_000_000_123L))
+                .build();
+        // Missing fields come back as missing, not as zero
+        Product sparse = Product.builder()
+                .id("p2")
+                .name("Teapot")
+                .price(Money.ofMinor(1200, "JPY"))
+                .hot(false)
+                .build();
+        
+        List<Product> read = CatalogSnapshotCodec.read(snapshot(full, sparse));
+        
+        assertThat(read).containsExactly(full, sparse);
+    }
+    
+    @Test
+    void emptyCatalogReadsAsEmpty() throws IOException {
+        assertThat(CatalogSnapshotCodec.read(snapshot())).isEmpty();
+    }
+    
+    @Test
+    void otherFilesAreRejected() throws IOException {
+        assertThatThrownBy(() -> CatalogSnapshotCodec.read(ByteBuffer.wrap("not a snapshot at all".getBytes())))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Not a catalog snapshot");
+        assertThatThrownBy(() -> CatalogSnapshotCodec.read(ByteBuffer.allocate(4)))
+                .isInstanceOf(IllegalArgumentException.class);
+        
+        ByteBuffer future = snapshot();
+        future.putInt(4, 2);
+        assertThatThrownBy(() -> CatalogSnapshotCodec.read(future))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Unsupported catalog snapshot version 2");
+    }
+    
+    private static ByteBuffer snapshot(Product... products) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        CatalogSnapshotCodec.writeHeader(out, Instant.now(), products.length);
+        for (Product product : products) {
+            CatalogSnapshotCodec.write(out, product);
+        }
+        out.flush();
+        return ByteBuffer.wrap(bytes.toByteArray());
+    }
+}
@@ -0,0 +1,153 @@
+package com.example.ecommerce.service;
+
+import com.example.ecommerce.dto.CreateOrderRequest;
+import com.example.ecommerce.events.DomainEventBus;
+import com.example.ecommerce.exception.ServiceUnavailableException;
+import com.example.ecommerce.model.CartItem;
+import com.example.ecommerce.model.Money;
+import com.example.ecommerce.model.Order;
+import com.example.ecommerce.model.Product;
+import com.example.ecommerce.repository.memory.InMemoryCartItemRepository;
+import com.example.ecommerce.repository.memory.InMemoryOrderRepository;
+import com.example.ecommerce.repository.memory.InMemoryProductRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+
+class CheckoutCombinerTest {
+    
+    private final InMemoryCartItemRepository carts = new InMemoryCartItemRepository();
+    private final InMemoryProductRepository products = spy(new InMemoryProductRepository());
+    private final InMemoryOrderRepository orders = spy(new InMemoryOrderRepository());
+    private final StockReservationService reservations = mock(StockReservationService.class);
+    private final HotInventoryService hotInventory = mock(HotInventoryService.class);
+    
+    private CheckoutCombiner combiner;
+    
+    @AfterEach
+    void stop() throws InterruptedException {
+        if (combiner != null) {
+            combiner.shutdown();
+        }
+    }
+    
+    @Test
+    void shortProductIsRetriedOneCheckoutAtATime() throws Exception {
+        String productId = products.insert(product(10)).getId();
+        // Another writer sells 7 between the batch's read and its combined take of 3 x 2
+        doAnswer(invocation -> {
+            Object snapshot = invocation.callRealMethod();
+            products.adjustStock(productId, -7);
+            return snapshot;
+        }).when(products).findAllById(any());
+        
+        List<CompletableFuture<Order>> checkouts = checkout(productId, 2, "first", "second", "third");
+        
+        assertThat(checkouts.get(0).get(5, TimeUnit.SECONDS).getUserId()).isEqualTo("first");
+        assertThatThrownBy(() -> checkouts.get(1).get(5, TimeUnit.SECONDS))
+                .hasMessageContaining("Insufficient stock");
+        assertThatThrownBy(() -> checkouts.get(2).get(5, TimeUnit.SECONDS))
+                .hasMessageContaining("Insufficient stock");
+        combiner.shutdown();
+        Product after = products.findById(productId).orElseThrow();
+        assertThat(after.getAvailable()).isEqualTo(1);
+        assertThat(after.getStock()).isEqualTo(1);
+    }
+    
+    @Test
+    void failedTakeReturnsWhatWasAlreadyTaken() throws Exception {
+        String plenty = products.insert(product(10)).getId();
+        String broken = products.insert(product(10)).getId();
+        // Whichever product is taken second fails, after the first was already taken
+        AtomicInteger takes = new AtomicInteger();
+        doAnswer(invocation -> {
+            if (takes.incrementAndGet() == 2) {
+                throw new IllegalStateException("write failed");
+            }
+            return invocation.callRealMethod();
+        }).when(products).takeAvailableStock(anyString(), anyInt());
+        
+        carts.save(cartItem("both", plenty, 3));
+        List<CompletableFuture<Order>> checkouts = checkout(broken, 1, "both");
+        
+        assertThatThrownBy(() -> checkouts.get(0).get(5, TimeUnit.SECONDS)).isInstanceOf(ExecutionException.class);
+        combiner.shutdown();
+        assertThat(products.findById(plenty).orElseThrow().getAvailable()).isEqualTo(10);
+        assertThat(products.findById(broken).orElseThrow().getAvailable()).isEqualTo(10);
+    }
+    
+    @Test
+    void partialInsertKeepsInsertedOrdersAndReturnsTheRest() throws Exception {
+        String productId = products.insert(product(10)).getId();
+        // The first order is written, then the insert fails
+        doAnswer(invocation -> {
+            Iterable<Order> batch = invocation.getArgument(0);
+            orders.insert(batch.iterator().next());
+            throw new IllegalStateException("insert failed");
+        }).when(orders).insert(any(Iterable.class));
+        
+        List<CompletableFuture<Order>> checkouts = checkout(productId, 2, "kept", "returned");
+        
+        Order kept = checkouts.get(0).get(5, TimeUnit.SECONDS);
+        assertThat(orders.findById(kept.getId())).isPresent();
+        assertThatThrownBy(() -> checkouts.get(1).get(5, TimeUnit.SECONDS))
+                .hasCauseInstanceOf(ServiceUnavailableException.class);
+        // Stock goes back after the callers hear; stopping the worker waits for the batch to finish
+        combiner.shutdown();
+        assertThat(products.findById(productId).orElseThrow().getAvailable()).isEqualTo(8);
+        assertThat(carts.findByUserId("kept")).isEmpty();
+        assertThat(carts.findByUserId("returned")).hasSize(1);
+    }
+    
+    private List<CompletableFuture<Order>> checkout(String productId, int quantity, String... userIds) {
+        for (String userId : userIds) {
+            carts.save(cartItem(userId, productId, quantity));
+        }
+        combiner = new CheckoutCombiner(carts, products, orders, mock(DomainEventBus.class), reservations, hotInventory);
+        ReflectionTestUtils.setField(combiner, "lingerMs", 200L);
+        ReflectionTestUtils.setField(combiner, "maxBatchSize", userIds.length);
+        // Queued before the worker starts, so they all land in one batch
+        List<CompletableFuture<Order>> futures = List.of(userIds).stream()
+                .map(userId -> combiner.submit(new CreateOrderRequest(userId)))
+                .toList();
+        combiner.start();
+        return futures;
+    }
+    
+    private static CartItem cartItem(String userId, String productId, int quantity) {
+        return CartItem.builder()
+                .id(UUID.randomUUID().toString())
+                .userId(userId)
+                .productId(productId)
+                .quantity(quantity)
+                .lastTouchedAt(Instant.now())
+                .build();
+    }
+    
+    private static Product product(int stock) {
+        return Product.builder()
+                .name("Widget")
+                .price(Money.ofMinor(999, Money.DEFAULT_CURRENCY))
+                .stock(stock)
+                .reserved(0)
+                .available(stock)
+                .build();
+    }
+}
@@ -0,0 +1,231 @@
+package com.example.ecommerce.service;
+
+import com.example.ecommerce.dto.AddToCartRequest;
+import com.example.ecommerce.dto.CreateOrderRequest;
+import com.example.ecommerce.dto.CreateProductRequest;
+import com.example.ecommerce.dto.CreateUserRequest;
+import com.example.ecommerce.model.CartItem;
+import com.example.ecommerce.model.Money;
+import com.example.ecommerce.model.Order;
+import com.example.ecommerce.model.Product;
+import com.example.ecommerce.repository.CartItemRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Concurrency and replay behaviour of the write path, on the in-memory repositories.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("memory")
+class CheckoutIntegrationTest {
+    
+    @Autowired
+    private UserService userService;
+    
+    @Autowired
+    private ProductService productService;
+    
+    @Autowired
+    private CartService cartService;
+    
+    @Autowired
+    private OrderService orderService;
+    
+    @Autowired
+    private CartItemRepository cartItemRepository;
+    
+    @Autowired
+    private MockMvc mockMvc;
+    
+    @Test
+    void concurrentSignupsWithTheSameUsernameCreateOneUser() throws Exception {
+        String username = "signup-" + UUID.randomUUID();
+        
+        List<String> results = concurrently(16, i -> () -> {
+            try {
+                userService.createUser(CreateUserRequest.builder()
+                        .username(username)
+                        .email(username + "-" + i + "@example.com")
+                        .build());
+                return "created";
+            } catch (RuntimeException e) {
+                return e.getMessage();
+            }
+        });
+        
+        assertThat(results).containsOnlyOnce("created");
+        assertThat(results).filteredOn(result -> !"created".equals(result))
+                .allMatch(result -> result.startsWith("Username already exists"));
+        assertThat(userService.getUserByUsername(username)).isPresent();
+    }
+    
+    @Test
+    void concurrentHoldsNeverExceedStock() throws Exception {
+        String productId = product(20).getId();
+        
+        List<Boolean> results = concurrently(50, i -> () -> {
+            try {
+                cartService.addToCart(new AddToCartRequest("holder-" + UUID.randomUUID(), productId, 1));
+                return true;
+            } catch (RuntimeException e) {
+                return false;
+            }
+        });
+        
+        assertThat(results.stream().filter(Boolean::booleanValue).count()).isEqualTo(20);
+        Product product = productService.getProductById(productId).orElseThrow();
+        assertThat(product.getReserved()).isEqualTo(20);
+        assertThat(product.getAvailable()).isZero();
+        assertThat(product.getStock()).isEqualTo(20);
+    }
+    
+    @Test
+    void concurrentCheckoutsOfHeldStockAreBatched() throws Exception {
+        String productId = product(24).getId();
+        List<String> userIds = new ArrayList<>();
+        for (int i = 0; i < 24; i++) {
+            String userId = "buyer-" + UUID.randomUUID();
+            cartService.addToCart(new AddToCartRequest(userId, productId, 1));
+            userIds.add(userId);
+        }
+        
+        List<Order> orders = concurrently(userIds.size(), i ->
+                () -> orderService.createOrder(new CreateOrderRequest(userIds.get(i))));
+        
+        assertThat(orders).allMatch(Objects::nonNull);
+        assertThat(orders).extracting(Order::getUserId).containsExactlyInAnyOrderElementsOf(userIds);
+        // Orders committed in one batch share its creation time
+        assertThat(orders.stream().map(Order::getCreatedAt).distinct().count()).isLessThan(userIds.size());
+        Product product = productService.getProductById(productId).orElseThrow();
+        assertThat(product.getStock()).isZero();
+        assertThat(product.getReserved()).isZero();
+        assertThat(product.getAvailable()).isZero();
+        assertThat(userIds).allMatch(userId -> cartService.getCartItems(userId).isEmpty());
+    }
+    
+    @Test
+    void concurrentCheckoutsWithoutHoldsNeverOversell() throws Exception {
+        Product product = product(5);
+        // Carts written directly, as if their holds had expired
+        List<String> userIds = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            String userId = "late-" + UUID.randomUUID();
+            cartItemRepository.save(CartItem.builder()
+                    .userId(userId)
+                    .productId(product.getId())
+                    .quantity(1)
+                    .lastTouchedAt(Instant.now())
+                    .build());
+            userIds.add(userId);
+        }
+        
+        List<String> results = concurrently(userIds.size(), i -> () -> {
+            try {
+                orderService.createOrder(new CreateOrderRequest(userIds.get(i)));
+                return "created";
+            } catch (RuntimeException e) {
+                return e.getMessage();
+            }
+        });
+        
+        assertThat(results).filteredOn("created"::equals).hasSize(5);
+        assertThat(results).filteredOn(result -> !"created".equals(result))
+                .allMatch(result -> result.startsWith("Insufficient stock"));
+        Product after = productService.getProductById(product.getId()).orElseThrow();
+        assertThat(after.getStock()).isZero();
+        assertThat(after.getAvailable()).isZero();
+    }
+    
+    @Test
+    void checkoutWithTheSameIdempotencyKeyIsReplayed() throws Exception {
+        String productId = product(10).getId();
+        String userId = "replay-" + UUID.randomUUID();
+        cartService.addToCart(new AddToCartRequest(userId, productId, 2));
+        String key = UUID.randomUUID().toString();
+        String body = "{\"userId\":\"" + userId + "\"}";
+        
+        MvcResult first = mockMvc.perform(post("/api/orders")
+                        .header(IdempotencyService.HEADER, key)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isCreated())
+                .andExpect(header().doesNotExist(IdempotencyService.REPLAYED_HEADER))
+                .andReturn();
+        MvcResult second = mockMvc.perform(post("/api/orders")
+                        .header(IdempotencyService.HEADER, key)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isCreated())
+                .andExpect(header().string(IdempotencyService.REPLAYED_HEADER, "true"))
+                .andReturn();
+        
+        assertThat(second.getResponse().getContentAsString()).isEqualTo(first.getResponse().getContentAsString());
+        assertThat(orderService.getOrdersByUserId(userId)).hasSize(1);
+        assertThat(productService.getProductById(productId).orElseThrow().getStock()).isEqualTo(8);
+        
+        // The same key for a different request is refused, not run
+        mockMvc.perform(post("/api/orders")
+                        .header(IdempotencyService.HEADER, key)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"userId\":\"someone-else\"}"))
+                .andExpect(status().isUnprocessableEntity());
+    }
+    
+    private Product product(int stock) {
+        return productService.createProduct(CreateProductRequest.builder()
+                .name("Test product " + UUID.randomUUID())
+                .price(Money.ofMinor(999, Money.DEFAULT_CURRENCY))
+                .stock(stock)
+                .build());
+    }
+    
+    private static <R> List<R> concurrently(int tasks, IntFunction<Callable<R>> task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(tasks);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<R>> futures = IntStream.range(0, tasks)
+                    .mapToObj(i -> {
+                        Callable<R> work = task.apply(i);
+                        return executor.submit(() -> {
+                            start.await();
+                            return work.call();
+                        });
+                    })
+                    .toList();
+            start.countDown();
+            List<R> results = new ArrayList<>();
+            for (Future<R> future : futures) {
+                results.add(future.get(30, TimeUnit.SECONDS));
+            }
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
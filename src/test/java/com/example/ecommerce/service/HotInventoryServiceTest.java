@@ -0,0 +1,87 @@
+package com.example.ecommerce.service;
+
+import com.example.ecommerce.model.Money;
+import com.example.ecommerce.model.Product;
+import com.example.ecommerce.model.StockLease;
+import com.example.ecommerce.repository.memory.InMemoryProductRepository;
+import com.example.ecommerce.repository.memory.InMemoryStockLeaseRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HotInventoryServiceTest {
+    
+    private final InMemoryProductRepository products = new InMemoryProductRepository();
+    private final InMemoryStockLeaseRepository leases = new InMemoryStockLeaseRepository();
+    
+    @Test
+    void leaseOfACrashedInstanceIsReclaimed() throws Exception {
+        String productId = hotProduct(50);
+        HotInventoryService crashed = instance(Duration.ofMillis(200));
+        crashed.reconcile();
+        assertThat(crashed.tryTake(productId, 5)).isTrue();
+        crashed.reconcile();
+        assertThat(products.findById(productId).orElseThrow().getLeased()).isEqualTo(45);
+        
+        // No shutdown: the lease is only given back once it has expired
+        HotInventoryService survivor = instance(Duration.ofMinutes(2));
+        survivor.reclaimExpiredLeases();
+        assertThat(products.findById(productId).orElseThrow().getLeased()).isEqualTo(45);
+        Thread.sleep(300);
+        survivor.reclaimExpiredLeases();
+        
+        Product product = products.findById(productId).orElseThrow();
+        assertThat(product.getStock()).isEqualTo(45);
+        assertThat(product.getLeased()).isZero();
+        assertThat(product.getAvailable()).isEqualTo(45);
+        assertThat(leases.count()).isZero();
+    }
+    
+    @Test
+    void ownerOfAReclaimedLeaseStartsOverWithoutOverselling() throws Exception {
+        String productId = hotProduct(20);
+        HotInventoryService slow = instance(Duration.ofMillis(200));
+        slow.reconcile();
+        assertThat(slow.tryTake(productId, 3)).isTrue();
+        
+        // The owner stalls past its TTL, so another instance takes the lease back
+        Thread.sleep(300);
+        instance(Duration.ofMinutes(2)).reclaimExpiredLeases();
+        assertThat(products.findById(productId).orElseThrow().getAvailable()).isEqualTo(20);
+        
+        // Its next take drops the reclaimed units, commits the earlier sale and leases afresh
+        assertThat(slow.tryTake(productId, 17)).isTrue();
+        assertThat(slow.tryTake(productId, 1)).isFalse();
+        slow.reconcile();
+        
+        Product product = products.findById(productId).orElseThrow();
+        assertThat(product.getStock()).isZero();
+        assertThat(product.getAvailable()).isZero();
+        assertThat(product.getLeased()).isZero();
+        assertThat(leases.findAll()).extracting(StockLease::getQuantity).containsExactly(0);
+    }
+    
+    private HotInventoryService instance(Duration leaseTtl) {
+        HotInventoryService service = new HotInventoryService(products, leases);
+        ReflectionTestUtils.setField(service, "configuredStripes", 4);
+        ReflectionTestUtils.setField(service, "leaseSize", 1000);
+        ReflectionTestUtils.setField(service, "leaseTtl", leaseTtl);
+        ReflectionTestUtils.setField(service, "reclaimBatchSize", 10);
+        return service;
+    }
+    
+    private String hotProduct(int stock) {
+        return products.insert(Product.builder()
+                .name("Flash sale")
+                .price(Money.ofMinor(999, Money.DEFAULT_CURRENCY))
+                .stock(stock)
+                .reserved(0)
+                .leased(0)
+                .available(stock)
+                .hot(true)
+                .build()).getId();
+    }
+}
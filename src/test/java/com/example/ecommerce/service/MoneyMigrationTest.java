@@ -0,0 +1,95 @@
+package com.example.ecommerce.service;
+
+import com.example.ecommerce.config.MongoConfig;
+import com.example.ecommerce.model.Money;
+import com.example.ecommerce.model.Product;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.result.UpdateResult;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class MoneyMigrationTest {
+    
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+    private final OrderStatsService orderStatsService = mock(OrderStatsService.class);
+    private final MoneyMigration migration = new MoneyMigration(mongoTemplate, orderStatsService);
+    
+    @Test
+    void rewritesOnlyNumericAmountsIntoMinorUnits() {
+        MongoCollection<Document> products = collection("products", 3);
+        collection("orders", 0);
+        collection("payments", 0);
+        ReflectionTestUtils.setField(migration, "enabled", true);
+        
+        migration.migrate();
+        
+        ArgumentCaptor<Bson> filter = ArgumentCaptor.forClass(Bson.class);
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Bson>> pipeline = ArgumentCaptor.forClass(List.class);
+        verify(products).updateMany(filter.capture(), pipeline.capture());
+        assertThat(filter.getValue()).isEqualTo(new Document("price", new Document("$type", "number")));
+        Document set = (Document) ((Document) pipeline.getValue().get(0)).get("$set");
+        Document money = (Document) set.get("price");
+        assertThat(money.getString("currency")).isEqualTo(Money.DEFAULT_CURRENCY);
+        assertThat(money.toJson()).contains("$round", "$toDecimal", "$price", "100");
+        // No order amounts changed, so the stats need no recount
+        verify(orderStatsService, never()).rebuild();
+    }
+    
+    @Test
+    void migratedOrdersRecountTheStats() {
+        collection("products", 0);
+        collection("orders", 2);
+        collection("payments", 0);
+        ReflectionTestUtils.setField(migration, "enabled", true);
+        
+        migration.migrate();
+        
+        verify(orderStatsService).rebuild();
+    }
+    
+    @Test
+    void documentsNotYetMigratedAreReadAsTheDefaultCurrency() {
+        MongoCustomConversions conversions = new MongoConfig().mongoCustomConversions();
+        MongoMappingContext mappingContext = new MongoMappingContext();
+        mappingContext.setSimpleTypeHolder(conversions.getSimpleTypeHolder());
+        MappingMongoConverter converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, mappingContext);
+        converter.setCustomConversions(conversions);
+        converter.afterPropertiesSet();
+        
+        Product legacy = converter.read(Product.class, new Document("_id", "p1").append("price", 19.99));
+        Product whole = converter.read(Product.class, new Document("_id", "p2").append("price", 20));
+        Product migrated = converter.read(Product.class, new Document("_id", "p3")
+                .append("price", new Document("minorUnits", 1999L).append("currency", "EUR")));
+        
+        assertThat(legacy.getPrice()).isEqualTo(Money.ofMinor(1999, "USD"));
+        assertThat(whole.getPrice()).isEqualTo(Money.ofMinor(2000, "USD"));
+        assertThat(migrated.getPrice()).isEqualTo(Money.ofMinor(1999, "EUR"));
+    }
+    
+    @SuppressWarnings("unchecked")
+    private MongoCollection<Document> collection(String name, long modified) {
+        MongoCollection<Document> collection = mock(MongoCollection.class);
+        when(collection.updateMany(any(Bson.class), anyList())).thenReturn(UpdateResult.acknowledged(modified, modified, null));
+        when(mongoTemplate.getCollection(name)).thenReturn(collection);
+        return collection;
+    }
+}
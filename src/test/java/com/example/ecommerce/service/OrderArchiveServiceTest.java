@@ -0,0 +1,125 @@
+package com.example.ecommerce.service;
+
+import com.example.ecommerce.model.Money;
+import com.example.ecommerce.model.Order;
+import com.example.ecommerce.model.OrderItem;
+import com.example.ecommerce.repository.memory.InMemoryArchivedOrderRepository;
+import com.example.ecommerce.repository.memory.InMemoryOrderRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.spy;
+
+class OrderArchiveServiceTest {
+    
+    private static final Instant OLD = Instant.now().minus(Duration.ofDays(100));
+    
+    private final InMemoryOrderRepository orders = spy(new InMemoryOrderRepository());
+    private final InMemoryArchivedOrderRepository archive = new InMemoryArchivedOrderRepository();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    
+    @Test
+    void oldFinishedOrdersMoveAndStayReadable() {
+        Order paid = orders.insert(order("PAID", OLD));
+        Order recent = orders.insert(order("PAID", Instant.now()));
+        Order open = orders.insert(order("CREATED", OLD));
+        OrderArchiveService service = archiver();
+        
+        service.archive();
+        
+        assertThat(orders.findById(paid.getId())).isEmpty();
+        assertThat(orders.findById(recent.getId())).isPresent();
+        assertThat(orders.findById(open.getId())).isPresent();
+        Order archived = service.findById(paid.getId()).orElseThrow();
+        assertThat(archived.getTotalAmount()).isEqualTo(paid.getTotalAmount());
+        assertThat(archived.getItems()).extracting(OrderItem::getProductId).containsExactly("product-1");
+        assertThat(service.withArchived("user-1", orders.findByUserId("user-1")))
+                .extracting(Order::getId)
+                .containsExactlyInAnyOrder(paid.getId(), recent.getId(), open.getId());
+    }
+    
+    @Test
+    void orderThatChangedStatusStaysHotWithoutAnArchiveCopy() {
+        Order order = orders.insert(order("FAILED", OLD));
+        // A retried payment turns it PAID after the archiver read it as FAILED
+        doAnswer(invocation -> {
+            Object batch = invocation.callRealMethod();
+            orders.save(orders.findById(order.getId()).orElseThrow().toBuilder().status("PAID").build());
+            return batch;
+        }).when(orders).findTerminalCreatedBefore(any(), anyInt());
+        
+        archiver().archive();
+        
+        assertThat(orders.findById(order.getId()).orElseThrow().getStatus()).isEqualTo("PAID");
+        assertThat(archive.findById(order.getId())).isEmpty();
+    }
+    
+    @Test
+    void concurrentArchiversMoveEachOrderOnceAndLoseNone() throws Exception {
+        for (int i = 0; i < 20; i++) {
+            orders.insert(order("PAID", OLD));
+        }
+        // Both runs read the same batch; the second deletes only after the first has
+        CyclicBarrier bothRead = new CyclicBarrier(2);
+        doAnswer(invocation -> {
+            Object batch = invocation.callRealMethod();
+            bothRead.await(5, TimeUnit.SECONDS);
+            return batch;
+        }).when(orders).findTerminalCreatedBefore(any(), anyInt());
+        AtomicInteger deletes = new AtomicInteger();
+        CountDownLatch firstDeleted = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            if (deletes.incrementAndGet() == 1) {
+                Object deleted = invocation.callRealMethod();
+                firstDeleted.countDown();
+                return deleted;
+            }
+            firstDeleted.await(5, TimeUnit.SECONDS);
+            return invocation.callRealMethod();
+        }).when(orders).deleteArchived(any());
+        
+        OrderArchiveService first = archiver();
+        OrderArchiveService second = archiver();
+        CompletableFuture.allOf(CompletableFuture.runAsync(first::archive), CompletableFuture.runAsync(second::archive))
+                .get(10, TimeUnit.SECONDS);
+        
+        assertThat(orders.count()).isZero();
+        assertThat(archive.count()).isEqualTo(20);
+        assertThat(meterRegistry.counter("orders.archive.moved").count()).isEqualTo(20);
+    }
+    
+    private OrderArchiveService archiver() {
+        OrderArchiveService service = new OrderArchiveService(orders, archive, meterRegistry);
+        service.registerMetrics();
+        ReflectionTestUtils.setField(service, "enabled", true);
+        ReflectionTestUtils.setField(service, "age", Duration.ofDays(90));
+        ReflectionTestUtils.setField(service, "batchSize", 50);
+        ReflectionTestUtils.setField(service, "maxBatchesPerRun", 5);
+        return service;
+    }
+    
+    private static Order order(String status, Instant createdAt) {
+        return Order.builder()
+                .userId("user-1")
+                .status(status)
+                .items(List.of(OrderItem.builder().productId("product-1").quantity(2)
+                        .price(Money.ofMinor(999, Money.DEFAULT_CURRENCY)).build()))
+                .totalAmount(Money.ofMinor(1998, Money.DEFAULT_CURRENCY))
+                .createdAt(createdAt)
+                .build();
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.ecommerce.service;
+
+import com.example.ecommerce.events.DomainEventBus;
+import com.example.ecommerce.events.OrderCancelled;
+import com.example.ecommerce.model.Money;
+import com.example.ecommerce.model.Order;
+import com.example.ecommerce.model.OrderItem;
+import com.example.ecommerce.model.Payment;
+import com.example.ecommerce.repository.memory.InMemoryOrderRepository;
+import com.example.ecommerce.repository.memory.InMemoryPaymentRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CyclicBarrier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.atLeast;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+class OrderExpiryServiceTest {
+    
+    private final InMemoryOrderRepository orders = new InMemoryOrderRepository();
+    private final InMemoryPaymentRepository payments = new InMemoryPaymentRepository();
+    private final ProductService productService = mock(ProductService.class);
+    private final DomainEventBus eventBus = mock(DomainEventBus.class);
+    
+    @Test
+    void concurrentSweepersExpireEachOrderOnce() throws Exception {
+        Instant old = Instant.now().minus(Duration.ofHours(2));
+        for (int i = 0; i < 50; i++) {
+            orders.insert(order(old));
+        }
+        Order paid = orders.insert(order(old));
+        payments.insert(Payment.builder().orderId(paid.getId()).paymentId("pay-1").status("PENDING").build());
+        
+        // Two instances sweeping the same pages at the same time
+        OrderExpiryService first = sweeper();
+        OrderExpiryService second = sweeper();
+        CyclicBarrier start = new CyclicBarrier(2);
+        CompletableFuture<Void> a = CompletableFuture.runAsync(() -> await(start, first));
+        CompletableFuture<Void> b = CompletableFuture.runAsync(() -> await(start, second));
+        CompletableFuture.allOf(a, b).get();
+        
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Map<String, Integer>> restocks = ArgumentCaptor.forClass(Map.class);
+        verify(productService, atLeast(1)).updateStock(restocks.capture());
+        int restocked = restocks.getAllValues().stream()
+                .mapToInt(restock -> restock.getOrDefault("product-1", 0))
+                .sum();
+        assertThat(restocked).isEqualTo(50 * 2);
+        
+        ArgumentCaptor<OrderCancelled> cancelled = ArgumentCaptor.forClass(OrderCancelled.class);
+        verify(eventBus, atLeast(1)).publish(cancelled.capture());
+        assertThat(cancelled.getAllValues().stream().mapToInt(event -> event.getOrders().size()).sum()).isEqualTo(50);
+        assertThat(orders.findById(paid.getId()).orElseThrow().getStatus()).isEqualTo("CREATED");
+    }
+    
+    private OrderExpiryService sweeper() {
+        OrderExpiryService service = new OrderExpiryService(orders, payments, productService, eventBus,
+                new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(service, "enabled", true);
+        ReflectionTestUtils.setField(service, "deadline", Duration.ofMinutes(30));
+        ReflectionTestUtils.setField(service, "grace", Duration.ofSeconds(30));
+        ReflectionTestUtils.setField(service, "batchSize", 7);
+        return service;
+    }
+    
+    private static void await(CyclicBarrier start, OrderExpiryService service) {
+        try {
+            start.await();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+        service.expireUnpaidOrders();
+    }
+    
+    private static Order order(Instant createdAt) {
+        return Order.builder()
+                .userId("user-1")
+                .status("CREATED")
+                .items(List.of(OrderItem.builder().productId("product-1").quantity(2).build()))
+                .totalAmount(Money.ofMinor(1998, Money.DEFAULT_CURRENCY))
+                .createdAt(createdAt)
+                .build();
+    }
+}
@@ -0,0 +1,144 @@
+package com.example.ecommerce.service;
+
+import com.example.ecommerce.dto.OrderEventsResponse;
+import com.example.ecommerce.journal.OrderEvent;
+import com.example.ecommerce.model.Money;
+import com.example.ecommerce.model.Order;
+import com.example.ecommerce.model.Payment;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OrderJournalServiceTest {
+    
+    @TempDir
+    Path directory;
+    
+    private OrderJournalService service;
+    
+    @AfterEach
+    void stop() throws Exception {
+        if (service != null) {
+            service.shutdown();
+        }
+    }
+    
+    @Test
+    void historyAndViewsSurviveARestart() throws Exception {
+        service = start(DataSize.ofMegabytes(1), Duration.ofDays(30));
+        Order order = order("order-1");
+        service.recordCreated(List.of(order));
+        service.recordPaymentPending(Payment.builder()
+                .orderId("order-1")
+                .paymentId("payment-1")
+                .amount(order.getTotalAmount())
+                .build());
+        await(service.append(paid("order-1")));
+        
+        OrderEventsResponse before = service.getEvents("order-1").orElseThrow();
+        assertThat(before.getEvents()).extracting(OrderEvent::getType)
+                .containsExactly(OrderEvent.Type.CREATED, OrderEvent.Type.PAYMENT_PENDING, OrderEvent.Type.PAID);
+        // Each event carries the state forward
+        assertThat(before.getCurrent().getPaymentId()).isEqualTo("payment-1");
+        assertThat(before.getCurrent().getUserId()).isEqualTo("user-1");
+        
+        service.shutdown();
+        service = start(DataSize.ofMegabytes(1), Duration.ofDays(30));
+        
+        OrderEventsResponse after = service.getEvents("order-1").orElseThrow();
+        assertThat(after.getCurrent()).isEqualTo(before.getCurrent());
+        assertThat(after.getEvents()).isEqualTo(before.getEvents());
+        assertThat(service.getEvents("missing")).isEmpty();
+    }
+    
+    @Test
+    void compactionKeepsOpenOrdersLatestAndForgetsFinishedOrders() throws Exception {
+        service = start(DataSize.ofBytes(1024), Duration.ZERO);
+        for (int i = 0; i < 10; i++) {
+            String orderId = "order-" + i;
+            service.recordCreated(List.of(order(orderId)));
+            await(service.append(i % 2 == 0 ? paid(orderId) : pending(orderId)));
+        }
+        // Fill the active segment so every order's events are in sealed segments
+        for (int i = 0; i < 20; i++) {
+            service.recordCreated(List.of(order("filler-" + i)));
+        }
+        await(service.append(pending("filler-19")));
+        Thread.sleep(5);
+        
+        service.compact();
+        
+        for (int i = 0; i < 10; i++) {
+            Optional<OrderEventsResponse> events = service.getEvents("order-" + i);
+            if (i % 2 == 0) {
+                assertThat(events).isEmpty();
+            } else {
+                assertThat(events.orElseThrow().getEvents()).extracting(OrderEvent::getType)
+                        .containsExactly(OrderEvent.Type.PAYMENT_PENDING);
+                assertThat(events.orElseThrow().getCurrent().getStatus()).isEqualTo("CREATED");
+            }
+        }
+        
+        service.shutdown();
+        service = start(DataSize.ofBytes(1024), Duration.ZERO);
+        assertThat(service.getEvents("order-2")).isEmpty();
+        assertThat(service.getEvents("order-3").orElseThrow().getEvents())
+                .extracting(OrderEvent::getType)
+                .containsExactly(OrderEvent.Type.PAYMENT_PENDING);
+    }
+    
+    private OrderJournalService start(DataSize segmentSize, Duration retainHistory) throws Exception {
+        OrderJournalService journal = new OrderJournalService(new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(journal, "enabled", true);
+        ReflectionTestUtils.setField(journal, "directory", directory.toString());
+        ReflectionTestUtils.setField(journal, "segmentSize", segmentSize);
+        ReflectionTestUtils.setField(journal, "maxBatchSize", 256);
+        ReflectionTestUtils.setField(journal, "lingerMs", 1L);
+        ReflectionTestUtils.setField(journal, "retainHistory", retainHistory);
+        journal.start();
+        return journal;
+    }
+    
+    private static Order order(String id) {
+        return Order.builder()
+                .id(id)
+                .userId("user-1")
+                .status("CREATED")
+                .totalAmount(Money.ofMinor(1999, Money.DEFAULT_CURRENCY))
+                .createdAt(Instant.now())
+                .build();
+    }
+    
+    private static OrderEvent paid(String orderId) {
+        return OrderEvent.builder()
+                .type(OrderEvent.Type.PAID)
+                .orderId(orderId)
+                .status("PAID")
+                .build();
+    }
+    
+    private static OrderEvent pending(String orderId) {
+        return OrderEvent.builder()
+                .type(OrderEvent.Type.PAYMENT_PENDING)
+                .orderId(orderId)
+                .paymentId("payment-" + orderId)
+                .build();
+    }
+    
+    private static void await(CompletableFuture<Long> durable) throws Exception {
+        durable.get(5, TimeUnit.SECONDS);
+    }
+}
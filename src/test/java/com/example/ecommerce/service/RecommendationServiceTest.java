@@ -0,0 +1,64 @@
+package com.example.ecommerce.service;
+
+import com.example.ecommerce.dto.RelatedProductsResponse;
+import com.example.ecommerce.model.Order;
+import com.example.ecommerce.model.OrderItem;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class RecommendationServiceTest {
+    
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+    private final RecommendationService service = new RecommendationService(mongoTemplate);
+    
+    @Test
+    void ordersRecordedDuringTheScanAreCountedOnce() {
+        ReflectionTestUtils.setField(service, "maxNeighbors", 10);
+        ReflectionTestUtils.setField(service, "maxItemsPerOrder", 50);
+        Order old = order("old", Instant.now().minus(Duration.ofDays(1)), "a", "b");
+        Order seenByBoth = order("both", Instant.now(), "a", "b");
+        Order missedByScan = order("missed", Instant.now(), "a", "c");
+        
+        // Two orders are created while the scan runs; the scan still sees one of them
+        Stream<Order> scan = Stream.of(old, seenByBoth).peek(order -> {
+            if (order == old) {
+                service.record(seenByBoth);
+                service.record(missedByScan);
+            }
+        });
+        when(mongoTemplate.stream(any(Query.class), eq(Order.class))).thenReturn(scan);
+        
+        assertThat(service.rebuild()).isEqualTo(2);
+        
+        RelatedProductsResponse related = service.getRelated("a", 10);
+        assertThat(related.getRelated())
+                .extracting(RelatedProductsResponse.RelatedProduct::getProductId,
+                        RelatedProductsResponse.RelatedProduct::getCount)
+                .containsExactly(
+                        tuple("b", 2),
+                        tuple("c", 1));
+    }
+    
+    private static Order order(String id, Instant createdAt, String... productIds) {
+        return Order.builder()
+                .id(id)
+                .createdAt(createdAt)
+                .items(Stream.of(productIds)
+                        .map(productId -> OrderItem.builder().productId(productId).quantity(1).build())
+                        .toList())
+                .build();
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.ecommerce.service;
+
+import com.example.ecommerce.model.Order;
+import com.example.ecommerce.model.OrderItem;
+import com.example.ecommerce.model.TrendingSnapshot;
+import com.example.ecommerce.repository.memory.InMemoryProductRepository;
+import com.example.ecommerce.repository.memory.InMemoryTrendingSnapshotRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doCallRealMethod;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.spy;
+
+class TrendingProductsServiceTest {
+    
+    private final InMemoryTrendingSnapshotRepository snapshots = spy(new InMemoryTrendingSnapshotRepository());
+    private final TrendingProductsService service = new TrendingProductsService(snapshots, new InMemoryProductRepository());
+    
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(service, "width", 256);
+        ReflectionTestUtils.setField(service, "depth", 4);
+        ReflectionTestUtils.setField(service, "topK", 10);
+        ReflectionTestUtils.setField(service, "instanceId", "test");
+        service.init();
+    }
+    
+    @Test
+    void contextWithoutSalesLeavesTheSavedSnapshotAlone() {
+        TrendingSnapshot earlier = TrendingSnapshot.builder().id("1h:test").window("1h").instanceId("test").build();
+        snapshots.save(earlier);
+        
+        // A training run refreshes and closes the context without ever recording a sale
+        service.shutdown();
+        
+        assertThat(snapshots.findById("1h:test")).contains(earlier);
+        assertThat(snapshots.count()).isEqualTo(1);
+    }
+    
+    @Test
+    void salesAreSavedOnceAndAgainAfterAFailedSave() {
+        service.record(order("p1", 3));
+        doThrow(new IllegalStateException("database down")).when(snapshots).save(any(TrendingSnapshot.class));
+        service.snapshot();
+        assertThat(snapshots.count()).isZero();
+        
+        doCallRealMethod().when(snapshots).save(any(TrendingSnapshot.class));
+        service.snapshot();
+        assertThat(snapshots.findAllById(List.of("1h:test", "24h:test"))).hasSize(2)
+                .allSatisfy(snapshot -> assertThat(snapshot.getCandidates()).containsExactly("p1"));
+        
+        snapshots.deleteAll();
+        service.snapshot();
+        assertThat(snapshots.count()).isZero();
+    }
+    
+    private static Order order(String productId, int quantity) {
+        return Order.builder()
+                .items(List.of(OrderItem.builder().productId(productId).quantity(quantity).build()))
+                .build();
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.ecommerce.service;
+
+import com.example.ecommerce.dto.BulkCreateUsersResponse;
+import com.example.ecommerce.dto.CreateUserRequest;
+import com.example.ecommerce.model.User;
+import com.example.ecommerce.repository.memory.InMemoryUserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+class UserServiceTest {
+    
+    private final InMemoryUserRepository users = new InMemoryUserRepository();
+    private final UserAvailabilityFilter filter = new UserAvailabilityFilter(users);
+    private final UserService service = new UserService(users, filter);
+    
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(filter, "numBits", 1024);
+        filter.rebuild();
+        // Signed up on another instance, so this instance's filter has not seen it
+        users.insert(User.builder().username("alice").email("alice@example.com").role("USER").build());
+    }
+    
+    @Test
+    void bulkProvisioningReportsWhichIndexRejectedEachUser() {
+        BulkCreateUsersResponse response = service.createUsers(List.of(
+                request("bob", "bob@example.com"),
+                request("alice2", "alice@example.com"),
+                request("alice", "new@example.com"),
+                request("carol", "bob@example.com")));
+        
+        assertThat(response.getCreated()).isEqualTo(1);
+        assertThat(response.getUsers()).extracting(User::getUsername).containsExactly("bob");
+        assertThat(response.getFailures())
+                .extracting(BulkCreateUsersResponse.Failure::getIndex, BulkCreateUsersResponse.Failure::getField)
+                .containsExactly(
+                        tuple(1, "email"),
+                        tuple(2, "username"),
+                        tuple(3, "email"));
+        assertThat(users.findByUsername("bob")).isPresent();
+        assertThat(users.count()).isEqualTo(2);
+    }
+    
+    @Test
+    void signupRacingAnotherInstanceNamesTheTakenField() {
+        assertThatThrownBy(() -> service.createUser(request("alice2", "alice@example.com")))
+                .hasMessage("Email already exists: alice@example.com");
+        assertThatThrownBy(() -> service.createUser(request("alice", "other@example.com")))
+                .hasMessage("Username already exists: alice");
+    }
+    
+    private static CreateUserRequest request(String username, String email) {
+        return CreateUserRequest.builder().username(username).email(email).build();
+    }
+}